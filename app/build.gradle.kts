@@ -33,6 +33,16 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        unitTests.all {
+            // Timing benchmarks only run when asked for with -Pbenchmarks, and print their results
+            if (project.hasProperty("benchmarks")) {
+                it.testLogging.showStandardStreams = true
+            } else {
+                it.exclude("**/*Benchmark.class")
+            }
+        }
+    }
 }
 
 dependencies {
@@ -0,0 +1,88 @@
+package com.example.madproject.firebase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.madproject.models.Job;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Creates a job against the Firestore emulator with a stub {@link PushSender}.
+ * Start it first with: firebase emulators:start --only firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class JobPublishEmulatorTest {
+
+    @BeforeClass
+    public static void useEmulator() {
+        try {
+            // 10.0.2.2 is the host machine as seen from the Android emulator
+            FirebaseFirestore.getInstance().useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Already configured by an earlier test in this process
+        }
+    }
+
+    @After
+    public void restoreSender() {
+        JobManager.getInstance().setPushSender(new PushOutbox());
+    }
+
+    @Test
+    public void createJobPublishesJobToItsTopics() throws Exception {
+        CountDownLatch sent = new CountDownLatch(1);
+        Object[] captured = new Object[2];
+        JobManager.getInstance().setPushSender((topics, data) -> {
+            captured[0] = topics;
+            captured[1] = data;
+            sent.countDown();
+            return Tasks.forResult(null);
+        });
+
+        Job job = new Job();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setClientId("emulator-test-client");
+        job.setTitle("Kitchen tiling");
+        job.setDescription("Tile a 12 square metre kitchen floor");
+        job.setCategory("Tiling");
+        job.setLocation("Gulberg, Lahore");
+        job.setStatus("open");
+        job.setPostedDate(System.currentTimeMillis());
+        Tasks.await(JobManager.getInstance().createJob(job), 30, TimeUnit.SECONDS);
+
+        // The push is sent from the commit's success listener, on the main thread
+        assertTrue(sent.await(30, TimeUnit.SECONDS));
+        @SuppressWarnings("unchecked")
+        List<String> topics = (List<String>) captured[0];
+        @SuppressWarnings("unchecked")
+        Map<String, String> data = (Map<String, String>) captured[1];
+        assertEquals(Arrays.asList("jobs_category_tiling", "jobs_city_lahore"), topics);
+        assertEquals("job", data.get("type"));
+        assertEquals(job.getJobId(), data.get("relatedId"));
+
+        PushPayload payload = PushPayload.decode(data);
+        assertNotNull(payload);
+        assertEquals(PushPayload.ENTITY_JOB, payload.entity);
+        assertEquals(job.getJobId(), payload.id);
+        assertEquals(job.getPostedDate(), payload.version);
+        assertTrue(payload.full);
+        Job pushed = ModelMappers.JOB.fromMap(payload.fields);
+        assertEquals("Kitchen tiling", pushed.getTitle());
+        assertEquals("open", pushed.getStatus());
+    }
+}
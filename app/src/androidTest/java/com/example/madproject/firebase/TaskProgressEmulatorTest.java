@@ -0,0 +1,146 @@
+package com.example.madproject.firebase;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.madproject.models.Task;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs progress updates against the Firestore emulator, through the same
+ * {@link TaskManager#updateProgress(Context, Task, double)} path the task screen uses.
+ * Start it first with: firebase emulators:start --only firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class TaskProgressEmulatorTest {
+
+    private static final int THREADS = 16;
+    private static final int UPDATES_PER_THREAD = 5;
+
+    @BeforeClass
+    public static void useEmulator() {
+        try {
+            // 10.0.2.2 is the host machine as seen from the Android emulator
+            FirebaseFirestore.getInstance().useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Already configured by an earlier test in this process
+        }
+    }
+
+    @Test
+    public void concurrentIncrementsAreNotLost() throws Exception {
+        Task task = createTask(1000);
+
+        hammer(task.getTaskId(), 1.0);
+
+        Task stored = readTask(task.getTaskId());
+        double expected = THREADS * UPDATES_PER_THREAD;
+        assertEquals(expected, stored.getCompletedQuantity(), 0.0001);
+        assertEquals(expected / 1000 * 100, stored.getProgressPercentage(), 0.0001);
+        assertNotEquals("completed", stored.getStatus());
+    }
+
+    @Test
+    public void replayedQueuedIncrementIsCountedOnce() throws Exception {
+        Task task = createTask(1000);
+
+        // The offline queue resends under the same key if the first ack was lost
+        String key = UUID.randomUUID().toString();
+        Tasks.await(TaskManager.getInstance().incrementProgress(task.getTaskId(), 3.0, key), 30, TimeUnit.SECONDS);
+        Tasks.await(TaskManager.getInstance().incrementProgress(task.getTaskId(), 3.0, key), 30, TimeUnit.SECONDS);
+
+        assertEquals(3.0, readTask(task.getTaskId()).getCompletedQuantity(), 0.0001);
+    }
+
+    @Test
+    public void reachingEstimateCompletesTask() throws Exception {
+        Task task = createTask(THREADS * UPDATES_PER_THREAD - 10);
+
+        hammer(task.getTaskId(), 1.0);
+
+        Task stored = readTask(task.getTaskId());
+        assertEquals(THREADS * UPDATES_PER_THREAD, stored.getCompletedQuantity(), 0.0001);
+        assertEquals(100.0, stored.getProgressPercentage(), 0.0001);
+        assertEquals("completed", stored.getStatus());
+    }
+
+    @Test
+    public void correctionBelowEstimateReopensTask() throws Exception {
+        Task task = createTask(10);
+
+        Tasks.await(TaskManager.getInstance().incrementProgress(task.getTaskId(), 10.0), 30, TimeUnit.SECONDS);
+        assertEquals("completed", readTask(task.getTaskId()).getStatus());
+
+        // Work recorded by mistake is taken back off
+        Tasks.await(TaskManager.getInstance().incrementProgress(task.getTaskId(), -4.0), 30, TimeUnit.SECONDS);
+        Task stored = readTask(task.getTaskId());
+        assertEquals(6.0, stored.getCompletedQuantity(), 0.0001);
+        assertEquals(60.0, stored.getProgressPercentage(), 0.0001);
+        assertEquals("ongoing", stored.getStatus());
+    }
+
+    // Each worker is a device holding its own copy of the task, as loaded before the others
+    // changed it, and records work from the value it shows
+    private void hammer(String taskId, double delta) throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Task device = readTask(taskId);
+                Callable<Void> worker = () -> {
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        Tasks.await(TaskManager.getInstance().updateProgress(context, device,
+                                device.getCompletedQuantity() + delta), 30, TimeUnit.SECONDS);
+                    }
+                    return null;
+                };
+                results.add(pool.submit(worker));
+            }
+            for (Future<Void> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Task createTask(double estimatedQuantity) throws Exception {
+        Task task = new Task();
+        task.setTaskId(UUID.randomUUID().toString());
+        task.setJobId("emulator-test-job");
+        task.setTaskTitle("Brickwork");
+        task.setStatus("ongoing");
+        task.setProgressUnit("pieces");
+        task.setEstimatedQuantity(estimatedQuantity);
+        task.setCreatedAt(System.currentTimeMillis());
+        Tasks.await(TaskManager.getInstance().createTask(task), 30, TimeUnit.SECONDS);
+        return task;
+    }
+
+    private Task readTask(String taskId) throws Exception {
+        DocumentSnapshot snapshot = Tasks.await(TaskManager.getInstance().getTask(taskId),
+                30, TimeUnit.SECONDS);
+        return ModelMappers.TASK.fromSnapshot(snapshot);
+    }
+}
@@ -93,22 +93,10 @@ public class AddMaterialActivity extends AppCompatActivity {
         material.setDescription(description);
         material.setAddedBy(currentUserId);
 
-        // Show loading
-        showLoading(true);
-
-        // Save to Firebase
-        MaterialManager.getInstance()
-                .createMaterial(material)
-                .addOnSuccessListener(aVoid -> {
-                    showLoading(false);
-                    Toast.makeText(this, "Material saved successfully!", Toast.LENGTH_SHORT).show();
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Toast.makeText(this, "Error saving material: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                });
+        // Save locally; the write is sent to Firebase as soon as the device is online
+        MaterialManager.getInstance().queueCreateMaterial(this, material);
+        Toast.makeText(this, "Material saved successfully!", Toast.LENGTH_SHORT).show();
+        finish();
     }
 
     private boolean validateInputs() {
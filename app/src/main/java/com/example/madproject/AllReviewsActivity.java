@@ -15,11 +15,11 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.ReviewAdapter;
 import com.example.madproject.firebase.ReviewManager;
+import com.example.madproject.helpers.SnapshotMapper;
 import com.example.madproject.models.Review;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.example.madproject.models.mappers.ModelMappers;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class AllReviewsActivity extends AppCompatActivity {
@@ -87,28 +87,24 @@ public class AllReviewsActivity extends AppCompatActivity {
     private void loadReviews() {
         showLoading(true);
 
-        ReviewManager.getInstance()
-                .getReviewsByContractor(contractorId)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
+        // Map and sort off the main thread (newest first)
+        SnapshotMapper.map(
+                ReviewManager.getInstance().getReviewsByContractor(contractorId),
+                ModelMappers.REVIEW,
+                null,
+                (r1, r2) -> Long.compare(r2.getReviewDate(), r1.getReviewDate()),
+                reviews -> {
+                    if (isFinishing() || isDestroyed()) return;
                     showLoading(false);
 
                     reviewList.clear();
+                    reviewList.addAll(reviews);
 
                     float totalRating = 0;
-                    int count = 0;
-
-                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Review review = doc.toObject(Review.class);
-                        if (review != null) {
-                            reviewList.add(review);
-                            totalRating += review.getRating();
-                            count++;
-                        }
+                    for (Review review : reviews) {
+                        totalRating += review.getRating();
                     }
-
-                    // Sort by date (newest first)
-                    Collections.sort(reviewList, (r1, r2) ->
-                            Long.compare(r2.getReviewDate(), r1.getReviewDate()));
+                    int count = reviews.size();
 
                     reviewAdapter.notifyDataSetChanged();
                     updateEmptyState();
@@ -128,8 +124,8 @@ public class AllReviewsActivity extends AppCompatActivity {
                     }
 
                     Log.d(TAG, "Loaded " + reviewList.size() + " reviews");
-                })
-                .addOnFailureListener(e -> {
+                },
+                e -> {
                     showLoading(false);
                     Log.e(TAG, "Error loading reviews: " + e.getMessage());
                     Toast.makeText(this, "Error loading reviews", Toast.LENGTH_SHORT).show();
@@ -19,14 +19,20 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.JobAdapter;
+import com.example.madproject.firebase.EntityCache;
 import com.example.madproject.firebase.JobManager;
+import com.example.madproject.firebase.PushPayload;
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.helpers.SnapshotMapper;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 public class AvailableJobsActivity extends AppCompatActivity {
 
@@ -45,6 +51,8 @@ public class AvailableJobsActivity extends AppCompatActivity {
     private JobAdapter jobAdapter;
     private List<Job> allJobsList;
     private List<Job> filteredJobsList;
+    private Executor filterExecutor;
+    private final EntityCache.OnEntityChangedListener jobsObserver = this::onPushedEntity;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,12 +63,17 @@ public class AvailableJobsActivity extends AppCompatActivity {
         mAuth = FirebaseAuth.getInstance();
         currentUserId = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : "";
 
+        filterExecutor = AppExecutors.getInstance().newSerialExecutor();
+
         initViews();
         setupToolbar();
         setupCategorySpinner();
         setupRecyclerView();
         setupSearchFilter();
         loadOpenJobs();
+
+        // New jobs pushed while the screen is open are merged in as they arrive
+        EntityCache.getInstance(this).addObserver(jobsObserver);
     }
 
     @Override
@@ -128,7 +141,7 @@ public class AvailableJobsActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        allJobsList = new ArrayList<>();
+        allJobsList = Collections.emptyList();
         filteredJobsList = new ArrayList<>();
 
         jobAdapter = new JobAdapter(this, filteredJobsList, job -> {
@@ -163,29 +176,23 @@ public class AvailableJobsActivity extends AppCompatActivity {
         Log.d(TAG, "Loading all open jobs");
         showLoading(true);
 
-        JobManager.getInstance()
-                .getOpenJobs()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Log.d(TAG, "Open jobs loaded: " + queryDocumentSnapshots.size());
+        // Map and sort off the main thread (newest first)
+        SnapshotMapper.map(
+                JobManager.getInstance().getOpenJobs(),
+                ModelMappers.JOB,
+                null,
+                (j1, j2) -> Long.compare(j2.getPostedDate(), j1.getPostedDate()),
+                jobs -> {
+                    if (isFinishing() || isDestroyed()) return;
+                    Log.d(TAG, "Open jobs loaded: " + jobs.size());
                     showLoading(false);
 
-                    allJobsList.clear();
-
-                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Job job = doc.toObject(Job.class);
-                        if (job != null) {
-                            allJobsList.add(job);
-                        }
-                    }
-
-                    // Sort by posted date (newest first)
-                    Collections.sort(allJobsList, (j1, j2) ->
-                            Long.compare(j2.getPostedDate(), j1.getPostedDate()));
+                    allJobsList = jobs;
 
                     // Apply filters
                     filterJobs();
-                })
-                .addOnFailureListener(e -> {
+                },
+                e -> {
                     showLoading(false);
                     Log.e(TAG, "Error loading jobs: " + e.getMessage());
                     Toast.makeText(this, "Error loading jobs: " + e.getMessage(),
@@ -193,26 +200,59 @@ public class AvailableJobsActivity extends AppCompatActivity {
                 });
     }
 
+    // A pushed job joins the list while it is open and leaves it once it isn't
+    private void onPushedEntity(String entity, String id, Map<String, Object> fields) {
+        if (!PushPayload.ENTITY_JOB.equals(entity)) return;
+
+        List<Job> jobs = new ArrayList<>(allJobsList.size() + 1);
+        for (Job job : allJobsList) {
+            if (!id.equals(job.getJobId())) {
+                jobs.add(job);
+            }
+        }
+        Job job = fields != null ? ModelMappers.JOB.fromMap(fields) : null;
+        if (job != null && "open".equals(job.getStatus())) {
+            jobs.add(job);
+            Collections.sort(jobs, (j1, j2) -> Long.compare(j2.getPostedDate(), j1.getPostedDate()));
+        }
+        allJobsList = jobs;
+        filterJobs();
+    }
+
     private void filterJobs() {
         String searchQuery = etSearch.getText().toString().toLowerCase().trim();
         String selectedCategory = spinnerCategory.getSelectedItem().toString();
+        List<Job> source = allJobsList;
 
-        filteredJobsList.clear();
+        // Filter on the worker; the serial executor keeps keystrokes in order
+        filterExecutor.execute(() -> {
+            List<Job> filtered = SnapshotMapper.filter(source, job ->
+                    matchesFilters(job, searchQuery, selectedCategory));
+            AppExecutors.getInstance().mainThread().execute(() -> showFilteredJobs(filtered));
+        });
+    }
 
-        for (Job job : allJobsList) {
-            boolean matchesSearch = searchQuery.isEmpty() ||
-                    job.getTitle().toLowerCase().contains(searchQuery) ||
-                    job.getDescription().toLowerCase().contains(searchQuery) ||
-                    job.getLocation().toLowerCase().contains(searchQuery);
+    private boolean matchesFilters(Job job, String searchQuery, String selectedCategory) {
+        boolean matchesSearch = searchQuery.isEmpty() ||
+                containsIgnoreCase(job.getTitle(), searchQuery) ||
+                containsIgnoreCase(job.getDescription(), searchQuery) ||
+                containsIgnoreCase(job.getLocation(), searchQuery);
 
-            boolean matchesCategory = selectedCategory.equals("All Categories") ||
-                    job.getCategory().equals(selectedCategory);
+        boolean matchesCategory = selectedCategory.equals("All Categories") ||
+                selectedCategory.equals(job.getCategory());
 
-            if (matchesSearch && matchesCategory) {
-                filteredJobsList.add(job);
-            }
-        }
+        return matchesSearch && matchesCategory;
+    }
+
+    private boolean containsIgnoreCase(String value, String lowerCaseQuery) {
+        return value != null && value.toLowerCase().contains(lowerCaseQuery);
+    }
+
+    private void showFilteredJobs(List<Job> jobs) {
+        if (isFinishing() || isDestroyed()) return;
 
+        filteredJobsList.clear();
+        filteredJobsList.addAll(jobs);
         jobAdapter.notifyDataSetChanged();
 
         // Show/hide empty state
@@ -237,6 +277,12 @@ public class AvailableJobsActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        EntityCache.getInstance(this).removeObserver(jobsObserver);
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
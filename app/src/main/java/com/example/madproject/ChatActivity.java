@@ -2,38 +2,76 @@ package com.example.madproject;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
+import android.widget.ArrayAdapter;
 import android.widget.EditText;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.MessageAdapter;
+import com.example.madproject.firebase.MessageBucketManager;
 import com.example.madproject.firebase.MessageManager;
+import com.example.madproject.firebase.OfflineWriteQueue;
 import com.example.madproject.firebase.UserManager;
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.helpers.ChatStore;
+import com.example.madproject.helpers.SnapshotMapper;
 import com.example.madproject.models.Message;
 import com.example.madproject.models.User;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 public class ChatActivity extends AppCompatActivity {
 
     private static final String TAG = "ChatActivity";
+    // A message not confirmed by the server within this time is shown as failed; the queue
+    // keeps trying in the background and the user can retry it now
+    private static final long SEND_TIMEOUT_MS = 15000L;
+    // Messages read from the device per page
+    private static final int PAGE_SIZE = 50;
+    // History not on the device is read in pages of message buckets (up to 100 messages each)
+    private static final int HISTORY_PAGE_SIZE = 2;
+    // The listener re-reads this much before the sync watermark, for messages that reached the
+    // server late (sent offline) with an older device timestamp
+    private static final long SYNC_OVERLAP_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final int SEARCH_RESULTS = 50;
+    // Start loading older history when this close to the top of the list
+    private static final int LOAD_AHEAD = 10;
 
     private RecyclerView rvMessages;
     private EditText etMessage;
@@ -52,6 +90,25 @@ public class ChatActivity extends AppCompatActivity {
     private List<Message> messageList;
     private ListenerRegistration messageListener;
 
+    // Messages sent from this screen that the server snapshot doesn't include yet, in send
+    // order, and the queue key each one's latest send attempt was enqueued under
+    private final Map<String, Message> unconfirmedMessages = new LinkedHashMap<>();
+    private final Map<String, String> sendKeys = new HashMap<>();
+    private List<Message> serverMessages = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private OfflineWriteQueue.OnWriteResultListener writeResultListener;
+
+    // History read from the device or from message buckets, plus messages compacted while shown
+    private final Map<String, Message> historyMessages = new HashMap<>();
+    private boolean hasMoreHistory = true;
+    private boolean loadingHistory;
+    private boolean firstSnapshotShown;
+
+    // Local copy of the chat; every read and write goes through diskExecutor, which also
+    // receives the listener's snapshots so they are saved in order
+    private ChatStore chatStore;
+    private Executor diskExecutor;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -86,7 +143,15 @@ public class ChatActivity extends AppCompatActivity {
         setupClickListeners();
         loadCurrentUser();
         loadReceiverUser();
+        chatStore = ChatStore.getInstance(this);
+        diskExecutor = AppExecutors.getInstance().newSerialExecutor();
         loadMessages();
+
+        // Pack settled messages into buckets so the next open reads less
+        MessageBucketManager.getInstance().compact(chatId)
+                .addOnFailureListener(e -> Log.w(TAG, "Chat compaction failed: " + e.getMessage()));
+        MessageManager.getInstance().backfillReadFlags(chatId, currentUserId)
+                .addOnFailureListener(e -> Log.w(TAG, "Read flag backfill failed: " + e.getMessage()));
     }
 
     private void initViews() {
@@ -114,6 +179,15 @@ public class ChatActivity extends AppCompatActivity {
         layoutManager.setStackFromEnd(true);
         rvMessages.setLayoutManager(layoutManager);
 
+        rvMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= LOAD_AHEAD) {
+                    loadHistory();
+                }
+            }
+        });
+
         // Disable send button initially
         btnSend.setEnabled(false);
         btnSend.setAlpha(0.5f);
@@ -121,8 +195,25 @@ public class ChatActivity extends AppCompatActivity {
 
     private void setupRecyclerView() {
         messageList = new ArrayList<>();
-        messageAdapter = new MessageAdapter(this, messageList);
+        messageAdapter = new MessageAdapter(this, messageList, this::retryMessage);
         rvMessages.setAdapter(messageAdapter);
+
+        writeResultListener = new OfflineWriteQueue.OnWriteResultListener() {
+            @Override
+            public void onWriteSucceeded(String idempotencyKey) {
+                // Nothing to do: the message leaves the unconfirmed list when the snapshot has it
+            }
+
+            @Override
+            public void onWriteDropped(String idempotencyKey, String error) {
+                Message message = findBySendKey(idempotencyKey);
+                if (message != null) {
+                    Log.e(TAG, "Message " + message.getMessageId() + " was rejected: " + error);
+                    markFailed(message);
+                }
+            }
+        };
+        OfflineWriteQueue.getInstance(this).addWriteResultListener(writeResultListener);
     }
 
     private void setupClickListeners() {
@@ -209,77 +300,419 @@ public class ChatActivity extends AppCompatActivity {
                 messageText
         );
 
-        // Set receiver name if available
+        // Names and photos are copied into both participants' inbox entries
+        message.setSenderPhotoUrl(currentUser.getProfilePictureUrl());
         if (receiverUser != null) {
             message.setReceiverName(receiverUser.getFullName());
+            message.setReceiverPhotoUrl(receiverUser.getProfilePictureUrl());
+        } else {
+            message.setReceiverName(getIntent().getStringExtra("receiverName"));
         }
 
         // Clear input immediately for better UX
         etMessage.setText("");
 
-        MessageManager.getInstance()
-                .createMessage(message)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Message sent successfully");
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error sending message: " + e.getMessage());
-                    Toast.makeText(ChatActivity.this,
-                            "Failed to send message", Toast.LENGTH_SHORT).show();
-                });
+        // Shown straight away as pending, then replaced by the server's copy when it arrives
+        message.setClientSequence(MessageManager.getInstance().nextClientSequence());
+        message.setSendState(Message.SEND_PENDING);
+        unconfirmedMessages.put(messageId, message);
+        showMessages();
+
+        // Queued durably and sent (with retries) when the device is online
+        sendKeys.put(messageId, MessageManager.getInstance().queueCreateMessage(this, message));
+        scheduleSendTimeout(message);
+    }
+
+    private void retryMessage(Message message) {
+        if (!unconfirmedMessages.containsKey(message.getMessageId())) return;
+
+        message.setSendState(Message.SEND_PENDING);
+        String key = MessageManager.getInstance().retryMessage(this, message, sendKeys.get(message.getMessageId()));
+        sendKeys.put(message.getMessageId(), key);
+        scheduleSendTimeout(message);
+        showMessages();
+    }
+
+    private void scheduleSendTimeout(Message message) {
+        handler.postDelayed(() -> {
+            if (message.isPending() && unconfirmedMessages.containsKey(message.getMessageId())) {
+                markFailed(message);
+            }
+        }, SEND_TIMEOUT_MS);
     }
 
+    private void markFailed(Message message) {
+        if (!unconfirmedMessages.containsKey(message.getMessageId())) return;
+        message.setSendState(Message.SEND_FAILED);
+        showMessages();
+    }
+
+    private Message findBySendKey(String key) {
+        for (Map.Entry<String, String> entry : sendKeys.entrySet()) {
+            if (entry.getValue().equals(key)) {
+                return unconfirmedMessages.get(entry.getKey());
+            }
+        }
+        return null;
+    }
+
+    // First paint comes from the device; the listener then only fetches what is newer
     private void loadMessages() {
         Log.d(TAG, "Loading messages for chat: " + chatId);
 
-        // Use real-time listener for messages
-        MessageManager.getInstance().listenToMessages(chatId, new MessageManager.OnMessagesChangedListener() {
+        AppExecutors executors = AppExecutors.getInstance();
+        diskExecutor.execute(() -> {
+            long watermark = chatStore.getWatermark(chatId);
+            List<Message> cached = chatStore.getLatest(chatId, PAGE_SIZE);
+            executors.mainThread().execute(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                for (Message message : cached) {
+                    historyMessages.put(message.getMessageId(), message);
+                }
+                if (!cached.isEmpty()) {
+                    showMessages();
+                }
+                listenToMessages(watermark);
+            });
+        });
+    }
+
+    private void listenToMessages(long watermark) {
+        AppExecutors executors = AppExecutors.getInstance();
+        long since = watermark > 0 ? watermark - SYNC_OVERLAP_MILLIS : 0;
+
+        // Use real-time listener for messages; snapshots are mapped and saved on a worker thread
+        messageListener = MessageManager.getInstance().listenToMessagesSince(chatId, since,
+                diskExecutor, new MessageManager.OnMessagesChangedListener() {
             @Override
-            public void onMessagesChanged(com.google.firebase.firestore.QuerySnapshot messages) {
+            public void onMessagesChanged(QuerySnapshot messages) {
                 Log.d(TAG, "Messages updated: " + messages.size());
 
-                messageList.clear();
-
-                for (DocumentSnapshot doc : messages) {
-                    Message message = doc.toObject(Message.class);
-                    if (message != null) {
-                        messageList.add(message);
+                // Sort by server time (oldest first for chat)
+                List<Message> mapped = SnapshotMapper.toList(messages, ModelMappers.MESSAGE, null,
+                        MessageManager::compareForChat);
+
+                // Save what changed. The watermark only moves on server data: a snapshot from
+                // the local cache may be missing messages
+                List<Message> changed = new ArrayList<>();
+                List<Message> compacted = new ArrayList<>();
+                for (DocumentChange change : messages.getDocumentChanges()) {
+                    Message message = ModelMappers.MESSAGE.fromSnapshot(change.getDocument());
+                    if (message == null) continue;
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        // It left the live set because it was compacted into a bucket; keep showing it
+                        compacted.add(message);
+                    } else {
+                        changed.add(message);
+                    }
+                }
+                chatStore.save(changed);
+                if (!messages.getMetadata().isFromCache() && !mapped.isEmpty()) {
+                    long newest = 0;
+                    for (Message message : mapped) {
+                        newest = Math.max(newest, message.getTimestamp());
+                    }
+                    chatStore.advanceWatermark(chatId, newest);
+                }
 
-                        // Mark message as read if it's for current user and unread
-                        if (message.getReceiverId().equals(currentUserId) && !message.isRead()) {
-                            MessageManager.getInstance().markAsRead(message.getMessageId());
-                        }
+                // Mark message as read if it's for current user and unread
+                boolean markedRead = false;
+                for (Message message : mapped) {
+                    if (currentUserId.equals(message.getReceiverId()) && !message.isRead()) {
+                        MessageManager.getInstance().markAsRead(message.getMessageId());
+                        markedRead = true;
                     }
                 }
+                if (markedRead) {
+                    MessageManager.getInstance().markChatRead(chatId, currentUserId);
+                }
 
-                // Sort by timestamp (oldest first for chat)
-                Collections.sort(messageList, (m1, m2) ->
-                        Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+                executors.mainThread().execute(() -> {
+                    for (Message message : compacted) {
+                        historyMessages.put(message.getMessageId(), message);
+                    }
+                    onServerMessages(mapped);
+                });
+            }
 
-                messageAdapter.notifyDataSetChanged();
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error loading messages: " + error);
+                executors.mainThread().execute(() -> {
+                    if (isFinishing() || isDestroyed()) return;
+                    Toast.makeText(ChatActivity.this,
+                            "Error loading messages", Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
+
+        if (watermark > 0) {
+            catchUpCompactedHistory(since);
+        }
+    }
+
+    // Messages that arrived and were compacted while this device was away are only in buckets
+    private void catchUpCompactedHistory(long since) {
+        MessageBucketManager.getInstance()
+                .getBucketsSince(chatId, since)
+                .addOnSuccessListener(buckets -> {
+                    if (!buckets.isEmpty()) {
+                        addHistory(MessageBucketManager.unpack(buckets), true);
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Error catching up chat history: " + e.getMessage()));
+    }
 
-                // Scroll to bottom
-                if (!messageList.isEmpty()) {
-                    rvMessages.scrollToPosition(messageList.size() - 1);
+    // Reads the next page of older history: from the device first, then from message buckets
+    // once the device has nothing older
+    private void loadHistory() {
+        if (!hasMoreHistory || loadingHistory) return;
+
+        loadingHistory = true;
+        long oldest = oldestLoadedTimestamp();
+        AppExecutors executors = AppExecutors.getInstance();
+        diskExecutor.execute(() -> {
+            List<Message> older = chatStore.getBefore(chatId, oldest, PAGE_SIZE);
+            executors.mainThread().execute(() -> {
+                if (!older.isEmpty()) {
+                    loadingHistory = false;
+                    addHistory(older, false);
+                } else {
+                    loadBucketHistory(oldest);
                 }
+            });
+        });
+    }
+
+    private void loadBucketHistory(long beforeTimestamp) {
+        MessageBucketManager.getInstance()
+                .getBucketsBefore(chatId, beforeTimestamp, HISTORY_PAGE_SIZE)
+                .addOnSuccessListener(page -> {
+                    loadingHistory = false;
+                    if (page.isEmpty()) {
+                        hasMoreHistory = false;
+                        return;
+                    }
+                    addHistory(MessageBucketManager.unpack(page), true);
+                })
+                .addOnFailureListener(e -> {
+                    loadingHistory = false;
+                    Log.e(TAG, "Error loading chat history: " + e.getMessage());
+                });
+    }
+
+    private void addHistory(List<Message> messages, boolean save) {
+        if (save) {
+            diskExecutor.execute(() -> chatStore.save(messages));
+        }
+        for (Message message : messages) {
+            historyMessages.put(message.getMessageId(), message);
+        }
+        showMessagesKeepingPosition();
+    }
+
+    private long oldestLoadedTimestamp() {
+        long oldest = Long.MAX_VALUE;
+        for (Message message : historyMessages.values()) {
+            oldest = Math.min(oldest, message.getTimestamp());
+        }
+        for (Message message : serverMessages) {
+            oldest = Math.min(oldest, message.getTimestamp());
+        }
+        return oldest;
+    }
+
+    // Reconciles by messageId: a message the server has stored replaces the local copy
+    private void onServerMessages(List<Message> messages) {
+        serverMessages = messages;
+        for (Message message : messages) {
+            if (unconfirmedMessages.remove(message.getMessageId()) != null) {
+                sendKeys.remove(message.getMessageId());
+            }
+        }
+        showMessages();
+
+        // A short chat (or one opened for the first time) may not fill the screen
+        if (!firstSnapshotShown) {
+            firstSnapshotShown = true;
+            if (messageList.size() < PAGE_SIZE) {
+                loadHistory();
+            }
+        }
+    }
+
+    private void showMessages() {
+        if (isFinishing() || isDestroyed()) return;
+
+        rebuildMessageList();
+
+        // Scroll to bottom
+        if (!messageList.isEmpty()) {
+            rvMessages.scrollToPosition(messageList.size() - 1);
+        }
+    }
+
+    // Older messages are added above the visible ones, so keep the first visible one in place
+    private void showMessagesKeepingPosition() {
+        if (isFinishing() || isDestroyed()) return;
+
+        LinearLayoutManager layoutManager = (LinearLayoutManager) rvMessages.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        String anchorId = first != RecyclerView.NO_POSITION ? messageList.get(first).getMessageId() : null;
+        View anchorView = layoutManager.findViewByPosition(first);
+        int offset = anchorView != null ? anchorView.getTop() : 0;
+
+        rebuildMessageList();
+
+        if (anchorId == null) {
+            if (!messageList.isEmpty()) {
+                rvMessages.scrollToPosition(messageList.size() - 1);
+            }
+            return;
+        }
+        for (int i = 0; i < messageList.size(); i++) {
+            if (anchorId.equals(messageList.get(i).getMessageId())) {
+                layoutManager.scrollToPositionWithOffset(i, offset);
+                break;
             }
+        }
+    }
 
+    // Stored messages (live and compacted, live copy winning) in chat order; unconfirmed
+    // messages sort after every stored one, in send order
+    private void rebuildMessageList() {
+        List<Message> stored = new ArrayList<>(serverMessages);
+        Set<String> live = new HashSet<>();
+        for (Message message : serverMessages) {
+            live.add(message.getMessageId());
+        }
+        for (Message message : historyMessages.values()) {
+            if (!live.contains(message.getMessageId())) {
+                stored.add(message);
+            }
+        }
+        Collections.sort(stored, MessageManager::compareForChat);
+
+        messageList.clear();
+        messageList.addAll(stored);
+        messageList.addAll(unconfirmedMessages.values());
+        messageAdapter.notifyDataSetChanged();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_chat, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_search_messages) {
+            showSearchDialog();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    // Searches the device's copy of the chat as the user types, so it also works offline
+    private void showSearchDialog() {
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        LinearLayout content = new LinearLayout(this);
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setPadding(padding, padding / 2, padding, 0);
+
+        EditText etQuery = new EditText(this);
+        etQuery.setHint("Search this chat");
+        etQuery.setSingleLine(true);
+        content.addView(etQuery);
+
+        List<Message> results = new ArrayList<>();
+        ArrayAdapter<String> resultsAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1);
+        ListView lvResults = new ListView(this);
+        lvResults.setAdapter(resultsAdapter);
+        content.addView(lvResults, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, (int) (320 * getResources().getDisplayMetrics().density)));
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle("Search Messages")
+                .setView(content)
+                .setNegativeButton("Close", null)
+                .create();
+
+        AppExecutors executors = AppExecutors.getInstance();
+        etQuery.addTextChangedListener(new TextWatcher() {
             @Override
-            public void onError(String error) {
-                Log.e(TAG, "Error loading messages: " + error);
-                Toast.makeText(ChatActivity.this,
-                        "Error loading messages", Toast.LENGTH_SHORT).show();
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String query = s.toString();
+                diskExecutor.execute(() -> {
+                    List<Message> found = chatStore.search(chatId, query, SEARCH_RESULTS);
+                    executors.mainThread().execute(() -> {
+                        // Drop results for text that has since changed
+                        if (!query.equals(etQuery.getText().toString())) return;
+                        results.clear();
+                        results.addAll(found);
+                        resultsAdapter.clear();
+                        for (Message message : found) {
+                            resultsAdapter.add(formatSearchResult(message));
+                        }
+                    });
+                });
             }
         });
+
+        lvResults.setOnItemClickListener((parent, view, position, id) -> {
+            dialog.dismiss();
+            scrollToMessage(results.get(position));
+        });
+
+        dialog.show();
+    }
+
+    private String formatSearchResult(Message message) {
+        String sender = currentUserId.equals(message.getSenderId()) ? "You" : message.getSenderName();
+        String date = new SimpleDateFormat("dd MMM yyyy", Locale.getDefault()).format(new Date(message.getTimestamp()));
+        return (sender != null ? sender : "User") + " - " + date + "\n" + message.getMessageText();
+    }
+
+    // Loads everything from the hit onwards from the device so the hit can be shown in place
+    private void scrollToMessage(Message target) {
+        AppExecutors executors = AppExecutors.getInstance();
+        diskExecutor.execute(() -> {
+            List<Message> since = chatStore.getSince(chatId, target.getTimestamp());
+            executors.mainThread().execute(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                for (Message message : since) {
+                    historyMessages.put(message.getMessageId(), message);
+                }
+                historyMessages.put(target.getMessageId(), target);
+                rebuildMessageList();
+                for (int i = 0; i < messageList.size(); i++) {
+                    if (target.getMessageId().equals(messageList.get(i).getMessageId())) {
+                        ((LinearLayoutManager) rvMessages.getLayoutManager()).scrollToPositionWithOffset(i, 0);
+                        break;
+                    }
+                }
+            });
+        });
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Clean up listener if we stored it
+        // Clean up listener
         if (messageListener != null) {
             messageListener.remove();
         }
+        if (writeResultListener != null) {
+            OfflineWriteQueue.getInstance(this).removeWriteResultListener(writeResultListener);
+        }
+        handler.removeCallbacksAndMessages(null);
     }
 
     @Override
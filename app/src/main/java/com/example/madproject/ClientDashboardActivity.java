@@ -16,11 +16,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.JobAdapter;
+import com.example.madproject.firebase.CountersManager;
 import com.example.madproject.firebase.JobManager;
+import com.example.madproject.firebase.NotificationFanoutManager;
 import com.example.madproject.firebase.UserManager;
+import com.example.madproject.firebase.UserStatsManager;
 import com.example.madproject.helpers.FCMHelper;
 import com.example.madproject.models.Job;
 import com.example.madproject.models.User;
+import com.example.madproject.models.UserCounters;
+import com.example.madproject.models.UserStats;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.material.badge.BadgeDrawable;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
@@ -35,6 +42,8 @@ public class ClientDashboardActivity extends AppCompatActivity {
     private static final String TAG = "ClientDashboard";
 
     private TextView tvWelcome, tvUserName, tvViewAllJobs;
+    private TextView tvActiveJobsCount, tvCompletedJobsCount, tvTotalSpent;
+    private TextView tvNotificationBadge;
     private ImageView btnNotifications;
     private RecyclerView rvMyJobs;
     private LinearLayout emptyState;
@@ -49,6 +58,7 @@ public class ClientDashboardActivity extends AppCompatActivity {
 
     private JobAdapter jobAdapter;
     private List<Job> jobList;
+    private final CountersManager.OnCountersChangedListener countersObserver = this::displayCounters;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -72,10 +82,17 @@ public class ClientDashboardActivity extends AppCompatActivity {
 
         // Load user data and jobs
         loadUserData();
+        loadUserStats();
         loadUserJobs();
+        listenToCounters();
 
         // Register FCM token for push notifications
-        FCMHelper.registerFCMToken();
+        FCMHelper.registerFCMToken(this);
+
+        // Finish any broadcast interrupted by the app closing
+        if (!currentUserId.isEmpty()) {
+            NotificationFanoutManager.getInstance().resumePending(currentUserId);
+        }
     }
 
     @Override
@@ -83,6 +100,7 @@ public class ClientDashboardActivity extends AppCompatActivity {
         super.onResume();
         // Refresh jobs when returning to dashboard
         Log.d(TAG, "onResume - Refreshing jobs");
+        loadUserStats();
         loadUserJobs();
     }
 
@@ -90,7 +108,11 @@ public class ClientDashboardActivity extends AppCompatActivity {
         tvWelcome = findViewById(R.id.tvWelcome);
         tvUserName = findViewById(R.id.tvUserName);
         tvViewAllJobs = findViewById(R.id.tvViewAllJobs);
+        tvActiveJobsCount = findViewById(R.id.tvActiveJobsCount);
+        tvCompletedJobsCount = findViewById(R.id.tvCompletedJobsCount);
+        tvTotalSpent = findViewById(R.id.tvTotalSpent);
         btnNotifications = findViewById(R.id.btnNotifications);
+        tvNotificationBadge = findViewById(R.id.tvNotificationBadge);
         rvMyJobs = findViewById(R.id.rvMyJobs);
         emptyState = findViewById(R.id.emptyState);
         btnPostJob = findViewById(R.id.btnPostJob);
@@ -166,8 +188,7 @@ public class ClientDashboardActivity extends AppCompatActivity {
                 startActivity(new Intent(ClientDashboardActivity.this, ContractorDirectoryActivity.class));
                 return true;
             } else if (id == R.id.nav_messages) {
-                // TODO: Create ConversationsListActivity to show all chats
-                Toast.makeText(this, "Access messages from contractor profiles or job details", Toast.LENGTH_LONG).show();
+                startActivity(new Intent(ClientDashboardActivity.this, ConversationsListActivity.class));
                 return true;
             } else if (id == R.id.nav_profile) {
                 startActivity(new Intent(ClientDashboardActivity.this, SettingsActivity.class));
@@ -219,6 +240,39 @@ public class ClientDashboardActivity extends AppCompatActivity {
         }
     }
 
+    private void loadUserStats() {
+        if (currentUserId.isEmpty()) {
+            return;
+        }
+
+        UserStatsManager.getInstance()
+                .getStatsObject(currentUserId, new UserStatsManager.OnStatsLoadedListener() {
+                    @Override
+                    public void onStatsLoaded(UserStats stats) {
+                        tvActiveJobsCount.setText(String.valueOf(stats.getActiveJobs()));
+                        tvCompletedJobsCount.setText(String.valueOf(stats.getCompletedJobs()));
+                        tvTotalSpent.setText("Rs. " + formatCurrency(stats.getTotalSpent()));
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Error loading stats: " + error);
+                    }
+                });
+    }
+
+    private String formatCurrency(double amount) {
+        if (amount >= 10000000) {
+            return String.format("%.1f Cr", amount / 10000000);
+        } else if (amount >= 100000) {
+            return String.format("%.1f L", amount / 100000);
+        } else if (amount >= 1000) {
+            return String.format("%.1f K", amount / 1000);
+        } else {
+            return String.format("%.0f", amount);
+        }
+    }
+
     private String getGreeting() {
         int hour = java.util.Calendar.getInstance().get(java.util.Calendar.HOUR_OF_DAY);
         if (hour >= 5 && hour < 12) {
@@ -251,7 +305,7 @@ public class ClientDashboardActivity extends AppCompatActivity {
                     jobList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Job job = doc.toObject(Job.class);
+                        Job job = ModelMappers.JOB.fromSnapshot(doc);
                         if (job != null) {
                             Log.d(TAG, "Job found: " + job.getTitle() + " (ID: " + job.getJobId() + ")");
                             jobList.add(job);
@@ -287,6 +341,24 @@ public class ClientDashboardActivity extends AppCompatActivity {
                 });
     }
 
+    // Live unread totals for the notification and messages badges
+    private void listenToCounters() {
+        if (currentUserId.isEmpty()) return;
+        CountersManager.getInstance().addObserver(currentUserId, countersObserver);
+    }
+
+    private void displayCounters(UserCounters counters) {
+        String notifications = CountersManager.badgeText(counters.getUnreadNotifications());
+        tvNotificationBadge.setText(notifications);
+        tvNotificationBadge.setVisibility(notifications != null ? View.VISIBLE : View.GONE);
+
+        int unreadMessages = Math.max(0, counters.getUnreadMessages());
+        BadgeDrawable messagesBadge = bottomNavigation.getOrCreateBadge(R.id.nav_messages);
+        messagesBadge.setMaxCharacterCount(3);
+        messagesBadge.setNumber(unreadMessages);
+        messagesBadge.setVisible(unreadMessages > 0);
+    }
+
     private void showLoading(boolean show) {
         if (show) {
             Log.d(TAG, "Showing loading state");
@@ -298,6 +370,12 @@ public class ClientDashboardActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        CountersManager.getInstance().removeObserver(countersObserver);
+    }
+
     private void navigateToLogin() {
         Intent intent = new Intent(ClientDashboardActivity.this, MainActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -11,24 +11,41 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.JobAdapter;
+import com.example.madproject.firebase.CountersManager;
+import com.example.madproject.firebase.EntityCache;
 import com.example.madproject.firebase.JobManager;
+import com.example.madproject.firebase.NotificationFanoutManager;
+import com.example.madproject.firebase.PushPayload;
+import com.example.madproject.firebase.StockAlertManager;
 import com.example.madproject.firebase.UserManager;
+import com.example.madproject.firebase.UserStatsManager;
 import com.example.madproject.helpers.FCMHelper;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.StockAlert;
 import com.example.madproject.models.User;
+import com.example.madproject.models.UserCounters;
+import com.example.madproject.models.UserStats;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.material.badge.BadgeDrawable;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
@@ -36,9 +53,10 @@ public class ContractorDashboardActivity extends AppCompatActivity {
 
     private static final String TAG = "ContractorDashboard";
 
-    private TextView tvContractorName, tvCategory, tvRating, tvReviews;
+    private TextView tvContractorName, tvCategory, tvRating, tvReviews, tvWinRate;
     private TextView tvActiveProjectsCount, tvCompletedCount, tvTotalEarnings;
     private TextView tvViewAllJobs;
+    private TextView tvNotificationBadge;
     private ImageView btnNotifications;
     private CircleImageView ivProfileImage;
     private Button btnViewProfile;
@@ -47,6 +65,8 @@ public class ContractorDashboardActivity extends AppCompatActivity {
     private BottomNavigationView bottomNav;
     private FloatingActionButton fabAIChat;
     private ProgressBar progressBar;
+    private CardView cardReorder;
+    private TextView tvReorderTitle, tvReorderSummary;
 
     private FirebaseAuth mAuth;
     private String currentUserId;
@@ -54,6 +74,10 @@ public class ContractorDashboardActivity extends AppCompatActivity {
 
     private JobAdapter jobAdapter;
     private List<Job> jobList;
+    private List<StockAlert> reorderList = new ArrayList<>();
+    private ListenerRegistration reorderListener;
+    private final CountersManager.OnCountersChangedListener countersObserver = this::displayCounters;
+    private final EntityCache.OnEntityChangedListener jobsObserver = this::onPushedEntity;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -78,9 +102,19 @@ public class ContractorDashboardActivity extends AppCompatActivity {
         // Load data
         loadContractorData();
         loadAvailableJobs();
+        listenToReorderList();
+        listenToCounters();
+
+        // New jobs pushed while the dashboard is open are merged in as they arrive
+        EntityCache.getInstance(this).addObserver(jobsObserver);
 
         // Register FCM token for push notifications
-        FCMHelper.registerFCMToken();
+        FCMHelper.registerFCMToken(this);
+
+        // Finish any broadcast interrupted by the app closing
+        if (!currentUserId.isEmpty()) {
+            NotificationFanoutManager.getInstance().resumePending(currentUserId);
+        }
     }
 
     @Override
@@ -96,16 +130,21 @@ public class ContractorDashboardActivity extends AppCompatActivity {
         tvCategory = findViewById(R.id.tvCategory);
         tvRating = findViewById(R.id.tvRating);
         tvReviews = findViewById(R.id.tvReviews);
+        tvWinRate = findViewById(R.id.tvWinRate);
         tvActiveProjectsCount = findViewById(R.id.tvActiveProjectsCount);
         tvCompletedCount = findViewById(R.id.tvCompletedCount);
         tvTotalEarnings = findViewById(R.id.tvTotalEarnings);
         tvViewAllJobs = findViewById(R.id.tvViewAllJobs);
         btnNotifications = findViewById(R.id.btnNotifications);
+        tvNotificationBadge = findViewById(R.id.tvNotificationBadge);
         ivProfileImage = findViewById(R.id.ivProfileImage);
         btnViewProfile = findViewById(R.id.btnViewProfile);
         rvAvailableJobs = findViewById(R.id.rvAvailableJobs);
         bottomNav = findViewById(R.id.bottomNav);
         fabAIChat = findViewById(R.id.fabAIChat);
+        cardReorder = findViewById(R.id.cardReorder);
+        tvReorderTitle = findViewById(R.id.tvReorderTitle);
+        tvReorderSummary = findViewById(R.id.tvReorderSummary);
 
         // Create ProgressBar programmatically
         progressBar = new ProgressBar(this);
@@ -147,6 +186,9 @@ public class ContractorDashboardActivity extends AppCompatActivity {
             startActivity(intent);
         });
 
+        // Reorder list across all sites
+        cardReorder.setOnClickListener(v -> showReorderList());
+
         // View All Jobs
         tvViewAllJobs.setOnClickListener(v -> {
             Intent intent = new Intent(ContractorDashboardActivity.this, AvailableJobsActivity.class);
@@ -166,8 +208,7 @@ public class ContractorDashboardActivity extends AppCompatActivity {
                 startActivity(new Intent(ContractorDashboardActivity.this, MyProjectsActivity.class));
                 return true;
             } else if (id == R.id.nav_messages) {
-                // TODO: Create ConversationsListActivity to show all chats
-                Toast.makeText(this, "Access messages from contractor profiles or job details", Toast.LENGTH_LONG).show();
+                startActivity(new Intent(ContractorDashboardActivity.this, ConversationsListActivity.class));
                 return true;
             } else if (id == R.id.nav_profile) {
                 startActivity(new Intent(ContractorDashboardActivity.this, SettingsActivity.class));
@@ -219,26 +260,11 @@ public class ContractorDashboardActivity extends AppCompatActivity {
                 tvCategory.setText("Contractor");
             }
 
-            // Update rating
-            if (user.getRating() > 0) {
-                tvRating.setText(String.format("%.1f", user.getRating()));
-            } else {
-                tvRating.setText("New");
-            }
-
-            // Update reviews count
-            tvReviews.setText("(" + user.getTotalReviews() + " reviews)");
-
-            // Update statistics
-            // Active projects (jobs in progress assigned to this contractor)
-            loadActiveProjectsCount();
+            // Update rating, counts and earnings from the stats document
+            loadUserStats();
 
-            // Completed projects
-            tvCompletedCount.setText(String.valueOf(user.getCompletedProjects()));
-
-            // Total earnings (calculate from hourly rate * completed projects as estimate)
-            double estimatedEarnings = user.getHourlyRate() * user.getCompletedProjects() * 40; // Estimate
-            tvTotalEarnings.setText("Rs. " + formatCurrency(estimatedEarnings));
+            // Receive new jobs in this contractor's category and city
+            FCMHelper.syncJobTopics(this, user);
 
             Log.d(TAG, "UI updated with contractor: " + user.getFullName());
         } else if (user != null && !user.isContractor()) {
@@ -248,27 +274,115 @@ public class ContractorDashboardActivity extends AppCompatActivity {
         }
     }
 
-    private void loadActiveProjectsCount() {
-        // Count jobs assigned to this contractor with status "in_progress"
-        JobManager.getInstance()
-                .getJobsByContractor(currentUserId)
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    int activeCount = 0;
-                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Job job = doc.toObject(Job.class);
-                        if (job != null && "in_progress".equals(job.getStatus())) {
-                            activeCount++;
+    private void loadUserStats() {
+        UserStatsManager.getInstance()
+                .getStatsObject(currentUserId, new UserStatsManager.OnStatsLoadedListener() {
+                    @Override
+                    public void onStatsLoaded(UserStats stats) {
+                        // Rating
+                        if (stats.getReviewCount() > 0) {
+                            tvRating.setText(String.format("%.1f", stats.getAverageRating()));
+                        } else {
+                            tvRating.setText("New");
                         }
+                        tvReviews.setText("(" + stats.getReviewCount() + " reviews)");
+                        tvWinRate.setText(String.format(" • %.0f%% win rate", stats.getWinRate()));
+
+                        // Projects and earnings from accepted bids
+                        tvActiveProjectsCount.setText(String.valueOf(stats.getActiveJobs()));
+                        tvCompletedCount.setText(String.valueOf(stats.getCompletedJobs()));
+                        tvTotalEarnings.setText("Rs. " + formatCurrency(stats.getTotalEarnings()));
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Error loading stats: " + error);
+                        tvActiveProjectsCount.setText("0");
+                    }
+                });
+    }
+
+    // Live unread totals for the notification and messages badges
+    private void listenToCounters() {
+        if (currentUserId.isEmpty()) return;
+        CountersManager.getInstance().addObserver(currentUserId, countersObserver);
+    }
+
+    private void displayCounters(UserCounters counters) {
+        String notifications = CountersManager.badgeText(counters.getUnreadNotifications());
+        tvNotificationBadge.setText(notifications);
+        tvNotificationBadge.setVisibility(notifications != null ? View.VISIBLE : View.GONE);
+
+        int unreadMessages = Math.max(0, counters.getUnreadMessages());
+        BadgeDrawable messagesBadge = bottomNav.getOrCreateBadge(R.id.nav_messages);
+        messagesBadge.setMaxCharacterCount(3);
+        messagesBadge.setNumber(unreadMessages);
+        messagesBadge.setVisible(unreadMessages > 0);
+    }
+
+    // Live list of materials under their threshold on any of this contractor's jobs
+    private void listenToReorderList() {
+        if (currentUserId.isEmpty()) return;
+
+        reorderListener = StockAlertManager.getInstance().listenToReorderList(currentUserId,
+                new StockAlertManager.OnReorderListListener() {
+                    @Override
+                    public void onReorderListChanged(List<StockAlert> alerts) {
+                        reorderList = alerts;
+                        displayReorderSummary();
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Error loading reorder list: " + error);
                     }
-                    tvActiveProjectsCount.setText(String.valueOf(activeCount));
-                    Log.d(TAG, "Active projects count: " + activeCount);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error loading active projects: " + e.getMessage());
-                    tvActiveProjectsCount.setText("0");
                 });
     }
 
+    private void displayReorderSummary() {
+        if (reorderList.isEmpty()) {
+            cardReorder.setVisibility(View.GONE);
+            return;
+        }
+        cardReorder.setVisibility(View.VISIBLE);
+
+        int outOfStock = 0;
+        Set<String> sites = new HashSet<>();
+        for (StockAlert alert : reorderList) {
+            if (alert.isOutOfStock()) {
+                outOfStock++;
+            }
+            sites.add(alert.getJobId());
+        }
+        tvReorderTitle.setText(reorderList.size() + (reorderList.size() == 1 ? " material" : " materials") + " to reorder");
+        tvReorderSummary.setText(outOfStock + " out of stock • " + sites.size()
+                + (sites.size() == 1 ? " site" : " sites"));
+    }
+
+    private void showReorderList() {
+        if (reorderList.isEmpty()) return;
+
+        List<StockAlert> alerts = new ArrayList<>(reorderList);
+        String[] items = new String[alerts.size()];
+        for (int i = 0; i < alerts.size(); i++) {
+            StockAlert alert = alerts.get(i);
+            items[i] = alert.getMaterialName() + " — " + alert.getProjectName() + "\n"
+                    + (alert.isOutOfStock() ? "Out of stock" : String.format("%.1f / %.1f %s",
+                    alert.getQuantity(), alert.getLowStockThreshold(), alert.getUnit()));
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Reorder List")
+                .setItems(items, (dialog, which) -> {
+                    Intent intent = new Intent(this, MaterialManagementActivity.class);
+                    intent.putExtra("jobId", alerts.get(which).getJobId());
+                    intent.putExtra("projectName", alerts.get(which).getProjectName());
+                    startActivity(intent);
+                })
+                .setNegativeButton("Close", null)
+                .show();
+    }
+
     private void loadAvailableJobs() {
         Log.d(TAG, "Loading available open jobs");
 
@@ -286,7 +400,7 @@ public class ContractorDashboardActivity extends AppCompatActivity {
                     jobList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Job job = doc.toObject(Job.class);
+                        Job job = ModelMappers.JOB.fromSnapshot(doc);
                         if (job != null) {
                             Log.d(TAG, "Open job found: " + job.getTitle() + " (ID: " + job.getJobId() + ")");
                             jobList.add(job);
@@ -299,18 +413,7 @@ public class ContractorDashboardActivity extends AppCompatActivity {
 
                     Log.d(TAG, "Total open jobs loaded: " + jobList.size());
 
-                    // Update adapter
-                    jobAdapter.notifyDataSetChanged();
-
-                    // Show/hide empty state
-                    if (jobList.isEmpty()) {
-                        Log.d(TAG, "No open jobs found");
-                        rvAvailableJobs.setVisibility(View.GONE);
-                        // Show empty state if you have it
-                    } else {
-                        Log.d(TAG, "Open jobs found - showing RecyclerView");
-                        rvAvailableJobs.setVisibility(View.VISIBLE);
-                    }
+                    displayJobs();
                 })
                 .addOnFailureListener(e -> {
                     showLoading(false);
@@ -321,6 +424,40 @@ public class ContractorDashboardActivity extends AppCompatActivity {
                 });
     }
 
+    // A pushed job joins the list while it is open and leaves it once it isn't
+    private void onPushedEntity(String entity, String id, Map<String, Object> fields) {
+        if (!PushPayload.ENTITY_JOB.equals(entity)) return;
+
+        for (int i = 0; i < jobList.size(); i++) {
+            if (id.equals(jobList.get(i).getJobId())) {
+                jobList.remove(i);
+                break;
+            }
+        }
+        Job job = fields != null ? ModelMappers.JOB.fromMap(fields) : null;
+        if (job != null && "open".equals(job.getStatus())) {
+            jobList.add(job);
+            Collections.sort(jobList, (j1, j2) ->
+                    Long.compare(j2.getPostedDate(), j1.getPostedDate()));
+        }
+        displayJobs();
+    }
+
+    private void displayJobs() {
+        // Update adapter
+        jobAdapter.notifyDataSetChanged();
+
+        // Show/hide empty state
+        if (jobList.isEmpty()) {
+            Log.d(TAG, "No open jobs found");
+            rvAvailableJobs.setVisibility(View.GONE);
+            // Show empty state if you have it
+        } else {
+            Log.d(TAG, "Open jobs found - showing RecyclerView");
+            rvAvailableJobs.setVisibility(View.VISIBLE);
+        }
+    }
+
     private String formatCurrency(double amount) {
         if (amount >= 10000000) {
             return String.format("%.1f Cr", amount / 10000000);
@@ -343,6 +480,16 @@ public class ContractorDashboardActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (reorderListener != null) {
+            reorderListener.remove();
+        }
+        CountersManager.getInstance().removeObserver(countersObserver);
+        EntityCache.getInstance(this).removeObserver(jobsObserver);
+    }
+
     private void navigateToLogin() {
         Intent intent = new Intent(ContractorDashboardActivity.this, MainActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -19,6 +19,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.madproject.adapters.ContractorAdapter;
 import com.example.madproject.firebase.UserManager;
 import com.example.madproject.models.User;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
@@ -129,7 +130,7 @@ public class ContractorDirectoryActivity extends AppCompatActivity {
                     contractorList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        User contractor = doc.toObject(User.class);
+                        User contractor = ModelMappers.USER.fromSnapshot(doc);
                         if (contractor != null) {
                             contractorList.add(contractor);
                         }
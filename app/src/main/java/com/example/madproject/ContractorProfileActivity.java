@@ -23,6 +23,7 @@ import com.example.madproject.firebase.ReviewManager;
 import com.example.madproject.firebase.UserManager;
 import com.example.madproject.models.Review;
 import com.example.madproject.models.User;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.util.ArrayList;
@@ -289,7 +290,7 @@ public class ContractorProfileActivity extends AppCompatActivity {
                     reviewList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Review review = doc.toObject(Review.class);
+                        Review review = ModelMappers.REVIEW.fromSnapshot(doc);
                         if (review != null) {
                             reviewList.add(review);
                         }
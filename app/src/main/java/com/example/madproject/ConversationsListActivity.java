@@ -0,0 +1,206 @@
+package com.example.madproject;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.madproject.adapters.ConversationAdapter;
+import com.example.madproject.firebase.MessageManager;
+import com.example.madproject.models.Conversation;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The user's inbox, read from their chats index most recent first. The first page is live;
+ * older conversations are fetched a page at a time as the list is scrolled.
+ */
+public class ConversationsListActivity extends AppCompatActivity {
+
+    private static final String TAG = "ConversationsList";
+    private static final int PAGE_SIZE = 20;
+    // Start loading the next page when this close to the end of the list
+    private static final int LOAD_AHEAD = 5;
+
+    private RecyclerView rvConversations;
+    private ProgressBar progressBar;
+    private LinearLayout emptyState;
+
+    private String currentUserId;
+
+    private ConversationAdapter conversationAdapter;
+    private final List<Conversation> conversationList = new ArrayList<>();
+    private List<Conversation> recentConversations = new ArrayList<>();
+    private final List<Conversation> olderConversations = new ArrayList<>();
+    private ListenerRegistration conversationListener;
+    private DocumentSnapshot lastVisible;
+    private boolean hasMore;
+    private boolean loadingMore;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_conversations_list);
+
+        FirebaseAuth mAuth = FirebaseAuth.getInstance();
+        currentUserId = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : "";
+
+        if (currentUserId.isEmpty()) {
+            Toast.makeText(this, "Please login first", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+
+        initViews();
+        setupRecyclerView();
+        listenToConversations();
+    }
+
+    private void initViews() {
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle("");
+        }
+
+        rvConversations = findViewById(R.id.rvConversations);
+        progressBar = findViewById(R.id.progressBar);
+        emptyState = findViewById(R.id.emptyState);
+    }
+
+    private void setupRecyclerView() {
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvConversations.setLayoutManager(layoutManager);
+        conversationAdapter = new ConversationAdapter(this, conversationList, currentUserId, this::openChat);
+        rvConversations.setAdapter(conversationAdapter);
+
+        rvConversations.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= conversationList.size() - LOAD_AHEAD) {
+                    loadMore();
+                }
+            }
+        });
+    }
+
+    // The most recent page stays live so new messages move their conversation to the top
+    private void listenToConversations() {
+        showLoading(true);
+        conversationListener = MessageManager.getInstance().listenToRecentConversations(currentUserId, PAGE_SIZE,
+                new MessageManager.OnConversationsChangedListener() {
+                    @Override
+                    public void onConversationsChanged(QuerySnapshot conversations) {
+                        showLoading(false);
+                        recentConversations = toConversations(conversations);
+                        if (olderConversations.isEmpty()) {
+                            hasMore = conversations.size() == PAGE_SIZE;
+                            lastVisible = hasMore ? conversations.getDocuments().get(conversations.size() - 1) : null;
+                        }
+                        showConversations();
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        showLoading(false);
+                        Log.e(TAG, "Error loading conversations: " + error);
+                        Toast.makeText(ConversationsListActivity.this,
+                                "Error loading conversations", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    private void loadMore() {
+        if (!hasMore || loadingMore || lastVisible == null) return;
+
+        loadingMore = true;
+        MessageManager.getInstance()
+                .getConversationsPage(currentUserId, lastVisible, PAGE_SIZE)
+                .addOnSuccessListener(page -> {
+                    loadingMore = false;
+                    olderConversations.addAll(toConversations(page));
+                    hasMore = page.size() == PAGE_SIZE;
+                    if (!page.isEmpty()) {
+                        lastVisible = page.getDocuments().get(page.size() - 1);
+                    }
+                    showConversations();
+                })
+                .addOnFailureListener(e -> {
+                    loadingMore = false;
+                    Log.e(TAG, "Error loading more conversations: " + e.getMessage());
+                });
+    }
+
+    private List<Conversation> toConversations(QuerySnapshot snapshot) {
+        List<Conversation> conversations = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot doc : snapshot) {
+            Conversation conversation = ModelMappers.CONVERSATION.fromSnapshot(doc);
+            if (conversation != null) {
+                conversations.add(conversation);
+            }
+        }
+        return conversations;
+    }
+
+    // A conversation that moved into the live page is shown there rather than twice
+    private void showConversations() {
+        conversationList.clear();
+        conversationList.addAll(recentConversations);
+        Set<String> shown = new HashSet<>();
+        for (Conversation conversation : recentConversations) {
+            shown.add(conversation.getChatId());
+        }
+        for (Conversation conversation : olderConversations) {
+            if (shown.add(conversation.getChatId())) {
+                conversationList.add(conversation);
+            }
+        }
+        conversationAdapter.notifyDataSetChanged();
+
+        emptyState.setVisibility(conversationList.isEmpty() ? View.VISIBLE : View.GONE);
+        rvConversations.setVisibility(conversationList.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    private void openChat(Conversation conversation) {
+        Intent intent = new Intent(this, ChatActivity.class);
+        intent.putExtra("receiverId", conversation.getOtherUserId());
+        intent.putExtra("receiverName", conversation.getOtherUserName());
+        startActivity(intent);
+    }
+
+    private void showLoading(boolean show) {
+        progressBar.setVisibility(show ? View.VISIBLE : View.GONE);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (conversationListener != null) {
+            conversationListener.remove();
+        }
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        onBackPressed();
+        return true;
+    }
+}
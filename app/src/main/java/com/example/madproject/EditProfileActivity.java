@@ -15,6 +15,8 @@ import androidx.appcompat.widget.Toolbar;
 
 import com.example.madproject.firebase.UserManager;
 import com.example.madproject.models.User;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.auth.FirebaseAuth;
 
 import de.hdodenhof.circleimageview.CircleImageView;
@@ -30,6 +32,7 @@ public class EditProfileActivity extends AppCompatActivity {
     private FirebaseAuth mAuth;
     private String currentUserId;
     private User currentUser;
+    private ChangeTracker<User> userTracker;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -108,6 +111,7 @@ public class EditProfileActivity extends AppCompatActivity {
                     public void onUserLoaded(User user) {
                         showLoading(false);
                         currentUser = user;
+                        userTracker = new ChangeTracker<>(ModelMappers.USER, user);
                         populateFields(user);
                     }
 
@@ -141,6 +145,11 @@ public class EditProfileActivity extends AppCompatActivity {
             return;
         }
 
+        if (userTracker == null) {
+            Toast.makeText(this, "Please wait, loading profile...", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
         // Update user object
         currentUser.setFullName(etFullName.getText().toString().trim());
         currentUser.setPhoneNumber(etPhone.getText().toString().trim());
@@ -150,7 +159,7 @@ public class EditProfileActivity extends AppCompatActivity {
         showLoading(true);
 
         UserManager.getInstance()
-                .updateUser(currentUser)
+                .updateUser(userTracker)
                 .addOnSuccessListener(aVoid -> {
                     showLoading(false);
                     Toast.makeText(this, "Profile updated successfully!", Toast.LENGTH_SHORT).show();
@@ -1,7 +1,10 @@
 package com.example.madproject;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -10,23 +13,39 @@ import android.widget.TextView;
 import android.widget.Toast;
 import android.widget.Button;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.BidAdapter;
 import com.example.madproject.firebase.BidManager;
+import com.example.madproject.firebase.EntityCache;
 import com.example.madproject.firebase.JobManager;
+import com.example.madproject.firebase.NotificationFanoutManager;
+import com.example.madproject.firebase.NotificationManager;
+import com.example.madproject.firebase.ProjectReportExporter;
+import com.example.madproject.firebase.ProjectRollupManager;
+import com.example.madproject.firebase.PushPayload;
 import com.example.madproject.firebase.UserManager;
+import com.example.madproject.helpers.AppExecutors;
 import com.example.madproject.models.Bid;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.Notification;
+import com.example.madproject.models.ProjectRollup;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class JobDetailActivity extends AppCompatActivity {
 
@@ -38,6 +57,17 @@ public class JobDetailActivity extends AppCompatActivity {
     private ImageView btnEdit, btnShare;
     private Button btnSubmitBid;
     private ProgressBar progressBar;
+    private CardView cardProjectHealth;
+    private TextView tvHealthProgress, tvHealthTasks, tvHealthCosts, tvHealthStock;
+    private ProgressBar pbHealthProgress;
+    private ListenerRegistration rollupListener;
+    private boolean exporting;
+    private final ActivityResultLauncher<String> csvExport = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"),
+            uri -> exportReport(uri, ProjectReportExporter.FORMAT_CSV));
+    private final ActivityResultLauncher<String> pdfExport = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/pdf"),
+            uri -> exportReport(uri, ProjectReportExporter.FORMAT_PDF));
 
     private FirebaseAuth mAuth;
     private String currentUserId;
@@ -46,6 +76,7 @@ public class JobDetailActivity extends AppCompatActivity {
 
     private BidAdapter bidAdapter;
     private List<Bid> bidList;
+    private boolean bidsLoaded;
     private String currentSortOrder = "lowest"; // "lowest", "highest", "recent"
 
     @Override
@@ -69,8 +100,10 @@ public class JobDetailActivity extends AppCompatActivity {
         initViews();
         setupRecyclerView();
         setupClickListeners();
+        showCachedJob();
         loadJobDetails();
         loadBids();
+        listenToProjectHealth();
     }
 
     private void initViews() {
@@ -95,6 +128,12 @@ public class JobDetailActivity extends AppCompatActivity {
         btnShare = findViewById(R.id.btnShare);
         btnSortBids = findViewById(R.id.btnSortBids);
         btnSubmitBid = findViewById(R.id.btnSubmitBid);
+        cardProjectHealth = findViewById(R.id.cardProjectHealth);
+        tvHealthProgress = findViewById(R.id.tvHealthProgress);
+        pbHealthProgress = findViewById(R.id.pbHealthProgress);
+        tvHealthTasks = findViewById(R.id.tvHealthTasks);
+        tvHealthCosts = findViewById(R.id.tvHealthCosts);
+        tvHealthStock = findViewById(R.id.tvHealthStock);
 
         // Create ProgressBar programmatically
         progressBar = new ProgressBar(this);
@@ -176,11 +215,12 @@ public class JobDetailActivity extends AppCompatActivity {
                     showLoading(false);
 
                     if (documentSnapshot.exists()) {
-                        currentJob = documentSnapshot.toObject(Job.class);
+                        currentJob = ModelMappers.JOB.fromSnapshot(documentSnapshot);
                         if (currentJob != null) {
                             displayJobDetails(currentJob);
                             // Update adapter with job owner ID so only owner can accept/reject bids
                             updateAdapterWithJobOwner(currentJob.getClientId());
+                            invalidateOptionsMenu();
                         }
                     } else {
                         Toast.makeText(this, "Job not found", Toast.LENGTH_SHORT).show();
@@ -247,6 +287,47 @@ public class JobDetailActivity extends AppCompatActivity {
         }
     }
 
+    // Live project health from the job's single rollup document
+    private void listenToProjectHealth() {
+        rollupListener = ProjectRollupManager.getInstance().listenToRollup(jobId,
+                new ProjectRollupManager.OnRollupListener() {
+                    @Override
+                    public void onRollupChanged(ProjectRollup rollup) {
+                        displayProjectHealth(rollup);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        cardProjectHealth.setVisibility(View.GONE);
+                    }
+                });
+    }
+
+    private void displayProjectHealth(ProjectRollup rollup) {
+        if (rollup.getTaskCount() == 0 && rollup.getMaterialCount() == 0) {
+            cardProjectHealth.setVisibility(View.GONE);
+            return;
+        }
+        cardProjectHealth.setVisibility(View.VISIBLE);
+
+        int progress = (int) Math.round(rollup.getWeightedProgress());
+        tvHealthProgress.setText(progress + "%");
+        pbHealthProgress.setProgress(progress);
+
+        tvHealthTasks.setText(rollup.getCompletedTaskCount() + " of " + rollup.getTaskCount() + " tasks completed");
+        tvHealthCosts.setText("Labour Rs. " + formatCurrency(rollup.getTotalLabourCost())
+                + " • Materials Rs. " + formatCurrency(rollup.getTotalMaterialValue()));
+
+        if (rollup.getStockAlertCount() > 0) {
+            tvHealthStock.setText(rollup.getLowStockCount() + " low stock • "
+                    + rollup.getOutOfStockCount() + " out of stock");
+            tvHealthStock.setTextColor(rollup.getOutOfStockCount() > 0 ? 0xFFF44336 : 0xFFFFA726);
+        } else {
+            tvHealthStock.setText("All materials in stock");
+            tvHealthStock.setTextColor(0xFF4CAF50);
+        }
+    }
+
     private void loadBids() {
         showLoading(true);
 
@@ -255,29 +336,17 @@ public class JobDetailActivity extends AppCompatActivity {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     showLoading(false);
 
+                    bidsLoaded = true;
                     bidList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Bid bid = doc.toObject(Bid.class);
+                        Bid bid = ModelMappers.BID.fromSnapshot(doc);
                         if (bid != null) {
                             bidList.add(bid);
                         }
                     }
 
-                    // Sort bids
-                    sortBids();
-
-                    // Update adapter
-                    bidAdapter.notifyDataSetChanged();
-
-                    // Show/hide empty state
-                    if (bidList.isEmpty()) {
-                        rvBids.setVisibility(View.GONE);
-                        emptyState.setVisibility(View.VISIBLE);
-                    } else {
-                        rvBids.setVisibility(View.VISIBLE);
-                        emptyState.setVisibility(View.GONE);
-                    }
+                    displayBids();
                 })
                 .addOnFailureListener(e -> {
                     showLoading(false);
@@ -286,6 +355,49 @@ public class JobDetailActivity extends AppCompatActivity {
                 });
     }
 
+    private void displayBids() {
+        // Sort bids
+        sortBids();
+
+        // Update adapter
+        bidAdapter.notifyDataSetChanged();
+
+        // Show/hide empty state
+        if (bidList.isEmpty()) {
+            rvBids.setVisibility(View.GONE);
+            emptyState.setVisibility(View.VISIBLE);
+        } else {
+            rvBids.setVisibility(View.VISIBLE);
+            emptyState.setVisibility(View.GONE);
+        }
+    }
+
+    // Paints the job and its bids as last pushed to this device while they are being read;
+    // whichever the reads return first replaces them
+    private void showCachedJob() {
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.background().execute(() -> {
+            EntityCache cache = EntityCache.getInstance(this);
+            Map<String, Object> jobFields = cache.get(PushPayload.ENTITY_JOB, jobId);
+            List<Map<String, Object>> bidFields = cache.getChildren(PushPayload.ENTITY_BID, jobId);
+            executors.mainThread().execute(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                if (currentJob == null && jobFields != null) {
+                    Job cached = ModelMappers.JOB.fromMap(jobFields);
+                    if (cached.getStatus() != null) {
+                        displayJobDetails(cached);
+                    }
+                }
+                if (!bidsLoaded && !bidFields.isEmpty()) {
+                    for (Map<String, Object> fields : bidFields) {
+                        bidList.add(ModelMappers.BID.fromMap(fields));
+                    }
+                    displayBids();
+                }
+            });
+        });
+    }
+
     private void sortBids() {
         switch (currentSortOrder) {
             case "lowest":
@@ -339,32 +451,22 @@ public class JobDetailActivity extends AppCompatActivity {
     private void acceptBid(Bid bid) {
         showLoading(true);
 
-        // Update bid status to accepted
+        // Accept the bid and assign the contractor in one write
         BidManager.getInstance()
-                .acceptBid(bid.getBidId())
+                .acceptBid(bid)
                 .addOnSuccessListener(aVoid -> {
                     // Reject all other bids
                     BidManager.getInstance().rejectOtherBids(jobId, bid.getBidId());
+                    notifyBidders(bid);
 
-                    // Assign contractor to job
-                    JobManager.getInstance()
-                            .assignContractor(jobId, bid.getContractorId(),
-                                    bid.getContractorName(), bid.getBidId())
-                            .addOnSuccessListener(aVoid2 -> {
-                                showLoading(false);
-
-                                Toast.makeText(this, "Bid accepted successfully!",
-                                        Toast.LENGTH_SHORT).show();
-
-                                // Reload job and bids
-                                loadJobDetails();
-                                loadBids();
-                            })
-                            .addOnFailureListener(e -> {
-                                showLoading(false);
-                                Toast.makeText(this, "Error assigning contractor: " + e.getMessage(),
-                                        Toast.LENGTH_SHORT).show();
-                            });
+                    showLoading(false);
+
+                    Toast.makeText(this, "Bid accepted successfully!",
+                            Toast.LENGTH_SHORT).show();
+
+                    // Reload job and bids
+                    loadJobDetails();
+                    loadBids();
                 })
                 .addOnFailureListener(e -> {
                     showLoading(false);
@@ -373,6 +475,26 @@ public class JobDetailActivity extends AppCompatActivity {
                 });
     }
 
+    // Tells the winner their bid was accepted and every other bidder that the job is taken.
+    // Derived IDs keep both idempotent if the accept is repeated.
+    private void notifyBidders(Bid accepted) {
+        String jobTitle = currentJob != null ? currentJob.getTitle() : accepted.getJobTitle();
+
+        Notification winner = new Notification(
+                "bid_accepted_" + accepted.getBidId(),
+                accepted.getContractorId(),
+                "Bid Accepted",
+                "Your bid on \"" + jobTitle + "\" was accepted",
+                "job",
+                jobId);
+        NotificationManager.getInstance().queueCreateNotification(this, winner);
+
+        NotificationFanoutManager.getInstance().notifyBidders("awarded_" + jobId, jobId, currentUserId,
+                Collections.singletonList(accepted.getContractorId()),
+                "Job Awarded",
+                "\"" + jobTitle + "\" has been awarded to another contractor");
+    }
+
     private void showRejectBidDialog(Bid bid) {
         new AlertDialog.Builder(this)
                 .setTitle("Reject Bid")
@@ -518,6 +640,76 @@ public class JobDetailActivity extends AppCompatActivity {
         // You can add a ProgressBar to your layout or use a loading dialog
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_job_detail, menu);
+        return true;
+    }
+
+    // Reports are for the client and the contractor working on the job
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        boolean canExport = currentJob != null && (currentUserId.equals(currentJob.getClientId())
+                || currentUserId.equals(currentJob.getAssignedContractorId()));
+        menu.findItem(R.id.action_export_csv).setVisible(canExport);
+        menu.findItem(R.id.action_export_pdf).setVisible(canExport);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_export_csv) {
+            csvExport.launch(reportFileName() + ".csv");
+            return true;
+        } else if (item.getItemId() == R.id.action_export_pdf) {
+            pdfExport.launch(reportFileName() + ".pdf");
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private String reportFileName() {
+        String title = currentJob != null && currentJob.getTitle() != null ? currentJob.getTitle() : "Project";
+        return title.replaceAll("[^A-Za-z0-9]+", "_") + "_Statement";
+    }
+
+    private void exportReport(Uri destination, String format) {
+        if (destination == null || exporting) {
+            return;
+        }
+        exporting = true;
+        Toast.makeText(this, "Preparing report...", Toast.LENGTH_SHORT).show();
+
+        new ProjectReportExporter(this).export(jobId, destination, format,
+                new ProjectReportExporter.OnExportListener() {
+                    @Override
+                    public void onProgress(int rowsWritten) {
+                    }
+
+                    @Override
+                    public void onComplete(int rowsWritten) {
+                        exporting = false;
+                        Toast.makeText(JobDetailActivity.this, "Report saved (" + rowsWritten + " entries)",
+                                Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        exporting = false;
+                        Toast.makeText(JobDetailActivity.this, "Error exporting report: " + error,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (rollupListener != null) {
+            rollupListener.remove();
+        }
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
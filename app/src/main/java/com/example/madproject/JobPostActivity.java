@@ -268,17 +268,7 @@ public class JobPostActivity extends AppCompatActivity {
 
     private void updateClientJobCount() {
         // Increment active jobs count for client
-        UserManager.getInstance()
-                .getUser(currentUserId)
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            user.setActiveJobs(user.getActiveJobs() + 1);
-                            UserManager.getInstance().updateUser(user);
-                        }
-                    }
-                });
+        UserManager.getInstance().incrementField(currentUserId, "activeJobs", 1);
     }
 
     private boolean validateInputs(String title, String description, String budgetStr,
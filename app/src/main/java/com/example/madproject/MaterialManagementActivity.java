@@ -1,21 +1,32 @@
 package com.example.madproject;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.text.InputType;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.MaterialAdapter;
+import com.example.madproject.firebase.MaterialImporter;
+import com.example.madproject.firebase.MaterialLedgerManager;
 import com.example.madproject.firebase.MaterialManager;
 import com.example.madproject.models.Material;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -42,6 +53,10 @@ public class MaterialManagementActivity extends AppCompatActivity {
     private List<Material> filteredMaterialsList;
     private String currentFilter = "all"; // all, in_stock, low_stock, out_of_stock
 
+    private MaterialImporter importer;
+    private final ActivityResultLauncher<String[]> boqPicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importBoq);
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -140,10 +155,7 @@ public class MaterialManagementActivity extends AppCompatActivity {
         allMaterialsList = new ArrayList<>();
         filteredMaterialsList = new ArrayList<>();
 
-        materialAdapter = new MaterialAdapter(this, filteredMaterialsList, material -> {
-            // Handle material click (could open detail view)
-            Toast.makeText(this, "Material: " + material.getMaterialName(), Toast.LENGTH_SHORT).show();
-        });
+        materialAdapter = new MaterialAdapter(this, filteredMaterialsList, this::showRecordUsageDialog);
 
         rvMaterials.setAdapter(materialAdapter);
     }
@@ -172,7 +184,7 @@ public class MaterialManagementActivity extends AppCompatActivity {
                     allMaterialsList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Material material = doc.toObject(Material.class);
+                        Material material = ModelMappers.MATERIAL.fromSnapshot(doc);
                         if (material != null) {
                             allMaterialsList.add(material);
                         }
@@ -182,6 +194,9 @@ public class MaterialManagementActivity extends AppCompatActivity {
                     Collections.sort(allMaterialsList, (m1, m2) ->
                             Long.compare(m2.getLastUpdated(), m1.getLastUpdated()));
 
+                    // Refresh stored stock status from the counters
+                    MaterialManager.getInstance().reconcileCounters(queryDocumentSnapshots.getDocuments());
+
                     filterMaterials();
                 })
                 .addOnFailureListener(e -> {
@@ -191,6 +206,69 @@ public class MaterialManagementActivity extends AppCompatActivity {
                 });
     }
 
+    private void showRecordUsageDialog(Material material) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Record Usage: " + material.getMaterialName());
+
+        final EditText input = new EditText(this);
+        input.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
+        input.setHint("Quantity used (" + material.getUnit() + ")");
+        builder.setView(input);
+
+        builder.setPositiveButton("Record", (dialog, which) -> {
+            String quantityStr = input.getText().toString().trim();
+            if (!quantityStr.isEmpty()) {
+                try {
+                    recordUsage(material, Double.parseDouble(quantityStr));
+                } catch (NumberFormatException e) {
+                    Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+
+        builder.setNegativeButton("Cancel", (dialog, which) -> dialog.cancel());
+        builder.setMessage("Loading usage...");
+        AlertDialog dialog = builder.show();
+
+        // Burn rate over the last week, from the material's stock ledger
+        long weekAgo = System.currentTimeMillis() - 7L * 24 * 60 * 60 * 1000;
+        MaterialLedgerManager.getInstance().getUsageSince(material.getMaterialId(), weekAgo,
+                new MaterialLedgerManager.OnUsageLoadedListener() {
+                    @Override
+                    public void onUsageLoaded(double used, double perDay) {
+                        if (dialog.isShowing()) {
+                            dialog.setMessage(String.format("Used this week: %.1f %s (%.1f per day)",
+                                    used, material.getUnit(), perDay));
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        if (dialog.isShowing()) {
+                            dialog.setMessage("In stock: " + material.getQuantity() + " " + material.getUnit());
+                        }
+                    }
+                });
+    }
+
+    private void recordUsage(Material material, double usedQuantity) {
+        if (usedQuantity <= 0) {
+            Toast.makeText(this, "Enter a quantity above zero", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Stock updates on screen immediately; the write goes to this device's counter slot, so
+        // usage recorded offline on several phones is merged when they reconnect
+        MaterialManager.getInstance()
+                .deductQuantity(this, material, usedQuantity)
+                .addOnFailureListener(this, e -> {
+                    Toast.makeText(this, "Error recording usage: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                    loadMaterials(); // Fall back to the stored stock
+                });
+        filterMaterials();
+    }
+
     private void filterMaterials() {
         filteredMaterialsList.clear();
 
@@ -227,6 +305,86 @@ public class MaterialManagementActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_material_management, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_import_boq) {
+            boqPicker.launch(new String[]{"text/csv", "text/comma-separated-values", "text/plain", "application/vnd.ms-excel"});
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    // Import a bill of quantities CSV, showing progress as each batch is saved
+    private void importBoq(Uri file) {
+        if (file == null || importer != null) {
+            return;
+        }
+
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Importing Materials")
+                .setMessage("Reading file...")
+                .setCancelable(false)
+                .setNegativeButton("Stop", (dialog, which) -> {
+                    if (importer != null) {
+                        importer.cancel();
+                    }
+                })
+                .show();
+
+        importer = new MaterialImporter(this, jobId, projectName, currentUserId);
+        importer.start(file, new MaterialImporter.OnImportListener() {
+            @Override
+            public void onProgress(MaterialImporter.Progress progress) {
+                progressDialog.setMessage(progress.rowsRead + " rows read, " + progress.imported + " imported");
+            }
+
+            @Override
+            public void onComplete(MaterialImporter.Progress progress) {
+                importer = null;
+                progressDialog.dismiss();
+                showImportSummary("Import Complete", progress);
+                loadMaterials();
+            }
+
+            @Override
+            public void onError(String error, MaterialImporter.Progress progress) {
+                importer = null;
+                progressDialog.dismiss();
+                showImportSummary("Import Failed", progress);
+                Toast.makeText(MaterialManagementActivity.this, "Error: " + error, Toast.LENGTH_LONG).show();
+                loadMaterials();
+            }
+        });
+    }
+
+    private void showImportSummary(String title, MaterialImporter.Progress progress) {
+        if (isFinishing()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append("Imported: ").append(progress.imported)
+                .append("\nDuplicates skipped: ").append(progress.duplicates)
+                .append("\nInvalid rows: ").append(progress.invalid);
+        for (String error : progress.errors) {
+            message.append("\n• ").append(error);
+        }
+        if (progress.invalid > progress.errors.size()) {
+            message.append("\n…and ").append(progress.invalid - progress.errors.size()).append(" more");
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle(title)
+                .setMessage(message)
+                .setPositiveButton("OK", null)
+                .show();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
@@ -19,6 +19,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.madproject.adapters.JobAdapter;
 import com.example.madproject.firebase.JobManager;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -174,7 +175,7 @@ public class MyJobsActivity extends AppCompatActivity {
                     allJobsList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Job job = doc.toObject(Job.class);
+                        Job job = ModelMappers.JOB.fromSnapshot(doc);
                         if (job != null) {
                             allJobsList.add(job);
                         }
@@ -15,18 +15,25 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.JobAdapter;
 import com.example.madproject.firebase.JobManager;
+import com.example.madproject.firebase.ProjectRollupManager;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.ProjectRollup;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MyProjectsActivity extends AppCompatActivity {
 
     private static final String TAG = "MyProjects";
+    private static final int ROLLUPS_PER_LISTENER = 30; // Firestore whereIn limit
 
     private Toolbar toolbar;
     private TabLayout tabLayout;
@@ -43,6 +50,9 @@ public class MyProjectsActivity extends AppCompatActivity {
 
     private String currentFilter = "all"; // all, in_progress, completed
 
+    private final Map<String, ProjectRollup> rollupsByJob = new HashMap<>();
+    private final List<ListenerRegistration> rollupListeners = new ArrayList<>();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -136,7 +146,7 @@ public class MyProjectsActivity extends AppCompatActivity {
                     allProjectsList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Job job = doc.toObject(Job.class);
+                        Job job = ModelMappers.JOB.fromSnapshot(doc);
                         if (job != null) {
                             allProjectsList.add(job);
                         }
@@ -151,6 +161,7 @@ public class MyProjectsActivity extends AppCompatActivity {
 
                     // Apply filter
                     filterProjects();
+                    listenToProjectHealth();
                 })
                 .addOnFailureListener(e -> {
                     showLoading(false);
@@ -160,6 +171,43 @@ public class MyProjectsActivity extends AppCompatActivity {
                 });
     }
 
+    // One rollup document per project gives live progress, cost and stock health
+    private void listenToProjectHealth() {
+        removeRollupListeners();
+        rollupsByJob.clear();
+
+        List<String> jobIds = new ArrayList<>();
+        for (Job job : allProjectsList) {
+            jobIds.add(job.getJobId());
+        }
+
+        for (int start = 0; start < jobIds.size(); start += ROLLUPS_PER_LISTENER) {
+            List<String> chunk = jobIds.subList(start, Math.min(start + ROLLUPS_PER_LISTENER, jobIds.size()));
+            rollupListeners.add(ProjectRollupManager.getInstance().listenToRollups(new ArrayList<>(chunk),
+                    new ProjectRollupManager.OnRollupsListener() {
+                        @Override
+                        public void onRollupsChanged(List<ProjectRollup> rollups) {
+                            for (ProjectRollup rollup : rollups) {
+                                rollupsByJob.put(rollup.getJobId(), rollup);
+                            }
+                            jobAdapter.setRollups(rollupsByJob);
+                        }
+
+                        @Override
+                        public void onError(String error) {
+                            Log.e(TAG, "Error loading project health: " + error);
+                        }
+                    }));
+        }
+    }
+
+    private void removeRollupListeners() {
+        for (ListenerRegistration registration : rollupListeners) {
+            registration.remove();
+        }
+        rollupListeners.clear();
+    }
+
     private void filterProjects() {
         filteredProjectsList.clear();
 
@@ -195,6 +243,12 @@ public class MyProjectsActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        removeRollupListeners();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
@@ -11,28 +11,41 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.widget.NestedScrollView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.NotificationAdapter;
 import com.example.madproject.firebase.NotificationManager;
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.helpers.SnapshotMapper;
 import com.example.madproject.models.Notification;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * The user's notifications, newest first. Only the most recent page is live; older
+ * notifications are fetched a page at a time as the list is scrolled, so the listener's
+ * result set stays the same size however many notifications the user has received.
+ */
 public class NotificationsActivity extends AppCompatActivity {
 
     private static final String TAG = "NotificationsActivity";
+    private static final int PAGE_SIZE = 30;
 
     private RecyclerView rvNotifications;
     private TextView btnMarkAllRead;
     private ProgressBar progressBar;
     private LinearLayout emptyState;
+    private NestedScrollView scrollNotifications;
 
     private FirebaseAuth mAuth;
     private String currentUserId;
@@ -40,6 +53,11 @@ public class NotificationsActivity extends AppCompatActivity {
     private NotificationAdapter notificationAdapter;
     private List<Notification> notificationList;
     private ListenerRegistration notificationListener;
+    private List<Notification> recentNotifications = new ArrayList<>();
+    private final List<Notification> olderNotifications = new ArrayList<>();
+    private DocumentSnapshot lastVisible;
+    private boolean hasMore;
+    private boolean loadingMore;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -67,10 +85,19 @@ public class NotificationsActivity extends AppCompatActivity {
         btnMarkAllRead = findViewById(R.id.btnMarkAllRead);
         progressBar = findViewById(R.id.progressBar);
         emptyState = findViewById(R.id.emptyState);
+        scrollNotifications = findViewById(R.id.scrollNotifications);
 
         rvNotifications.setLayoutManager(new LinearLayoutManager(this));
 
         btnMarkAllRead.setOnClickListener(v -> markAllAsRead());
+
+        // The list sits inside a NestedScrollView, so paging follows the outer scroll
+        scrollNotifications.setOnScrollChangeListener((NestedScrollView.OnScrollChangeListener)
+                (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+                    if (scrollY > oldScrollY && !v.canScrollVertically(1)) {
+                        loadMore();
+                    }
+                });
     }
 
     private void setupRecyclerView() {
@@ -106,44 +133,121 @@ public class NotificationsActivity extends AppCompatActivity {
         Log.d(TAG, "Loading notifications for user: " + currentUserId);
         showLoading(true);
 
-        // Set up real-time listener for notifications
-        notificationListener = NotificationManager.getInstance().listenToNotifications(currentUserId, new NotificationManager.OnNotificationsChangedListener() {
-            @Override
-            public void onNotificationsChanged(com.google.firebase.firestore.QuerySnapshot notifications) {
-                Log.d(TAG, "Notifications updated: " + notifications.size());
-                showLoading(false);
-
-                notificationList.clear();
+        AppExecutors executors = AppExecutors.getInstance();
 
-                for (DocumentSnapshot doc : notifications) {
-                    Notification notification = doc.toObject(Notification.class);
-                    if (notification != null) {
-                        notificationList.add(notification);
-                    }
-                }
+        // Read notifications past the retention period are purged in the background
+        NotificationManager.getInstance().purgeReadNotifications(currentUserId)
+                .addOnFailureListener(e -> Log.w(TAG, "Error purging old notifications: " + e.getMessage()));
 
-                // Sort by timestamp (newest first)
-                Collections.sort(notificationList, (n1, n2) ->
-                        Long.compare(n2.getTimestamp(), n1.getTimestamp()));
+        // The most recent page stays live; snapshots are mapped on a worker thread
+        notificationListener = NotificationManager.getInstance().listenToRecentNotifications(currentUserId,
+                PAGE_SIZE, executors.newSerialExecutor(), new NotificationManager.OnNotificationsChangedListener() {
+            @Override
+            public void onNotificationsChanged(QuerySnapshot notifications) {
+                Log.d(TAG, "Notifications updated: " + notifications.size());
 
-                notificationAdapter.notifyDataSetChanged();
-                updateEmptyState();
+                // Already newest first from the query
+                List<Notification> mapped = SnapshotMapper.toList(notifications, ModelMappers.NOTIFICATION, null, null);
 
-                Log.d(TAG, "Notifications loaded: " + notificationList.size());
+                executors.mainThread().execute(() -> onRecentNotifications(notifications, mapped));
             }
 
             @Override
             public void onError(String error) {
-                showLoading(false);
-                Log.e(TAG, "Error loading notifications: " + error);
-                Toast.makeText(NotificationsActivity.this,
-                        "Error loading notifications: " + error,
-                        Toast.LENGTH_SHORT).show();
-                updateEmptyState();
+                executors.mainThread().execute(() -> {
+                    if (isFinishing() || isDestroyed()) return;
+                    showLoading(false);
+                    Log.e(TAG, "Error loading notifications: " + error);
+                    Toast.makeText(NotificationsActivity.this,
+                            "Error loading notifications: " + error,
+                            Toast.LENGTH_SHORT).show();
+                    updateEmptyState();
+                });
             }
         });
     }
 
+    private void onRecentNotifications(QuerySnapshot snapshot, List<Notification> notifications) {
+        if (isFinishing() || isDestroyed()) return;
+        showLoading(false);
+
+        if (olderNotifications.isEmpty()) {
+            hasMore = snapshot.size() == PAGE_SIZE;
+            lastVisible = hasMore ? snapshot.getDocuments().get(snapshot.size() - 1) : null;
+        } else {
+            keepPushedOut(notifications);
+        }
+        recentNotifications = notifications;
+        showNotifications();
+    }
+
+    // Once older pages are loaded, the cursor no longer follows the window, so notifications
+    // that new arrivals push out of it are kept at the top of the older ones. They are older
+    // than everything left in the full window; a deleted notification never is, because the
+    // window refills from below.
+    private void keepPushedOut(List<Notification> window) {
+        if (window.size() < PAGE_SIZE) return;
+        long oldestInWindow = window.get(window.size() - 1).getTimestamp();
+        Set<String> inWindow = new HashSet<>();
+        for (Notification notification : window) {
+            inWindow.add(notification.getNotificationId());
+        }
+        List<Notification> pushedOut = new ArrayList<>();
+        for (Notification notification : recentNotifications) {
+            if (!inWindow.contains(notification.getNotificationId())
+                    && notification.getTimestamp() < oldestInWindow) {
+                pushedOut.add(notification);
+            }
+        }
+        olderNotifications.addAll(0, pushedOut);
+    }
+
+    private void loadMore() {
+        if (!hasMore || loadingMore || lastVisible == null) return;
+
+        loadingMore = true;
+        AppExecutors executors = AppExecutors.getInstance();
+        NotificationManager.getInstance()
+                .getNotificationsPage(currentUserId, lastVisible, PAGE_SIZE)
+                .addOnSuccessListener(executors.background(), page -> {
+                    List<Notification> mapped = SnapshotMapper.toList(page, ModelMappers.NOTIFICATION, null, null);
+                    executors.mainThread().execute(() -> {
+                        loadingMore = false;
+                        if (isFinishing() || isDestroyed()) return;
+                        olderNotifications.addAll(mapped);
+                        hasMore = page.size() == PAGE_SIZE;
+                        if (!page.isEmpty()) {
+                            lastVisible = page.getDocuments().get(page.size() - 1);
+                        }
+                        showNotifications();
+                    });
+                })
+                .addOnFailureListener(executors.mainThread(), e -> {
+                    loadingMore = false;
+                    Log.e(TAG, "Error loading more notifications: " + e.getMessage());
+                });
+    }
+
+    // A notification in the live window is shown there rather than twice
+    private void showNotifications() {
+        notificationList.clear();
+        notificationList.addAll(recentNotifications);
+        Set<String> shown = new HashSet<>();
+        for (Notification notification : recentNotifications) {
+            shown.add(notification.getNotificationId());
+        }
+        for (Notification notification : olderNotifications) {
+            if (shown.add(notification.getNotificationId())) {
+                notificationList.add(notification);
+            }
+        }
+
+        notificationAdapter.notifyDataSetChanged();
+        updateEmptyState();
+
+        Log.d(TAG, "Notifications loaded: " + notificationList.size());
+    }
+
     private void markAllAsRead() {
         if (currentUserId.isEmpty()) return;
 
@@ -174,9 +278,13 @@ public class NotificationsActivity extends AppCompatActivity {
                 break;
 
             case "message":
-                // TODO: Navigate to ChatActivity when implemented
-                Toast.makeText(this, "Chat activity not yet available", Toast.LENGTH_SHORT).show();
-                return;
+                intent = new Intent(this, ConversationsListActivity.class);
+                break;
+
+            case "stock":
+                intent = new Intent(this, MaterialManagementActivity.class);
+                intent.putExtra("jobId", relatedId);
+                break;
 
             case "task":
                 // TODO: Navigate to TaskDetailActivity when implemented
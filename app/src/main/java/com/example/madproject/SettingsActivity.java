@@ -2,11 +2,15 @@ package com.example.madproject;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.widget.Button;
 import android.widget.LinearLayout;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SwitchCompat;
 import androidx.appcompat.widget.Toolbar;
+import com.example.madproject.firebase.TokenRegistry;
+import com.example.madproject.helpers.FCMHelper;
 import com.google.firebase.auth.FirebaseAuth;
 
 public class SettingsActivity extends AppCompatActivity {
@@ -15,6 +19,11 @@ public class SettingsActivity extends AppCompatActivity {
     private SwitchCompat switchPushNotif, switchMessageNotif;
     private Button btnLogout;
     private FirebaseAuth mAuth;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean signedOut;
+
+    // Longest logout waits for this device's token to be removed, e.g. when offline
+    private static final long UNREGISTER_TIMEOUT_MILLIS = 5000;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -48,12 +57,26 @@ public class SettingsActivity extends AppCompatActivity {
         });
 
         btnLogout.setOnClickListener(v -> {
-            mAuth.signOut();
-            startActivity(new Intent(this, MainActivity.class));
-            finishAffinity();
+            btnLogout.setEnabled(false);
+            // Stop new-job pushes meant for this account
+            FCMHelper.syncJobTopics(this, null);
+            // Remove this device from the account's tokens while still signed in. Writes still
+            // pending at sign-out never reach the server, so sign-out waits for the delete.
+            TokenRegistry.getInstance(this).unregister()
+                    .addOnCompleteListener(task -> signOut());
+            handler.postDelayed(this::signOut, UNREGISTER_TIMEOUT_MILLIS);
         });
     }
 
+    private void signOut() {
+        if (signedOut) return;
+        signedOut = true;
+        handler.removeCallbacksAndMessages(null);
+        mAuth.signOut();
+        startActivity(new Intent(this, MainActivity.class));
+        finishAffinity();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
@@ -9,6 +9,7 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.madproject.firebase.OfflineWriteQueue;
 import com.example.madproject.firebase.UserManager;
 import com.example.madproject.models.User;
 import com.google.firebase.auth.FirebaseAuth;
@@ -28,6 +29,9 @@ public class SplashActivity extends AppCompatActivity {
         // Initialize Firebase Auth
         mAuth = FirebaseAuth.getInstance();
 
+        // Replay any writes that were queued while the app was offline
+        OfflineWriteQueue.getInstance(this);
+
         // Delay and check authentication
         new Handler(Looper.getMainLooper()).postDelayed(() -> checkUserAuthentication(), SPLASH_DELAY);
     }
@@ -15,6 +15,7 @@ import androidx.appcompat.widget.Toolbar;
 
 import com.example.madproject.firebase.TaskManager;
 import com.example.madproject.models.Task;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.firebase.auth.FirebaseAuth;
 
 import java.text.SimpleDateFormat;
@@ -91,7 +92,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                     showLoading(false);
 
                     if (documentSnapshot.exists()) {
-                        currentTask = documentSnapshot.toObject(Task.class);
+                        currentTask = ModelMappers.TASK.fromSnapshot(documentSnapshot);
                         if (currentTask != null) {
                             displayTaskDetails(currentTask);
                         }
@@ -172,20 +173,16 @@ public class TaskDetailActivity extends AppCompatActivity {
     }
 
     private void updateProgress(double completedQuantity) {
-        showLoading(true);
-
+        // Shown right away; quick successive updates are merged into one write
         TaskManager.getInstance()
-                .updateProgress(taskId, completedQuantity)
-                .addOnSuccessListener(aVoid -> {
-                    showLoading(false);
-                    Toast.makeText(this, "Progress updated successfully!", Toast.LENGTH_SHORT).show();
-                    loadTaskDetails(); // Reload to show updated data
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
+                .updateProgress(this, currentTask, completedQuantity)
+                .addOnFailureListener(this, e -> {
                     Toast.makeText(this, "Error updating progress: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
+                    loadTaskDetails(); // Fall back to the stored value
                 });
+        displayTaskDetails(currentTask);
+        Toast.makeText(this, "Progress updated!", Toast.LENGTH_SHORT).show();
     }
 
     private void markTaskComplete() {
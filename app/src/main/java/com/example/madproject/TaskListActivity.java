@@ -15,7 +15,10 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.adapters.TaskAdapter;
 import com.example.madproject.firebase.TaskManager;
+import com.example.madproject.helpers.IntervalTree;
+import com.example.madproject.helpers.ScheduleBuckets;
 import com.example.madproject.models.Task;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
@@ -27,6 +30,18 @@ import java.util.List;
 
 public class TaskListActivity extends AppCompatActivity {
 
+    private static final IntervalTree.Bounds<Task> TASK_BOUNDS = new IntervalTree.Bounds<Task>() {
+        @Override
+        public long start(Task task) {
+            return task.getStartDate();
+        }
+
+        @Override
+        public long end(Task task) {
+            return task.getEndDate();
+        }
+    };
+
     private RecyclerView rvTasks;
     private FloatingActionButton fabAddTask;
     private TabLayout tabLayout;
@@ -41,7 +56,8 @@ public class TaskListActivity extends AppCompatActivity {
     private TaskAdapter taskAdapter;
     private List<Task> allTasksList;
     private List<Task> filteredTasksList;
-    private String currentFilter = "all"; // all, ongoing, completed
+    private String currentFilter = "all"; // all, ongoing, completed, this_week
+    private IntervalTree<Task> scheduleTree = new IntervalTree<>(Collections.emptyList(), TASK_BOUNDS);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -105,6 +121,7 @@ public class TaskListActivity extends AppCompatActivity {
         tabLayout.addTab(tabLayout.newTab().setText("All"));
         tabLayout.addTab(tabLayout.newTab().setText("Ongoing"));
         tabLayout.addTab(tabLayout.newTab().setText("Completed"));
+        tabLayout.addTab(tabLayout.newTab().setText("This Week"));
 
         tabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
@@ -119,6 +136,9 @@ public class TaskListActivity extends AppCompatActivity {
                     case 2:
                         currentFilter = "completed";
                         break;
+                    case 3:
+                        currentFilter = "this_week";
+                        break;
                 }
                 filterTasks();
             }
@@ -166,7 +186,7 @@ public class TaskListActivity extends AppCompatActivity {
                     allTasksList.clear();
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Task task = doc.toObject(Task.class);
+                        Task task = ModelMappers.TASK.fromSnapshot(doc);
                         if (task != null) {
                             allTasksList.add(task);
                         }
@@ -175,6 +195,10 @@ public class TaskListActivity extends AppCompatActivity {
                     // Sort by updated date (newest first)
                     Collections.sort(allTasksList, (t1, t2) ->
                             Long.compare(t2.getUpdatedAt(), t1.getUpdatedAt()));
+                    scheduleTree = new IntervalTree<>(allTasksList, TASK_BOUNDS);
+
+                    // Index tasks created before the schedule index existed
+                    TaskManager.getInstance().backfillScheduleIndex(queryDocumentSnapshots.getDocuments());
 
                     // Apply filter
                     filterTasks();
@@ -189,6 +213,15 @@ public class TaskListActivity extends AppCompatActivity {
     private void filterTasks() {
         filteredTasksList.clear();
 
+        if (currentFilter.equals("this_week")) {
+            // Tasks scheduled at any time this week, in order of start date
+            long weekStart = ScheduleBuckets.weekStart(System.currentTimeMillis());
+            filteredTasksList.addAll(scheduleTree.query(weekStart, weekStart + ScheduleBuckets.WEEK_MILLIS - 1));
+            taskAdapter.notifyDataSetChanged();
+            updateEmptyState();
+            return;
+        }
+
         for (Task task : allTasksList) {
             boolean matchesFilter = currentFilter.equals("all") ||
                                   task.getStatus().equals(currentFilter);
@@ -0,0 +1,128 @@
+package com.example.madproject.adapters;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.madproject.R;
+import com.example.madproject.models.Conversation;
+
+import java.util.List;
+
+import de.hdodenhof.circleimageview.CircleImageView;
+
+public class ConversationAdapter extends RecyclerView.Adapter<ConversationAdapter.ConversationViewHolder> {
+
+    private Context context;
+    private List<Conversation> conversationList;
+    private String currentUserId;
+    private OnConversationClickListener listener;
+
+    public interface OnConversationClickListener {
+        void onConversationClick(Conversation conversation);
+    }
+
+    public ConversationAdapter(Context context, List<Conversation> conversationList, String currentUserId,
+                               OnConversationClickListener listener) {
+        this.context = context;
+        this.conversationList = conversationList;
+        this.currentUserId = currentUserId;
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public ConversationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_conversation, parent, false);
+        return new ConversationViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ConversationViewHolder holder, int position) {
+        Conversation conversation = conversationList.get(position);
+
+        // Counterpart name
+        String name = conversation.getOtherUserName();
+        holder.tvName.setText(name != null && !name.isEmpty() ? name : "User");
+
+        // Last message preview
+        String preview = conversation.getLastMessage() != null ? conversation.getLastMessage() : "";
+        if (currentUserId.equals(conversation.getLastSenderId())) {
+            preview = "You: " + preview;
+        }
+        holder.tvLastMessage.setText(preview);
+
+        holder.tvTime.setText(getTimeAgo(conversation.getLastTimestamp()));
+
+        // Unread badge
+        int unread = conversation.getUnreadCount();
+        if (unread > 0) {
+            holder.tvUnreadCount.setVisibility(View.VISIBLE);
+            holder.tvUnreadCount.setText(unread > 99 ? "99+" : String.valueOf(unread));
+            holder.tvLastMessage.setTypeface(null, Typeface.BOLD);
+            holder.tvLastMessage.setTextColor(0xFF212121);
+        } else {
+            holder.tvUnreadCount.setVisibility(View.GONE);
+            holder.tvLastMessage.setTypeface(null, Typeface.NORMAL);
+            holder.tvLastMessage.setTextColor(0xFF757575);
+        }
+
+        // TODO: Load image using Glide/Picasso
+        // Glide.with(context).load(conversation.getOtherUserPhotoUrl()).into(holder.ivAvatar);
+        holder.ivAvatar.setImageResource(R.drawable.ic_default_profile);
+
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onConversationClick(conversation);
+            }
+        });
+    }
+
+    @Override
+    public int getItemCount() {
+        return conversationList.size();
+    }
+
+    private String getTimeAgo(long timestamp) {
+        long now = System.currentTimeMillis();
+        long diff = now - timestamp;
+
+        long seconds = diff / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        long days = hours / 24;
+        long weeks = days / 7;
+
+        if (weeks > 0) {
+            return weeks + "w ago";
+        } else if (days > 0) {
+            return days + "d ago";
+        } else if (hours > 0) {
+            return hours + "h ago";
+        } else if (minutes > 0) {
+            return minutes + "m ago";
+        } else {
+            return "Just now";
+        }
+    }
+
+    static class ConversationViewHolder extends RecyclerView.ViewHolder {
+        CircleImageView ivAvatar;
+        TextView tvName, tvTime, tvLastMessage, tvUnreadCount;
+
+        public ConversationViewHolder(@NonNull View itemView) {
+            super(itemView);
+            ivAvatar = itemView.findViewById(R.id.ivAvatar);
+            tvName = itemView.findViewById(R.id.tvName);
+            tvTime = itemView.findViewById(R.id.tvTime);
+            tvLastMessage = itemView.findViewById(R.id.tvLastMessage);
+            tvUnreadCount = itemView.findViewById(R.id.tvUnreadCount);
+        }
+    }
+}
@@ -12,18 +12,22 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.madproject.R;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.ProjectRollup;
 
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class JobAdapter extends RecyclerView.Adapter<JobAdapter.JobViewHolder> {
 
     private Context context;
     private List<Job> jobList;
     private OnJobClickListener listener;
+    private Map<String, ProjectRollup> rollups = Collections.emptyMap();
 
     public interface OnJobClickListener {
         void onJobClick(Job job);
@@ -35,6 +39,12 @@ public class JobAdapter extends RecyclerView.Adapter<JobAdapter.JobViewHolder> {
         this.listener = listener;
     }
 
+    // Project health shown on each card, keyed by jobId; jobs without a rollup show none
+    public void setRollups(Map<String, ProjectRollup> rollups) {
+        this.rollups = rollups;
+        notifyDataSetChanged();
+    }
+
     @NonNull
     @Override
     public JobViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -72,6 +82,21 @@ public class JobAdapter extends RecyclerView.Adapter<JobAdapter.JobViewHolder> {
         String bidsText = job.getTotalBids() + " bids";
         holder.tvBidCount.setText(bidsText);
 
+        // Set project health
+        ProjectRollup rollup = rollups.get(job.getJobId());
+        if (rollup != null) {
+            String healthText = String.format(Locale.getDefault(), "%.0f%% done", rollup.getWeightedProgress());
+            if (rollup.getStockAlertCount() > 0) {
+                healthText += " • " + rollup.getStockAlertCount() + " stock alert"
+                        + (rollup.getStockAlertCount() > 1 ? "s" : "");
+            }
+            holder.tvProjectHealth.setText(healthText);
+            holder.tvProjectHealth.setTextColor(rollup.getOutOfStockCount() > 0 ? 0xFFF44336 : 0xFF4CAF50);
+            holder.tvProjectHealth.setVisibility(View.VISIBLE);
+        } else {
+            holder.tvProjectHealth.setVisibility(View.GONE);
+        }
+
         // Set click listener
         holder.cardView.setOnClickListener(v -> {
             if (listener != null) {
@@ -141,7 +166,7 @@ public class JobAdapter extends RecyclerView.Adapter<JobAdapter.JobViewHolder> {
 
     static class JobViewHolder extends RecyclerView.ViewHolder {
         CardView cardView;
-        TextView tvJobTitle, tvCategory, tvBudget, tvLocation, tvPostedDate, tvStatus, tvBidCount;
+        TextView tvJobTitle, tvCategory, tvBudget, tvLocation, tvPostedDate, tvStatus, tvBidCount, tvProjectHealth;
 
         public JobViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -153,6 +178,7 @@ public class JobAdapter extends RecyclerView.Adapter<JobAdapter.JobViewHolder> {
             tvPostedDate = itemView.findViewById(R.id.tvPostedDate);
             tvStatus = itemView.findViewById(R.id.tvStatus);
             tvBidCount = itemView.findViewById(R.id.tvBidCount);
+            tvProjectHealth = itemView.findViewById(R.id.tvProjectHealth);
         }
     }
 }
\ No newline at end of file
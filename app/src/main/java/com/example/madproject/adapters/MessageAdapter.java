@@ -27,6 +27,11 @@ public class MessageAdapter extends RecyclerView.Adapter<MessageAdapter.MessageV
     private Context context;
     private List<Message> messageList;
     private String currentUserId;
+    private OnRetryClickListener retryListener;
+
+    public interface OnRetryClickListener {
+        void onRetryClick(Message message);
+    }
 
     public MessageAdapter(Context context, List<Message> messageList) {
         this.context = context;
@@ -35,6 +40,11 @@ public class MessageAdapter extends RecyclerView.Adapter<MessageAdapter.MessageV
                            FirebaseAuth.getInstance().getCurrentUser().getUid() : "";
     }
 
+    public MessageAdapter(Context context, List<Message> messageList, OnRetryClickListener retryListener) {
+        this(context, messageList);
+        this.retryListener = retryListener;
+    }
+
     @NonNull
     @Override
     public MessageViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -51,6 +61,10 @@ public class MessageAdapter extends RecyclerView.Adapter<MessageAdapter.MessageV
         holder.receivedMessageLayout.setVisibility(View.GONE);
         holder.sentMessageLayout.setVisibility(View.GONE);
         holder.imageMessageLayout.setVisibility(View.GONE);
+        holder.sentMessageLayout.setAlpha(1.0f);
+        holder.tvSentTime.setTextColor(0xFF9E9E9E);
+        holder.itemView.setOnClickListener(null);
+        holder.itemView.setClickable(false);
 
         String timeText = formatTime(message.getTimestamp());
 
@@ -71,8 +85,24 @@ public class MessageAdapter extends RecyclerView.Adapter<MessageAdapter.MessageV
             holder.tvSentMessage.setText(message.getMessageText());
             holder.tvSentTime.setText(timeText);
 
-            // Show read status
-            if (message.isRead()) {
+            // Show send or read status
+            if (message.isFailed()) {
+                holder.tvSentTime.setText("Not sent. Tap to retry");
+                holder.tvSentTime.setTextColor(0xFFF44336);
+                holder.ivMessageStatus.setVisibility(View.VISIBLE);
+                holder.ivMessageStatus.setImageResource(R.drawable.ic_close);
+                holder.ivMessageStatus.setColorFilter(0xFFF44336); // Red for failed
+                holder.itemView.setOnClickListener(v -> {
+                    if (retryListener != null) {
+                        retryListener.onRetryClick(message);
+                    }
+                });
+            } else if (message.isPending()) {
+                holder.sentMessageLayout.setAlpha(0.6f);
+                holder.ivMessageStatus.setVisibility(View.VISIBLE);
+                holder.ivMessageStatus.setImageResource(R.drawable.ic_time);
+                holder.ivMessageStatus.setColorFilter(0xFF9E9E9E); // Grey while sending
+            } else if (message.isRead()) {
                 holder.ivMessageStatus.setVisibility(View.VISIBLE);
                 holder.ivMessageStatus.setImageResource(R.drawable.ic_check);
                 holder.ivMessageStatus.setColorFilter(0xFF4CAF50); // Green for read
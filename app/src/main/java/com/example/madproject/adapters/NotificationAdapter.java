@@ -94,6 +94,7 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
                 iconRes = R.drawable.ic_message;
                 break;
             case "task":
+            case "stock":
                 iconRes = R.drawable.ic_task;
                 break;
             case "payment":
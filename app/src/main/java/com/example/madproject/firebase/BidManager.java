@@ -1,12 +1,25 @@
 package com.example.madproject.firebase;
 
+import android.content.Context;
+
 import com.example.madproject.models.Bid;
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Notification;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class BidManager {
     private static BidManager instance;
     private final FirebaseFirestore db;
@@ -23,11 +36,65 @@ public class BidManager {
         return instance;
     }
 
-    // CREATE - Submit new bid
+    // CREATE - Submit new bid. Only the first write of a bid stores it, counts it on the job and
+    // the contractor's stats and notifies the job owner, in one transaction; a replayed bid
+    // leaves the stored one (which may have been accepted since) alone, and a bid that is never
+    // stored leaves no trace
     public Task<Void> createBid(Bid bid) {
-        return db.collection(COLLECTION_NAME)
-                .document(bid.getBidId())
-                .set(bid);
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(bid.getBidId());
+        DocumentReference jobRef = db.collection("jobs").document(bid.getJobId());
+        DocumentReference notificationRef = db.collection("notifications").document("notif_" + bid.getBidId());
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(ref);
+            DocumentSnapshot jobSnapshot = transaction.get(jobRef);
+            DocumentSnapshot notificationSnapshot = transaction.get(notificationRef);
+            if (!existing.exists()) {
+                transaction.set(ref, ModelMappers.BID.toMap(bid));
+                Map<String, Number> deltas = new HashMap<>();
+                deltas.put("bidsSubmitted", 1L);
+                UserStatsManager.getInstance().increment(transaction, bid.getContractorId(), deltas);
+
+                Job job = ModelMappers.JOB.fromSnapshot(jobSnapshot);
+                if (job != null) {
+                    transaction.update(jobRef, "totalBids", FieldValue.increment(1));
+                    if (job.getClientId() != null) {
+                        NotificationManager.getInstance().setNotification(transaction,
+                                notificationSnapshot, newBidNotification(notificationRef.getId(), bid, job));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Notification newBidNotification(String notificationId, Bid bid, Job job) {
+        String message = bid.getContractorName() + " submitted a bid of Rs. " +
+                formatCurrency(bid.getBidAmount()) + " on your job \"" + job.getTitle() + "\"";
+        // relatedId is the jobId so the owner can navigate to the job
+        return new Notification(notificationId, job.getClientId(), "New Bid Received", message,
+                "bid", job.getJobId());
+    }
+
+    private static String formatCurrency(double amount) {
+        if (amount >= 10000000) {
+            return String.format("%.1f Cr", amount / 10000000);
+        } else if (amount >= 100000) {
+            return String.format("%.1f L", amount / 100000);
+        } else if (amount >= 1000) {
+            return String.format("%.1f K", amount / 1000);
+        } else {
+            return String.format("%.0f", amount);
+        }
+    }
+
+    // CREATE (offline) - Save locally and submit when online; the bidId is the idempotency key
+    public void queueCreateBid(Context context, Bid bid) {
+        OfflineWriteQueue.getInstance(context).enqueue(
+                bid.getBidId(),
+                OfflineWriteQueue.OP_SET,
+                COLLECTION_NAME,
+                bid.getBidId(),
+                ModelMappers.BID.toMap(bid));
     }
 
     // READ - Get single bid by ID
@@ -59,6 +126,15 @@ public class BidManager {
                 .get();
     }
 
+    // READ - Get the accepted bid for a job (at most one)
+    public Task<QuerySnapshot> getAcceptedBidByJob(String jobId) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("jobId", jobId)
+                .whereEqualTo("status", "accepted")
+                .limit(1)
+                .get();
+    }
+
     // READ - Get accepted bids by contractor
     public Task<QuerySnapshot> getAcceptedBidsByContractor(String contractorId) {
         return db.collection(COLLECTION_NAME)
@@ -74,11 +150,17 @@ public class BidManager {
                 .get();
     }
 
-    // UPDATE - Update entire bid
-    public Task<Void> updateBid(Bid bid) {
+    // UPDATE - Update only the fields changed since the bid was loaded
+    public Task<Void> updateBid(ChangeTracker<Bid> tracker) {
+        Map<String, Object> changes = tracker.getChanges();
+        if (changes.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        changes.put("updatedAt", System.currentTimeMillis());
         return db.collection(COLLECTION_NAME)
-                .document(bid.getBidId())
-                .set(bid);
+                .document(tracker.get().getBidId())
+                .update(changes)
+                .addOnSuccessListener(aVoid -> tracker.markSaved(changes));
     }
 
     // UPDATE - Update specific field
@@ -98,6 +180,51 @@ public class BidManager {
         return updateBidStatus(bidId, "accepted");
     }
 
+    // UPDATE - Accept a bid and assign its contractor to the job in one transaction, crediting the
+    // contractor's earnings and win count and the client's spend. Accepting twice changes nothing;
+    // accepting a bid on a job that is no longer open, or already has a bid accepted, fails.
+    public Task<Void> acceptBid(Bid bid) {
+        DocumentReference bidRef = db.collection(COLLECTION_NAME).document(bid.getBidId());
+        DocumentReference jobRef = db.collection("jobs").document(bid.getJobId());
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot bidSnapshot = transaction.get(bidRef);
+            DocumentSnapshot jobSnapshot = transaction.get(jobRef);
+            Bid stored = ModelMappers.BID.fromSnapshot(bidSnapshot);
+            Job job = ModelMappers.JOB.fromSnapshot(jobSnapshot);
+            if (stored == null || job == null) {
+                throw new FirebaseFirestoreException("Bid or job not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            if ("accepted".equals(stored.getStatus())) {
+                return null;
+            }
+            if (!"open".equals(job.getStatus())
+                    || (job.getAcceptedBidId() != null && !job.getAcceptedBidId().isEmpty())) {
+                throw new FirebaseFirestoreException("This job has already been awarded",
+                        FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+            }
+
+            transaction.update(bidRef, "status", "accepted");
+            transaction.update(jobRef,
+                    "assignedContractorId", stored.getContractorId(),
+                    "assignedContractorName", stored.getContractorName(),
+                    "acceptedBidId", stored.getBidId(),
+                    "status", "in_progress",
+                    "startDate", System.currentTimeMillis());
+
+            Map<String, Number> contractorDeltas = new HashMap<>();
+            contractorDeltas.put("bidsWon", 1L);
+            contractorDeltas.put("activeJobs", 1L);
+            contractorDeltas.put("totalEarnings", stored.getBidAmount());
+            UserStatsManager.getInstance().increment(transaction, stored.getContractorId(), contractorDeltas);
+
+            Map<String, Number> clientDeltas = new HashMap<>();
+            clientDeltas.put("totalSpent", stored.getBidAmount());
+            UserStatsManager.getInstance().increment(transaction, job.getClientId(), clientDeltas);
+            return null;
+        });
+    }
+
     // UPDATE - Reject bid
     public Task<Void> rejectBid(String bidId) {
         return updateBidStatus(bidId, "rejected");
@@ -0,0 +1,214 @@
+package com.example.madproject.firebase;
+
+import android.util.Log;
+
+import com.example.madproject.models.Conversation;
+import com.example.madproject.models.UserCounters;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuery;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Maintains one {@code counters/{userId}} document per user with their unread message and
+ * notification totals.
+ *
+ * Message and notification writes add their changes with FieldValue.increment in the same
+ * transaction that checks whether the message is new or the notification was unread, so a
+ * replayed write is never counted twice. Screens observe the totals through
+ * {@link #addObserver}, which shares a single listener between all of them.
+ */
+public class CountersManager {
+    private static final String TAG = "CountersManager";
+    private static CountersManager instance;
+    private final FirebaseFirestore db;
+    private static final String COLLECTION_NAME = "counters";
+
+    public static final String UNREAD_MESSAGES = "unreadMessages";
+    public static final String UNREAD_NOTIFICATIONS = "unreadNotifications";
+    private static final long REBUILD_TIMEOUT_SECONDS = 30;
+
+    // The shared listener and the screens observing it (main thread only)
+    private final List<OnCountersChangedListener> observers = new ArrayList<>();
+    private ListenerRegistration registration;
+    private String observedUserId;
+    private UserCounters latest;
+    // Users whose recount is running, so snapshots arriving meanwhile don't start another
+    private final Set<String> rebuilding = new HashSet<>();
+
+    private CountersManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized CountersManager getInstance() {
+        if (instance == null) {
+            instance = new CountersManager();
+        }
+        return instance;
+    }
+
+    public DocumentReference countersRef(String userId) {
+        return db.collection(COLLECTION_NAME).document(userId);
+    }
+
+    // UPDATE - Add to one of a user's totals in a transaction
+    public void increment(Transaction transaction, String userId, String field, long delta) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(field, FieldValue.increment(delta));
+        updates.put("userId", userId);
+        updates.put("updatedAt", System.currentTimeMillis());
+        transaction.set(countersRef(userId), updates, SetOptions.merge());
+    }
+
+    // REBUILD - Recount a user's totals from their chats index and notifications (for users from
+    // before counters existed). The counters document is read first in the transaction and every
+    // increment writes it, so a change that lands while the recount runs makes it retry instead
+    // of being overwritten; a user already counted by another device is left alone.
+    public Task<Void> rebuildCounters(String userId) {
+        DocumentReference ref = countersRef(userId);
+        Query chats = db.collection("users").document(userId).collection("chats");
+        AggregateQuery unreadNotifications = db.collection("notifications")
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("read", false)
+                .count();
+
+        return db.runTransaction(transaction -> {
+            UserCounters stored = ModelMappers.USER_COUNTERS.fromSnapshot(transaction.get(ref));
+            if (stored != null && stored.getRebuiltAt() != 0) {
+                return null;
+            }
+
+            int unreadMessages = 0;
+            for (DocumentSnapshot doc : await(chats.get(Source.SERVER))) {
+                Conversation conversation = ModelMappers.CONVERSATION.fromSnapshot(doc);
+                if (conversation != null) {
+                    unreadMessages += Math.max(0, conversation.getUnreadCount());
+                }
+            }
+
+            UserCounters counters = new UserCounters();
+            counters.setUserId(userId);
+            counters.setUnreadMessages(unreadMessages);
+            counters.setUnreadNotifications((int) await(unreadNotifications.get(AggregateSource.SERVER)).getCount());
+            long now = System.currentTimeMillis();
+            counters.setRebuiltAt(now);
+            counters.setUpdatedAt(now);
+            transaction.set(ref, ModelMappers.USER_COUNTERS.toMap(counters));
+            return null;
+        });
+    }
+
+    // Transactions can't run queries, so the recount reads them from the server on the
+    // transaction's worker thread
+    private static <T> T await(Task<T> task) throws FirebaseFirestoreException {
+        try {
+            return Tasks.await(task, REBUILD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FirebaseFirestoreException) {
+                throw (FirebaseFirestoreException) e.getCause();
+            }
+            throw new FirebaseFirestoreException("Counters query failed",
+                    FirebaseFirestoreException.Code.UNAVAILABLE, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirebaseFirestoreException("Counters query interrupted",
+                    FirebaseFirestoreException.Code.ABORTED, e);
+        } catch (TimeoutException e) {
+            throw new FirebaseFirestoreException("Counters query timed out",
+                    FirebaseFirestoreException.Code.DEADLINE_EXCEEDED, e);
+        }
+    }
+
+    /**
+     * Starts delivering a user's totals to a screen, immediately if they are already known.
+     * Every observer shares one document listener, which stops when the last one is removed.
+     * Call from the main thread, and remove the observer when the screen is destroyed.
+     */
+    public void addObserver(String userId, OnCountersChangedListener observer) {
+        if (registration != null && !userId.equals(observedUserId)) {
+            // A different user signed in: start over for them
+            stopListening();
+        }
+        observers.add(observer);
+        if (registration == null) {
+            startListening(userId);
+        } else if (latest != null) {
+            observer.onCountersChanged(latest);
+        }
+    }
+
+    public void removeObserver(OnCountersChangedListener observer) {
+        observers.remove(observer);
+        if (observers.isEmpty()) {
+            stopListening();
+        }
+    }
+
+    private void startListening(String userId) {
+        observedUserId = userId;
+        registration = countersRef(userId).addSnapshotListener((value, error) -> {
+            if (error != null) {
+                Log.w(TAG, "Counters listener failed: " + error.getMessage());
+                return;
+            }
+            if (value == null) {
+                return;
+            }
+            UserCounters counters = ModelMappers.USER_COUNTERS.fromSnapshot(value);
+            if ((counters == null || counters.getRebuiltAt() == 0) && !value.getMetadata().isFromCache()
+                    && rebuilding.add(userId)) {
+                // Never counted: the rebuild's write comes back through this listener
+                rebuildCounters(userId)
+                        .addOnCompleteListener(task -> rebuilding.remove(userId))
+                        .addOnFailureListener(e -> Log.w(TAG, "Counters rebuild failed: " + e.getMessage()));
+            }
+            latest = counters != null ? counters : new UserCounters();
+            for (OnCountersChangedListener observer : new ArrayList<>(observers)) {
+                observer.onCountersChanged(latest);
+            }
+        });
+    }
+
+    private void stopListening() {
+        if (registration != null) {
+            registration.remove();
+        }
+        registration = null;
+        observedUserId = null;
+        latest = null;
+    }
+
+    // Badge text for a count: hidden (null) at zero, capped at 99+
+    public static String badgeText(int count) {
+        if (count <= 0) {
+            return null;
+        }
+        return count > 99 ? "99+" : String.valueOf(count);
+    }
+
+    // Callback interface
+    public interface OnCountersChangedListener {
+        void onCountersChanged(UserCounters counters);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.madproject.firebase;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.helpers.ChatStore;
+import com.example.madproject.models.Message;
+import com.example.madproject.models.mappers.ModelMappers;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * On-device copies of jobs and bids as delivered by pushes (see {@link PushPayload}), so the
+ * screen a push opens can be painted before its documents are read.
+ *
+ * Each entry keeps the version of the last change applied, and older changes are ignored, so
+ * pushes arriving out of order can't roll an entry back. An entry is only created from a
+ * whole document; changed fields are merged into an existing entry. Message pushes go to the
+ * chat's {@link ChatStore} instead. All methods do disk work and must be called off the main
+ * thread; observers are told of each applied change on the main thread.
+ */
+public class EntityCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "EntityCache";
+    private static final String DATABASE_NAME = "entity_cache.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String ENTITIES = "entities";
+
+    private static EntityCache instance;
+    private final Context context;
+    private final List<OnEntityChangedListener> observers = new CopyOnWriteArrayList<>();
+
+    private EntityCache(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context.getApplicationContext();
+    }
+
+    public static synchronized EntityCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new EntityCache(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + ENTITIES + " ("
+                + "entity_type TEXT NOT NULL, entity_id TEXT NOT NULL, parent_id TEXT, "
+                + "version INTEGER NOT NULL, fields TEXT NOT NULL, "
+                + "PRIMARY KEY (entity_type, entity_id))");
+        db.execSQL("CREATE INDEX entities_parent ON " + ENTITIES + " (entity_type, parent_id)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A cache of server data: rebuild rather than migrate
+        db.execSQL("DROP TABLE IF EXISTS " + ENTITIES);
+        onCreate(db);
+    }
+
+    // WRITE - Apply a pushed change to the local copies
+    public void apply(PushPayload payload) {
+        if (PushPayload.ENTITY_MESSAGE.equals(payload.entity)) {
+            // Messages never change after sending, so a whole message is simply saved
+            if (payload.full) {
+                Message message = ModelMappers.MESSAGE.fromMap(payload.fields);
+                if (message.getMessageId() != null && message.getChatId() != null) {
+                    ChatStore.getInstance(context).save(Collections.singletonList(message));
+                }
+            }
+            return;
+        }
+
+        SQLiteDatabase db = getWritableDatabase();
+        boolean changed = false;
+        Map<String, Object> fields = null;
+        db.beginTransaction();
+        try {
+            String[] key = {payload.entity, payload.id};
+            long version = -1;
+            try (Cursor cursor = db.query(ENTITIES, new String[]{"version", "fields"},
+                    "entity_type = ? AND entity_id = ?", key, null, null, null)) {
+                if (cursor.moveToFirst()) {
+                    version = cursor.getLong(0);
+                    fields = TypedJson.decodeMap(new JSONObject(cursor.getString(1)));
+                }
+            }
+
+            // An equal or newer version means this change is already applied
+            if (version < payload.version) {
+                if (payload.fields == null) {
+                    changed = db.delete(ENTITIES, "entity_type = ? AND entity_id = ?", key) > 0;
+                    fields = null;
+                } else if (payload.full || fields != null) {
+                    if (payload.full) {
+                        fields = payload.fields;
+                    } else {
+                        fields.putAll(payload.fields);
+                    }
+                    ContentValues values = new ContentValues();
+                    values.put("entity_type", payload.entity);
+                    values.put("entity_id", payload.id);
+                    values.put("parent_id", payload.parentId);
+                    values.put("version", payload.version);
+                    values.put("fields", TypedJson.encodeMap(fields).toString());
+                    db.insertWithOnConflict(ENTITIES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                    changed = true;
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (JSONException e) {
+            Log.w(TAG, "Could not apply " + payload.entity + " " + payload.id, e);
+            changed = false;
+        } finally {
+            db.endTransaction();
+        }
+
+        if (changed && !observers.isEmpty()) {
+            Map<String, Object> current = fields;
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                for (OnEntityChangedListener observer : observers) {
+                    observer.onEntityChanged(payload.entity, payload.id, current);
+                }
+            });
+        }
+    }
+
+    // REAL-TIME - Observe changes applied from pushes, e.g. to merge new jobs into a feed
+    public void addObserver(OnEntityChangedListener observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(OnEntityChangedListener observer) {
+        observers.remove(observer);
+    }
+
+    // READ - A cached entity's fields, or null if there is no copy
+    public Map<String, Object> get(String entity, String id) {
+        try (Cursor cursor = getReadableDatabase().query(ENTITIES, new String[]{"fields"},
+                "entity_type = ? AND entity_id = ?", new String[]{entity, id}, null, null, null)) {
+            return cursor.moveToFirst() ? decode(cursor.getString(0)) : null;
+        }
+    }
+
+    // READ - The cached entities under a parent, e.g. the bids on a job
+    public List<Map<String, Object>> getChildren(String entity, String parentId) {
+        List<Map<String, Object>> children = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(ENTITIES, new String[]{"fields"},
+                "entity_type = ? AND parent_id = ?", new String[]{entity, parentId}, null, null, null)) {
+            while (cursor.moveToNext()) {
+                Map<String, Object> fields = decode(cursor.getString(0));
+                if (fields != null) {
+                    children.add(fields);
+                }
+            }
+        }
+        return children;
+    }
+
+    private static Map<String, Object> decode(String json) {
+        try {
+            return TypedJson.decodeMap(new JSONObject(json));
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    // Callback interface
+    public interface OnEntityChangedListener {
+        // fields is the entity's cached copy after the change, or null if it was removed
+        void onEntityChanged(String entity, String id, Map<String, Object> fields);
+    }
+}
@@ -1,20 +1,38 @@
 package com.example.madproject.firebase;
 
+import android.util.Log;
+
+import com.example.madproject.helpers.JobTopics;
 import com.example.madproject.models.Job;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class JobManager {
+    private static final String TAG = "JobManager";
     private static JobManager instance;
     private final FirebaseFirestore db;
     private static final String COLLECTION_NAME = "jobs";
+    // Description characters carried by a new-job push; the full text is read with the job
+    private static final int PUSH_DESCRIPTION_LENGTH = 300;
+    private PushSender pushSender;
 
     private JobManager() {
         db = FirebaseFirestore.getInstance();
+        pushSender = new PushOutbox();
     }
 
     public static synchronized JobManager getInstance() {
@@ -24,11 +42,43 @@ public class JobManager {
         return instance;
     }
 
-    // CREATE - Add new job
+    // CREATE - Add new job (and count it in the client's stats in the same batch)
     public Task<Void> createJob(Job job) {
-        return db.collection(COLLECTION_NAME)
-                .document(job.getJobId())
-                .set(job);
+        WriteBatch batch = db.batch();
+        batch.set(db.collection(COLLECTION_NAME).document(job.getJobId()), ModelMappers.JOB.toMap(job));
+        Map<String, Number> deltas = new HashMap<>();
+        deltas.put("jobsPosted", 1L);
+        deltas.put("activeJobs", 1L);
+        UserStatsManager.getInstance().increment(batch, job.getClientId(), deltas);
+        return batch.commit().addOnSuccessListener(aVoid -> publishNewJob(job));
+    }
+
+    // Replaces the sender of new-job pushes, e.g. with a stub in tests
+    public void setPushSender(PushSender pushSender) {
+        this.pushSender = pushSender;
+    }
+
+    // Pushes a new job to the contractors subscribed to its category or city. The push
+    // carries the job itself, so their feeds can list it without querying.
+    private void publishNewJob(Job job) {
+        List<String> topics = JobTopics.forJob(job.getCategory(), job.getLocation());
+        if (topics.isEmpty()) {
+            return;
+        }
+        Map<String, Object> fields = ModelMappers.JOB.toMap(job);
+        String description = job.getDescription();
+        if (description != null && description.length() > PUSH_DESCRIPTION_LENGTH) {
+            fields.put("description", description.substring(0, PUSH_DESCRIPTION_LENGTH));
+        }
+        Map<String, String> data = PushPayload.encode(PushPayload.ENTITY_JOB, job.getJobId(), null,
+                job.getPostedDate(), fields, true);
+        data.put("title", "New " + (job.getCategory() != null ? job.getCategory() + " " : "") + "job");
+        data.put("message", job.getTitle() + (job.getLocation() != null ? " in " + job.getLocation() : ""));
+        data.put("type", "job");
+        data.put("relatedId", job.getJobId());
+        data.put("notificationId", "job_" + job.getJobId());
+        pushSender.send(topics, data)
+                .addOnFailureListener(e -> Log.w(TAG, "Could not publish job " + job.getJobId() + ": " + e.getMessage()));
     }
 
     // READ - Get single job by ID
@@ -89,11 +139,17 @@ public class JobManager {
                 .get();
     }
 
-    // UPDATE - Update entire job
-    public Task<Void> updateJob(Job job) {
+    // UPDATE - Update only the fields changed since the job was loaded
+    public Task<Void> updateJob(ChangeTracker<Job> tracker) {
+        Map<String, Object> changes = tracker.getChanges();
+        if (changes.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        changes.put("updatedAt", System.currentTimeMillis());
         return db.collection(COLLECTION_NAME)
-                .document(job.getJobId())
-                .set(job);
+                .document(tracker.get().getJobId())
+                .update(changes)
+                .addOnSuccessListener(aVoid -> tracker.markSaved(changes));
     }
 
     // UPDATE - Update specific field
@@ -128,14 +184,38 @@ public class JobManager {
                 );
     }
 
-    // UPDATE - Complete job
+    // UPDATE - Complete job; moves it from active to completed in the client's and contractor's
+    // stats and counts it in the contractor's completedProjects, all in one transaction
     public Task<Void> completeJob(String jobId) {
-        return db.collection(COLLECTION_NAME)
-                .document(jobId)
-                .update(
-                        "status", "completed",
-                        "completedDate", System.currentTimeMillis()
-                );
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(jobId);
+        return db.runTransaction(transaction -> {
+            Job job = ModelMappers.JOB.fromSnapshot(transaction.get(ref));
+            if (job == null) {
+                throw new FirebaseFirestoreException("Job not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            if ("completed".equals(job.getStatus())) {
+                return null;
+            }
+
+            transaction.update(ref,
+                    "status", "completed",
+                    "completedDate", System.currentTimeMillis());
+
+            Map<String, Number> deltas = new HashMap<>();
+            deltas.put("activeJobs", -1L);
+            deltas.put("completedJobs", 1L);
+            UserStatsManager.getInstance().increment(transaction, job.getClientId(), deltas);
+
+            String contractorId = job.getAssignedContractorId();
+            if (contractorId != null && !contractorId.isEmpty()) {
+                UserStatsManager.getInstance().increment(transaction, contractorId, deltas);
+                transaction.update(db.collection("users").document(contractorId),
+                        "completedProjects", FieldValue.increment(1),
+                        "updatedAt", System.currentTimeMillis());
+            }
+            return null;
+        });
     }
 
     // DELETE - Delete job
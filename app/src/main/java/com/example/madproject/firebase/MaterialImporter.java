@@ -0,0 +1,288 @@
+package com.example.madproject.firebase;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.helpers.CsvReader;
+import com.example.madproject.helpers.MaterialUnits;
+import com.example.madproject.models.Material;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Imports a supplier bill of quantities (CSV) into a job's materials.
+ *
+ * The file is read one row at a time. Each row is validated, its unit is converted to one
+ * of the stored material units, and rows matching an existing material (same name and unit)
+ * or an earlier row are skipped. Valid rows are committed in WriteBatches of
+ * {@link #MATERIALS_PER_BATCH}, and the next rows are only read once a batch has been
+ * committed, so at most one batch is held in memory whatever the size of the file.
+ *
+ * The header row names the columns. Name, quantity and unit are required; rate, category
+ * and supplier are optional. Common BOQ spellings ("Item", "Qty", "UOM", "Rate", ...) are
+ * recognised.
+ */
+public class MaterialImporter {
+
+    // Each material writes itself, its rollup change, its ledger snapshot and its first
+    // movement, so 100 materials stay under Firestore's 500 writes per batch
+    private static final int MATERIALS_PER_BATCH = 100;
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final long COMMIT_TIMEOUT_SECONDS = 60;
+
+    private static final String[] NAME_COLUMNS = {"item", "item name", "material", "material name",
+            "name", "particulars", "item description", "description"};
+    private static final String[] QUANTITY_COLUMNS = {"qty", "quantity", "qnty"};
+    private static final String[] UNIT_COLUMNS = {"unit", "uom", "units", "unit of measure"};
+    private static final String[] RATE_COLUMNS = {"rate", "unit rate", "unit price", "price"};
+    private static final String[] CATEGORY_COLUMNS = {"category", "type", "group"};
+    private static final String[] SUPPLIER_COLUMNS = {"supplier", "vendor"};
+
+    private final Context context;
+    private final FirebaseFirestore db;
+    private final String jobId;
+    private final String projectName;
+    private final String userId;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public MaterialImporter(Context context, String jobId, String projectName, String userId) {
+        this.context = context.getApplicationContext();
+        this.db = FirebaseFirestore.getInstance();
+        this.jobId = jobId;
+        this.projectName = projectName;
+        this.userId = userId;
+    }
+
+    // Loads the job's existing materials for duplicate detection, then imports on a background thread
+    public void start(Uri file, OnImportListener listener) {
+        if (!OfflineWriteQueue.getInstance(context).isOnline()) {
+            listener.onError("Connect to the internet to import materials", new Progress());
+            return;
+        }
+        MaterialManager.getInstance()
+                .getMaterialsByJob(jobId)
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    Set<String> known = new HashSet<>();
+                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
+                        Material material = ModelMappers.MATERIAL.fromSnapshot(doc);
+                        if (material != null) {
+                            known.add(duplicateKey(material.getMaterialName(), material.getUnit()));
+                        }
+                    }
+                    AppExecutors.getInstance().background().execute(() -> run(file, known, listener));
+                })
+                .addOnFailureListener(e -> listener.onError(e.getMessage(), new Progress()));
+    }
+
+    // Stops after the batch being written; materials already committed stay imported
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    private void run(Uri file, Set<String> known, OnImportListener listener) {
+        Progress progress = new Progress();
+        try (InputStream in = context.getContentResolver().openInputStream(file)) {
+            if (in == null) {
+                throw new FileNotFoundException("Could not open the file");
+            }
+            CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            Columns columns = Columns.from(csv.readRecord());
+
+            WriteBatch batch = db.batch();
+            int inBatch = 0;
+            List<String> record;
+            while (!cancelled.get() && (record = csv.readRecord()) != null) {
+                progress.rowsRead++;
+                Material material;
+                try {
+                    material = toMaterial(record, columns);
+                } catch (IllegalArgumentException e) {
+                    progress.addError("Line " + csv.getRecordLineNumber() + ": " + e.getMessage());
+                    continue;
+                }
+                if (!known.add(duplicateKey(material.getMaterialName(), material.getUnit()))) {
+                    progress.duplicates++;
+                    continue;
+                }
+
+                MaterialManager.getInstance().createMaterial(batch, material);
+                if (++inBatch == MATERIALS_PER_BATCH) {
+                    commit(batch);
+                    progress.imported += inBatch;
+                    batch = db.batch();
+                    inBatch = 0;
+                    Progress update = progress.copy();
+                    AppExecutors.getInstance().mainThread().execute(() -> listener.onProgress(update));
+                }
+            }
+            if (inBatch > 0) {
+                commit(batch);
+                progress.imported += inBatch;
+            }
+
+            Progress result = progress.copy();
+            AppExecutors.getInstance().mainThread().execute(() -> listener.onComplete(result));
+        } catch (Exception e) {
+            Progress result = progress.copy();
+            String message = e.getMessage() != null ? e.getMessage() : e.toString();
+            AppExecutors.getInstance().mainThread().execute(() -> listener.onError(message, result));
+        }
+    }
+
+    // Waits for the batch so the next rows are only read once it is stored
+    private void commit(WriteBatch batch) throws Exception {
+        Tasks.await(batch.commit(), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private Material toMaterial(List<String> record, Columns columns) {
+        String name = columns.get(record, columns.name).trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Item name is missing");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
+
+        String unitText = columns.get(record, columns.unit);
+        MaterialUnits.Unit unit = MaterialUnits.normalize(unitText);
+        if (unit == null) {
+            throw new IllegalArgumentException("Unknown unit \"" + unitText.trim() + "\"");
+        }
+
+        double quantity = parseNumber(columns.get(record, columns.quantity), "quantity");
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        String rateText = columns.get(record, columns.rate);
+        double rate = rateText.trim().isEmpty() ? 0.0 : parseNumber(rateText, "rate");
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate cannot be negative");
+        }
+
+        String category = columns.get(record, columns.category).trim();
+        Material material = new Material("material_" + UUID.randomUUID().toString(), jobId, projectName,
+                name, category.isEmpty() ? "Other" : category,
+                quantity * unit.factor, unit.name, rate / unit.factor,
+                columns.get(record, columns.supplier).trim());
+        material.setAddedBy(userId);
+        return material;
+    }
+
+    // Accepts thousands separators and a currency prefix, e.g. "Rs. 1,250.50"
+    private static double parseNumber(String text, String field) {
+        String cleaned = text.trim().replaceAll("(?i)^(rs\\.?|pkr)\\s*", "").replace(",", "").replace(" ", "");
+        try {
+            double value = Double.parseDouble(cleaned);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + " \"" + text.trim() + "\"");
+        }
+    }
+
+    private static String duplicateKey(String name, String unit) {
+        String normalizedName = name == null ? "" : name.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+        return normalizedName + "|" + unit;
+    }
+
+    // Column positions found in the header row; -1 when a column is absent
+    private static final class Columns {
+        int name;
+        int quantity;
+        int unit;
+        int rate;
+        int category;
+        int supplier;
+
+        static Columns from(List<String> header) {
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            List<String> names = new ArrayList<>(header.size());
+            for (String column : header) {
+                names.add(column.trim().toLowerCase(Locale.US).replaceAll("[^a-z0-9 ]", "").replaceAll("\\s+", " "));
+            }
+            Columns columns = new Columns();
+            columns.name = find(names, NAME_COLUMNS);
+            columns.quantity = find(names, QUANTITY_COLUMNS);
+            columns.unit = find(names, UNIT_COLUMNS);
+            columns.rate = find(names, RATE_COLUMNS);
+            columns.category = find(names, CATEGORY_COLUMNS);
+            columns.supplier = find(names, SUPPLIER_COLUMNS);
+            if (columns.name < 0 || columns.quantity < 0 || columns.unit < 0) {
+                throw new IllegalArgumentException("The header row needs item name, quantity and unit columns");
+            }
+            return columns;
+        }
+
+        // The first alias present wins, so "Item" is preferred over "Description"
+        private static int find(List<String> names, String[] aliases) {
+            for (String alias : aliases) {
+                int index = names.indexOf(alias);
+                if (index >= 0) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        String get(List<String> record, int index) {
+            return index >= 0 && index < record.size() ? record.get(index) : "";
+        }
+    }
+
+    // Counts so far; only the first few row errors are kept
+    public static final class Progress {
+        public int rowsRead;
+        public int imported;
+        public int duplicates;
+        public int invalid;
+        public List<String> errors = new ArrayList<>();
+
+        void addError(String error) {
+            invalid++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        Progress copy() {
+            Progress copy = new Progress();
+            copy.rowsRead = rowsRead;
+            copy.imported = imported;
+            copy.duplicates = duplicates;
+            copy.invalid = invalid;
+            copy.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+            return copy;
+        }
+    }
+
+    // Callback interface (called on the main thread)
+    public interface OnImportListener {
+        void onProgress(Progress progress);
+        void onComplete(Progress progress);
+        void onError(String error, Progress progress);
+    }
+}
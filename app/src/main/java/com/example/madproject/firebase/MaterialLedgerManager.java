@@ -0,0 +1,262 @@
+package com.example.madproject.firebase;
+
+import com.example.madproject.models.Material;
+import com.example.madproject.models.MaterialMovement;
+import com.example.madproject.models.MaterialSnapshot;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only stock ledger for materials.
+ *
+ * Every restock, usage and stocktake is stored as a {@code material_movements} document and
+ * never changed afterwards. A {@code material_snapshots/{materialId}} document holds the
+ * ledger folded up to a point in time, so the current stock is the snapshot plus the few
+ * movements recorded after it. Once that tail grows past {@link #SNAPSHOT_EVERY} movements
+ * it is folded into the snapshot.
+ *
+ * The ledger is ordered by the server's recordedAt time, so movements written offline are
+ * folded in the order they reached the server rather than by the device clock.
+ */
+public class MaterialLedgerManager {
+    private static MaterialLedgerManager instance;
+    private final FirebaseFirestore db;
+    private static final String MOVEMENTS_COLLECTION = "material_movements";
+    private static final String SNAPSHOTS_COLLECTION = "material_snapshots";
+    // Movements read per page of the tail
+    private static final int TAIL_PAGE_SIZE = 100;
+    // Fold the tail into the snapshot once it is this long
+    private static final int SNAPSHOT_EVERY = 50;
+    // Most movements folded by one compaction
+    private static final int FOLD_LIMIT = 500;
+    // Movements younger than this stay in the tail: one committed just before a fold
+    // might not be visible to the fold's query yet
+    private static final long SETTLE_MILLIS = 60_000L;
+
+    private MaterialLedgerManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized MaterialLedgerManager getInstance() {
+        if (instance == null) {
+            instance = new MaterialLedgerManager();
+        }
+        return instance;
+    }
+
+    // A new movement by the signed-in user; jobId may be null when only the material ID is known
+    public MaterialMovement newMovement(String materialId, String jobId, String type, double quantity) {
+        MaterialMovement movement = new MaterialMovement();
+        movement.setMovementId(UUID.randomUUID().toString());
+        movement.setMaterialId(materialId);
+        movement.setJobId(jobId);
+        movement.setType(type);
+        movement.setQuantity(quantity);
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        movement.setUserId(user != null ? user.getUid() : null);
+        movement.setCreatedAt(System.currentTimeMillis());
+        return movement;
+    }
+
+    // CREATE - Append a movement (no read, so it also works offline)
+    public Task<Void> recordMovement(MaterialMovement movement) {
+        return db.collection(MOVEMENTS_COLLECTION)
+                .document(movement.getMovementId())
+                .set(ModelMappers.MATERIAL_MOVEMENT.toMap(movement));
+    }
+
+    // CREATE - Start a new material's ledger in the same batch as the material itself
+    public void startLedger(WriteBatch batch, Material material) {
+        MaterialSnapshot snapshot = new MaterialSnapshot();
+        snapshot.setMaterialId(material.getMaterialId());
+        snapshot.setJobId(material.getJobId());
+        snapshot.setFoldedThrough(new Timestamp(0, 0));
+        snapshot.setUpdatedAt(System.currentTimeMillis());
+        batch.set(snapshotRef(material.getMaterialId()), ModelMappers.MATERIAL_SNAPSHOT.toMap(snapshot));
+
+        MaterialMovement initial = newMovement(material.getMaterialId(), material.getJobId(),
+                "initial", material.getQuantity());
+        batch.set(db.collection(MOVEMENTS_COLLECTION).document(initial.getMovementId()),
+                ModelMappers.MATERIAL_MOVEMENT.toMap(initial));
+    }
+
+    // READ - Movements since a time, newest first (audits and burn-rate charts)
+    public Task<QuerySnapshot> getMovements(String materialId, long sinceMillis) {
+        return db.collection(MOVEMENTS_COLLECTION)
+                .whereEqualTo("materialId", materialId)
+                .whereGreaterThanOrEqualTo("createdAt", sinceMillis)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .get();
+    }
+
+    // READ - Usage since a time and the average daily usage over that period
+    public void getUsageSince(String materialId, long sinceMillis, OnUsageLoadedListener listener) {
+        getMovements(materialId, sinceMillis)
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    double used = 0.0;
+                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
+                        MaterialMovement movement = ModelMappers.MATERIAL_MOVEMENT.fromSnapshot(doc);
+                        if (movement != null && movement.isUsage()) {
+                            used += movement.getQuantity();
+                        }
+                    }
+                    double days = Math.max(1.0, (System.currentTimeMillis() - sinceMillis) / 86_400_000.0);
+                    listener.onUsageLoaded(used, used / days);
+                })
+                .addOnFailureListener(e -> listener.onError(e.getMessage()));
+    }
+
+    // READ - Current stock: the snapshot plus the movements recorded after it
+    public void getStock(String materialId, OnStockLoadedListener listener) {
+        loadSnapshot(materialId)
+                .continueWithTask(task -> {
+                    MaterialSnapshot snapshot = task.getResult();
+                    return readTail(materialId, snapshot.getFoldedThrough(), copyOf(snapshot), null, 0);
+                })
+                .addOnSuccessListener(listener::onStockLoaded)
+                .addOnFailureListener(e -> listener.onError(e.getMessage()));
+    }
+
+    // UPDATE - Fold settled movements into the snapshot. If another device folds first this
+    // one gives way, so each movement is counted exactly once.
+    public Task<Void> compact(String materialId) {
+        return loadSnapshot(materialId).continueWithTask(task -> {
+            MaterialSnapshot original = task.getResult();
+            Timestamp settled = new Timestamp(new Date(System.currentTimeMillis() - SETTLE_MILLIS));
+            return tailQuery(materialId, original.getFoldedThrough())
+                    .whereLessThan("recordedAt", settled)
+                    .limit(FOLD_LIMIT)
+                    .get()
+                    .continueWithTask(tail -> {
+                        List<MaterialMovement> movements = toMovements(tail.getResult());
+                        if (movements.isEmpty()) {
+                            return Tasks.forResult(null);
+                        }
+                        MaterialSnapshot folded = copyOf(original);
+                        for (MaterialMovement movement : movements) {
+                            folded.apply(movement);
+                        }
+                        folded.setUpdatedAt(System.currentTimeMillis());
+
+                        DocumentReference ref = snapshotRef(materialId);
+                        return db.runTransaction(transaction -> {
+                            MaterialSnapshot current = ModelMappers.MATERIAL_SNAPSHOT.fromSnapshot(transaction.get(ref));
+                            if (current != null && sameTime(current.getFoldedThrough(), original.getFoldedThrough())) {
+                                transaction.set(ref, ModelMappers.MATERIAL_SNAPSHOT.toMap(folded));
+                            }
+                            return null;
+                        });
+                    });
+        });
+    }
+
+    // Materials from before the ledger start from their stored quantity as of now
+    private Task<MaterialSnapshot> loadSnapshot(String materialId) {
+        DocumentReference ref = snapshotRef(materialId);
+        return ref.get().continueWithTask(task -> {
+            MaterialSnapshot snapshot = ModelMappers.MATERIAL_SNAPSHOT.fromSnapshot(task.getResult());
+            if (snapshot != null) {
+                return Tasks.forResult(snapshot);
+            }
+            DocumentReference materialRef = db.collection("materials").document(materialId);
+            return db.runTransaction(transaction -> {
+                MaterialSnapshot existing = ModelMappers.MATERIAL_SNAPSHOT.fromSnapshot(transaction.get(ref));
+                if (existing != null) {
+                    return existing;
+                }
+                Material material = ModelMappers.MATERIAL.fromSnapshot(transaction.get(materialRef));
+                MaterialSnapshot seeded = new MaterialSnapshot();
+                seeded.setMaterialId(materialId);
+                if (material != null) {
+                    seeded.setJobId(material.getJobId());
+                    seeded.setQuantity(material.getQuantity());
+                }
+                seeded.setFoldedThrough(Timestamp.now());
+                seeded.setUpdatedAt(System.currentTimeMillis());
+                transaction.set(ref, ModelMappers.MATERIAL_SNAPSHOT.toMap(seeded));
+                return seeded;
+            });
+        });
+    }
+
+    // Applies the tail page by page; a long tail also triggers a compaction
+    private Task<MaterialSnapshot> readTail(String materialId, Timestamp foldedThrough, MaterialSnapshot stock,
+                                            DocumentSnapshot after, int tailLength) {
+        Query query = tailQuery(materialId, foldedThrough).limit(TAIL_PAGE_SIZE);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get().continueWithTask(task -> {
+            QuerySnapshot page = task.getResult();
+            for (MaterialMovement movement : toMovements(page)) {
+                stock.apply(movement);
+            }
+            int length = tailLength + page.size();
+            if (page.size() == TAIL_PAGE_SIZE) {
+                DocumentSnapshot last = page.getDocuments().get(page.size() - 1);
+                return readTail(materialId, foldedThrough, stock, last, length);
+            }
+            if (length >= SNAPSHOT_EVERY) {
+                compact(materialId);
+            }
+            return Tasks.forResult(stock);
+        });
+    }
+
+    private Query tailQuery(String materialId, Timestamp foldedThrough) {
+        Query query = db.collection(MOVEMENTS_COLLECTION).whereEqualTo("materialId", materialId);
+        if (foldedThrough != null) {
+            query = query.whereGreaterThan("recordedAt", foldedThrough);
+        }
+        return query.orderBy("recordedAt", Query.Direction.ASCENDING);
+    }
+
+    private List<MaterialMovement> toMovements(QuerySnapshot snapshot) {
+        List<MaterialMovement> movements = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot doc : snapshot) {
+            MaterialMovement movement = ModelMappers.MATERIAL_MOVEMENT.fromSnapshot(doc);
+            if (movement != null) {
+                movements.add(movement);
+            }
+        }
+        return movements;
+    }
+
+    private MaterialSnapshot copyOf(MaterialSnapshot snapshot) {
+        return ModelMappers.MATERIAL_SNAPSHOT.fromMap(ModelMappers.MATERIAL_SNAPSHOT.toMap(snapshot));
+    }
+
+    private boolean sameTime(Timestamp a, Timestamp b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private DocumentReference snapshotRef(String materialId) {
+        return db.collection(SNAPSHOTS_COLLECTION).document(materialId);
+    }
+
+    // Callback interfaces
+    public interface OnStockLoadedListener {
+        void onStockLoaded(MaterialSnapshot stock);
+        void onError(String error);
+    }
+
+    public interface OnUsageLoadedListener {
+        void onUsageLoaded(double used, double perDay);
+        void onError(String error);
+    }
+}
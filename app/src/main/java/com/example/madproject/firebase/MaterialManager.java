@@ -1,16 +1,32 @@
 package com.example.madproject.firebase;
 
+import android.content.Context;
+
+import com.example.madproject.helpers.DeviceReplica;
 import com.example.madproject.models.Material;
+import com.example.madproject.models.PNCounter;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class MaterialManager {
     private static MaterialManager instance;
     private final FirebaseFirestore db;
     private static final String COLLECTION_NAME = "materials";
+    private static final int MAX_BATCH_WRITES = 500;
 
     private MaterialManager() {
         db = FirebaseFirestore.getInstance();
@@ -23,11 +39,38 @@ public class MaterialManager {
         return instance;
     }
 
-    // CREATE - Add new material
+    // CREATE - Add new material (and count it in the job's rollup and start its stock ledger in the same batch)
     public Task<Void> createMaterial(Material material) {
-        return db.collection(COLLECTION_NAME)
-                .document(material.getMaterialId())
-                .set(material);
+        WriteBatch batch = db.batch();
+        createMaterial(batch, material);
+        return checkStock(batch.commit(), material.getMaterialId());
+    }
+
+    // CREATE - Add the writes for a new material to a batch (4 writes per material)
+    public void createMaterial(WriteBatch batch, Material material) {
+        startCounter(material);
+        batch.set(db.collection(COLLECTION_NAME).document(material.getMaterialId()),
+                ModelMappers.MATERIAL.toMap(material));
+        ProjectRollupManager.getInstance().addMaterialChange(batch, null, material);
+        MaterialLedgerManager.getInstance().startLedger(batch, material);
+    }
+
+    // CREATE (offline) - Save locally and write when online; the materialId is the idempotency key
+    public void queueCreateMaterial(Context context, Material material) {
+        startCounter(material);
+        OfflineWriteQueue.getInstance(context).enqueue(
+                material.getMaterialId(),
+                OfflineWriteQueue.OP_SET,
+                COLLECTION_NAME,
+                material.getMaterialId(),
+                ModelMappers.MATERIAL.toMap(material));
+    }
+
+    // A new material's stock starts in the counter's base slot
+    private void startCounter(Material material) {
+        if (material.getQuantityCounter() == null) {
+            material.setQuantityCounter(PNCounter.of(Material.BASE_QUANTITY_SLOT, material.getQuantity()));
+        }
     }
 
     // READ - Get single material by ID
@@ -45,6 +88,19 @@ public class MaterialManager {
                 .get();
     }
 
+    // READ - One page of a job's materials, newest first; pass the last document of the previous
+    // page to continue, or null for the first page
+    public Task<QuerySnapshot> getMaterialsByJobPage(String jobId, DocumentSnapshot after, int pageSize) {
+        Query query = db.collection(COLLECTION_NAME)
+                .whereEqualTo("jobId", jobId)
+                .orderBy("addedDate", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get();
+    }
+
     // READ - Get materials by category
     public Task<QuerySnapshot> getMaterialsByCategory(String jobId, String category) {
         return db.collection(COLLECTION_NAME)
@@ -71,77 +127,171 @@ public class MaterialManager {
         return getMaterialsByStatus(jobId, "out_of_stock");
     }
 
-    // UPDATE - Update entire material
+    // UPDATE - Update entire material. The stock counter is left alone, so other devices' slots
+    // survive; stock changes go through the quantity methods below.
     public Task<Void> updateMaterial(Material material) {
         material.setLastUpdated(System.currentTimeMillis());
-        return db.collection(COLLECTION_NAME)
-                .document(material.getMaterialId())
-                .set(material);
+        Map<String, Object> fields = ModelMappers.MATERIAL.toMap(material);
+        fields.remove("quantityCounter");
+        return checkStock(ProjectRollupManager.getInstance().write(COLLECTION_NAME, material.getMaterialId(),
+                OfflineWriteQueue.OP_UPDATE, fields), material.getMaterialId());
+    }
+
+    // UPDATE - Update only the fields changed since the material was loaded
+    public Task<Void> updateMaterial(ChangeTracker<Material> tracker) {
+        Map<String, Object> changes = tracker.getChanges();
+        if (changes.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        long now = System.currentTimeMillis();
+        tracker.get().setLastUpdated(now);
+        changes.put("lastUpdated", now);
+        Task<Void> write = ProjectRollupManager.getInstance()
+                .write(COLLECTION_NAME, tracker.get().getMaterialId(), OfflineWriteQueue.OP_UPDATE, changes)
+                .addOnSuccessListener(aVoid -> tracker.markSaved(changes));
+        if (changes.containsKey("quantity") || changes.containsKey("lowStockThreshold")) {
+            checkStock(write, tracker.get().getMaterialId());
+        }
+        return write;
     }
 
     // UPDATE - Update specific field
     public Task<Void> updateField(String materialId, String field, Object value) {
-        return db.collection(COLLECTION_NAME)
-                .document(materialId)
-                .update(
-                        field, value,
-                        "lastUpdated", System.currentTimeMillis()
-                );
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(field, value);
+        updates.put("lastUpdated", System.currentTimeMillis());
+        Task<Void> write = ProjectRollupManager.getInstance().write(COLLECTION_NAME, materialId, OfflineWriteQueue.OP_UPDATE, updates);
+        if ("quantity".equals(field) || "lowStockThreshold".equals(field)) {
+            checkStock(write, materialId);
+        }
+        return write;
     }
 
-    // UPDATE - Update quantity
-    public void updateQuantity(String materialId, double newQuantity) {
-        db.collection(COLLECTION_NAME)
-                .document(materialId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Material material = documentSnapshot.toObject(Material.class);
-                        if (material != null) {
-                            material.setQuantity(newQuantity);
-                            updateMaterial(material);
-                        }
-                    }
-                });
+    // UPDATE - Set the stock to a counted quantity (recorded in the ledger as a stocktake). The
+    // difference from the quantity last seen is applied to this device's counter slot.
+    public Task<Void> updateQuantity(Context context, Material material, double newQuantity) {
+        recordMovement(material.getMaterialId(), material.getJobId(), "stocktake", newQuantity);
+        return changeQuantity(context, material, newQuantity - material.getQuantity());
     }
 
     // UPDATE - Add quantity (restock)
-    public void addQuantity(String materialId, double addedQuantity) {
-        db.collection(COLLECTION_NAME)
-                .document(materialId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Material material = documentSnapshot.toObject(Material.class);
-                        if (material != null) {
-                            material.setQuantity(material.getQuantity() + addedQuantity);
-                            updateMaterial(material);
-                        }
-                    }
-                });
+    public Task<Void> addQuantity(Context context, String materialId, double addedQuantity) {
+        recordMovement(materialId, null, "restock", addedQuantity);
+        return writeSlot(context, materialId, addedQuantity);
     }
 
     // UPDATE - Deduct quantity (usage)
-    public void deductQuantity(String materialId, double usedQuantity) {
-        db.collection(COLLECTION_NAME)
-                .document(materialId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Material material = documentSnapshot.toObject(Material.class);
-                        if (material != null) {
-                            material.setQuantity(material.getQuantity() - usedQuantity);
-                            updateMaterial(material);
-                        }
-                    }
-                });
+    public Task<Void> deductQuantity(Context context, String materialId, double usedQuantity) {
+        recordMovement(materialId, null, "usage", usedQuantity);
+        return writeSlot(context, materialId, -usedQuantity);
+    }
+
+    // UPDATE - Deduct quantity from the UI: the local material shows the new stock immediately
+    public Task<Void> deductQuantity(Context context, Material material, double usedQuantity) {
+        recordMovement(material.getMaterialId(), material.getJobId(), "usage", usedQuantity);
+        return changeQuantity(context, material, -usedQuantity);
+    }
+
+    // Applies a change to the local material and writes this device's slot
+    private Task<Void> changeQuantity(Context context, Material material, double amount) {
+        String replicaId = DeviceReplica.getInstance(context).getReplicaId();
+        if (material.getQuantityCounter() != null) {
+            material.getQuantityCounter().add(replicaId, amount);
+        }
+        material.setQuantity(material.getQuantity() + amount);
+        material.setLastUpdated(System.currentTimeMillis());
+        return writeSlot(context, material.getMaterialId(), amount);
+    }
+
+    // Every stock change is also appended to the material's ledger; the append needs no read,
+    // so it is kept even if the device is offline
+    private void recordMovement(String materialId, String jobId, String type, double quantity) {
+        MaterialLedgerManager ledger = MaterialLedgerManager.getInstance();
+        ledger.recordMovement(ledger.newMovement(materialId, jobId, type, quantity));
+    }
+
+    // Stock is a PN-counter with one slot per device. A device only ever raises its own slot's
+    // totals, so writes from different devices touch different fields and all survive, and a
+    // replayed write sets the same totals again. The write goes through the offline queue: it
+    // waits behind (or merges into) a queued create of the material, and is sent in a
+    // transaction that refreshes the cached stock fields and the job's rollup, after which the
+    // stock alert is re-checked.
+    private Task<Void> writeSlot(Context context, String materialId, double amount) {
+        DeviceReplica replica = DeviceReplica.getInstance(context);
+        double[] slot = replica.add(COLLECTION_NAME + "/" + materialId, amount);
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("quantityCounter." + replica.getReplicaId() + ".p", slot[0]);
+        fields.put("quantityCounter." + replica.getReplicaId() + ".n", slot[1]);
+        fields.put("lastUpdated", System.currentTimeMillis());
+        OfflineWriteQueue.getInstance(context).enqueueUpdate(COLLECTION_NAME, materialId, fields);
+        return Tasks.forResult(null);
+    }
+
+    // Once a stock change is stored, re-check the material against its threshold. Writes made
+    // offline are checked when they reach the server.
+    private Task<Void> checkStock(Task<Void> write, String materialId) {
+        return write.addOnSuccessListener(aVoid -> StockAlertManager.getInstance().evaluate(materialId));
+    }
+
+    /**
+     * Brings the stored quantity, totalCost and status of loaded materials in line with their
+     * counters, and gives materials from before counters a base slot holding their stored
+     * quantity. Slot writes refresh those cached fields, so this repairs materials written
+     * before they did, refreshing queries on status and the job's rollup (stock value and
+     * alerts) when they have drifted.
+     */
+    public void reconcileCounters(List<DocumentSnapshot> materialDocs) {
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        Set<String> staleRollups = new HashSet<>();
+        Set<String> staleStock = new HashSet<>();
+        for (DocumentSnapshot doc : materialDocs) {
+            Material material = ModelMappers.MATERIAL.fromSnapshot(doc);
+            if (material == null) {
+                continue;
+            }
+            Map<String, Object> updates = new HashMap<>();
+            if (material.getQuantityCounter() == null
+                    || !material.getQuantityCounter().hasReplica(Material.BASE_QUANTITY_SLOT)) {
+                Double stored = doc.getDouble("quantity");
+                double base = stored != null ? stored : 0.0;
+                updates.put("quantityCounter." + Material.BASE_QUANTITY_SLOT + ".p", Math.max(0.0, base));
+                updates.put("quantityCounter." + Material.BASE_QUANTITY_SLOT + ".n", Math.max(0.0, -base));
+            }
+            if (!Objects.equals(doc.getDouble("quantity"), material.getQuantity())
+                    || !Objects.equals(doc.getString("status"), material.getStatus())) {
+                updates.put("quantity", material.getQuantity());
+                updates.put("totalCost", material.getTotalCost());
+                updates.put("status", material.getStatus());
+                staleRollups.add(material.getJobId());
+                staleStock.add(material.getMaterialId());
+            }
+            if (!updates.isEmpty()) {
+                batch.update(doc.getReference(), updates);
+                if (++writes == MAX_BATCH_WRITES) {
+                    break;
+                }
+            }
+        }
+        if (writes == 0) {
+            return;
+        }
+        batch.commit().addOnSuccessListener(aVoid -> {
+            for (String jobId : staleRollups) {
+                if (jobId != null) {
+                    ProjectRollupManager.getInstance().rebuildRollup(jobId);
+                }
+            }
+            for (String materialId : staleStock) {
+                StockAlertManager.getInstance().evaluate(materialId);
+            }
+        });
     }
 
     // DELETE - Delete material
     public Task<Void> deleteMaterial(String materialId) {
-        return db.collection(COLLECTION_NAME)
-                .document(materialId)
-                .delete();
+        return ProjectRollupManager.getInstance().delete(COLLECTION_NAME, materialId)
+                .addOnSuccessListener(aVoid -> StockAlertManager.getInstance().deleteAlert(materialId));
     }
 
     // QUERY - Calculate total inventory value
@@ -152,7 +302,7 @@ public class MaterialManager {
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     double totalValue = 0.0;
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Material material = doc.toObject(Material.class);
+                        Material material = ModelMappers.MATERIAL.fromSnapshot(doc);
                         if (material != null) {
                             totalValue += material.getTotalCost();
                         }
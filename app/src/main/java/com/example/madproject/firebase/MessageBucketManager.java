@@ -0,0 +1,257 @@
+package com.example.madproject.firebase;
+
+import com.example.madproject.models.Message;
+import com.example.madproject.models.MessageBucket;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Packed storage for closed chat history.
+ *
+ * New messages are written as individual {@code messages} documents so the chat listener sees
+ * them straight away. Once a message has been on the server for {@link #HOT_WINDOW_MILLIS} a compaction
+ * moves it into a {@code message_buckets} document holding up to {@link #BUCKET_SIZE} messages
+ * from at most {@link #BUCKET_SPAN_MILLIS} of the chat, and deletes the original. Opening a
+ * long chat then costs the recent messages plus a few bucket reads instead of one read per
+ * message.
+ *
+ * Compacted messages are frozen, so only messages the receiver has read are compacted; an
+ * unread message stays an individual document until its read receipt is recorded.
+ */
+public class MessageBucketManager {
+    private static MessageBucketManager instance;
+    private final FirebaseFirestore db;
+    private static final String COLLECTION_NAME = "message_buckets";
+    private static final String MESSAGES_COLLECTION = "messages";
+    // Most messages in one bucket; keeps a bucket well under Firestore's document size limit
+    private static final int BUCKET_SIZE = 100;
+    // A bucket is closed once it spans this long, so quiet chats don't reopen old buckets
+    private static final long BUCKET_SPAN_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+    // Messages younger than this stay individual documents for the live listener
+    private static final long HOT_WINDOW_MILLIS = 3 * 24 * 60 * 60 * 1000L;
+    // Most compaction rounds (of up to BUCKET_SIZE messages each) in one run
+    private static final int MAX_ROUNDS = 10;
+    private static final long LOOKUP_TIMEOUT_SECONDS = 30;
+
+    private MessageBucketManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized MessageBucketManager getInstance() {
+        if (instance == null) {
+            instance = new MessageBucketManager();
+        }
+        return instance;
+    }
+
+    // READ - One page of a chat's buckets, newest first; pass the last document of the previous
+    // page to continue, or null for the first page
+    public Task<QuerySnapshot> getBucketsPage(String chatId, DocumentSnapshot after, int pageSize) {
+        Query query = db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .orderBy("lastTimestamp", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get();
+    }
+
+    // READ - The next older page of buckets: those starting before a timestamp, newest first
+    public Task<QuerySnapshot> getBucketsBefore(String chatId, long beforeTimestamp, int pageSize) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .whereLessThan("firstTimestamp", beforeTimestamp)
+                .orderBy("firstTimestamp", Query.Direction.DESCENDING)
+                .limit(pageSize)
+                .get();
+    }
+
+    // READ - Buckets holding any message from a timestamp on; used to catch up on history that
+    // was compacted while this device was away
+    public Task<QuerySnapshot> getBucketsSince(String chatId, long sinceTimestamp) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .whereGreaterThanOrEqualTo("lastTimestamp", sinceTimestamp)
+                .get();
+    }
+
+    // All messages in a page of buckets, unsorted
+    public static List<Message> unpack(QuerySnapshot buckets) {
+        List<Message> messages = new ArrayList<>();
+        for (DocumentSnapshot doc : buckets) {
+            MessageBucket bucket = ModelMappers.MESSAGE_BUCKET.fromSnapshot(doc);
+            if (bucket != null) {
+                messages.addAll(bucket.getMessages());
+            }
+        }
+        return messages;
+    }
+
+    // READ - Whether a message has been packed into a bucket. Blocks on a server read, so it is
+    // only for worker threads, such as a transaction's
+    public boolean isCompacted(String messageId) throws FirebaseFirestoreException {
+        Task<QuerySnapshot> query = db.collection(COLLECTION_NAME)
+                .whereArrayContains("messageIds", messageId)
+                .limit(1)
+                .get(Source.SERVER);
+        try {
+            return !Tasks.await(query, LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS).isEmpty();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FirebaseFirestoreException) {
+                throw (FirebaseFirestoreException) e.getCause();
+            }
+            throw new FirebaseFirestoreException("Bucket lookup failed",
+                    FirebaseFirestoreException.Code.UNAVAILABLE, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirebaseFirestoreException("Bucket lookup interrupted",
+                    FirebaseFirestoreException.Code.ABORTED, e);
+        } catch (TimeoutException e) {
+            throw new FirebaseFirestoreException("Bucket lookup timed out",
+                    FirebaseFirestoreException.Code.DEADLINE_EXCEEDED, e);
+        }
+    }
+
+    // UPDATE - Move a chat's settled messages into buckets. Safe to run from several devices at
+    // once: each round re-reads the messages in its transaction and only moves those that are
+    // still individual documents, so a message is never packed twice or lost.
+    public Task<Void> compact(String chatId) {
+        return compact(chatId, 0);
+    }
+
+    private Task<Void> compact(String chatId, int round) {
+        long settled = System.currentTimeMillis() - HOT_WINDOW_MILLIS;
+        Task<QuerySnapshot> latestBucket = getBucketsPage(chatId, null, 1);
+        // The server time is never earlier than the sender's clock by much, so filtering on the
+        // client timestamp finds every candidate; settled() then checks the server time
+        Task<QuerySnapshot> candidates = db.collection(MESSAGES_COLLECTION)
+                .whereEqualTo("chatId", chatId)
+                .whereLessThan("timestamp", settled)
+                .orderBy("timestamp", Query.Direction.ASCENDING)
+                .limit(BUCKET_SIZE)
+                .get();
+
+        return Tasks.whenAllSuccess(latestBucket, candidates).continueWithTask(task -> {
+            QuerySnapshot messages = candidates.getResult();
+            if (messages.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+            DocumentReference openRef = latestBucket.getResult().isEmpty()
+                    ? null
+                    : latestBucket.getResult().getDocuments().get(0).getReference();
+            List<DocumentReference> messageRefs = new ArrayList<>(messages.size());
+            for (DocumentSnapshot doc : messages) {
+                messageRefs.add(doc.getReference());
+            }
+
+            return db.runTransaction(transaction -> {
+                MessageBucket open = openRef != null
+                        ? ModelMappers.MESSAGE_BUCKET.fromSnapshot(transaction.get(openRef))
+                        : null;
+                List<DocumentReference> moved = new ArrayList<>(messageRefs.size());
+                List<Message> toMove = new ArrayList<>(messageRefs.size());
+                for (DocumentReference ref : messageRefs) {
+                    Message message = ModelMappers.MESSAGE.fromSnapshot(transaction.get(ref));
+                    if (message != null && settled(message, settled)) {
+                        moved.add(ref);
+                        toMove.add(message);
+                    }
+                }
+
+                if (toMove.isEmpty()) {
+                    return 0;
+                }
+                List<MessageBucket> changed = new ArrayList<>();
+                MessageBucket bucket = open;
+                long now = System.currentTimeMillis();
+                for (Message message : toMove) {
+                    if (bucket == null || !fits(bucket, message)) {
+                        bucket = newBucket(message);
+                    }
+                    bucket.add(message);
+                    bucket.setUpdatedAt(now);
+                    if (!changed.contains(bucket)) {
+                        changed.add(bucket);
+                    }
+                }
+
+                for (MessageBucket updated : changed) {
+                    transaction.set(db.collection(COLLECTION_NAME).document(updated.getBucketId()),
+                            ModelMappers.MESSAGE_BUCKET.toMap(updated));
+                }
+                for (DocumentReference ref : moved) {
+                    transaction.delete(ref);
+                }
+                return toMove.size();
+            }).continueWithTask(done -> {
+                if (!done.isSuccessful()) {
+                    return Tasks.forException(done.getException());
+                }
+                // A full round means more settled messages may be waiting; a round that moved
+                // nothing is stuck behind unread messages until they are read
+                if (messages.size() == BUCKET_SIZE && done.getResult() > 0 && round + 1 < MAX_ROUNDS) {
+                    return compact(chatId, round + 1);
+                }
+                return Tasks.forResult(null);
+            });
+        });
+    }
+
+    // DELETE - Remove a chat's packed history
+    public void deleteBuckets(String chatId) {
+        db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
+                        doc.getReference().delete();
+                    }
+                });
+    }
+
+    // Read, and stored on the server before the hot window; messages from before sentAt was
+    // recorded only have their client timestamp
+    private boolean settled(Message message, long settled) {
+        if (!message.isRead()) {
+            return false;
+        }
+        return message.getSentAt() == null
+                ? message.getTimestamp() < settled
+                : message.getSentAt().toDate().getTime() < settled;
+    }
+
+    private boolean fits(MessageBucket bucket, Message message) {
+        return bucket.getMessageCount() < BUCKET_SIZE
+                && Math.max(bucket.getLastTimestamp(), message.getTimestamp())
+                - Math.min(bucket.getFirstTimestamp(), message.getTimestamp()) <= BUCKET_SPAN_MILLIS;
+    }
+
+    // The first message's ID makes the bucket ID, so two compactions racing to open the same
+    // bucket write to the same document
+    private MessageBucket newBucket(Message first) {
+        MessageBucket bucket = new MessageBucket();
+        bucket.setBucketId(first.getChatId() + "_" + first.getMessageId());
+        bucket.setChatId(first.getChatId());
+        List<String> participants = new ArrayList<>(Arrays.asList(first.getSenderId(), first.getReceiverId()));
+        Collections.sort(participants);
+        bucket.setParticipantIds(participants);
+        return bucket;
+    }
+}
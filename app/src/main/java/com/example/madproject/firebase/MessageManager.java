@@ -1,16 +1,37 @@
 package com.example.madproject.firebase;
 
+import android.content.Context;
+
+import com.example.madproject.models.Conversation;
 import com.example.madproject.models.Message;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
 
 public class MessageManager {
     private static MessageManager instance;
     private final FirebaseFirestore db;
+    private long lastClientSequence;
     private static final String COLLECTION_NAME = "messages";
+    // Inbox index: users/{userId}/chats/{chatId}, one entry per participant
+    private static final String USERS_COLLECTION = "users";
+    private static final String CHATS_COLLECTION = "chats";
+    // Most documents in one write batch is 500
+    private static final int BACKFILL_BATCH_SIZE = 500;
 
     private MessageManager() {
         db = FirebaseFirestore.getInstance();
@@ -23,11 +44,138 @@ public class MessageManager {
         return instance;
     }
 
-    // CREATE - Send new message
+    // CREATE - Send new message and update both participants' inbox entries in the same write.
+    // Only the first write of a message stores it: a replay leaves the stored message (which may
+    // have been read since) alone, and one already packed into a bucket is not recreated.
     public Task<Void> createMessage(Message message) {
-        return db.collection(COLLECTION_NAME)
-                .document(message.getMessageId())
-                .set(message);
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(message.getMessageId());
+        DocumentReference senderChat = chatRef(message.getSenderId(), message.getChatId());
+        DocumentReference receiverChat = chatRef(message.getReceiverId(), message.getChatId());
+        return db.runTransaction(transaction -> {
+            // Compaction deletes the message in the transaction that writes its bucket, so once
+            // the message is read as missing here, a bucket holding it is already visible
+            if (transaction.get(ref).exists()
+                    || MessageBucketManager.getInstance().isCompacted(message.getMessageId())) {
+                return null;
+            }
+            Conversation sender = ModelMappers.CONVERSATION.fromSnapshot(transaction.get(senderChat));
+            Conversation receiver = ModelMappers.CONVERSATION.fromSnapshot(transaction.get(receiverChat));
+            Map<String, Object> data = ModelMappers.MESSAGE.toMap(message);
+            // The server time fixes the message's place in the chat
+            data.put("sentAt", FieldValue.serverTimestamp());
+            transaction.set(ref, data);
+            transaction.set(senderChat, ModelMappers.CONVERSATION.toMap(
+                    addToConversation(sender, message, message.getSenderId())));
+            transaction.set(receiverChat, ModelMappers.CONVERSATION.toMap(
+                    addToConversation(receiver, message, message.getReceiverId())));
+            CountersManager.getInstance().increment(transaction, message.getReceiverId(),
+                    CountersManager.UNREAD_MESSAGES, 1);
+            return null;
+        });
+    }
+
+    // Folds a new message into one participant's inbox entry
+    private Conversation addToConversation(Conversation conversation, Message message, String userId) {
+        if (conversation == null) {
+            conversation = new Conversation();
+            conversation.setChatId(message.getChatId());
+            conversation.setUserId(userId);
+        }
+        boolean incoming = userId.equals(message.getReceiverId());
+        String otherName = incoming ? message.getSenderName() : message.getReceiverName();
+        String otherPhoto = incoming ? message.getSenderPhotoUrl() : message.getReceiverPhotoUrl();
+        conversation.setOtherUserId(incoming ? message.getSenderId() : message.getReceiverId());
+        if (otherName != null) {
+            conversation.setOtherUserName(otherName);
+        }
+        if (otherPhoto != null) {
+            conversation.setOtherUserPhotoUrl(otherPhoto);
+        }
+        // Messages sent offline can arrive out of order; the newest one stays the preview
+        if (message.getTimestamp() >= conversation.getLastTimestamp()) {
+            conversation.setLastMessage(message.getMessageText());
+            conversation.setLastMessageId(message.getMessageId());
+            conversation.setLastSenderId(message.getSenderId());
+            conversation.setLastTimestamp(message.getTimestamp());
+        }
+        if (incoming) {
+            conversation.setUnreadCount(conversation.getUnreadCount() + 1);
+        }
+        return conversation;
+    }
+
+    private DocumentReference chatRef(String userId, String chatId) {
+        return db.collection(USERS_COLLECTION)
+                .document(userId)
+                .collection(CHATS_COLLECTION)
+                .document(chatId);
+    }
+
+    // CREATE (offline) - Save locally and send when online; the messageId is the idempotency key
+    public String queueCreateMessage(Context context, Message message) {
+        OfflineWriteQueue.getInstance(context).enqueue(
+                message.getMessageId(),
+                OfflineWriteQueue.OP_SET,
+                COLLECTION_NAME,
+                message.getMessageId(),
+                ModelMappers.MESSAGE.toMap(message));
+        return message.getMessageId();
+    }
+
+    // CREATE (offline) - Send a failed message again. A write still waiting in the queue is
+    // retried now; one the queue gave up on is queued again under a fresh key. Either way it
+    // targets the same document, so the message can't be delivered twice.
+    public String retryMessage(Context context, Message message, String queueKey) {
+        OfflineWriteQueue queue = OfflineWriteQueue.getInstance(context);
+        if (queueKey != null && queue.isPending(queueKey)) {
+            queue.retryNow(queueKey);
+            return queueKey;
+        }
+        String key = message.getMessageId() + "_" + UUID.randomUUID().toString();
+        queue.enqueue(key, OfflineWriteQueue.OP_SET, COLLECTION_NAME, message.getMessageId(),
+                ModelMappers.MESSAGE.toMap(message));
+        return key;
+    }
+
+    // Sequence numbers for messages sent from this device. Seeded from the clock so they keep
+    // increasing across restarts without being stored.
+    public synchronized long nextClientSequence() {
+        lastClientSequence = Math.max(lastClientSequence + 1, System.currentTimeMillis());
+        return lastClientSequence;
+    }
+
+    // Chat order, oldest first: stored messages by server time (device time for messages written
+    // before sentAt existed), ties broken by sender and the sender's sequence number. Messages
+    // still being sent from this device go last, in the order they were sent.
+    public static int compareForChat(Message a, Message b) {
+        boolean aLocal = a.getSendState() != null;
+        boolean bLocal = b.getSendState() != null;
+        if (aLocal != bLocal) {
+            return aLocal ? 1 : -1;
+        }
+        if (!aLocal) {
+            int byTime = Long.compare(orderTime(a), orderTime(b));
+            if (byTime != 0) {
+                return byTime;
+            }
+            int bySender = compareNullable(a.getSenderId(), b.getSenderId());
+            if (bySender != 0) {
+                return bySender;
+            }
+        }
+        int bySequence = Long.compare(a.getClientSequence(), b.getClientSequence());
+        return bySequence != 0 ? bySequence : compareNullable(a.getMessageId(), b.getMessageId());
+    }
+
+    private static long orderTime(Message message) {
+        return message.getSentAt() != null ? message.getSentAt().toDate().getTime() : message.getTimestamp();
+    }
+
+    private static int compareNullable(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
     }
 
     // READ - Get single message by ID
@@ -37,7 +185,8 @@ public class MessageManager {
                 .get();
     }
 
-    // READ - Get messages in a chat (sort in memory to avoid index requirement)
+    // READ - Get the individual (recent) messages in a chat; older history is packed into
+    // buckets, see MessageBucketManager (sort in memory to avoid index requirement)
     public Task<QuerySnapshot> getMessagesByChat(String chatId) {
         return db.collection(COLLECTION_NAME)
                 .whereEqualTo("chatId", chatId)
@@ -52,11 +201,25 @@ public class MessageManager {
                 .get();
     }
 
+    // READ - One page of a user's conversations, most recent first; pass the last document of
+    // the previous page to continue, or null for the first page
+    public Task<QuerySnapshot> getConversationsPage(String userId, DocumentSnapshot after, int pageSize) {
+        Query query = db.collection(USERS_COLLECTION)
+                .document(userId)
+                .collection(CHATS_COLLECTION)
+                .orderBy("lastTimestamp", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get();
+    }
+
     // READ - Get unread messages for user (sort in memory to avoid index requirement)
     public Task<QuerySnapshot> getUnreadMessages(String userId) {
         return db.collection(COLLECTION_NAME)
                 .whereEqualTo("receiverId", userId)
-                .whereEqualTo("isRead", false)
+                .whereEqualTo("read", false)
                 .get();
     }
 
@@ -64,7 +227,7 @@ public class MessageManager {
     public void getUnreadCount(String userId, OnCountLoadedListener listener) {
         db.collection(COLLECTION_NAME)
                 .whereEqualTo("receiverId", userId)
-                .whereEqualTo("isRead", false)
+                .whereEqualTo("read", false)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     listener.onCountLoaded(queryDocumentSnapshots.size());
@@ -76,7 +239,7 @@ public class MessageManager {
         return db.collection(COLLECTION_NAME)
                 .document(messageId)
                 .update(
-                        "isRead", true,
+                        "read", true,
                         "readAt", System.currentTimeMillis()
                 );
     }
@@ -86,7 +249,7 @@ public class MessageManager {
         db.collection(COLLECTION_NAME)
                 .whereEqualTo("chatId", chatId)
                 .whereEqualTo("receiverId", userId)
-                .whereEqualTo("isRead", false)
+                .whereEqualTo("read", false)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
@@ -95,6 +258,49 @@ public class MessageManager {
                 });
     }
 
+    // UPDATE - Older markAsRead() calls only set "isRead", so those messages still look unread
+    // to queries on "read". Copies the flag over for a chat's received messages and drops
+    // "isRead", so each is fixed once. Unread totals come from the chats index, not these flags.
+    public Task<Void> backfillReadFlags(String chatId, String userId) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .whereEqualTo("receiverId", userId)
+                .whereEqualTo("isRead", true)
+                .limit(BACKFILL_BATCH_SIZE)
+                .get()
+                .continueWithTask(query -> {
+                    QuerySnapshot legacy = query.getResult();
+                    if (legacy.isEmpty()) {
+                        return Tasks.forResult(null);
+                    }
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot doc : legacy) {
+                        batch.update(doc.getReference(), "read", true, "isRead", FieldValue.delete());
+                    }
+                    return batch.commit().continueWithTask(done -> {
+                        if (!done.isSuccessful() || legacy.size() < BACKFILL_BATCH_SIZE) {
+                            return done;
+                        }
+                        return backfillReadFlags(chatId, userId);
+                    });
+                });
+    }
+
+    // UPDATE - Clear a user's unread count for a chat and take it off their unread total
+    public Task<Void> markChatRead(String chatId, String userId) {
+        DocumentReference ref = chatRef(userId, chatId);
+        return db.runTransaction(transaction -> {
+            Conversation conversation = ModelMappers.CONVERSATION.fromSnapshot(transaction.get(ref));
+            int unread = conversation != null ? conversation.getUnreadCount() : 0;
+            if (unread == 0) {
+                return null;
+            }
+            transaction.set(ref, Collections.singletonMap("unreadCount", 0), SetOptions.merge());
+            CountersManager.getInstance().increment(transaction, userId, CountersManager.UNREAD_MESSAGES, -unread);
+            return null;
+        });
+    }
+
     // DELETE - Delete message
     public Task<Void> deleteMessage(String messageId) {
         return db.collection(COLLECTION_NAME)
@@ -102,8 +308,9 @@ public class MessageManager {
                 .delete();
     }
 
-    // DELETE - Delete all messages in a chat
+    // DELETE - Delete all messages in a chat, including its compacted history
     public void deleteChat(String chatId) {
+        MessageBucketManager.getInstance().deleteBuckets(chatId);
         db.collection(COLLECTION_NAME)
                 .whereEqualTo("chatId", chatId)
                 .get()
@@ -115,8 +322,8 @@ public class MessageManager {
     }
 
     // REAL-TIME - Listen to messages in chat (sort in memory to avoid index requirement)
-    public void listenToMessages(String chatId, OnMessagesChangedListener listener) {
-        db.collection(COLLECTION_NAME)
+    public ListenerRegistration listenToMessages(String chatId, OnMessagesChangedListener listener) {
+        return db.collection(COLLECTION_NAME)
                 .whereEqualTo("chatId", chatId)
                 .addSnapshotListener((value, error) -> {
                     if (error != null) {
@@ -129,6 +336,58 @@ public class MessageManager {
                 });
     }
 
+    // REAL-TIME - Listen to messages in chat, delivering snapshots on the given executor
+    public ListenerRegistration listenToMessages(String chatId, Executor executor, OnMessagesChangedListener listener) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .addSnapshotListener(executor, (value, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (value != null) {
+                        listener.onMessagesChanged(value);
+                    }
+                });
+    }
+
+    // REAL-TIME - Listen to messages in chat sent from a time on (device timestamp), delivering
+    // snapshots on the given executor
+    public ListenerRegistration listenToMessagesSince(String chatId, long sinceTimestamp, Executor executor,
+                                                      OnMessagesChangedListener listener) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("chatId", chatId)
+                .whereGreaterThanOrEqualTo("timestamp", sinceTimestamp)
+                .addSnapshotListener(executor, (value, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (value != null) {
+                        listener.onMessagesChanged(value);
+                    }
+                });
+    }
+
+    // REAL-TIME - Listen to a user's most recent conversations
+    public ListenerRegistration listenToRecentConversations(String userId, int limit,
+                                                            OnConversationsChangedListener listener) {
+        return db.collection(USERS_COLLECTION)
+                .document(userId)
+                .collection(CHATS_COLLECTION)
+                .orderBy("lastTimestamp", Query.Direction.DESCENDING)
+                .limit(limit)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (value != null) {
+                        listener.onConversationsChanged(value);
+                    }
+                });
+    }
+
     // Callback interfaces
     public interface OnCountLoadedListener {
         void onCountLoaded(int count);
@@ -138,4 +397,9 @@ public class MessageManager {
         void onMessagesChanged(QuerySnapshot messages);
         void onError(String error);
     }
-}
\ No newline at end of file
+
+    public interface OnConversationsChangedListener {
+        void onConversationsChanged(QuerySnapshot conversations);
+        void onError(String error);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.madproject.firebase;
+
+import android.util.Log;
+
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.models.Notification;
+import com.example.madproject.models.NotificationFanout;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends one notification to a whole audience: the bidders on a job, the contractors in a
+ * category, or the users in a city.
+ *
+ * Recipients are read a page at a time in ID order. Each page is written in one transaction
+ * of at most 500 writes (a notification and an unread-counter change per recipient) together
+ * with the fan-out's checkpoint, and the next page is only read once it has committed. The
+ * transaction checks that the checkpoint hasn't moved, so a fan-out interrupted by the app
+ * closing resumes where it stopped ({@link #resumePending}) and no recipient is notified or
+ * counted twice, even if two devices resume it at once.
+ *
+ * All work runs on a background thread.
+ */
+public class NotificationFanoutManager {
+    private static final String TAG = "NotificationFanout";
+    private static NotificationFanoutManager instance;
+    private final FirebaseFirestore db;
+    private static final String COLLECTION_NAME = "notification_fanouts";
+    private static final String NOTIFICATIONS_COLLECTION = "notifications";
+
+    // Each recipient writes its notification and its counter, plus one checkpoint write per page
+    private static final int RECIPIENTS_PER_BATCH = 249;
+    // Pause between pages so a large broadcast doesn't saturate the connection
+    private static final long THROTTLE_MILLIS = 200;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    // Fan-outs being delivered by this process
+    private final Set<String> running = Collections.synchronizedSet(new HashSet<>());
+
+    private NotificationFanoutManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized NotificationFanoutManager getInstance() {
+        if (instance == null) {
+            instance = new NotificationFanoutManager();
+        }
+        return instance;
+    }
+
+    // CREATE - Save a fan-out's checkpoint and start delivering it. Starting a fan-out ID that
+    // already exists resumes it instead of sending again. The listener may be null.
+    public void start(NotificationFanout fanout, OnFanoutListener listener) {
+        if (fanout.getFanoutId() == null) {
+            fanout.setFanoutId("fanout_" + UUID.randomUUID().toString());
+        }
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(fanout.getFanoutId());
+        db.runTransaction(transaction -> {
+            if (!transaction.get(ref).exists()) {
+                transaction.set(ref, ModelMappers.NOTIFICATION_FANOUT.toMap(fanout));
+            }
+            return null;
+        })
+                .addOnSuccessListener(aVoid -> deliver(fanout.getFanoutId(), listener))
+                .addOnFailureListener(e -> {
+                    if (listener != null) {
+                        listener.onError(e.getMessage());
+                    }
+                });
+    }
+
+    // Notify every bidder on a job, e.g. when it is awarded or cancelled. Pass a fan-out ID
+    // derived from the event so repeating it doesn't notify anyone twice.
+    public void notifyBidders(String fanoutId, String jobId, String senderId, List<String> excludedIds,
+                              String title, String message) {
+        NotificationFanout fanout = new NotificationFanout(fanoutId, senderId,
+                NotificationFanout.AUDIENCE_BIDDERS, jobId, title, message, "job", jobId);
+        fanout.setExcludedIds(excludedIds);
+        start(fanout, null);
+    }
+
+    // UPDATE - Resume a user's interrupted fan-outs; call when the app starts
+    public void resumePending(String userId) {
+        db.collection(COLLECTION_NAME)
+                .whereEqualTo("createdBy", userId)
+                .whereEqualTo("status", NotificationFanout.STATUS_RUNNING)
+                .get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
+                        deliver(doc.getId(), null);
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Could not load pending fan-outs: " + e.getMessage()));
+    }
+
+    private void deliver(String fanoutId, OnFanoutListener listener) {
+        if (!running.add(fanoutId)) {
+            return;
+        }
+        AppExecutors.getInstance().background().execute(() -> {
+            try {
+                int sent = run(db.collection(COLLECTION_NAME).document(fanoutId));
+                if (listener != null) {
+                    AppExecutors.getInstance().mainThread().execute(() -> listener.onComplete(sent));
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Fan-out " + fanoutId + " stopped; it resumes on next start", e);
+                String error = e.getMessage() != null ? e.getMessage() : e.toString();
+                if (listener != null) {
+                    AppExecutors.getInstance().mainThread().execute(() -> listener.onError(error));
+                }
+            } finally {
+                running.remove(fanoutId);
+            }
+        });
+    }
+
+    // Delivers page after page until the audience is exhausted; returns the total sent
+    private int run(DocumentReference fanoutRef) throws Exception {
+        while (true) {
+            NotificationFanout fanout = ModelMappers.NOTIFICATION_FANOUT.fromSnapshot(await(fanoutRef.get()));
+            if (fanout == null || fanout.isDone()) {
+                return fanout != null ? fanout.getSentCount() : 0;
+            }
+
+            Page page = recipientsAfter(fanout);
+            String cursor = page.ids.isEmpty() ? fanout.getCursor() : page.ids.get(page.ids.size() - 1);
+            List<String> recipients = new ArrayList<>(page.ids);
+            recipients.removeAll(fanout.getExcludedIds());
+
+            await(db.runTransaction(transaction -> {
+                NotificationFanout stored = ModelMappers.NOTIFICATION_FANOUT.fromSnapshot(transaction.get(fanoutRef));
+                if (stored == null || stored.isDone() || !Objects.equals(stored.getCursor(), fanout.getCursor())) {
+                    // Another device delivered this page first
+                    return null;
+                }
+                for (String userId : recipients) {
+                    Notification notification = new Notification(
+                            fanout.getFanoutId() + "_" + userId,
+                            userId,
+                            fanout.getTitle(),
+                            fanout.getMessage(),
+                            fanout.getType(),
+                            fanout.getRelatedId());
+                    transaction.set(db.collection(NOTIFICATIONS_COLLECTION).document(notification.getNotificationId()),
+                            ModelMappers.NOTIFICATION.toMap(notification));
+                    CountersManager.getInstance().increment(transaction, userId,
+                            CountersManager.UNREAD_NOTIFICATIONS, 1);
+                }
+                transaction.update(fanoutRef,
+                        "cursor", cursor,
+                        "sentCount", stored.getSentCount() + recipients.size(),
+                        "status", page.last ? NotificationFanout.STATUS_DONE : NotificationFanout.STATUS_RUNNING,
+                        "updatedAt", System.currentTimeMillis());
+                return null;
+            }));
+
+            Thread.sleep(THROTTLE_MILLIS);
+        }
+    }
+
+    // The next page of recipient IDs after the checkpoint, in ascending order without repeats
+    private Page recipientsAfter(NotificationFanout fanout) throws Exception {
+        String cursor = fanout.getCursor();
+        Page page = new Page();
+        if (NotificationFanout.AUDIENCE_BIDDERS.equals(fanout.getAudience())) {
+            // Ordered by contractor, so a contractor's bids are adjacent and the cursor skips
+            // any of theirs that spill onto the next page
+            Query query = db.collection("bids")
+                    .whereEqualTo("jobId", fanout.getAudienceValue())
+                    .orderBy("contractorId")
+                    .limit(RECIPIENTS_PER_BATCH);
+            if (cursor != null) {
+                query = query.startAfter(cursor);
+            }
+            QuerySnapshot bids = await(query.get());
+            for (DocumentSnapshot doc : bids) {
+                String contractorId = doc.getString("contractorId");
+                List<String> ids = page.ids;
+                if (contractorId != null && (ids.isEmpty() || !ids.get(ids.size() - 1).equals(contractorId))) {
+                    ids.add(contractorId);
+                }
+            }
+            page.last = bids.size() < RECIPIENTS_PER_BATCH;
+            return page;
+        }
+
+        Query query = db.collection("users");
+        if (NotificationFanout.AUDIENCE_CATEGORY.equals(fanout.getAudience())) {
+            query = query.whereEqualTo("userType", "contractor")
+                    .whereEqualTo("category", fanout.getAudienceValue());
+        } else if (NotificationFanout.AUDIENCE_CITY.equals(fanout.getAudience())) {
+            query = query.whereEqualTo("city", fanout.getAudienceValue());
+        } else {
+            throw new IllegalArgumentException("Unknown audience " + fanout.getAudience());
+        }
+        query = query.orderBy(FieldPath.documentId()).limit(RECIPIENTS_PER_BATCH);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+        QuerySnapshot users = await(query.get());
+        for (DocumentSnapshot doc : users) {
+            page.ids.add(doc.getId());
+        }
+        page.last = users.size() < RECIPIENTS_PER_BATCH;
+        return page;
+    }
+
+    private static final class Page {
+        final List<String> ids = new ArrayList<>();
+        boolean last; // No recipients after this page
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Callback interface
+    public interface OnFanoutListener {
+        void onComplete(int sent);
+        void onError(String error);
+    }
+}
@@ -1,16 +1,33 @@
 package com.example.madproject.firebase;
 
+import android.content.Context;
+
 import com.example.madproject.models.Notification;
+import com.example.madproject.models.UserCounters;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 public class NotificationManager {
     private static NotificationManager instance;
     private final FirebaseFirestore db;
     private static final String COLLECTION_NAME = "notifications";
+    // Read notifications are kept this long, then purged
+    private static final long READ_RETENTION_MILLIS = 30L * 24 * 60 * 60 * 1000;
+    // Notifications deleted per purge transaction, and most transactions in one run
+    private static final int PURGE_BATCH_SIZE = 100;
+    private static final int MAX_PURGE_ROUNDS = 10;
 
     private NotificationManager() {
         db = FirebaseFirestore.getInstance();
@@ -23,11 +40,42 @@ public class NotificationManager {
         return instance;
     }
 
-    // CREATE - Send notification
+    // CREATE - Send notification. A replay leaves the stored notification, which may have been
+    // read since, alone
     public Task<Void> createNotification(Notification notification) {
-        return db.collection(COLLECTION_NAME)
-                .document(notification.getNotificationId())
-                .set(notification);
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(notification.getNotificationId());
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(ref);
+            if (!existing.exists()) {
+                setNotification(transaction, existing, notification);
+            }
+            return null;
+        });
+    }
+
+    // CREATE - Write a notification inside another transaction, given its document as read
+    // there, and add it to the user's unread total if it is newly unread
+    public void setNotification(Transaction transaction, DocumentSnapshot existing, Notification notification) {
+        transaction.set(existing.getReference(), ModelMappers.NOTIFICATION.toMap(notification));
+        if (!notification.isRead() && !isUnread(existing)) {
+            CountersManager.getInstance().increment(transaction, notification.getUserId(),
+                    CountersManager.UNREAD_NOTIFICATIONS, 1);
+        }
+    }
+
+    private static boolean isUnread(DocumentSnapshot doc) {
+        Notification notification = ModelMappers.NOTIFICATION.fromSnapshot(doc);
+        return notification != null && !notification.isRead();
+    }
+
+    // CREATE (offline) - Save locally and send when online; the notificationId is the idempotency key
+    public void queueCreateNotification(Context context, Notification notification) {
+        OfflineWriteQueue.getInstance(context).enqueue(
+                notification.getNotificationId(),
+                OfflineWriteQueue.OP_SET,
+                COLLECTION_NAME,
+                notification.getNotificationId(),
+                ModelMappers.NOTIFICATION.toMap(notification));
     }
 
     // READ - Get single notification by ID
@@ -44,11 +92,24 @@ public class NotificationManager {
                 .get();
     }
 
+    // READ - One page of a user's notifications, newest first; pass the last document of the
+    // previous page to continue, or null for the first page
+    public Task<QuerySnapshot> getNotificationsPage(String userId, DocumentSnapshot after, int pageSize) {
+        Query query = db.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get();
+    }
+
     // READ - Get unread notifications (sort in memory after fetching)
     public Task<QuerySnapshot> getUnreadNotifications(String userId) {
         return db.collection(COLLECTION_NAME)
                 .whereEqualTo("userId", userId)
-                .whereEqualTo("isRead", false)
+                .whereEqualTo("read", false)
                 .get();
     }
 
@@ -60,32 +121,38 @@ public class NotificationManager {
                 .get();
     }
 
-    // READ - Get unread count
+    // READ - Get unread count from the user's counters document
     public void getUnreadCount(String userId, OnCountLoadedListener listener) {
-        db.collection(COLLECTION_NAME)
-                .whereEqualTo("userId", userId)
-                .whereEqualTo("isRead", false)
+        CountersManager.getInstance().countersRef(userId)
                 .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    listener.onCountLoaded(queryDocumentSnapshots.size());
+                .addOnSuccessListener(documentSnapshot -> {
+                    UserCounters counters = ModelMappers.USER_COUNTERS.fromSnapshot(documentSnapshot);
+                    listener.onCountLoaded(counters != null ? Math.max(0, counters.getUnreadNotifications()) : 0);
                 });
     }
 
-    // UPDATE - Mark as read
+    // UPDATE - Mark as read, taking it off the user's unread total only the first time
     public Task<Void> markAsRead(String notificationId) {
-        return db.collection(COLLECTION_NAME)
-                .document(notificationId)
-                .update(
-                        "isRead", true,
-                        "readAt", System.currentTimeMillis()
-                );
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(notificationId);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot doc = transaction.get(ref);
+            if (!isUnread(doc)) {
+                return null;
+            }
+            transaction.update(ref,
+                    "read", true,
+                    "readAt", System.currentTimeMillis());
+            CountersManager.getInstance().increment(transaction, doc.getString("userId"),
+                    CountersManager.UNREAD_NOTIFICATIONS, -1);
+            return null;
+        });
     }
 
     // UPDATE - Mark all as read
     public void markAllAsRead(String userId) {
         db.collection(COLLECTION_NAME)
                 .whereEqualTo("userId", userId)
-                .whereEqualTo("isRead", false)
+                .whereEqualTo("read", false)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
@@ -94,11 +161,123 @@ public class NotificationManager {
                 });
     }
 
-    // DELETE - Delete notification
+    // DELETE - Delete notification, taking it off the user's unread total if it was unread
     public Task<Void> deleteNotification(String notificationId) {
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(notificationId);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot doc = transaction.get(ref);
+            if (!doc.exists()) {
+                return null;
+            }
+            transaction.delete(ref);
+            if (isUnread(doc)) {
+                CountersManager.getInstance().increment(transaction, doc.getString("userId"),
+                        CountersManager.UNREAD_NOTIFICATIONS, -1);
+            }
+            return null;
+        });
+    }
+
+    // DELETE - Purge a user's read notifications older than the retention period. Each round
+    // re-reads its notifications in a transaction and skips any that became unread again (a
+    // stock alert re-notifying under the same ID), so the unread total never drifts.
+    public Task<Void> purgeReadNotifications(String userId) {
+        long cutoff = System.currentTimeMillis() - READ_RETENTION_MILLIS;
+        return backfillReadFlags(userId)
+                .continueWithTask(done -> purgeReadNotifications(userId, cutoff, 0));
+    }
+
+    private Task<Void> purgeReadNotifications(String userId, long cutoff, int round) {
         return db.collection(COLLECTION_NAME)
-                .document(notificationId)
-                .delete();
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("read", true)
+                .whereLessThan("timestamp", cutoff)
+                .orderBy("timestamp", Query.Direction.ASCENDING)
+                .limit(PURGE_BATCH_SIZE)
+                .get()
+                .continueWithTask(query -> {
+                    QuerySnapshot expired = query.getResult();
+                    if (expired.isEmpty()) {
+                        return Tasks.forResult(null);
+                    }
+                    List<DocumentReference> refs = new ArrayList<>(expired.size());
+                    for (DocumentSnapshot doc : expired) {
+                        refs.add(doc.getReference());
+                    }
+
+                    return db.runTransaction(transaction -> {
+                        List<DocumentReference> stillRead = new ArrayList<>(refs.size());
+                        for (DocumentReference ref : refs) {
+                            DocumentSnapshot doc = transaction.get(ref);
+                            if (doc.exists() && !isUnread(doc)) {
+                                stillRead.add(ref);
+                            }
+                        }
+                        for (DocumentReference ref : stillRead) {
+                            transaction.delete(ref);
+                        }
+                        return null;
+                    }).continueWithTask(done -> {
+                        if (!done.isSuccessful()) {
+                            return done;
+                        }
+                        // A full round means more expired notifications may be waiting
+                        if (expired.size() == PURGE_BATCH_SIZE && round + 1 < MAX_PURGE_ROUNDS) {
+                            return purgeReadNotifications(userId, cutoff, round + 1);
+                        }
+                        return Tasks.forResult(null);
+                    });
+                });
+    }
+
+    // UPDATE - Older markAsRead() calls only set "isRead", so those notifications still look
+    // unread to queries on "read". Copies the flag over and drops "isRead", so each is fixed
+    // once. The recount that built the user's unread total counted them, so it is lowered too.
+    public Task<Void> backfillReadFlags(String userId) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("isRead", true)
+                .limit(PURGE_BATCH_SIZE)
+                .get()
+                .continueWithTask(query -> {
+                    QuerySnapshot legacy = query.getResult();
+                    if (legacy.isEmpty()) {
+                        return Tasks.forResult(null);
+                    }
+                    DocumentReference countersRef = CountersManager.getInstance().countersRef(userId);
+                    return db.runTransaction(transaction -> {
+                        UserCounters counters = ModelMappers.USER_COUNTERS.fromSnapshot(transaction.get(countersRef));
+                        List<DocumentReference> unmarked = new ArrayList<>(legacy.size());
+                        List<DocumentReference> marked = new ArrayList<>(legacy.size());
+                        for (DocumentSnapshot doc : legacy) {
+                            DocumentSnapshot current = transaction.get(doc.getReference());
+                            if (!current.exists() || current.get("isRead") == null) {
+                                continue;
+                            }
+                            if (Boolean.TRUE.equals(current.getBoolean("read"))) {
+                                marked.add(current.getReference());
+                            } else {
+                                unmarked.add(current.getReference());
+                            }
+                        }
+                        for (DocumentReference ref : unmarked) {
+                            transaction.update(ref, "read", true, "isRead", FieldValue.delete());
+                        }
+                        for (DocumentReference ref : marked) {
+                            transaction.update(ref, "isRead", FieldValue.delete());
+                        }
+                        if (!unmarked.isEmpty() && counters != null && counters.getRebuiltAt() != 0) {
+                            CountersManager.getInstance().increment(transaction, userId,
+                                    CountersManager.UNREAD_NOTIFICATIONS, -unmarked.size());
+                        }
+                        return null;
+                    }).continueWithTask(done -> {
+                        if (!done.isSuccessful() || legacy.size() < PURGE_BATCH_SIZE) {
+                            return done;
+                        }
+                        return backfillReadFlags(userId);
+                    });
+                });
     }
 
     // DELETE - Delete all notifications for user
@@ -128,6 +307,41 @@ public class NotificationManager {
                 });
     }
 
+    // REAL-TIME - Listen to notifications, delivering snapshots on the given executor
+    public com.google.firebase.firestore.ListenerRegistration listenToNotifications(String userId, Executor executor, OnNotificationsChangedListener listener) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .addSnapshotListener(executor, (value, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (value != null) {
+                        listener.onNotificationsChanged(value);
+                    }
+                });
+    }
+
+    // REAL-TIME - Listen to a user's most recent notifications, newest first, delivering
+    // snapshots on the given executor. Older ones are read with getNotificationsPage().
+    public com.google.firebase.firestore.ListenerRegistration listenToRecentNotifications(String userId, int limit,
+                                                                                          Executor executor,
+                                                                                          OnNotificationsChangedListener listener) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("userId", userId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(limit)
+                .addSnapshotListener(executor, (value, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (value != null) {
+                        listener.onNotificationsChanged(value);
+                    }
+                });
+    }
+
     // Callback interfaces
     public interface OnCountLoadedListener {
         void onCountLoaded(int count);
@@ -0,0 +1,599 @@
+package com.example.madproject.firebase;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Durable outbound queue for Firestore writes recorded on site, where the connection drops often.
+ *
+ * Writes are saved to a local file first and the caller returns immediately. While offline,
+ * successive updates to the same document are merged into one pending operation, as long as
+ * that operation has not been sent yet. When the network comes back the queue is replayed
+ * with exponential backoff.
+ *
+ * Every operation carries a client-generated idempotency key. Set/update operations write
+ * absolute values, so replaying one that already reached the server is harmless, and a key
+ * that was already enqueued or completed is ignored. Increment operations add numeric deltas
+ * (task progress, so that offline work doesn't overwrite work recorded on other devices); the
+ * task remembers the keys it has applied, so a replay is not counted twice.
+ *
+ * Only plain values (String, numbers, Boolean, null, List, Map) can be queued; FieldValue
+ * sentinels cannot be stored in the file.
+ */
+public class OfflineWriteQueue {
+
+    private static final String TAG = "OfflineWriteQueue";
+    private static final String FILE_NAME = "offline_writes.json";
+
+    public static final String OP_SET = "set";
+    public static final String OP_UPDATE = "update";
+    public static final String OP_INCREMENT = "increment";
+
+    private static final long BASE_BACKOFF_MS = 2000L;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000L;
+    private static final int COMPLETED_KEYS_TO_REMEMBER = 200;
+
+    private static OfflineWriteQueue instance;
+
+    private final FirebaseFirestore db;
+    private final ConnectivityManager connectivityManager;
+    private final AtomicFile file;
+    private final Executor diskExecutor;
+    private final Handler handler;
+    private final Random random = new Random();
+    private final Runnable flushRunnable = this::flush;
+
+    private final List<PendingWrite> pending = new ArrayList<>();
+    private final LinkedHashSet<String> completedKeys = new LinkedHashSet<>();
+    private final List<OnWriteResultListener> resultListeners = new CopyOnWriteArrayList<>();
+    // Set once the saved queue has been read; nothing is sent or saved before then
+    private boolean loaded;
+
+    private OfflineWriteQueue(Context context) {
+        Context appContext = context.getApplicationContext();
+        db = FirebaseFirestore.getInstance();
+        connectivityManager = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        file = new AtomicFile(new File(appContext.getFilesDir(), FILE_NAME));
+        diskExecutor = AppExecutors.getInstance().newSerialExecutor();
+        handler = new Handler(Looper.getMainLooper());
+
+        // Reading the file stays off the main thread; writes enqueued meanwhile are kept
+        diskExecutor.execute(this::load);
+        registerNetworkCallback();
+    }
+
+    public static synchronized OfflineWriteQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new OfflineWriteQueue(context);
+        }
+        return instance;
+    }
+
+    // ENQUEUE - Create or overwrite a whole document
+    public String enqueueSet(String collection, String documentId, Map<String, Object> data) {
+        String key = UUID.randomUUID().toString();
+        enqueue(key, OP_SET, collection, documentId, data);
+        return key;
+    }
+
+    // ENQUEUE - Update some fields of an existing document
+    public String enqueueUpdate(String collection, String documentId, Map<String, Object> fields) {
+        String key = UUID.randomUUID().toString();
+        enqueue(key, OP_UPDATE, collection, documentId, fields);
+        return key;
+    }
+
+    // ENQUEUE - Add numeric deltas to fields of an existing document
+    public String enqueueIncrement(String collection, String documentId, Map<String, Object> deltas) {
+        String key = UUID.randomUUID().toString();
+        enqueue(key, OP_INCREMENT, collection, documentId, deltas);
+        return key;
+    }
+
+    /**
+     * Records a write under a client-generated idempotency key.
+     *
+     * @return false if the key was already queued or already written
+     */
+    public boolean enqueue(String idempotencyKey, String op, String collection,
+                           String documentId, Map<String, Object> fields) {
+        synchronized (this) {
+            if (completedKeys.contains(idempotencyKey) || findByKey(idempotencyKey) != null) {
+                Log.d(TAG, "Ignoring duplicate write " + idempotencyKey);
+                return false;
+            }
+
+            PendingWrite existing = findCoalescable(collection, documentId, op);
+            if (existing != null && OP_INCREMENT.equals(op)) {
+                // Deltas add up
+                for (Map.Entry<String, Object> delta : fields.entrySet()) {
+                    Object queued = existing.fields.get(delta.getKey());
+                    double sum = ((Number) delta.getValue()).doubleValue()
+                            + (queued instanceof Number ? ((Number) queued).doubleValue() : 0.0);
+                    existing.fields.put(delta.getKey(), sum);
+                }
+                existing.mergedKeys.add(idempotencyKey);
+            } else if (existing != null && OP_UPDATE.equals(op)) {
+                // Later field values win; a pending set stays a set with the new values merged in
+                if (OP_SET.equals(existing.op)) {
+                    applyUpdate(existing.fields, fields);
+                } else {
+                    existing.fields.putAll(fields);
+                }
+                existing.mergedKeys.add(idempotencyKey);
+            } else if (existing != null) {
+                // A set replaces everything queued before it for this document
+                existing.op = OP_SET;
+                existing.fields.clear();
+                existing.fields.putAll(fields);
+                existing.mergedKeys.add(idempotencyKey);
+            } else {
+                pending.add(new PendingWrite(idempotencyKey, op, collection, documentId,
+                        new HashMap<>(fields), System.currentTimeMillis()));
+            }
+            persistLocked();
+        }
+        handler.post(flushRunnable);
+        return true;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    // True while the write queued under this key (or merged into another) has not been sent
+    public synchronized boolean isPending(String idempotencyKey) {
+        return findByKey(idempotencyKey) != null;
+    }
+
+    // Sends one write now instead of waiting out its backoff, e.g. when the user taps retry
+    public void retryNow(String idempotencyKey) {
+        synchronized (this) {
+            PendingWrite write = findByKey(idempotencyKey);
+            if (write == null) {
+                return;
+            }
+            write.nextAttemptAt = 0;
+        }
+        handler.post(flushRunnable);
+    }
+
+    // Results are delivered on the main thread, under the key each write was enqueued with
+    public void addWriteResultListener(OnWriteResultListener listener) {
+        resultListeners.add(listener);
+    }
+
+    public void removeWriteResultListener(OnWriteResultListener listener) {
+        resultListeners.remove(listener);
+    }
+
+    // Sends every operation that is due. Safe to call repeatedly.
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+        }
+        if (!isOnline()) {
+            Log.d(TAG, "Offline, holding " + getPendingCount() + " pending writes");
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextDue = Long.MAX_VALUE;
+        List<PendingWrite> due = new ArrayList<>();
+
+        synchronized (this) {
+            // Only the oldest pending write per document may be sent, so a retried write can
+            // never land after (and overwrite) a newer one for the same document
+            Set<String> blockedDocuments = new HashSet<>();
+            for (PendingWrite write : pending) {
+                if (!blockedDocuments.add(write.collection + "/" + write.documentId)
+                        || write.inFlight) {
+                    continue;
+                }
+                if (write.nextAttemptAt <= now) {
+                    write.inFlight = true;
+                    write.sent = true;
+                    due.add(write);
+                } else {
+                    nextDue = Math.min(nextDue, write.nextAttemptAt);
+                }
+            }
+        }
+
+        for (PendingWrite write : due) {
+            send(write);
+        }
+
+        if (nextDue != Long.MAX_VALUE) {
+            handler.postDelayed(flushRunnable, nextDue - now);
+        }
+    }
+
+    private void send(PendingWrite write) {
+        // In-flight writes are never coalesced into, so the fields are stable from here on
+        ProjectRollupManager rollups = ProjectRollupManager.getInstance();
+        DocumentReference ref = db.collection(write.collection).document(write.documentId);
+        com.google.android.gms.tasks.Task<Void> task;
+        if (OP_INCREMENT.equals(write.op) && "tasks".equals(write.collection)) {
+            // Progress is added in the task's transaction, which skips a key it already applied
+            Object delta = write.fields.get("completedQuantity");
+            task = TaskManager.getInstance().incrementProgress(write.documentId,
+                    delta instanceof Number ? ((Number) delta).doubleValue() : 0.0, write.key);
+        } else if (OP_INCREMENT.equals(write.op)) {
+            Map<String, Object> increments = new HashMap<>();
+            for (Map.Entry<String, Object> delta : write.fields.entrySet()) {
+                increments.put(delta.getKey(), FieldValue.increment(((Number) delta.getValue()).doubleValue()));
+            }
+            task = ref.update(increments);
+        } else if (rollups.tracks(write.collection)) {
+            // Tasks and materials keep their job's rollup in step, so they are written transactionally
+            task = rollups.write(write.collection, write.documentId, write.op, write.fields);
+        } else if ("bids".equals(write.collection) && OP_SET.equals(write.op)) {
+            // New bids also count towards the contractor's stats
+            task = BidManager.getInstance().createBid(ModelMappers.BID.fromMap(write.fields));
+        } else if ("messages".equals(write.collection) && OP_SET.equals(write.op)) {
+            // New messages also update both participants' inbox entries
+            task = MessageManager.getInstance().createMessage(ModelMappers.MESSAGE.fromMap(write.fields));
+        } else if ("notifications".equals(write.collection) && OP_SET.equals(write.op)) {
+            // New notifications also count towards the user's unread total
+            task = NotificationManager.getInstance().createNotification(ModelMappers.NOTIFICATION.fromMap(write.fields));
+        } else {
+            task = OP_SET.equals(write.op) ? ref.set(write.fields) : ref.update(write.fields);
+        }
+
+        if ("materials".equals(write.collection)) {
+            // Stock changes re-check the material against its threshold once stored
+            task = task.addOnSuccessListener(aVoid -> StockAlertManager.getInstance().evaluate(write.documentId));
+        }
+        task.addOnSuccessListener(aVoid -> onWriteSucceeded(write))
+                .addOnFailureListener(e -> onWriteFailed(write, e));
+    }
+
+    private void onWriteSucceeded(PendingWrite write) {
+        synchronized (this) {
+            pending.remove(write);
+            rememberCompleted(write.key);
+            for (String mergedKey : write.mergedKeys) {
+                rememberCompleted(mergedKey);
+            }
+            persistLocked();
+        }
+        handler.post(() -> {
+            for (OnWriteResultListener listener : resultListeners) {
+                listener.onWriteSucceeded(write.key);
+                for (String mergedKey : write.mergedKeys) {
+                    listener.onWriteSucceeded(mergedKey);
+                }
+            }
+        });
+        handler.post(flushRunnable);
+    }
+
+    private void onWriteFailed(PendingWrite write, Exception e) {
+        synchronized (this) {
+            write.inFlight = false;
+            if (isPermanentFailure(e)) {
+                Log.e(TAG, "Dropping write " + write.key + " to " + write.collection + "/"
+                        + write.documentId + ": " + e.getMessage());
+                pending.remove(write);
+                rememberCompleted(write.key);
+                for (String mergedKey : write.mergedKeys) {
+                    rememberCompleted(mergedKey);
+                }
+                handler.post(() -> {
+                    for (OnWriteResultListener listener : resultListeners) {
+                        listener.onWriteDropped(write.key, e.getMessage());
+                        for (String mergedKey : write.mergedKeys) {
+                            listener.onWriteDropped(mergedKey, e.getMessage());
+                        }
+                    }
+                });
+            } else {
+                write.attempts++;
+                write.nextAttemptAt = System.currentTimeMillis() + backoffDelay(write.attempts);
+                Log.w(TAG, "Write " + write.key + " failed (attempt " + write.attempts + "): "
+                        + e.getMessage());
+            }
+            persistLocked();
+        }
+        handler.post(flushRunnable);
+    }
+
+    // Exponential backoff with +/-20% jitter so devices don't retry in lockstep
+    private long backoffDelay(int attempts) {
+        long delay = BASE_BACKOFF_MS << Math.min(attempts - 1, 16);
+        delay = Math.min(delay, MAX_BACKOFF_MS);
+        double jitter = 0.8 + random.nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    private boolean isPermanentFailure(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+            case NOT_FOUND:
+            case ALREADY_EXISTS:
+            case UNAUTHENTICATED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private PendingWrite findByKey(String key) {
+        for (PendingWrite write : pending) {
+            if (write.key.equals(key) || write.mergedKeys.contains(key)) {
+                return write;
+            }
+        }
+        return null;
+    }
+
+    // Only the document's latest pending write can absorb a new one, so writes stay in order;
+    // increments merge with increments, sets and updates with each other
+    private PendingWrite findCoalescable(String collection, String documentId, String op) {
+        PendingWrite latest = null;
+        for (PendingWrite write : pending) {
+            if (write.collection.equals(collection) && write.documentId.equals(documentId)) {
+                latest = write;
+            }
+        }
+        // Once a write may have reached the server under its key, a replay of that key is
+        // skipped, so anything merged into it afterwards would be lost
+        if (latest == null || latest.sent
+                || OP_INCREMENT.equals(latest.op) != OP_INCREMENT.equals(op)) {
+            return null;
+        }
+        return latest;
+    }
+
+    /**
+     * Applies update fields to a document's data as Firestore would: a key such as
+     * {@code "quantityCounter.device.p"} is a path into nested maps. Nested maps are copied on
+     * the way down, so maps shared with a snapshot are never modified.
+     */
+    @SuppressWarnings("unchecked")
+    static void applyUpdate(Map<String, Object> data, Map<String, Object> fields) {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String[] path = field.getKey().split("\\.");
+            Map<String, Object> parent = data;
+            for (int i = 0; i < path.length - 1; i++) {
+                Object child = parent.get(path[i]);
+                Map<String, Object> copy = child instanceof Map
+                        ? new HashMap<>((Map<String, Object>) child)
+                        : new HashMap<>();
+                parent.put(path[i], copy);
+                parent = copy;
+            }
+            parent.put(path[path.length - 1], field.getValue());
+        }
+    }
+
+    private void rememberCompleted(String key) {
+        completedKeys.add(key);
+        Iterator<String> iterator = completedKeys.iterator();
+        while (completedKeys.size() > COMPLETED_KEYS_TO_REMEMBER && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    // True when the active network reports internet access
+    public boolean isOnline() {
+        if (connectivityManager == null) {
+            return true;
+        }
+        Network network = connectivityManager.getActiveNetwork();
+        NetworkCapabilities capabilities = network != null
+                ? connectivityManager.getNetworkCapabilities(network)
+                : null;
+        return capabilities != null
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    private void registerNetworkCallback() {
+        if (connectivityManager == null) {
+            return;
+        }
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                synchronized (OfflineWriteQueue.this) {
+                    // Connectivity is back: retry everything now instead of waiting out the backoff
+                    for (PendingWrite write : pending) {
+                        write.nextAttemptAt = 0;
+                    }
+                }
+                handler.post(flushRunnable);
+            }
+        });
+    }
+
+    // PERSISTENCE - Called with the lock held; the file write itself happens off the caller's thread
+    private void persistLocked() {
+        if (!loaded) {
+            // Saving now would overwrite the writes that are still being read
+            return;
+        }
+        String json;
+        try {
+            JSONObject root = new JSONObject();
+            JSONArray writes = new JSONArray();
+            for (PendingWrite write : pending) {
+                writes.put(write.toJson());
+            }
+            root.put("pending", writes);
+            root.put("completedKeys", new JSONArray(completedKeys));
+            json = root.toString();
+        } catch (JSONException e) {
+            Log.e(TAG, "Error encoding pending writes: " + e.getMessage());
+            return;
+        }
+
+        diskExecutor.execute(() -> {
+            FileOutputStream out = null;
+            try {
+                out = file.startWrite();
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+                file.finishWrite(out);
+            } catch (IOException e) {
+                Log.e(TAG, "Error saving pending writes: " + e.getMessage());
+                if (out != null) {
+                    file.failWrite(out);
+                }
+            }
+        });
+    }
+
+    private void load() {
+        List<PendingWrite> saved = new ArrayList<>();
+        List<String> savedKeys = new ArrayList<>();
+        if (file.getBaseFile().exists()) {
+            try (FileInputStream in = file.openRead()) {
+                byte[] bytes = new byte[in.available()];
+                int read = 0;
+                while (read < bytes.length) {
+                    int count = in.read(bytes, read, bytes.length - read);
+                    if (count < 0) break;
+                    read += count;
+                }
+                JSONObject root = new JSONObject(new String(bytes, 0, read, StandardCharsets.UTF_8));
+
+                JSONArray writes = root.optJSONArray("pending");
+                if (writes != null) {
+                    for (int i = 0; i < writes.length(); i++) {
+                        saved.add(PendingWrite.fromJson(writes.getJSONObject(i)));
+                    }
+                }
+                JSONArray keys = root.optJSONArray("completedKeys");
+                if (keys != null) {
+                    for (int i = 0; i < keys.length(); i++) {
+                        savedKeys.add(keys.getString(i));
+                    }
+                }
+                Log.d(TAG, "Loaded " + saved.size() + " pending writes");
+            } catch (IOException | JSONException e) {
+                Log.e(TAG, "Error loading pending writes: " + e.getMessage());
+            }
+        }
+
+        synchronized (this) {
+            // Saved writes are older than any enqueued while loading, so they go first
+            pending.addAll(0, saved);
+            LinkedHashSet<String> keys = new LinkedHashSet<>(savedKeys);
+            keys.addAll(completedKeys);
+            completedKeys.clear();
+            completedKeys.addAll(keys);
+            loaded = true;
+            persistLocked();
+        }
+        handler.post(flushRunnable);
+    }
+
+    private static class PendingWrite {
+        final String key;
+        final String collection;
+        final String documentId;
+        final Map<String, Object> fields;
+        final List<String> mergedKeys = new ArrayList<>();
+        final long createdAt;
+        String op;
+        int attempts;
+        long nextAttemptAt;
+        boolean inFlight;
+        // True once the write has been sent, or may have been before it was saved
+        boolean sent;
+
+        PendingWrite(String key, String op, String collection, String documentId,
+                     Map<String, Object> fields, long createdAt) {
+            this.key = key;
+            this.op = op;
+            this.collection = collection;
+            this.documentId = documentId;
+            this.fields = fields;
+            this.createdAt = createdAt;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("key", key);
+            json.put("op", op);
+            json.put("collection", collection);
+            json.put("documentId", documentId);
+            json.put("fields", TypedJson.encodeMap(fields));
+            json.put("mergedKeys", new JSONArray(mergedKeys));
+            json.put("createdAt", createdAt);
+            json.put("attempts", attempts);
+            json.put("nextAttemptAt", nextAttemptAt);
+            return json;
+        }
+
+        static PendingWrite fromJson(JSONObject json) throws JSONException {
+            PendingWrite write = new PendingWrite(
+                    json.getString("key"),
+                    json.getString("op"),
+                    json.getString("collection"),
+                    json.getString("documentId"),
+                    TypedJson.decodeMap(json.getJSONObject("fields")),
+                    json.optLong("createdAt"));
+            JSONArray merged = json.optJSONArray("mergedKeys");
+            if (merged != null) {
+                for (int i = 0; i < merged.length(); i++) {
+                    write.mergedKeys.add(merged.getString(i));
+                }
+            }
+            write.attempts = json.optInt("attempts");
+            write.nextAttemptAt = json.optLong("nextAttemptAt");
+            write.sent = true;
+            return write;
+        }
+    }
+
+    // Callback interface
+    public interface OnWriteResultListener {
+        void onWriteSucceeded(String idempotencyKey);
+        // The server rejected the write for good; it will not be retried
+        void onWriteDropped(String idempotencyKey, String error);
+    }
+}
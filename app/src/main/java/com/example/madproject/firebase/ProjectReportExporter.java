@@ -0,0 +1,426 @@
+package com.example.madproject.firebase;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+
+import com.example.madproject.helpers.AppExecutors;
+import com.example.madproject.helpers.BufferedChannelWriter;
+import com.example.madproject.helpers.PdfTextWriter;
+import com.example.madproject.models.Bid;
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Material;
+import com.example.madproject.models.Task;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a project statement for a job: the accepted bid, every material and every task,
+ * with totals, as CSV or PDF.
+ *
+ * Materials and tasks are read a page at a time and each row is written out before the next
+ * page is fetched, through a fixed-size buffer onto the file's channel. Memory use is the
+ * same for a job with ten entries or ten thousand.
+ */
+public class ProjectReportExporter {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_PDF = "pdf";
+
+    private static final int PAGE_SIZE = 200;
+    private static final long QUERY_TIMEOUT_SECONDS = 60;
+
+    private final Context context;
+
+    public ProjectReportExporter(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    // Writes the report to a document picked by the user; listener calls arrive on the main thread
+    public void export(String jobId, Uri destination, String format, OnExportListener listener) {
+        AppExecutors.getInstance().background().execute(() -> {
+            try {
+                int rows = write(jobId, destination, format, listener);
+                AppExecutors.getInstance().mainThread().execute(() -> listener.onComplete(rows));
+            } catch (Exception e) {
+                deletePartialReport(destination);
+                String message = e.getMessage() != null ? e.getMessage() : e.toString();
+                AppExecutors.getInstance().mainThread().execute(() -> listener.onError(message));
+            }
+        });
+    }
+
+    private int write(String jobId, Uri destination, String format, OnExportListener listener) throws Exception {
+        Job job = ModelMappers.JOB.fromSnapshot(await(JobManager.getInstance().getJob(jobId)));
+        if (job == null) {
+            throw new IllegalStateException("Job not found");
+        }
+        QuerySnapshot bids = await(BidManager.getInstance().getAcceptedBidByJob(jobId));
+        Bid bid = bids.isEmpty() ? null : ModelMappers.BID.fromSnapshot(bids.getDocuments().get(0));
+
+        ParcelFileDescriptor file = context.getContentResolver().openFileDescriptor(destination, "wt");
+        if (file == null) {
+            throw new FileNotFoundException("Could not open the file");
+        }
+        int rows = 0;
+        try (ParcelFileDescriptor closeFile = file;
+             FileOutputStream stream = new FileOutputStream(file.getFileDescriptor());
+             ReportSink sink = FORMAT_PDF.equals(format)
+                     ? new PdfReportSink(new BufferedChannelWriter(stream.getChannel(), StandardCharsets.ISO_8859_1))
+                     : new CsvReportSink(new BufferedChannelWriter(stream.getChannel(), StandardCharsets.UTF_8))) {
+            sink.header(job, bid);
+
+            sink.beginMaterials();
+            double materialTotal = 0.0;
+            int materialCount = 0;
+            DocumentSnapshot after = null;
+            do {
+                QuerySnapshot page = await(MaterialManager.getInstance().getMaterialsByJobPage(jobId, after, PAGE_SIZE));
+                for (DocumentSnapshot doc : page) {
+                    Material material = ModelMappers.MATERIAL.fromSnapshot(doc);
+                    if (material != null) {
+                        sink.material(material);
+                        materialTotal += material.getTotalCost();
+                        materialCount++;
+                    }
+                }
+                after = page.size() == PAGE_SIZE ? page.getDocuments().get(page.size() - 1) : null;
+                postProgress(listener, rows + materialCount);
+            } while (after != null);
+            sink.endMaterials(materialCount, materialTotal);
+            rows += materialCount;
+
+            sink.beginTasks();
+            double labourTotal = 0.0;
+            int taskCount = 0;
+            do {
+                QuerySnapshot page = await(TaskManager.getInstance().getTasksByJobPage(jobId, after, PAGE_SIZE));
+                for (DocumentSnapshot doc : page) {
+                    Task task = ModelMappers.TASK.fromSnapshot(doc);
+                    if (task != null) {
+                        sink.task(task);
+                        labourTotal += task.getTotalCost();
+                        taskCount++;
+                    }
+                }
+                after = page.size() == PAGE_SIZE ? page.getDocuments().get(page.size() - 1) : null;
+                postProgress(listener, rows + taskCount);
+            } while (after != null);
+            sink.endTasks(taskCount, labourTotal);
+            rows += taskCount;
+
+            sink.summary(bid, materialTotal, labourTotal);
+        }
+        return rows;
+    }
+
+    private void postProgress(OnExportListener listener, int rows) {
+        AppExecutors.getInstance().mainThread().execute(() -> listener.onProgress(rows));
+    }
+
+    private static <T> T await(com.google.android.gms.tasks.Task<T> task) throws Exception {
+        return Tasks.await(task, QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Don't leave a truncated statement behind when the export fails part way
+    private void deletePartialReport(Uri destination) {
+        try {
+            DocumentsContract.deleteDocument(context.getContentResolver(), destination);
+        } catch (Exception ignored) {
+            // Not every provider supports deletion; the partial file is left for the user to remove
+        }
+    }
+
+    private static String formatAmount(double amount) {
+        return String.format(Locale.US, "%.2f", amount);
+    }
+
+    // The report layout, written row by row
+    private interface ReportSink extends Closeable {
+        void header(Job job, Bid bid) throws IOException;
+        void beginMaterials() throws IOException;
+        void material(Material material) throws IOException;
+        void endMaterials(int count, double total) throws IOException;
+        void beginTasks() throws IOException;
+        void task(Task task) throws IOException;
+        void endTasks(int count, double total) throws IOException;
+        void summary(Bid bid, double materialTotal, double labourTotal) throws IOException;
+    }
+
+    // One file with a titled section per table, separated by blank rows
+    private static class CsvReportSink implements ReportSink {
+        private final BufferedChannelWriter out;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        private final StringBuilder row = new StringBuilder();
+
+        CsvReportSink(BufferedChannelWriter out) throws IOException {
+            this.out = out;
+            // Lets spreadsheet apps detect UTF-8
+            out.write("\uFEFF");
+        }
+
+        @Override
+        public void header(Job job, Bid bid) throws IOException {
+            row("Project Statement");
+            row("Job", job.getTitle());
+            row("Category", job.getCategory());
+            row("Location", job.getLocation());
+            row("Status", job.getStatus());
+            row("Budget", formatAmount(job.getBudget()));
+            row("Generated", dateFormat.format(new Date()));
+            row();
+            row("Accepted Bid");
+            if (bid == null) {
+                row("None");
+            } else {
+                row("Contractor", "Amount", "Completion Days", "Submitted");
+                row(bid.getContractorName(), formatAmount(bid.getBidAmount()),
+                        String.valueOf(bid.getCompletionDays()), date(bid.getSubmittedDate()));
+            }
+            row();
+        }
+
+        @Override
+        public void beginMaterials() throws IOException {
+            row("Materials");
+            row("Name", "Category", "Quantity", "Unit", "Unit Price", "Total Cost", "Supplier", "Status", "Added");
+        }
+
+        @Override
+        public void material(Material material) throws IOException {
+            row(material.getMaterialName(), material.getCategory(), formatAmount(material.getQuantity()),
+                    material.getUnit(), formatAmount(material.getUnitPrice()), formatAmount(material.getTotalCost()),
+                    material.getSupplier(), material.getStatus(), date(material.getAddedDate()));
+        }
+
+        @Override
+        public void endMaterials(int count, double total) throws IOException {
+            row("Total (" + count + " items)", "", "", "", "", formatAmount(total));
+            row();
+        }
+
+        @Override
+        public void beginTasks() throws IOException {
+            row("Tasks");
+            row("Title", "Assigned To", "Workers", "Status", "Progress %", "Completed", "Estimated", "Unit",
+                    "Daily Wages", "Total Cost", "Start", "End");
+        }
+
+        @Override
+        public void task(Task task) throws IOException {
+            row(task.getTaskTitle(), task.getAssignedTo(), String.valueOf(task.getNumberOfWorkers()),
+                    task.getStatus(), formatAmount(task.getProgressPercentage()),
+                    formatAmount(task.getCompletedQuantity()), formatAmount(task.getEstimatedQuantity()),
+                    task.getProgressUnit(), formatAmount(task.getDailyWages()), formatAmount(task.getTotalCost()),
+                    date(task.getStartDate()), date(task.getEndDate()));
+        }
+
+        @Override
+        public void endTasks(int count, double total) throws IOException {
+            row("Total (" + count + " tasks)", "", "", "", "", "", "", "", "", formatAmount(total));
+            row();
+        }
+
+        @Override
+        public void summary(Bid bid, double materialTotal, double labourTotal) throws IOException {
+            row("Summary");
+            row("Materials", formatAmount(materialTotal));
+            row("Labour", formatAmount(labourTotal));
+            row("Total Spent", formatAmount(materialTotal + labourTotal));
+            if (bid != null) {
+                row("Contract Amount", formatAmount(bid.getBidAmount()));
+            }
+        }
+
+        private String date(long millis) {
+            return millis > 0 ? dateFormat.format(new Date(millis)) : "";
+        }
+
+        private void row(String... fields) throws IOException {
+            row.setLength(0);
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    row.append(',');
+                }
+                appendField(fields[i] == null ? "" : fields[i]);
+            }
+            row.append("\r\n");
+            out.write(row.toString());
+        }
+
+        // Quotes fields that need it, and stops text such as "=SUM(...)" being run as a formula
+        private void appendField(String field) {
+            if (!field.isEmpty() && "=+-@".indexOf(field.charAt(0)) >= 0 && !isNumber(field)) {
+                field = "'" + field;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                    || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                row.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                row.append(field);
+            }
+        }
+
+        private static boolean isNumber(String field) {
+            try {
+                Double.parseDouble(field);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // Fixed-width text tables in a monospaced font
+    private static class PdfReportSink implements ReportSink {
+        private static final String RULE = repeat('-', PdfTextWriter.MAX_COLUMNS);
+
+        private final PdfTextWriter pdf;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy", Locale.US);
+        private final SimpleDateFormat shortDateFormat = new SimpleDateFormat("dd/MM/yy", Locale.US);
+
+        PdfReportSink(BufferedChannelWriter out) throws IOException {
+            this.pdf = new PdfTextWriter(out);
+        }
+
+        @Override
+        public void header(Job job, Bid bid) throws IOException {
+            pdf.heading("PROJECT STATEMENT");
+            pdf.heading(nonNull(job.getTitle()));
+            pdf.line(nonNull(job.getCategory()) + " | " + nonNull(job.getLocation()) + " | Status: " + nonNull(job.getStatus()));
+            pdf.line("Budget: Rs. " + money(job.getBudget()) + "    Generated: " + dateFormat.format(new Date()));
+            pdf.blankLine();
+            pdf.heading("ACCEPTED BID");
+            if (bid == null) {
+                pdf.line("No bid has been accepted for this job.");
+            } else {
+                pdf.line("Contractor: " + nonNull(bid.getContractorName()));
+                pdf.line("Amount: Rs. " + money(bid.getBidAmount()) + "    Completion: " + bid.getCompletionDays()
+                        + " days    Submitted: " + (bid.getSubmittedDate() > 0 ? dateFormat.format(new Date(bid.getSubmittedDate())) : "-"));
+            }
+            pdf.blankLine();
+        }
+
+        @Override
+        public void beginMaterials() throws IOException {
+            pdf.heading("MATERIALS");
+            pdf.heading(String.format(Locale.US, "%-30s %-12s %10s %-11s %12s %14s",
+                    "Name", "Category", "Quantity", "Unit", "Unit Price", "Total Cost"));
+            pdf.line(RULE);
+        }
+
+        @Override
+        public void material(Material material) throws IOException {
+            pdf.line(String.format(Locale.US, "%-30s %-12s %10s %-11s %12s %14s",
+                    fit(material.getMaterialName(), 30), fit(material.getCategory(), 12),
+                    fit(quantity(material.getQuantity()), 10), fit(material.getUnit(), 11),
+                    fit(money(material.getUnitPrice()), 12), fit(money(material.getTotalCost()), 14)));
+        }
+
+        @Override
+        public void endMaterials(int count, double total) throws IOException {
+            pdf.line(RULE);
+            pdf.heading(String.format(Locale.US, "%-80s %14s", count + " items", fit(money(total), 14)));
+            pdf.blankLine();
+        }
+
+        @Override
+        public void beginTasks() throws IOException {
+            pdf.heading("TASKS");
+            pdf.heading(String.format(Locale.US, "%-26s %-14s %-11s %5s %-19s %13s",
+                    "Title", "Assigned To", "Status", "Done", "Schedule", "Total Cost"));
+            pdf.line(RULE);
+        }
+
+        @Override
+        public void task(Task task) throws IOException {
+            pdf.line(String.format(Locale.US, "%-26s %-14s %-11s %4.0f%% %-19s %13s",
+                    fit(task.getTaskTitle(), 26), fit(task.getAssignedTo(), 14), fit(task.getStatus(), 11),
+                    task.getProgressPercentage(), schedule(task), fit(money(task.getTotalCost()), 13)));
+        }
+
+        @Override
+        public void endTasks(int count, double total) throws IOException {
+            pdf.line(RULE);
+            pdf.heading(String.format(Locale.US, "%-81s %13s", count + " tasks", fit(money(total), 13)));
+            pdf.blankLine();
+        }
+
+        @Override
+        public void summary(Bid bid, double materialTotal, double labourTotal) throws IOException {
+            pdf.heading("SUMMARY");
+            pdf.line(String.format(Locale.US, "%-20s Rs. %s", "Materials", money(materialTotal)));
+            pdf.line(String.format(Locale.US, "%-20s Rs. %s", "Labour", money(labourTotal)));
+            pdf.heading(String.format(Locale.US, "%-20s Rs. %s", "Total Spent", money(materialTotal + labourTotal)));
+            if (bid != null) {
+                pdf.line(String.format(Locale.US, "%-20s Rs. %s", "Contract Amount", money(bid.getBidAmount())));
+            }
+        }
+
+        private String schedule(Task task) {
+            if (task.getStartDate() <= 0) {
+                return "-";
+            }
+            String start = shortDateFormat.format(new Date(task.getStartDate()));
+            return task.getEndDate() > 0 ? start + " - " + shortDateFormat.format(new Date(task.getEndDate())) : start;
+        }
+
+        private static String money(double amount) {
+            return String.format(Locale.US, "%,.2f", amount);
+        }
+
+        private static String quantity(double amount) {
+            return amount == Math.rint(amount) ? String.format(Locale.US, "%.0f", amount)
+                    : String.format(Locale.US, "%.2f", amount);
+        }
+
+        private static String nonNull(String text) {
+            return text != null ? text : "";
+        }
+
+        // Cuts text to a column width, marking the cut with '~'
+        private static String fit(String text, int width) {
+            if (text == null) {
+                return "";
+            }
+            return text.length() <= width ? text : text.substring(0, width - 1) + "~";
+        }
+
+        private static String repeat(char c, int count) {
+            char[] chars = new char[count];
+            Arrays.fill(chars, c);
+            return new String(chars);
+        }
+
+        @Override
+        public void close() throws IOException {
+            pdf.close();
+        }
+    }
+
+    // Callback interface (called on the main thread)
+    public interface OnExportListener {
+        void onProgress(int rowsWritten);
+        void onComplete(int rowsWritten);
+        void onError(String error);
+    }
+}
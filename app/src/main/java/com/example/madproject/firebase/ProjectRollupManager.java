@@ -0,0 +1,423 @@
+package com.example.madproject.firebase;
+
+import android.util.Log;
+
+import com.example.madproject.models.Material;
+import com.example.madproject.models.ProjectRollup;
+import com.example.madproject.models.Task;
+import com.example.madproject.models.mappers.ModelMapper;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * Maintains one {@code project_rollup/{jobId}} document per job with running totals of its
+ * tasks and materials (labour cost, material value, progress, stock alerts).
+ *
+ * Every task or material write adds the difference between the old and new document to the
+ * rollup with FieldValue.increment, in the same batch or transaction as the write itself, so
+ * the totals can never drift from the documents they summarise.
+ *
+ * Those increments create the rollup on first use, so a job from before rollups existed gets
+ * a document holding only the changes since. Its totals are recounted once, in a transaction
+ * on the rollup, whenever a listener sees a rollup that has no {@code builtAt}.
+ */
+public class ProjectRollupManager {
+    private static ProjectRollupManager instance;
+    private final FirebaseFirestore db;
+    private static final String COLLECTION_NAME = "project_rollup";
+    private static final String TASKS = "tasks";
+    private static final String MATERIALS = "materials";
+    private static final String TAG = "ProjectRollupManager";
+    private static final long REBUILD_TIMEOUT_SECONDS = 30;
+
+    // Jobs whose rollup this process is recounting
+    private final Set<String> building = Collections.synchronizedSet(new HashSet<>());
+
+    private ProjectRollupManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized ProjectRollupManager getInstance() {
+        if (instance == null) {
+            instance = new ProjectRollupManager();
+        }
+        return instance;
+    }
+
+    public DocumentReference rollupRef(String jobId) {
+        return db.collection(COLLECTION_NAME).document(jobId);
+    }
+
+    // READ - Get a job's rollup
+    public com.google.android.gms.tasks.Task<DocumentSnapshot> getRollup(String jobId) {
+        return rollupRef(jobId).get();
+    }
+
+    // REALTIME - Listen to a job's rollup. A rollup that was never counted is recounted once
+    // and delivered when the recount comes back through the listener.
+    public ListenerRegistration listenToRollup(String jobId, OnRollupListener listener) {
+        return rollupRef(jobId).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                listener.onError(error.getMessage());
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            ProjectRollup rollup = ModelMappers.PROJECT_ROLLUP.fromSnapshot(snapshot);
+            if (rollup == null || rollup.getBuiltAt() == 0) {
+                if (!snapshot.getMetadata().isFromCache()) {
+                    buildIfNeeded(jobId);
+                }
+                return;
+            }
+            listener.onRollupChanged(rollup);
+        });
+    }
+
+    // REALTIME - Listen to the rollups of several jobs (at most 30 per listener). Rollups that
+    // are missing or were never counted are recounted, as in listenToRollup.
+    public ListenerRegistration listenToRollups(List<String> jobIds, OnRollupsListener listener) {
+        return db.collection(COLLECTION_NAME)
+                .whereIn("jobId", jobIds)
+                .addSnapshotListener((snapshots, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (snapshots == null) {
+                        return;
+                    }
+                    Set<String> unbuilt = new HashSet<>(jobIds);
+                    List<ProjectRollup> rollups = new ArrayList<>(snapshots.size());
+                    for (DocumentSnapshot doc : snapshots) {
+                        ProjectRollup rollup = ModelMappers.PROJECT_ROLLUP.fromSnapshot(doc);
+                        if (rollup != null && rollup.getBuiltAt() != 0) {
+                            rollups.add(rollup);
+                            unbuilt.remove(rollup.getJobId());
+                        }
+                    }
+                    if (!snapshots.getMetadata().isFromCache()) {
+                        for (String jobId : unbuilt) {
+                            buildIfNeeded(jobId);
+                        }
+                    }
+                    listener.onRollupsChanged(rollups);
+                });
+    }
+
+    // REBUILD - Recount a job's rollup from its tasks and materials, e.g. after documents were
+    // repaired outside this manager
+    public com.google.android.gms.tasks.Task<Void> rebuildRollup(String jobId) {
+        return rebuild(jobId, false);
+    }
+
+    private void buildIfNeeded(String jobId) {
+        if (!building.add(jobId)) {
+            return;
+        }
+        rebuild(jobId, true)
+                .addOnCompleteListener(task -> building.remove(jobId))
+                .addOnFailureListener(e -> Log.w(TAG, "Rollup rebuild for " + jobId + " failed: " + e.getMessage()));
+    }
+
+    // The rollup is read first in the transaction and every task or material write also writes
+    // it, so a write that lands after the documents are queried makes the transaction retry
+    // with a fresh query instead of being overwritten
+    private com.google.android.gms.tasks.Task<Void> rebuild(String jobId, boolean onlyIfUnbuilt) {
+        DocumentReference ref = rollupRef(jobId);
+        return db.runTransaction(transaction -> {
+            ProjectRollup stored = ModelMappers.PROJECT_ROLLUP.fromSnapshot(transaction.get(ref));
+            if (onlyIfUnbuilt && stored != null && stored.getBuiltAt() != 0) {
+                // Another device counted it first
+                return null;
+            }
+
+            QuerySnapshot tasks = query(db.collection(TASKS).whereEqualTo("jobId", jobId));
+            QuerySnapshot materials = query(db.collection(MATERIALS).whereEqualTo("jobId", jobId));
+            Map<String, Number> totals = new HashMap<>();
+            for (DocumentSnapshot doc : tasks) {
+                add(totals, contribution(ModelMappers.TASK.fromSnapshot(doc)));
+            }
+            for (DocumentSnapshot doc : materials) {
+                add(totals, contribution(ModelMappers.MATERIAL.fromSnapshot(doc)));
+            }
+
+            ProjectRollup rollup = new ProjectRollup();
+            rollup.setJobId(jobId);
+            rollup.setTaskCount(intValue(totals, "taskCount"));
+            rollup.setCompletedTaskCount(intValue(totals, "completedTaskCount"));
+            rollup.setTotalLabourCost(doubleValue(totals, "totalLabourCost"));
+            rollup.setProgressSum(doubleValue(totals, "progressSum"));
+            rollup.setWeightedProgressSum(doubleValue(totals, "weightedProgressSum"));
+            rollup.setMaterialCount(intValue(totals, "materialCount"));
+            rollup.setTotalMaterialValue(doubleValue(totals, "totalMaterialValue"));
+            rollup.setLowStockCount(intValue(totals, "lowStockCount"));
+            rollup.setOutOfStockCount(intValue(totals, "outOfStockCount"));
+            long now = System.currentTimeMillis();
+            rollup.setUpdatedAt(now);
+            rollup.setBuiltAt(now);
+            transaction.set(ref, ModelMappers.PROJECT_ROLLUP.toMap(rollup));
+            return null;
+        });
+    }
+
+    // Transactions can't run queries, so rebuilds read them from the server on the
+    // transaction's worker thread
+    private static QuerySnapshot query(Query query) throws FirebaseFirestoreException {
+        try {
+            return Tasks.await(query.get(Source.SERVER), REBUILD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FirebaseFirestoreException) {
+                throw (FirebaseFirestoreException) e.getCause();
+            }
+            throw new FirebaseFirestoreException("Rebuild query failed",
+                    FirebaseFirestoreException.Code.UNAVAILABLE, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirebaseFirestoreException("Rebuild query interrupted",
+                    FirebaseFirestoreException.Code.ABORTED, e);
+        } catch (TimeoutException e) {
+            throw new FirebaseFirestoreException("Rebuild query timed out",
+                    FirebaseFirestoreException.Code.DEADLINE_EXCEEDED, e);
+        }
+    }
+
+    // UPDATE - Add the rollup change for a task write to a batch
+    public void addTaskChange(WriteBatch batch, Task before, Task after) {
+        applyChange(contributionJobId(before), contribution(before),
+                contributionJobId(after), contribution(after),
+                (ref, delta) -> batch.set(ref, delta, SetOptions.merge()));
+    }
+
+    // UPDATE - Add the rollup change for a task write to a transaction
+    public void addTaskChange(Transaction transaction, Task before, Task after) {
+        applyChange(contributionJobId(before), contribution(before),
+                contributionJobId(after), contribution(after),
+                (ref, delta) -> transaction.set(ref, delta, SetOptions.merge()));
+    }
+
+    // UPDATE - Add the rollup change for a material write to a batch
+    public void addMaterialChange(WriteBatch batch, Material before, Material after) {
+        applyChange(contributionJobId(before), contribution(before),
+                contributionJobId(after), contribution(after),
+                (ref, delta) -> batch.set(ref, delta, SetOptions.merge()));
+    }
+
+    // UPDATE - Add the rollup change for a material write to a transaction
+    public void addMaterialChange(Transaction transaction, Material before, Material after) {
+        applyChange(contributionJobId(before), contribution(before),
+                contributionJobId(after), contribution(after),
+                (ref, delta) -> transaction.set(ref, delta, SetOptions.merge()));
+    }
+
+    // True for the collections whose writes must go through this manager
+    public boolean tracks(String collection) {
+        return TASKS.equals(collection) || MATERIALS.equals(collection);
+    }
+
+    /**
+     * Writes a task or material document and its rollup change in one transaction. A material's
+     * cached quantity, totalCost and status are rewritten from its stock counter, so counter
+     * slot writes keep them, and the rollup's stock value and alerts, in step.
+     *
+     * @param op OfflineWriteQueue.OP_SET or OfflineWriteQueue.OP_UPDATE; fields must be plain
+     *           values, and update keys may be dotted paths into nested maps
+     */
+    public com.google.android.gms.tasks.Task<Void> write(String collection, String documentId,
+                                                         String op, Map<String, Object> fields) {
+        DocumentReference ref = db.collection(collection).document(documentId);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            Map<String, Object> after;
+            if (OfflineWriteQueue.OP_SET.equals(op)) {
+                after = new HashMap<>(fields);
+            } else {
+                if (!snapshot.exists()) {
+                    throw new FirebaseFirestoreException(collection + "/" + documentId + " not found",
+                            FirebaseFirestoreException.Code.NOT_FOUND);
+                }
+                after = new HashMap<>(snapshot.getData());
+                OfflineWriteQueue.applyUpdate(after, fields);
+            }
+
+            Map<String, Object> written = fields;
+            if (MATERIALS.equals(collection)) {
+                Material material = ModelMappers.MATERIAL.fromMap(after);
+                if (material.getQuantityCounter() != null) {
+                    written = new HashMap<>(fields);
+                    written.put("quantity", material.getQuantity());
+                    written.put("totalCost", material.getTotalCost());
+                    written.put("status", material.getStatus());
+                }
+            }
+            if (OfflineWriteQueue.OP_SET.equals(op)) {
+                transaction.set(ref, written);
+            } else {
+                transaction.update(ref, written);
+            }
+            addChange(transaction, collection, snapshot.getData(), after);
+            return null;
+        });
+    }
+
+    // DELETE - Delete a task or material document and remove it from the rollup in one transaction
+    public com.google.android.gms.tasks.Task<Void> delete(String collection, String documentId) {
+        DocumentReference ref = db.collection(collection).document(documentId);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            if (snapshot.exists()) {
+                transaction.delete(ref);
+                addChange(transaction, collection, snapshot.getData(), null);
+            }
+            return null;
+        });
+    }
+
+    private void addChange(Transaction transaction, String collection,
+                           Map<String, Object> before, Map<String, Object> after) {
+        if (TASKS.equals(collection)) {
+            addTaskChange(transaction, fromMap(ModelMappers.TASK, before), fromMap(ModelMappers.TASK, after));
+        } else if (MATERIALS.equals(collection)) {
+            addMaterialChange(transaction, fromMap(ModelMappers.MATERIAL, before),
+                    fromMap(ModelMappers.MATERIAL, after));
+        }
+    }
+
+    private static <T> T fromMap(ModelMapper<T> mapper, Map<String, Object> data) {
+        return data != null ? mapper.fromMap(data) : null;
+    }
+
+    // Subtracts the old contribution and adds the new one, per job (a moved document updates both)
+    private void applyChange(String beforeJobId, Map<String, Number> before,
+                             String afterJobId, Map<String, Number> after,
+                             BiConsumer<DocumentReference, Map<String, Object>> writer) {
+        if (beforeJobId != null && !beforeJobId.equals(afterJobId)) {
+            writeDelta(beforeJobId, before, new HashMap<>(), writer);
+            before = new HashMap<>();
+        }
+        if (afterJobId != null) {
+            writeDelta(afterJobId, before, after, writer);
+        }
+    }
+
+    private void writeDelta(String jobId, Map<String, Number> before, Map<String, Number> after,
+                            BiConsumer<DocumentReference, Map<String, Object>> writer) {
+        Set<String> keys = new HashSet<>(before.keySet());
+        keys.addAll(after.keySet());
+
+        Map<String, Object> delta = new HashMap<>();
+        for (String key : keys) {
+            Number from = before.get(key);
+            Number to = after.get(key);
+            if (from instanceof Long || to instanceof Long) {
+                long diff = (to != null ? to.longValue() : 0L) - (from != null ? from.longValue() : 0L);
+                if (diff != 0) {
+                    delta.put(key, FieldValue.increment(diff));
+                }
+            } else {
+                double diff = (to != null ? to.doubleValue() : 0.0) - (from != null ? from.doubleValue() : 0.0);
+                if (diff != 0) {
+                    delta.put(key, FieldValue.increment(diff));
+                }
+            }
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
+        delta.put("jobId", jobId);
+        delta.put("updatedAt", System.currentTimeMillis());
+        writer.accept(rollupRef(jobId), delta);
+    }
+
+    private static String contributionJobId(Task task) {
+        return task != null ? task.getJobId() : null;
+    }
+
+    private static String contributionJobId(Material material) {
+        return material != null ? material.getJobId() : null;
+    }
+
+    // What one task adds to its job's rollup; counts are longs so they stay integers in Firestore
+    private static Map<String, Number> contribution(Task task) {
+        Map<String, Number> values = new HashMap<>();
+        if (task == null) {
+            return values;
+        }
+        values.put("taskCount", 1L);
+        values.put("completedTaskCount", "completed".equals(task.getStatus()) ? 1L : 0L);
+        values.put("totalLabourCost", task.getTotalCost());
+        values.put("progressSum", task.getProgressPercentage());
+        values.put("weightedProgressSum", task.getProgressPercentage() * task.getTotalCost());
+        return values;
+    }
+
+    // What one material adds to its job's rollup
+    private static Map<String, Number> contribution(Material material) {
+        Map<String, Number> values = new HashMap<>();
+        if (material == null) {
+            return values;
+        }
+        values.put("materialCount", 1L);
+        values.put("totalMaterialValue", material.getTotalCost());
+        values.put("lowStockCount", "low_stock".equals(material.getStatus()) ? 1L : 0L);
+        values.put("outOfStockCount", "out_of_stock".equals(material.getStatus()) ? 1L : 0L);
+        return values;
+    }
+
+    private static void add(Map<String, Number> totals, Map<String, Number> values) {
+        for (Map.Entry<String, Number> entry : values.entrySet()) {
+            Number current = totals.get(entry.getKey());
+            if (entry.getValue() instanceof Long) {
+                totals.put(entry.getKey(), (current != null ? current.longValue() : 0L) + entry.getValue().longValue());
+            } else {
+                totals.put(entry.getKey(), (current != null ? current.doubleValue() : 0.0) + entry.getValue().doubleValue());
+            }
+        }
+    }
+
+    private static int intValue(Map<String, Number> totals, String key) {
+        Number value = totals.get(key);
+        return value != null ? value.intValue() : 0;
+    }
+
+    private static double doubleValue(Map<String, Number> totals, String key) {
+        Number value = totals.get(key);
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    // Callback interfaces
+    public interface OnRollupListener {
+        void onRollupChanged(ProjectRollup rollup);
+        void onError(String error);
+    }
+
+    public interface OnRollupsListener {
+        void onRollupsChanged(List<ProjectRollup> rollups);
+        void onError(String error);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.madproject.firebase;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The app's {@link PushSender}. Sending to a topic needs server credentials, which can't
+ * ship in the app, so each push is written to the {@code push_outbox} collection and the
+ * backend function watching it sends the FCM message (with the topics joined into one
+ * condition) and deletes the document.
+ */
+public class PushOutbox implements PushSender {
+    private static final String COLLECTION_NAME = "push_outbox";
+    private final FirebaseFirestore db;
+
+    public PushOutbox() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    // CREATE - Queue a push for the backend to send
+    @Override
+    public Task<Void> send(List<String> topics, Map<String, String> data) {
+        Map<String, Object> push = new HashMap<>();
+        push.put("topics", topics);
+        push.put("data", data);
+        push.put("createdAt", System.currentTimeMillis());
+        return db.collection(COLLECTION_NAME).document().set(push);
+    }
+}
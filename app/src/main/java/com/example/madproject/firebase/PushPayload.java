@@ -0,0 +1,107 @@
+package com.example.madproject.firebase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The data part of a push that carries an entity change, so the app can update its local
+ * copy without reading the document again.
+ *
+ * Keys are kept short because FCM limits the data payload to 4 KB:
+ * <pre>
+ *   e     entity type: "job", "bid" or "message"
+ *   i     entity ID
+ *   p     parent ID, optional: the jobId of a bid, the chatId of a message
+ *   v     version: the time of the change in milliseconds; older versions are ignored
+ *   f     the changed fields, TypedJson-encoded; absent if they didn't fit, which only
+ *         invalidates the local copy
+ *   full  "1" if f holds the whole document rather than just the changed fields
+ * </pre>
+ * The payload can sit alongside the usual title/message/type/relatedId keys.
+ */
+public final class PushPayload {
+
+    public static final String ENTITY_JOB = "job";
+    public static final String ENTITY_BID = "bid";
+    public static final String ENTITY_MESSAGE = "message";
+
+    private static final String KEY_ENTITY = "e";
+    private static final String KEY_ID = "i";
+    private static final String KEY_PARENT = "p";
+    private static final String KEY_VERSION = "v";
+    private static final String KEY_FIELDS = "f";
+    private static final String KEY_FULL = "full";
+    // Leaves room for the notification text within FCM's 4 KB
+    private static final int MAX_FIELDS_LENGTH = 3000;
+
+    public final String entity;
+    public final String id;
+    public final String parentId;
+    public final long version;
+    public final Map<String, Object> fields; // null: invalidate only
+    public final boolean full;
+
+    private PushPayload(String entity, String id, String parentId, long version,
+                        Map<String, Object> fields, boolean full) {
+        this.entity = entity;
+        this.id = id;
+        this.parentId = parentId;
+        this.version = version;
+        this.fields = fields;
+        this.full = full;
+    }
+
+    // Encodes a change as push data. Fields that are too large or can't be encoded are left
+    // out, which still invalidates the receiver's copy.
+    public static Map<String, String> encode(String entity, String id, String parentId, long version,
+                                             Map<String, Object> fields, boolean full) {
+        Map<String, String> data = new HashMap<>();
+        data.put(KEY_ENTITY, entity);
+        data.put(KEY_ID, id);
+        if (parentId != null) {
+            data.put(KEY_PARENT, parentId);
+        }
+        data.put(KEY_VERSION, String.valueOf(version));
+        try {
+            String encoded = TypedJson.encodeMap(fields).toString();
+            if (encoded.length() <= MAX_FIELDS_LENGTH) {
+                data.put(KEY_FIELDS, encoded);
+                if (full) {
+                    data.put(KEY_FULL, "1");
+                }
+            }
+        } catch (JSONException e) {
+            // e.g. a server Timestamp; sent as an invalidation
+        }
+        return data;
+    }
+
+    // The entity change in a push's data, or null if it doesn't carry one
+    public static PushPayload decode(Map<String, String> data) {
+        String entity = data.get(KEY_ENTITY);
+        String id = data.get(KEY_ID);
+        if (entity == null || id == null) {
+            return null;
+        }
+        long version;
+        try {
+            version = Long.parseLong(data.get(KEY_VERSION));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Map<String, Object> fields = null;
+        String encoded = data.get(KEY_FIELDS);
+        if (encoded != null) {
+            try {
+                fields = TypedJson.decodeMap(new JSONObject(encoded));
+            } catch (JSONException e) {
+                fields = null;
+            }
+        }
+        return new PushPayload(entity, id, data.get(KEY_PARENT), version, fields,
+                fields != null && "1".equals(data.get(KEY_FULL)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.madproject.firebase;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes a data push to the devices subscribed to any of a set of FCM topics.
+ * Swapped for a stub in tests; see {@link JobManager#setPushSender}.
+ */
+public interface PushSender {
+    /**
+     * Sends once to every device subscribed to at least one of the topics (at most five, the
+     * limit of an FCM topic condition), so a device in several topics gets a single push.
+     */
+    Task<Void> send(List<String> topics, Map<String, String> data);
+}
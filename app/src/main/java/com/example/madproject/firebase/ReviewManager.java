@@ -1,12 +1,19 @@
 package com.example.madproject.firebase;
 
 import com.example.madproject.models.Review;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class ReviewManager {
     private static ReviewManager instance;
     private final FirebaseFirestore db;
@@ -25,9 +32,7 @@ public class ReviewManager {
 
     // CREATE - Submit review
     public Task<Void> createReview(Review review) {
-        return db.collection(COLLECTION_NAME)
-                .document(review.getReviewId())
-                .set(review);
+        return writeReview(review.getReviewId(), ModelMappers.REVIEW.toMap(review), false);
     }
 
     // READ - Get single review by ID
@@ -70,15 +75,19 @@ public class ReviewManager {
     public Task<QuerySnapshot> getVerifiedReviews(String contractorId) {
         return db.collection(COLLECTION_NAME)
                 .whereEqualTo("contractorId", contractorId)
-                .whereEqualTo("isVerified", true)
+                .whereEqualTo("verified", true)
                 .get();
     }
 
-    // UPDATE - Update entire review
-    public Task<Void> updateReview(Review review) {
-        return db.collection(COLLECTION_NAME)
-                .document(review.getReviewId())
-                .set(review);
+    // UPDATE - Update only the fields changed since the review was loaded
+    public Task<Void> updateReview(ChangeTracker<Review> tracker) {
+        Map<String, Object> changes = tracker.getChanges();
+        if (changes.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        changes.put("updatedAt", System.currentTimeMillis());
+        return writeReview(tracker.get().getReviewId(), changes, true)
+                .addOnSuccessListener(aVoid -> tracker.markSaved(changes));
     }
 
     // UPDATE - Add contractor response
@@ -93,9 +102,47 @@ public class ReviewManager {
 
     // DELETE - Delete review
     public Task<Void> deleteReview(String reviewId) {
-        return db.collection(COLLECTION_NAME)
-                .document(reviewId)
-                .delete();
+        return writeReview(reviewId, null, false);
+    }
+
+    // Writes (or with null fields deletes) a review and applies its rating change to the
+    // contractor's stats and profile rating in the same transaction
+    private Task<Void> writeReview(String reviewId, Map<String, Object> fields, boolean merge) {
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(reviewId);
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            Review before = ModelMappers.REVIEW.fromSnapshot(snapshot);
+            Review after = null;
+            if (fields != null) {
+                Map<String, Object> data = new HashMap<>();
+                if (merge && snapshot.exists()) {
+                    data.putAll(snapshot.getData());
+                }
+                data.putAll(fields);
+                after = ModelMappers.REVIEW.fromMap(data);
+            }
+            if (before == null && after == null) {
+                return null;
+            }
+
+            // Every read has to happen before the first write
+            String contractorId = after != null ? after.getContractorId() : before.getContractorId();
+            DocumentSnapshot stats = contractorId != null
+                    ? transaction.get(UserStatsManager.getInstance().statsRef(contractorId))
+                    : null;
+
+            if (fields == null) {
+                transaction.delete(ref);
+            } else if (merge) {
+                transaction.update(ref, fields);
+            } else {
+                transaction.set(ref, fields);
+            }
+            if (stats != null) {
+                UserStatsManager.getInstance().addReviewChange(transaction, stats, before, after);
+            }
+            return null;
+        });
     }
 
     // CALCULATE - Calculate average rating
@@ -113,7 +160,7 @@ public class ReviewManager {
                     int count = 0;
 
                     for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        Review review = doc.toObject(Review.class);
+                        Review review = ModelMappers.REVIEW.fromSnapshot(doc);
                         if (review != null) {
                             totalRating += review.getRating();
                             count++;
@@ -0,0 +1,204 @@
+package com.example.madproject.firebase;
+
+import android.util.Log;
+
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Material;
+import com.example.madproject.models.Notification;
+import com.example.madproject.models.StockAlert;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the {@code stock_alerts} index: one document per material at or under its low-stock
+ * threshold, keyed by materialId and tagged with the contractor working on the job.
+ *
+ * Each quantity or threshold change re-evaluates the material in a transaction that reads the
+ * stored material (whose counter already includes every device's changes) and its alert. When
+ * the material gets worse (in stock -> low -> out) the contractor is notified once; the
+ * notification ID is derived from the material and level, so retries and evaluations from
+ * other devices rewrite the same notification instead of adding another. The alert is removed
+ * when stock rises above the threshold again, which re-arms the notifications.
+ */
+public class StockAlertManager {
+    private static final String TAG = "StockAlertManager";
+    private static StockAlertManager instance;
+    private final FirebaseFirestore db;
+    private static final String COLLECTION_NAME = "stock_alerts";
+    private static final String MATERIALS_COLLECTION = "materials";
+    private static final String JOBS_COLLECTION = "jobs";
+    private static final String NOTIFICATIONS_COLLECTION = "notifications";
+
+    private StockAlertManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized StockAlertManager getInstance() {
+        if (instance == null) {
+            instance = new StockAlertManager();
+        }
+        return instance;
+    }
+
+    // UPDATE - Re-evaluate a material's stock against its threshold after a change
+    public Task<Void> evaluate(String materialId) {
+        DocumentReference materialRef = db.collection(MATERIALS_COLLECTION).document(materialId);
+        DocumentReference alertRef = db.collection(COLLECTION_NAME).document(materialId);
+        Task<Void> task = db.runTransaction(transaction -> {
+            Material material = ModelMappers.MATERIAL.fromSnapshot(transaction.get(materialRef));
+            StockAlert alert = ModelMappers.STOCK_ALERT.fromSnapshot(transaction.get(alertRef));
+            String status = material != null
+                    ? stockStatus(material.getQuantity(), material.getLowStockThreshold())
+                    : "in_stock";
+            if ("in_stock".equals(status)) {
+                if (alert != null) {
+                    transaction.delete(alertRef);
+                }
+                return null;
+            }
+
+            Job job = material.getJobId() != null
+                    ? ModelMappers.JOB.fromSnapshot(transaction.get(db.collection(JOBS_COLLECTION).document(material.getJobId())))
+                    : null;
+            String contractorId = job != null && job.getAssignedContractorId() != null
+                    ? job.getAssignedContractorId()
+                    : material.getAddedBy();
+            if (contractorId == null || contractorId.isEmpty()) {
+                return null;
+            }
+
+            long now = System.currentTimeMillis();
+            if (alert == null) {
+                alert = new StockAlert();
+                alert.setMaterialId(materialId);
+                alert.setSince(now);
+            }
+            alert.setContractorId(contractorId);
+            alert.setJobId(material.getJobId());
+            alert.setProjectName(material.getProjectName());
+            alert.setMaterialName(material.getMaterialName());
+            alert.setUnit(material.getUnit());
+            alert.setQuantity(material.getQuantity());
+            alert.setLowStockThreshold(material.getLowStockThreshold());
+            alert.setStatus(status);
+            alert.setUpdatedAt(now);
+
+            if (severity(status) > severity(alert.getNotifiedStatus())) {
+                // Nothing has been written yet, so the notification can still be read here
+                Notification notification = buildNotification(alert);
+                DocumentSnapshot existing = transaction.get(
+                        db.collection(NOTIFICATIONS_COLLECTION).document(notification.getNotificationId()));
+                NotificationManager.getInstance().setNotification(transaction, existing, notification);
+                alert.setNotifiedStatus(status);
+            }
+            transaction.set(alertRef, ModelMappers.STOCK_ALERT.toMap(alert));
+            return null;
+        });
+        task.addOnFailureListener(e -> Log.w(TAG, "Stock check failed for " + materialId, e));
+        return task;
+    }
+
+    // READ - Every material to reorder across all of a contractor's jobs (sort in memory after fetching)
+    public Task<QuerySnapshot> getReorderList(String contractorId) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("contractorId", contractorId)
+                .get();
+    }
+
+    // REAL-TIME - Listen to a contractor's reorder list
+    public ListenerRegistration listenToReorderList(String contractorId, OnReorderListListener listener) {
+        return db.collection(COLLECTION_NAME)
+                .whereEqualTo("contractorId", contractorId)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null) {
+                        listener.onError(error.getMessage());
+                        return;
+                    }
+                    if (value != null) {
+                        listener.onReorderListChanged(toSortedAlerts(value));
+                    }
+                });
+    }
+
+    // DELETE - Remove a deleted material's alert
+    public Task<Void> deleteAlert(String materialId) {
+        return db.collection(COLLECTION_NAME)
+                .document(materialId)
+                .delete();
+    }
+
+    // Out of stock first, then by how far under the threshold the stock is
+    public static List<StockAlert> toSortedAlerts(QuerySnapshot snapshot) {
+        List<StockAlert> alerts = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot doc : snapshot) {
+            StockAlert alert = ModelMappers.STOCK_ALERT.fromSnapshot(doc);
+            if (alert != null) {
+                alerts.add(alert);
+            }
+        }
+        Collections.sort(alerts, (a, b) -> {
+            if (a.isOutOfStock() != b.isOutOfStock()) {
+                return a.isOutOfStock() ? -1 : 1;
+            }
+            return Double.compare(fillRatio(a), fillRatio(b));
+        });
+        return alerts;
+    }
+
+    // Same rule as Material's own status, applied to the stored (merged) quantity
+    static String stockStatus(double quantity, double lowStockThreshold) {
+        if (quantity <= 0) {
+            return "out_of_stock";
+        } else if (lowStockThreshold > 0 && quantity <= lowStockThreshold) {
+            return "low_stock";
+        }
+        return "in_stock";
+    }
+
+    private static int severity(String status) {
+        if ("out_of_stock".equals(status)) {
+            return 2;
+        }
+        return "low_stock".equals(status) ? 1 : 0;
+    }
+
+    private static double fillRatio(StockAlert alert) {
+        return alert.getLowStockThreshold() > 0 ? alert.getQuantity() / alert.getLowStockThreshold() : 0.0;
+    }
+
+    private static Notification buildNotification(StockAlert alert) {
+        String title = alert.isOutOfStock() ? "Out of Stock" : "Low Stock";
+        String message = alert.isOutOfStock()
+                ? alert.getMaterialName() + " has run out at " + alert.getProjectName()
+                : alert.getMaterialName() + " is down to " + formatQuantity(alert.getQuantity()) + " "
+                + alert.getUnit() + " at " + alert.getProjectName();
+        Notification notification = new Notification(
+                "stock_" + alert.getMaterialId() + "_" + alert.getStatus(),
+                alert.getContractorId(),
+                title,
+                message,
+                "stock",
+                alert.getJobId());
+        notification.setRelatedData(alert.getMaterialId());
+        return notification;
+    }
+
+    private static String formatQuantity(double quantity) {
+        return quantity == Math.rint(quantity) ? String.format("%.0f", quantity) : String.format("%.2f", quantity);
+    }
+
+    // Callback interface
+    public interface OnReorderListListener {
+        void onReorderListChanged(List<StockAlert> alerts);
+        void onError(String error);
+    }
+}
@@ -1,18 +1,43 @@
 package com.example.madproject.firebase;
 
+import android.content.Context;
+
+import com.example.madproject.helpers.ScheduleBuckets;
 import com.example.madproject.models.Task;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.TransactionOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class TaskManager {
     private static TaskManager instance;
     private final FirebaseFirestore db;
+    private final WriteCoalescer<com.example.madproject.models.Task> progressWriter;
     private static final String COLLECTION_NAME = "tasks";
+    // Progress on a busy task may be recorded from several devices at once; retry past the default 5 attempts
+    private static final int PROGRESS_TRANSACTION_ATTEMPTS = 20;
+    // Queued progress keys a task remembers, so a replayed increment isn't counted twice
+    private static final int PROGRESS_KEYS_TO_REMEMBER = 20;
+    private static final int MAX_BATCH_WRITES = 500;
 
     private TaskManager() {
         db = FirebaseFirestore.getInstance();
+        progressWriter = new WriteCoalescer<>(db, COLLECTION_NAME, ModelMappers.TASK,
+                "updatedAt", "completedQuantity");
+        progressWriter.setTransactionHook(ProjectRollupManager.getInstance()::addTaskChange);
+        progressWriter.setMaxAttempts(PROGRESS_TRANSACTION_ATTEMPTS);
     }
 
     public static synchronized TaskManager getInstance() {
@@ -22,11 +47,12 @@ public class TaskManager {
         return instance;
     }
 
-    // CREATE - Add new task
+    // CREATE - Add new task (and count it in the job's rollup in the same batch)
     public com.google.android.gms.tasks.Task<Void> createTask(com.example.madproject.models.Task task) {
-        return db.collection(COLLECTION_NAME)
-                .document(task.getTaskId())
-                .set(task);
+        WriteBatch batch = db.batch();
+        batch.set(db.collection(COLLECTION_NAME).document(task.getTaskId()), ModelMappers.TASK.toMap(task));
+        ProjectRollupManager.getInstance().addTaskChange(batch, null, task);
+        return batch.commit();
     }
 
     // READ - Get single task by ID
@@ -44,6 +70,20 @@ public class TaskManager {
                 .get();
     }
 
+    // READ - One page of a job's tasks, newest first; pass the last document of the previous
+    // page to continue, or null for the first page
+    public com.google.android.gms.tasks.Task<QuerySnapshot> getTasksByJobPage(String jobId, DocumentSnapshot after,
+                                                                              int pageSize) {
+        Query query = db.collection(COLLECTION_NAME)
+                .whereEqualTo("jobId", jobId)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .limit(pageSize);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get();
+    }
+
     // READ - Get tasks by status
     public com.google.android.gms.tasks.Task<QuerySnapshot> getTasksByStatus(String jobId, String status) {
         return db.collection(COLLECTION_NAME)
@@ -63,22 +103,26 @@ public class TaskManager {
         return getTasksByStatus(jobId, "completed");
     }
 
-    // UPDATE - Update entire task
-    public com.google.android.gms.tasks.Task<Void> updateTask(com.example.madproject.models.Task task) {
-        task.setUpdatedAt(System.currentTimeMillis());
-        return db.collection(COLLECTION_NAME)
-                .document(task.getTaskId())
-                .set(task);
+    // UPDATE - Update only the fields changed since the task was loaded
+    public com.google.android.gms.tasks.Task<Void> updateTask(ChangeTracker<com.example.madproject.models.Task> tracker) {
+        Map<String, Object> changes = tracker.getChanges();
+        if (changes.isEmpty()) {
+            return com.google.android.gms.tasks.Tasks.forResult(null);
+        }
+        long now = System.currentTimeMillis();
+        tracker.get().setUpdatedAt(now);
+        changes.put("updatedAt", now);
+        return ProjectRollupManager.getInstance()
+                .write(COLLECTION_NAME, tracker.get().getTaskId(), OfflineWriteQueue.OP_UPDATE, changes)
+                .addOnSuccessListener(aVoid -> tracker.markSaved(changes));
     }
 
     // UPDATE - Update specific field
     public com.google.android.gms.tasks.Task<Void> updateField(String taskId, String field, Object value) {
-        return db.collection(COLLECTION_NAME)
-                .document(taskId)
-                .update(
-                        field, value,
-                        "updatedAt", System.currentTimeMillis()
-                );
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(field, value);
+        updates.put("updatedAt", System.currentTimeMillis());
+        return ProjectRollupManager.getInstance().write(COLLECTION_NAME, taskId, OfflineWriteQueue.OP_UPDATE, updates);
     }
 
     // UPDATE - Update task status
@@ -86,48 +130,180 @@ public class TaskManager {
         return updateField(taskId, "status", status);
     }
 
-    // UPDATE - Update progress
+    // UPDATE - Record work done: adds to completedQuantity with FieldValue.increment inside a
+    // transaction that also recomputes progressPercentage and completes the task at 100%
+    public com.google.android.gms.tasks.Task<Void> incrementProgress(String taskId, double quantityDelta) {
+        return incrementProgress(taskId, quantityDelta, null);
+    }
+
+    // UPDATE - As above, for an increment replayed from the offline queue: the task records the
+    // queue key, and a key it has already applied is skipped
+    public com.google.android.gms.tasks.Task<Void> incrementProgress(String taskId, double quantityDelta,
+                                                                     String idempotencyKey) {
+        DocumentReference ref = db.collection(COLLECTION_NAME).document(taskId);
+        TransactionOptions options = new TransactionOptions.Builder()
+                .setMaxAttempts(PROGRESS_TRANSACTION_ATTEMPTS)
+                .build();
+        return db.runTransaction(options, transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            if (!snapshot.exists()) {
+                throw new FirebaseFirestoreException("Task not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            List<String> appliedKeys = new ArrayList<>();
+            Object stored = snapshot.get("progressKeys");
+            if (stored instanceof List) {
+                for (Object key : (List<?>) stored) {
+                    appliedKeys.add(String.valueOf(key));
+                }
+            }
+            if (idempotencyKey != null && appliedKeys.contains(idempotencyKey)) {
+                return null;
+            }
+            Double completed = snapshot.getDouble("completedQuantity");
+            Double estimated = snapshot.getDouble("estimatedQuantity");
+            double newCompleted = (completed != null ? completed : 0.0) + quantityDelta;
+
+            Map<String, Object> updates = new HashMap<>();
+            if (idempotencyKey != null) {
+                appliedKeys.add(idempotencyKey);
+                while (appliedKeys.size() > PROGRESS_KEYS_TO_REMEMBER) {
+                    appliedKeys.remove(0);
+                }
+                updates.put("progressKeys", appliedKeys);
+            }
+            updates.put("completedQuantity", FieldValue.increment(quantityDelta));
+            updates.put("updatedAt", System.currentTimeMillis());
+            if (estimated != null && estimated > 0) {
+                double progress = Math.max(0.0, Math.min(100.0, (newCompleted / estimated) * 100));
+                updates.put("progressPercentage", progress);
+                updates.put("status", com.example.madproject.models.Task.statusFor(progress));
+            }
+            transaction.update(ref, updates);
+
+            com.example.madproject.models.Task before = ModelMappers.TASK.fromSnapshot(snapshot);
+            com.example.madproject.models.Task after = ModelMappers.TASK.fromSnapshot(snapshot);
+            after.setCompletedQuantity(newCompleted);
+            if (updates.containsKey("progressPercentage")) {
+                after.setProgressPercentage((Double) updates.get("progressPercentage"));
+            }
+            if (updates.containsKey("status")) {
+                after.setStatus((String) updates.get("status"));
+            }
+            ProjectRollupManager.getInstance().addTaskChange(transaction, before, after);
+            return null;
+        });
+    }
+
+    // UPDATE - Set progress to an absolute quantity (merged with other updates to the task in the same window)
     public com.google.android.gms.tasks.Task<Void> updateProgress(String taskId, double completedQuantity) {
-        return db.collection(COLLECTION_NAME)
-                .document(taskId)
-                .get()
-                .continueWithTask(task -> {
-                    if (task.isSuccessful() && task.getResult().exists()) {
-                        com.example.madproject.models.Task taskObj = task.getResult().toObject(com.example.madproject.models.Task.class);
-                        if (taskObj != null) {
-                            taskObj.setCompletedQuantity(completedQuantity);
-                            taskObj.calculateProgress();
-                            return updateTask(taskObj);
-                        }
-                    }
-                    return com.google.android.gms.tasks.Tasks.forException(new Exception("Task not found"));
-                });
+        return progressWriter.submit(taskId, taskObj -> {
+            taskObj.setCompletedQuantity(completedQuantity);
+            taskObj.calculateProgress();
+        });
+    }
+
+    // UPDATE - Update progress from the UI. The change from the value the user saw is applied as an
+    // increment, so updates made on other devices meanwhile are kept. The local task shows the new
+    // value immediately and repeated taps are merged into one transaction (queued while offline).
+    public com.google.android.gms.tasks.Task<Void> updateProgress(Context context,
+                                                                  com.example.madproject.models.Task task,
+                                                                  double completedQuantity) {
+        double quantityDelta = completedQuantity - task.getCompletedQuantity();
+        if (quantityDelta == 0) {
+            return com.google.android.gms.tasks.Tasks.forResult(null);
+        }
+        WriteCoalescer.Mutation<com.example.madproject.models.Task> mutation = taskObj -> {
+            taskObj.setCompletedQuantity(taskObj.getCompletedQuantity() + quantityDelta);
+            taskObj.calculateProgress();
+        };
+        mutation.apply(task);
+        task.setUpdatedAt(System.currentTimeMillis());
+        if (!OfflineWriteQueue.getInstance(context).isOnline()) {
+            queueProgressDelta(context, task.getTaskId(), quantityDelta);
+            return com.google.android.gms.tasks.Tasks.forResult(null);
+        }
+        return progressWriter.submit(task.getTaskId(), mutation);
+    }
+
+    // Window in which progress updates to the same task are merged
+    public void setProgressCoalesceWindow(long millis) {
+        progressWriter.setWindowMillis(millis);
+    }
+
+    // UPDATE (offline) - Queue work done as a delta; it is replayed through incrementProgress, so
+    // progress recorded on other devices meanwhile is kept. Deltas queued for the same task while
+    // offline are added into a single write.
+    private void queueProgressDelta(Context context, String taskId, double quantityDelta) {
+        Map<String, Object> deltas = new HashMap<>();
+        deltas.put("completedQuantity", quantityDelta);
+        OfflineWriteQueue.getInstance(context).enqueueIncrement(COLLECTION_NAME, taskId, deltas);
     }
 
     // UPDATE - Mark task as complete
     public com.google.android.gms.tasks.Task<Void> completeTask(String taskId) {
-        return db.collection(COLLECTION_NAME)
-                .document(taskId)
-                .update(
-                        "status", "completed",
-                        "progressPercentage", 100.0,
-                        "updatedAt", System.currentTimeMillis()
-                );
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("status", "completed");
+        updates.put("progressPercentage", 100.0);
+        updates.put("updatedAt", System.currentTimeMillis());
+        return ProjectRollupManager.getInstance().write(COLLECTION_NAME, taskId, OfflineWriteQueue.OP_UPDATE, updates);
     }
 
     // DELETE - Delete task
     public com.google.android.gms.tasks.Task<Void> deleteTask(String taskId) {
-        return db.collection(COLLECTION_NAME)
-                .document(taskId)
-                .delete();
+        return ProjectRollupManager.getInstance().delete(COLLECTION_NAME, taskId);
     }
 
-    // QUERY - Get tasks by date range
-    public com.google.android.gms.tasks.Task<QuerySnapshot> getTasksByDateRange(String jobId, long startDate, long endDate) {
-        return db.collection(COLLECTION_NAME)
-                .whereEqualTo("jobId", jobId)
-                .whereGreaterThanOrEqualTo("startDate", startDate)
-                .whereLessThanOrEqualTo("endDate", endDate)
-                .get();
+    // QUERY - Get a job's tasks active at any time in [startDate, endDate]. The scheduleWeeks index
+    // narrows the read to tasks sharing a week with the range; the exact overlap is checked here.
+    public com.google.android.gms.tasks.Task<List<com.example.madproject.models.Task>> getTasksByDateRange(
+            String jobId, long startDate, long endDate) {
+        List<Long> weeks = ScheduleBuckets.weeksBetween(startDate, endDate);
+        Query query = db.collection(COLLECTION_NAME).whereEqualTo("jobId", jobId);
+        if (weeks.size() == 1) {
+            query = query.whereArrayContains("scheduleWeeks", weeks.get(0));
+        } else if (!weeks.isEmpty() && weeks.size() <= ScheduleBuckets.MAX_QUERY_BUCKETS) {
+            query = query.whereArrayContainsAny("scheduleWeeks", new ArrayList<Object>(weeks));
+        }
+        // Longer ranges read the whole job, which is cheaper than several bucket queries
+        return query.get().continueWith(task -> {
+            List<com.example.madproject.models.Task> tasks = new ArrayList<>();
+            for (DocumentSnapshot doc : task.getResult()) {
+                com.example.madproject.models.Task taskObj = ModelMappers.TASK.fromSnapshot(doc);
+                if (taskObj != null && ScheduleBuckets.overlaps(taskObj.getStartDate(),
+                        Math.max(taskObj.getStartDate(), taskObj.getEndDate()), startDate, endDate)) {
+                    tasks.add(taskObj);
+                }
+            }
+            return tasks;
+        });
+    }
+
+    // QUERY - Get a job's tasks active in the week containing the given time
+    public com.google.android.gms.tasks.Task<List<com.example.madproject.models.Task>> getTasksInWeek(
+            String jobId, long timeMillis) {
+        long weekStart = ScheduleBuckets.weekStart(timeMillis);
+        return getTasksByDateRange(jobId, weekStart, weekStart + ScheduleBuckets.WEEK_MILLIS - 1);
+    }
+
+    // MIGRATION - Add the scheduleWeeks index to a job's tasks written before it existed
+    public com.google.android.gms.tasks.Task<Void> backfillScheduleIndex(List<DocumentSnapshot> taskDocs) {
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (DocumentSnapshot doc : taskDocs) {
+            com.example.madproject.models.Task task = ModelMappers.TASK.fromSnapshot(doc);
+            if (task == null || doc.contains("scheduleWeeks")) {
+                continue;
+            }
+            batch.update(doc.getReference(), "scheduleWeeks", task.getScheduleWeeks());
+            if (++writes == MAX_BATCH_WRITES) {
+                // The rest are picked up the next time the job's tasks are loaded
+                break;
+            }
+        }
+        if (writes == 0) {
+            return com.google.android.gms.tasks.Tasks.forResult(null);
+        }
+        return batch.commit();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.example.madproject.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The FCM tokens of each user's devices, one document per token in {@code users/{uid}/tokens}
+ * with the time it was last seen.
+ *
+ * The token and user last registered from this device are remembered locally, so an app
+ * start only writes when either has changed, when FCM issues a new token, or once the
+ * last-seen time is due a refresh. Tokens not seen for {@link #STALE_MILLIS} belong to
+ * devices that are gone and are pruned whenever the user's registry is written.
+ */
+public class TokenRegistry {
+    private static final String TAG = "TokenRegistry";
+    private static TokenRegistry instance;
+    private final FirebaseFirestore db;
+    private final SharedPreferences prefs;
+    private static final String COLLECTION_NAME = "users";
+    private static final String TOKENS_COLLECTION = "tokens";
+
+    private static final String PREFS_NAME = "fcm_token_registry";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_USER_ID = "userId";
+    private static final String KEY_REGISTERED_AT = "registeredAt";
+
+    // How often an unchanged token's last-seen time is written
+    private static final long REFRESH_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    // Tokens unseen for this long are removed
+    private static final long STALE_MILLIS = 60L * 24 * 60 * 60 * 1000;
+
+    private TokenRegistry(Context context) {
+        db = FirebaseFirestore.getInstance();
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized TokenRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new TokenRegistry(context);
+        }
+        return instance;
+    }
+
+    // UPDATE - Register this device's token for a user; does nothing if it is already
+    // registered and fresh. Pass force for a token FCM has just issued.
+    public synchronized Task<Void> register(String userId, String token, boolean force) {
+        String lastToken = prefs.getString(KEY_TOKEN, null);
+        String lastUserId = prefs.getString(KEY_USER_ID, null);
+        long registeredAt = prefs.getLong(KEY_REGISTERED_AT, 0);
+        long now = System.currentTimeMillis();
+        if (!force && token.equals(lastToken) && userId.equals(lastUserId)
+                && now - registeredAt < REFRESH_MILLIS) {
+            return Tasks.forResult(null);
+        }
+
+        WriteBatch batch = db.batch();
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("token", token);
+        entry.put("platform", "android");
+        entry.put("lastSeen", now);
+        batch.set(tokens(userId).document(token), entry);
+        // The latest device's token, for senders that read the user document
+        batch.update(db.collection(COLLECTION_NAME).document(userId), "fcmToken", token);
+        if (lastToken != null && lastUserId != null && !lastToken.equals(token) && lastUserId.equals(userId)) {
+            // The device's previous token is no longer delivered to
+            batch.delete(tokens(userId).document(lastToken));
+        }
+        // A previous account on this device was removed from its registry at logout
+
+        return batch.commit().addOnSuccessListener(aVoid -> {
+            prefs.edit()
+                    .putString(KEY_TOKEN, token)
+                    .putString(KEY_USER_ID, userId)
+                    .putLong(KEY_REGISTERED_AT, now)
+                    .apply();
+            pruneStaleTokens(userId);
+        });
+    }
+
+    // DELETE - Remove this device from the signed-in user's registry; call before logout
+    public synchronized Task<Void> unregister() {
+        String lastToken = prefs.getString(KEY_TOKEN, null);
+        String lastUserId = prefs.getString(KEY_USER_ID, null);
+        prefs.edit().clear().apply();
+        if (lastToken == null || lastUserId == null) {
+            return Tasks.forResult(null);
+        }
+        return tokens(lastUserId).document(lastToken).delete();
+    }
+
+    // DELETE - Remove tokens of devices not seen for STALE_MILLIS
+    public Task<Void> pruneStaleTokens(String userId) {
+        return tokens(userId)
+                .whereLessThan("lastSeen", System.currentTimeMillis() - STALE_MILLIS)
+                .get()
+                .onSuccessTask(stale -> {
+                    if (stale.isEmpty()) {
+                        return Tasks.forResult(null);
+                    }
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot doc : stale) {
+                        batch.delete(doc.getReference());
+                    }
+                    Log.d(TAG, "Pruning " + stale.size() + " stale tokens");
+                    return batch.commit();
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Could not prune stale tokens: " + e.getMessage()));
+    }
+
+    private CollectionReference tokens(String userId) {
+        return db.collection(COLLECTION_NAME).document(userId).collection(TOKENS_COLLECTION);
+    }
+}
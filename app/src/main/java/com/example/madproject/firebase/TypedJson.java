@@ -0,0 +1,100 @@
+package com.example.madproject.firebase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON encoding for Firestore field values that keeps their exact types.
+ *
+ * Plain JSON would turn a whole-number double such as 5.0 into the integer 5 and
+ * every long into a double on the way back, which would change how Firestore stores
+ * the field. Each value is written as {"t": type, "v": value} instead.
+ */
+final class TypedJson {
+
+    private static final String TYPE = "t";
+    private static final String VALUE = "v";
+
+    private TypedJson() {
+    }
+
+    static JSONObject encodeMap(Map<String, Object> map) throws JSONException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            json.put(entry.getKey(), encode(entry.getValue()));
+        }
+        return json;
+    }
+
+    static Map<String, Object> decodeMap(JSONObject json) throws JSONException {
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            map.put(key, decode(json.getJSONObject(key)));
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject encode(Object value) throws JSONException {
+        JSONObject json = new JSONObject();
+        if (value == null) {
+            json.put(TYPE, "null");
+        } else if (value instanceof String) {
+            json.put(TYPE, "s").put(VALUE, value);
+        } else if (value instanceof Boolean) {
+            json.put(TYPE, "b").put(VALUE, value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            json.put(TYPE, "l").put(VALUE, ((Number) value).longValue());
+        } else if (value instanceof Float || value instanceof Double) {
+            // Stored as a string so whole numbers keep their double type
+            json.put(TYPE, "d").put(VALUE, Double.toString(((Number) value).doubleValue()));
+        } else if (value instanceof List) {
+            JSONArray array = new JSONArray();
+            for (Object item : (List<Object>) value) {
+                array.put(encode(item));
+            }
+            json.put(TYPE, "list").put(VALUE, array);
+        } else if (value instanceof Map) {
+            json.put(TYPE, "map").put(VALUE, encodeMap((Map<String, Object>) value));
+        } else {
+            throw new JSONException("Unsupported field type: " + value.getClass().getName());
+        }
+        return json;
+    }
+
+    private static Object decode(JSONObject json) throws JSONException {
+        String type = json.getString(TYPE);
+        switch (type) {
+            case "null":
+                return null;
+            case "s":
+                return json.getString(VALUE);
+            case "b":
+                return json.getBoolean(VALUE);
+            case "l":
+                return json.getLong(VALUE);
+            case "d":
+                return Double.parseDouble(json.getString(VALUE));
+            case "list":
+                JSONArray array = json.getJSONArray(VALUE);
+                List<Object> list = new ArrayList<>(array.length());
+                for (int i = 0; i < array.length(); i++) {
+                    list.add(decode(array.getJSONObject(i)));
+                }
+                return list;
+            case "map":
+                return decodeMap(json.getJSONObject(VALUE));
+            default:
+                throw new JSONException("Unknown field type: " + type);
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.madproject.firebase;
 
 import com.example.madproject.models.User;
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMappers;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class UserManager {
     private static UserManager instance;
@@ -30,7 +35,7 @@ public class UserManager {
     public Task<Void> createUser(User user) {
         return db.collection(COLLECTION_NAME)
                 .document(user.getUserId())
-                .set(user);
+                .set(ModelMappers.USER.toMap(user));
     }
 
     // READ - Get single user by ID
@@ -47,7 +52,7 @@ public class UserManager {
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
-                        User user = documentSnapshot.toObject(User.class);
+                        User user = ModelMappers.USER.fromSnapshot(documentSnapshot);
                         listener.onUserLoaded(user);
                     } else {
                         listener.onError("User not found");
@@ -85,11 +90,17 @@ public class UserManager {
                 .get();
     }
 
-    // UPDATE - Update entire user
-    public Task<Void> updateUser(User user) {
+    // UPDATE - Update only the fields changed since the user was loaded
+    public Task<Void> updateUser(ChangeTracker<User> tracker) {
+        Map<String, Object> changes = tracker.getChanges();
+        if (changes.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        changes.put("updatedAt", System.currentTimeMillis());
         return db.collection(COLLECTION_NAME)
-                .document(user.getUserId())
-                .set(user);
+                .document(tracker.get().getUserId())
+                .update(changes)
+                .addOnSuccessListener(aVoid -> tracker.markSaved(changes));
     }
 
     // UPDATE - Update specific field
@@ -114,20 +125,19 @@ public class UserManager {
                 );
     }
 
-    // UPDATE - Increment completed projects
-    public void incrementCompletedProjects(String userId) {
-        db.collection(COLLECTION_NAME)
+    // UPDATE - Increment a counter field atomically (negative delta to decrement)
+    public Task<Void> incrementField(String userId, String field, long delta) {
+        return db.collection(COLLECTION_NAME)
                 .document(userId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null) {
-                            user.setCompletedProjects(user.getCompletedProjects() + 1);
-                            updateUser(user);
-                        }
-                    }
-                });
+                .update(
+                        field, FieldValue.increment(delta),
+                        "updatedAt", System.currentTimeMillis()
+                );
+    }
+
+    // UPDATE - Increment completed projects
+    public Task<Void> incrementCompletedProjects(String userId) {
+        return incrementField(userId, "completedProjects", 1);
     }
 
     // DELETE - Delete user
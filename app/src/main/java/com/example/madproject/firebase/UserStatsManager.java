@@ -0,0 +1,252 @@
+package com.example.madproject.firebase;
+
+import com.example.madproject.models.Bid;
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Review;
+import com.example.madproject.models.UserStats;
+import com.example.madproject.models.mappers.ModelMappers;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Maintains one {@code user_stats/{userId}} document per user with the numbers shown on the
+ * dashboards: active and completed jobs, bids submitted and won, earnings, spend and rating.
+ *
+ * The bid, job and review write paths add their changes with FieldValue.increment in the
+ * same batch or transaction as the write itself, so the stats stay exact without scanning.
+ *
+ * Those increments create the stats document on first use, possibly from another user's
+ * device (a client accepting a bid, a review), so a user from before stats existed can have
+ * a document holding only the changes since. Stats without {@code builtAt} are recounted once,
+ * in a transaction on the stats document, when they are next loaded.
+ */
+public class UserStatsManager {
+    private static UserStatsManager instance;
+    private final FirebaseFirestore db;
+    private static final String COLLECTION_NAME = "user_stats";
+    private static final long REBUILD_TIMEOUT_SECONDS = 30;
+
+    private UserStatsManager() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized UserStatsManager getInstance() {
+        if (instance == null) {
+            instance = new UserStatsManager();
+        }
+        return instance;
+    }
+
+    public DocumentReference statsRef(String userId) {
+        return db.collection(COLLECTION_NAME).document(userId);
+    }
+
+    // READ - Get a user's stats
+    public Task<DocumentSnapshot> getStats(String userId) {
+        return statsRef(userId).get();
+    }
+
+    // READ - Get a user's stats as an object; stats that were never counted are rebuilt first
+    public void getStatsObject(String userId, OnStatsLoadedListener listener) {
+        getStats(userId)
+                .continueWithTask(task -> {
+                    UserStats stats = task.isSuccessful() ? ModelMappers.USER_STATS.fromSnapshot(task.getResult()) : null;
+                    if (task.isSuccessful() && (stats == null || stats.getBuiltAt() == 0)) {
+                        return rebuild(userId, true).continueWithTask(rebuilt -> getStats(userId));
+                    }
+                    return task;
+                })
+                .addOnSuccessListener(documentSnapshot -> {
+                    UserStats stats = ModelMappers.USER_STATS.fromSnapshot(documentSnapshot);
+                    if (stats != null) {
+                        listener.onStatsLoaded(stats);
+                    } else {
+                        listener.onError("Stats not found");
+                    }
+                })
+                .addOnFailureListener(e -> listener.onError(e.getMessage()));
+    }
+
+    // UPDATE - Add counter changes for a user to a batch
+    public void increment(WriteBatch batch, String userId, Map<String, Number> deltas) {
+        batch.set(statsRef(userId), toIncrements(userId, deltas), SetOptions.merge());
+    }
+
+    // UPDATE - Add counter changes for a user to a transaction
+    public void increment(Transaction transaction, String userId, Map<String, Number> deltas) {
+        transaction.set(statsRef(userId), toIncrements(userId, deltas), SetOptions.merge());
+    }
+
+    /**
+     * Adds a review's rating change to the contractor's stats and keeps the user document's
+     * rating and totalReviews in step. {@code stats} must have been read in the same transaction.
+     */
+    public void addReviewChange(Transaction transaction, DocumentSnapshot stats,
+                                Review before, Review after) {
+        String contractorId = after != null ? after.getContractorId() : before.getContractorId();
+        double ratingDelta = (after != null ? after.getRating() : 0) - (before != null ? before.getRating() : 0);
+        long countDelta = (after != null ? 1L : 0L) - (before != null ? 1L : 0L);
+        if (contractorId == null || (ratingDelta == 0 && countDelta == 0)) {
+            return;
+        }
+
+        Map<String, Number> deltas = new HashMap<>();
+        deltas.put("ratingSum", ratingDelta);
+        deltas.put("reviewCount", countDelta);
+        increment(transaction, contractorId, deltas);
+
+        UserStats current = stats.exists() ? ModelMappers.USER_STATS.fromSnapshot(stats) : new UserStats();
+        double ratingSum = current.getRatingSum() + ratingDelta;
+        long reviewCount = current.getReviewCount() + countDelta;
+        Map<String, Object> userRating = new HashMap<>();
+        userRating.put("rating", reviewCount > 0 ? ratingSum / reviewCount : 0.0);
+        userRating.put("totalReviews", reviewCount);
+        transaction.set(db.collection("users").document(contractorId), userRating, SetOptions.merge());
+    }
+
+    // REBUILD - Recompute a user's stats from their jobs, bids and reviews
+    public Task<Void> rebuildStats(String userId) {
+        return rebuild(userId, false);
+    }
+
+    // The stats document is read first in the transaction and every counted write also writes
+    // it, so a write that lands after the documents are queried makes the transaction retry
+    // with fresh queries instead of being overwritten
+    private Task<Void> rebuild(String userId, boolean onlyIfUnbuilt) {
+        DocumentReference ref = statsRef(userId);
+        return db.runTransaction(transaction -> {
+            UserStats stored = ModelMappers.USER_STATS.fromSnapshot(transaction.get(ref));
+            if (onlyIfUnbuilt && stored != null && stored.getBuiltAt() != 0) {
+                // Counted meanwhile by another device
+                return null;
+            }
+
+            QuerySnapshot postedJobs = query(db.collection("jobs").whereEqualTo("clientId", userId));
+            QuerySnapshot assignedJobs = query(db.collection("jobs").whereEqualTo("assignedContractorId", userId));
+            QuerySnapshot bids = query(db.collection("bids").whereEqualTo("contractorId", userId));
+            QuerySnapshot reviews = query(db.collection("reviews").whereEqualTo("contractorId", userId));
+
+            UserStats stats = new UserStats();
+            stats.setUserId(userId);
+
+            // Spend is the accepted bid amount of each of the client's jobs
+            for (DocumentSnapshot doc : postedJobs) {
+                Job job = ModelMappers.JOB.fromSnapshot(doc);
+                if (job == null) {
+                    continue;
+                }
+                stats.setJobsPosted(stats.getJobsPosted() + 1);
+                if ("completed".equals(job.getStatus())) {
+                    stats.setCompletedJobs(stats.getCompletedJobs() + 1);
+                } else if ("open".equals(job.getStatus()) || "in_progress".equals(job.getStatus())) {
+                    stats.setActiveJobs(stats.getActiveJobs() + 1);
+                }
+                if (job.getAcceptedBidId() != null && !job.getAcceptedBidId().isEmpty()) {
+                    Bid bid = ModelMappers.BID.fromSnapshot(
+                            transaction.get(db.collection("bids").document(job.getAcceptedBidId())));
+                    if (bid != null) {
+                        stats.setTotalSpent(stats.getTotalSpent() + bid.getBidAmount());
+                    }
+                }
+            }
+
+            for (DocumentSnapshot doc : assignedJobs) {
+                Job job = ModelMappers.JOB.fromSnapshot(doc);
+                if (job == null) {
+                    continue;
+                }
+                if ("completed".equals(job.getStatus())) {
+                    stats.setCompletedJobs(stats.getCompletedJobs() + 1);
+                } else if ("in_progress".equals(job.getStatus())) {
+                    stats.setActiveJobs(stats.getActiveJobs() + 1);
+                }
+            }
+
+            for (DocumentSnapshot doc : bids) {
+                Bid bid = ModelMappers.BID.fromSnapshot(doc);
+                if (bid == null) {
+                    continue;
+                }
+                stats.setBidsSubmitted(stats.getBidsSubmitted() + 1);
+                if ("accepted".equals(bid.getStatus())) {
+                    stats.setBidsWon(stats.getBidsWon() + 1);
+                    stats.setTotalEarnings(stats.getTotalEarnings() + bid.getBidAmount());
+                }
+            }
+
+            for (DocumentSnapshot doc : reviews) {
+                Review review = ModelMappers.REVIEW.fromSnapshot(doc);
+                if (review != null) {
+                    stats.setRatingSum(stats.getRatingSum() + review.getRating());
+                    stats.setReviewCount(stats.getReviewCount() + 1);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            stats.setUpdatedAt(now);
+            stats.setBuiltAt(now);
+            transaction.set(ref, ModelMappers.USER_STATS.toMap(stats));
+            return null;
+        });
+    }
+
+    // Transactions can't run queries, so rebuilds read them from the server on the
+    // transaction's worker thread
+    private static QuerySnapshot query(Query query) throws FirebaseFirestoreException {
+        try {
+            return Tasks.await(query.get(Source.SERVER), REBUILD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FirebaseFirestoreException) {
+                throw (FirebaseFirestoreException) e.getCause();
+            }
+            throw new FirebaseFirestoreException("Rebuild query failed",
+                    FirebaseFirestoreException.Code.UNAVAILABLE, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FirebaseFirestoreException("Rebuild query interrupted",
+                    FirebaseFirestoreException.Code.ABORTED, e);
+        } catch (TimeoutException e) {
+            throw new FirebaseFirestoreException("Rebuild query timed out",
+                    FirebaseFirestoreException.Code.DEADLINE_EXCEEDED, e);
+        }
+    }
+
+    // Counts are written as long increments so they stay integers in Firestore
+    private Map<String, Object> toIncrements(String userId, Map<String, Number> deltas) {
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Number> entry : deltas.entrySet()) {
+            Number delta = entry.getValue();
+            if (delta instanceof Long || delta instanceof Integer) {
+                updates.put(entry.getKey(), FieldValue.increment(delta.longValue()));
+            } else {
+                updates.put(entry.getKey(), FieldValue.increment(delta.doubleValue()));
+            }
+        }
+        updates.put("userId", userId);
+        updates.put("updatedAt", System.currentTimeMillis());
+        return updates;
+    }
+
+    // Callback interface
+    public interface OnStatsLoadedListener {
+        void onStatsLoaded(UserStats stats);
+        void onError(String error);
+    }
+}
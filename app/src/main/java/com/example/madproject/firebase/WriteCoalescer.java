@@ -0,0 +1,209 @@
+package com.example.madproject.firebase;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.madproject.models.mappers.ChangeTracker;
+import com.example.madproject.models.mappers.ModelMapper;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.TransactionOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges rapid successive edits to the same document into one transactional write.
+ *
+ * Each edit is a {@link Mutation} applied to the model. Edits submitted for a document
+ * within the window are collected and, when the window closes, replayed in order on the
+ * freshly read document inside a single transaction. Only the fields that end up changed
+ * are written. While a write for a document is in flight, new edits wait for it to finish
+ * so the coalescer never contends with itself.
+ *
+ * Numeric fields named as increment fields are written with FieldValue.increment of the
+ * net change rather than as an absolute value.
+ *
+ * An optional {@link TransactionHook} can add writes to other documents (such as running
+ * totals) to the same transaction.
+ *
+ * Callers that want an optimistic UI apply the same mutation to their local copy of the
+ * model before submitting it.
+ */
+public class WriteCoalescer<T> {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 1500L;
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final ModelMapper<T> mapper;
+    private final String timestampField;
+    private final Set<String> incrementFields;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Map<String, List<Mutation<T>>> pending = new HashMap<>();
+    private final Map<String, List<TaskCompletionSource<Void>>> waiters = new HashMap<>();
+    private final Set<String> scheduled = new HashSet<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+    private int maxAttempts = 5; // Firestore's default
+    private TransactionHook<T> transactionHook;
+
+    /**
+     * @param timestampField  field set to the write time whenever something changed,
+     *                        e.g. "updatedAt"; may be null
+     * @param incrementFields numeric fields written as increments of their net change
+     */
+    public WriteCoalescer(FirebaseFirestore db, String collection, ModelMapper<T> mapper,
+                          String timestampField, String... incrementFields) {
+        this.db = db;
+        this.collection = collection;
+        this.mapper = mapper;
+        this.timestampField = timestampField;
+        this.incrementFields = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(incrementFields)));
+    }
+
+    public synchronized void setWindowMillis(long windowMillis) {
+        this.windowMillis = Math.max(0L, windowMillis);
+    }
+
+    public synchronized long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // Attempts before a contended write fails, for documents many devices write at once
+    public synchronized void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public synchronized void setTransactionHook(TransactionHook<T> transactionHook) {
+        this.transactionHook = transactionHook;
+    }
+
+    /**
+     * Adds an edit for the document. The returned task completes when the write that
+     * includes this edit has been committed (or has failed).
+     */
+    public synchronized Task<Void> submit(String documentId, Mutation<T> mutation) {
+        List<Mutation<T>> mutations = pending.get(documentId);
+        if (mutations == null) {
+            mutations = new ArrayList<>();
+            pending.put(documentId, mutations);
+            waiters.put(documentId, new ArrayList<>());
+        }
+        mutations.add(mutation);
+
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        waiters.get(documentId).add(source);
+
+        if (!inFlight.contains(documentId)) {
+            schedule(documentId);
+        }
+        return source.getTask();
+    }
+
+    // Number of edits waiting for their window to close
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (List<Mutation<T>> mutations : pending.values()) {
+            count += mutations.size();
+        }
+        return count;
+    }
+
+    private void schedule(String documentId) {
+        if (scheduled.add(documentId)) {
+            handler.postDelayed(() -> flush(documentId), windowMillis);
+        }
+    }
+
+    private void flush(String documentId) {
+        List<Mutation<T>> mutations;
+        List<TaskCompletionSource<Void>> sources;
+        TransactionHook<T> hook;
+        TransactionOptions options;
+        synchronized (this) {
+            hook = transactionHook;
+            options = new TransactionOptions.Builder().setMaxAttempts(maxAttempts).build();
+            scheduled.remove(documentId);
+            mutations = pending.remove(documentId);
+            sources = waiters.remove(documentId);
+            if (mutations == null || mutations.isEmpty()) {
+                return;
+            }
+            inFlight.add(documentId);
+        }
+
+        DocumentReference ref = db.collection(collection).document(documentId);
+        db.runTransaction(options, transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(ref);
+                    T model = mapper.fromSnapshot(snapshot);
+                    if (model == null) {
+                        throw new FirebaseFirestoreException(collection + "/" + documentId + " not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+
+                    ChangeTracker<T> tracker = new ChangeTracker<>(mapper, model);
+                    for (Mutation<T> mutation : mutations) {
+                        mutation.apply(model);
+                    }
+
+                    Map<String, Object> changes = tracker.getChanges();
+                    for (String field : incrementFields) {
+                        Object before = snapshot.get(field);
+                        Object after = changes.get(field);
+                        if (after instanceof Number) {
+                            double from = before instanceof Number ? ((Number) before).doubleValue() : 0.0;
+                            changes.put(field, FieldValue.increment(((Number) after).doubleValue() - from));
+                        }
+                    }
+                    if (!changes.isEmpty()) {
+                        if (timestampField != null) {
+                            changes.put(timestampField, System.currentTimeMillis());
+                        }
+                        transaction.update(ref, changes);
+                        if (hook != null) {
+                            hook.onWrite(transaction, mapper.fromSnapshot(snapshot), model);
+                        }
+                    }
+                    return null;
+                })
+                .addOnCompleteListener(task -> {
+                    for (TaskCompletionSource<Void> source : sources) {
+                        if (task.isSuccessful()) {
+                            source.trySetResult(null);
+                        } else {
+                            source.trySetException(task.getException());
+                        }
+                    }
+                    synchronized (WriteCoalescer.this) {
+                        inFlight.remove(documentId);
+                        if (pending.containsKey(documentId)) {
+                            schedule(documentId);
+                        }
+                    }
+                });
+    }
+
+    // An edit replayed on the latest stored model; it may run on a background thread
+    public interface Mutation<T> {
+        void apply(T model);
+    }
+
+    // Adds related writes to the transaction, given the stored model and the model being written
+    public interface TransactionHook<T> {
+        void onWrite(Transaction transaction, T before, T after);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.madproject.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors for work that must not run on the main thread.
+ *
+ * The background pool is bounded both in threads and in queued work so a burst of
+ * snapshot refreshes cannot spawn unbounded threads. When the queue is full the work is
+ * handed to a single overflow thread with an unbounded queue, never run on the submitting
+ * thread: snapshot listeners submit from the main thread.
+ */
+public class AppExecutors {
+
+    private static final int CORE_THREADS = 2;
+    private static final int MAX_THREADS = Math.max(CORE_THREADS,
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private static AppExecutors instance;
+
+    private final ThreadPoolExecutor background;
+    private final ThreadPoolExecutor overflow;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        AtomicInteger threadCount = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "app-worker-" + threadCount.getAndIncrement());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+
+        overflow = new ThreadPoolExecutor(
+                1,
+                1,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory
+        );
+        overflow.allowCoreThreadTimeOut(true);
+
+        background = new ThreadPoolExecutor(
+                CORE_THREADS,
+                MAX_THREADS,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                threadFactory,
+                (runnable, executor) -> overflow.execute(runnable)
+        );
+        background.allowCoreThreadTimeOut(true);
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    // Shared bounded worker pool
+    public Executor background() {
+        return background;
+    }
+
+    // Posts work to the main (UI) thread
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Returns an executor that runs its tasks one at a time, in submission order, on the
+     * shared background pool. Use one per listener so snapshots are never processed out of order.
+     */
+    public Executor newSerialExecutor() {
+        return new SerialExecutor(background);
+    }
+
+    private static class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final Executor delegate;
+        private Runnable active;
+
+        SerialExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.offer(() -> {
+                try {
+                    command.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                delegate.execute(active);
+            }
+        }
+    }
+}
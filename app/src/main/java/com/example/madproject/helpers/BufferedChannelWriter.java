@@ -0,0 +1,67 @@
+package com.example.madproject.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Writes text to a FileChannel through a fixed-size buffer, so output of any length is
+ * written with the same small amount of memory. Keeps count of the bytes written, which
+ * formats with byte offsets (PDF cross-reference tables) need.
+ */
+public class BufferedChannelWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long position;
+
+    public BufferedChannelWriter(FileChannel channel, Charset charset) {
+        this.channel = channel;
+        this.charset = charset;
+    }
+
+    // Bytes written so far, including those still in the buffer
+    public long position() {
+        return position;
+    }
+
+    public void write(String text) throws IOException {
+        write(text.getBytes(charset));
+    }
+
+    public void write(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
+        position += bytes.length;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.madproject.helpers;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.example.madproject.models.Message;
+import com.google.firebase.Timestamp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * On-device copy of chat history, with a full-text index over message text.
+ *
+ * Messages are saved as the chat listener delivers them, and each chat keeps a watermark:
+ * the newest message timestamp synced from the listener. On reopening a chat the screen is
+ * painted from here and the listener only asks for messages from a little before the
+ * watermark, so history isn't downloaded again. Search runs against the local index, so it
+ * works offline.
+ *
+ * Uses FTS4 (FTS5 is not available on every supported Android version) as an external
+ * content index over the messages table, kept in step by triggers. All methods do disk work
+ * and must be called off the main thread.
+ */
+public class ChatStore extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "chat_store.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String MESSAGES = "messages";
+    private static final String MESSAGES_FTS = "messages_fts";
+    private static final String SYNC_STATE = "sync_state";
+
+    private static final String[] MESSAGE_COLUMNS = {
+            "message_id", "chat_id", "sender_id", "sender_name", "sender_photo_url",
+            "receiver_id", "receiver_name", "message_text", "message_type", "attachment_url",
+            "attachment_name", "timestamp", "sent_at_micros", "client_sequence", "is_read", "read_at"
+    };
+
+    private static final Pattern DIGIT_GROUPING = Pattern.compile("(?<=\\d),(?=\\d)");
+
+    private static ChatStore instance;
+
+    private ChatStore(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized ChatStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChatStore(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + MESSAGES + " ("
+                + "message_id TEXT NOT NULL UNIQUE, chat_id TEXT NOT NULL, sender_id TEXT, "
+                + "sender_name TEXT, sender_photo_url TEXT, receiver_id TEXT, receiver_name TEXT, "
+                + "message_text TEXT, search_text TEXT, message_type TEXT, attachment_url TEXT, attachment_name TEXT, "
+                + "timestamp INTEGER NOT NULL, sent_at_micros INTEGER NOT NULL DEFAULT 0, "
+                + "client_sequence INTEGER NOT NULL DEFAULT 0, is_read INTEGER NOT NULL DEFAULT 0, "
+                + "read_at INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX messages_chat_time ON " + MESSAGES + " (chat_id, timestamp)");
+
+        db.execSQL("CREATE VIRTUAL TABLE " + MESSAGES_FTS + " USING fts4(content=\"" + MESSAGES
+                + "\", search_text, tokenize=unicode61)");
+        // External content tables are not updated automatically
+        db.execSQL("CREATE TRIGGER messages_ai AFTER INSERT ON " + MESSAGES + " BEGIN "
+                + "INSERT INTO " + MESSAGES_FTS + "(docid, search_text) VALUES (new.rowid, new.search_text); END");
+        db.execSQL("CREATE TRIGGER messages_bu BEFORE UPDATE ON " + MESSAGES + " BEGIN "
+                + "DELETE FROM " + MESSAGES_FTS + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER messages_au AFTER UPDATE ON " + MESSAGES + " BEGIN "
+                + "INSERT INTO " + MESSAGES_FTS + "(docid, search_text) VALUES (new.rowid, new.search_text); END");
+        db.execSQL("CREATE TRIGGER messages_bd BEFORE DELETE ON " + MESSAGES + " BEGIN "
+                + "DELETE FROM " + MESSAGES_FTS + " WHERE docid = old.rowid; END");
+
+        db.execSQL("CREATE TABLE " + SYNC_STATE + " (chat_id TEXT PRIMARY KEY, watermark INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A cache of server data: rebuild rather than migrate
+        db.execSQL("DROP TABLE IF EXISTS " + MESSAGES_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + MESSAGES);
+        db.execSQL("DROP TABLE IF EXISTS " + SYNC_STATE);
+        onCreate(db);
+    }
+
+    // WRITE - Insert or refresh messages, in one transaction
+    public void save(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Message message : messages) {
+                ContentValues values = toValues(message);
+                // Update in place so the row (and its index entry) keeps its rowid
+                if (db.update(MESSAGES, values, "message_id = ?", new String[]{message.getMessageId()}) == 0) {
+                    db.insert(MESSAGES, null, values);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // The newest message timestamp synced from the chat listener, or 0 if never synced
+    public long getWatermark(String chatId) {
+        try (Cursor cursor = getReadableDatabase().query(SYNC_STATE, new String[]{"watermark"},
+                "chat_id = ?", new String[]{chatId}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+
+    // Only moves forward (no upsert syntax: older Android versions ship SQLite 3.9)
+    public void advanceWatermark(String chatId, long timestamp) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("INSERT OR IGNORE INTO " + SYNC_STATE + " (chat_id, watermark) VALUES (?, 0)",
+                    new Object[]{chatId});
+            db.execSQL("UPDATE " + SYNC_STATE + " SET watermark = MAX(watermark, ?) WHERE chat_id = ?",
+                    new Object[]{timestamp, chatId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // READ - The newest messages in a chat
+    public List<Message> getLatest(String chatId, int limit) {
+        return query("chat_id = ?", new String[]{chatId}, limit);
+    }
+
+    // READ - The page of messages just older than a timestamp
+    public List<Message> getBefore(String chatId, long beforeTimestamp, int limit) {
+        return query("chat_id = ? AND timestamp < ?", new String[]{chatId, String.valueOf(beforeTimestamp)}, limit);
+    }
+
+    // READ - Every message from a timestamp on, e.g. to show the context around a search hit
+    public List<Message> getSince(String chatId, long sinceTimestamp) {
+        return query("chat_id = ? AND timestamp >= ?", new String[]{chatId, String.valueOf(sinceTimestamp)}, 0);
+    }
+
+    /**
+     * Messages in a chat containing every word of the query (the last word may be a prefix),
+     * best matches first. A word that is rare in the chat counts for more than a common one;
+     * equal scores put the newer message first.
+     */
+    public List<Message> search(String chatId, String query, int limit) {
+        String match = toMatchQuery(query);
+        if (match == null) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + columnList("m.") + ", matchinfo(" + MESSAGES_FTS + ", 'pcx')"
+                + " FROM " + MESSAGES_FTS + " JOIN " + MESSAGES + " m ON m.rowid = " + MESSAGES_FTS + ".docid"
+                + " WHERE " + MESSAGES_FTS + " MATCH ? AND m.chat_id = ?";
+        List<ScoredMessage> scored = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, new String[]{match, chatId})) {
+            while (cursor.moveToNext()) {
+                scored.add(new ScoredMessage(fromCursor(cursor), score(cursor.getBlob(MESSAGE_COLUMNS.length))));
+            }
+        }
+        Collections.sort(scored, (a, b) -> {
+            int byScore = Double.compare(b.score, a.score);
+            return byScore != 0 ? byScore : Long.compare(b.message.getTimestamp(), a.message.getTimestamp());
+        });
+
+        List<Message> results = new ArrayList<>(Math.min(limit, scored.size()));
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            results.add(scored.get(i).message);
+        }
+        return results;
+    }
+
+    // DELETE - Forget a chat entirely
+    public void deleteChat(String chatId) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(MESSAGES, "chat_id = ?", new String[]{chatId});
+            db.delete(SYNC_STATE, "chat_id = ?", new String[]{chatId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Turns what the user typed into an FTS query: each word is quoted (so operators and
+     * punctuation are taken literally) and the last one matches as a prefix, so results
+     * appear while typing. Returns null when there is nothing to search for.
+     */
+    static String toMatchQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        String[] words = normalizeForSearch(input).toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        StringBuilder query = new StringBuilder();
+        String last = null;
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (last != null) {
+                query.append('"').append(last).append("\" ");
+            }
+            last = word;
+        }
+        if (last == null) {
+            return null;
+        }
+        return query.append('"').append(last).append("*\"").toString();
+    }
+
+    // Indexed text and queries both drop digit grouping, so "1,200" and "1200" match each other
+    static String normalizeForSearch(String text) {
+        return text != null ? DIGIT_GROUPING.matcher(text).replaceAll("") : null;
+    }
+
+    /**
+     * Scores a row from its matchinfo('pcx') blob: for each query word, the share of that
+     * word's hits across all matching rows that fall in this row. This is the ranking
+     * function suggested in the SQLite FTS4 documentation.
+     */
+    static double score(byte[] matchinfo) {
+        if (matchinfo == null || matchinfo.length < 8) {
+            return 0.0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        double score = 0.0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int offset = 8 + 12 * (phrase * columns + column);
+                if (offset + 8 > matchinfo.length) {
+                    return score;
+                }
+                int hitsInRow = buffer.getInt(offset);
+                int hitsInAllRows = buffer.getInt(offset + 4);
+                if (hitsInRow > 0 && hitsInAllRows > 0) {
+                    score += (double) hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    // Newest first, limited; limit 0 returns every row
+    private List<Message> query(String selection, String[] args, int limit) {
+        List<Message> messages = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(MESSAGES, MESSAGE_COLUMNS, selection, args,
+                null, null, "timestamp DESC", limit > 0 ? String.valueOf(limit) : null)) {
+            while (cursor.moveToNext()) {
+                messages.add(fromCursor(cursor));
+            }
+        }
+        return messages;
+    }
+
+    private static String columnList(String prefix) {
+        StringBuilder columns = new StringBuilder();
+        for (int i = 0; i < MESSAGE_COLUMNS.length; i++) {
+            if (i > 0) {
+                columns.append(", ");
+            }
+            columns.append(prefix).append(MESSAGE_COLUMNS[i]);
+        }
+        return columns.toString();
+    }
+
+    private static ContentValues toValues(Message message) {
+        ContentValues values = new ContentValues(MESSAGE_COLUMNS.length);
+        values.put("message_id", message.getMessageId());
+        values.put("chat_id", message.getChatId());
+        values.put("sender_id", message.getSenderId());
+        values.put("sender_name", message.getSenderName());
+        values.put("sender_photo_url", message.getSenderPhotoUrl());
+        values.put("receiver_id", message.getReceiverId());
+        values.put("receiver_name", message.getReceiverName());
+        values.put("message_text", message.getMessageText());
+        values.put("search_text", normalizeForSearch(message.getMessageText()));
+        values.put("message_type", message.getMessageType());
+        values.put("attachment_url", message.getAttachmentUrl());
+        values.put("attachment_name", message.getAttachmentName());
+        values.put("timestamp", message.getTimestamp());
+        Timestamp sentAt = message.getSentAt();
+        values.put("sent_at_micros", sentAt != null ? sentAt.getSeconds() * 1_000_000L + sentAt.getNanoseconds() / 1000 : 0L);
+        values.put("client_sequence", message.getClientSequence());
+        values.put("is_read", message.isRead() ? 1 : 0);
+        values.put("read_at", message.getReadAt());
+        return values;
+    }
+
+    // Columns are read by position, in MESSAGE_COLUMNS order
+    private static Message fromCursor(Cursor cursor) {
+        Message message = new Message();
+        message.setMessageId(cursor.getString(0));
+        message.setChatId(cursor.getString(1));
+        message.setSenderId(cursor.getString(2));
+        message.setSenderName(cursor.getString(3));
+        message.setSenderPhotoUrl(cursor.getString(4));
+        message.setReceiverId(cursor.getString(5));
+        message.setReceiverName(cursor.getString(6));
+        message.setMessageText(cursor.getString(7));
+        message.setMessageType(cursor.getString(8));
+        message.setAttachmentUrl(cursor.getString(9));
+        message.setAttachmentName(cursor.getString(10));
+        message.setTimestamp(cursor.getLong(11));
+        long sentAtMicros = cursor.getLong(12);
+        if (sentAtMicros > 0) {
+            message.setSentAt(new Timestamp(sentAtMicros / 1_000_000L, (int) (sentAtMicros % 1_000_000L) * 1000));
+        }
+        message.setClientSequence(cursor.getLong(13));
+        message.setReadAt(cursor.getLong(15));
+        message.setRead(cursor.getInt(14) != 0);
+        return message;
+    }
+
+    private static class ScoredMessage {
+        final Message message;
+        final double score;
+
+        ScoredMessage(Message message, double score) {
+            this.message = message;
+            this.score = score;
+        }
+    }
+}
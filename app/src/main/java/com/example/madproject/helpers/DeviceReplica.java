@@ -0,0 +1,65 @@
+package com.example.madproject.helpers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.UUID;
+
+/**
+ * This device's identity as a replica of the shared PN-counters, and its own slot totals.
+ *
+ * A device is the only writer of its slot, so it keeps the totals locally and can write
+ * them without reading the document first. Totals are saved with commit() before the new
+ * value is sent, so a restart can never make a slot go backwards.
+ */
+public class DeviceReplica {
+
+    private static final String PREFS_NAME = "device_replica";
+    private static final String KEY_REPLICA_ID = "replica_id";
+
+    private static DeviceReplica instance;
+
+    private final SharedPreferences prefs;
+    private final String replicaId;
+
+    private DeviceReplica(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String id = prefs.getString(KEY_REPLICA_ID, null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            prefs.edit().putString(KEY_REPLICA_ID, id).commit();
+        }
+        replicaId = id;
+    }
+
+    public static synchronized DeviceReplica getInstance(Context context) {
+        if (instance == null) {
+            instance = new DeviceReplica(context);
+        }
+        return instance;
+    }
+
+    public String getReplicaId() {
+        return replicaId;
+    }
+
+    /**
+     * Adds amount to this device's slot of a counter: positive amounts raise P, negative
+     * amounts raise N.
+     *
+     * @return the slot's new totals as {P, N}
+     */
+    public synchronized double[] add(String counterKey, double amount) {
+        double increment = readDouble(counterKey + ".p") + Math.max(0.0, amount);
+        double decrement = readDouble(counterKey + ".n") + Math.max(0.0, -amount);
+        prefs.edit()
+                .putLong(counterKey + ".p", Double.doubleToRawLongBits(increment))
+                .putLong(counterKey + ".n", Double.doubleToRawLongBits(decrement))
+                .commit();
+        return new double[]{increment, decrement};
+    }
+
+    private double readDouble(String key) {
+        return prefs.contains(key) ? Double.longBitsToDouble(prefs.getLong(key, 0L)) : 0.0;
+    }
+}
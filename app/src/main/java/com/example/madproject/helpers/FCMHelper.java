@@ -1,20 +1,30 @@
 package com.example.madproject.helpers;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
-import com.example.madproject.firebase.UserManager;
+import com.example.madproject.firebase.TokenRegistry;
+import com.example.madproject.models.User;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 public class FCMHelper {
 
     private static final String TAG = "FCMHelper";
+    private static final String PREFS_NAME = "fcm_prefs";
+    private static final String KEY_JOB_TOPICS = "job_topics";
 
     /**
      * Register FCM token for current user
-     * Call this method after successful login
+     * Call this method after successful login; the token is only written when it or the
+     * user has changed (see {@link TokenRegistry})
      */
-    public static void registerFCMToken() {
+    public static void registerFCMToken(Context context) {
         FirebaseAuth auth = FirebaseAuth.getInstance();
         if (auth.getCurrentUser() == null) {
             Log.w(TAG, "No user logged in, skipping FCM registration");
@@ -22,25 +32,13 @@ public class FCMHelper {
         }
 
         String userId = auth.getCurrentUser().getUid();
+        TokenRegistry registry = TokenRegistry.getInstance(context);
 
         // Get FCM token
         FirebaseMessaging.getInstance().getToken()
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful() && task.getResult() != null) {
-                        String token = task.getResult();
-
-                        // Log token in a clearly visible format for testing
-                        Log.d(TAG, "========================================");
-                        Log.d(TAG, "FCM TOKEN FOR TESTING:");
-                        Log.d(TAG, token);
-                        Log.d(TAG, "========================================");
-                        Log.d(TAG, "Copy this token to test notifications in Firebase Console");
-                        // Save token to Firestore
-                        UserManager.getInstance()
-                                .updateField(userId, "fcmToken", token)
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d(TAG, "FCM token saved successfully to Firestore");
-                                })
+                        registry.register(userId, task.getResult(), false)
                                 .addOnFailureListener(e -> {
                                     Log.e(TAG, "Failed to save FCM token: " + e.getMessage());
                                 });
@@ -49,4 +47,45 @@ public class FCMHelper {
                     }
                 });
     }
+
+    /**
+     * Subscribe this device to the new-job topics for a contractor's category and city, and
+     * unsubscribe it from any it no longer matches. Pass null on logout to leave them all.
+     * The subscribed topics are remembered, so only changes reach FCM.
+     */
+    public static void syncJobTopics(Context context, User user) {
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Set<String> subscribed = prefs.getStringSet(KEY_JOB_TOPICS, Collections.emptySet());
+        Set<String> wanted = new HashSet<>();
+        if (user != null && user.isContractor()) {
+            wanted.addAll(JobTopics.forContractor(user.getCategory(), user.getCity()));
+        }
+
+        FirebaseMessaging messaging = FirebaseMessaging.getInstance();
+        for (String topic : subscribed) {
+            if (!wanted.contains(topic)) {
+                messaging.unsubscribeFromTopic(topic)
+                        .addOnSuccessListener(aVoid -> updateJobTopic(prefs, topic, false))
+                        .addOnFailureListener(e -> Log.w(TAG, "Failed to leave " + topic + ": " + e.getMessage()));
+            }
+        }
+        for (String topic : wanted) {
+            if (!subscribed.contains(topic)) {
+                messaging.subscribeToTopic(topic)
+                        .addOnSuccessListener(aVoid -> updateJobTopic(prefs, topic, true))
+                        .addOnFailureListener(e -> Log.w(TAG, "Failed to join " + topic + ": " + e.getMessage()));
+            }
+        }
+    }
+
+    // Callbacks run on the main thread, so read-modify-write of the set doesn't race
+    private static void updateJobTopic(SharedPreferences prefs, String topic, boolean subscribed) {
+        Set<String> topics = new HashSet<>(prefs.getStringSet(KEY_JOB_TOPICS, Collections.emptySet()));
+        if (subscribed) {
+            topics.add(topic);
+        } else {
+            topics.remove(topic);
+        }
+        prefs.edit().putStringSet(KEY_JOB_TOPICS, topics).apply();
+    }
 }
@@ -0,0 +1,96 @@
+package com.example.madproject.helpers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Static interval tree over items with a start and end time, for calendar and timeline views.
+ *
+ * Items are sorted by start and laid out as an implicit balanced binary tree (the middle of
+ * each range is its root). Each node also stores the latest end in its subtree, so a query
+ * skips every subtree that ends before the window and every right subtree that starts after
+ * it. Building is O(n log n); finding the k items overlapping a window is O(log n + k).
+ *
+ * The tree does not change after it is built; build a new one when the items change.
+ */
+public class IntervalTree<T> {
+
+    private final Object[] items;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+
+    public IntervalTree(Collection<T> source, Bounds<T> bounds) {
+        List<T> sorted = new ArrayList<>(source);
+        sorted.sort((a, b) -> Long.compare(bounds.start(a), bounds.start(b)));
+
+        int size = sorted.size();
+        items = new Object[size];
+        starts = new long[size];
+        ends = new long[size];
+        maxEnds = new long[size];
+        for (int i = 0; i < size; i++) {
+            T item = sorted.get(i);
+            items[i] = item;
+            starts[i] = bounds.start(item);
+            ends[i] = Math.max(starts[i], bounds.end(item));
+        }
+        buildMaxEnds(0, size);
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    // Items overlapping [from, to] in order of start time
+    public List<T> query(long from, long to) {
+        List<T> result = new ArrayList<>();
+        if (from <= to) {
+            collect(0, items.length, from, to, result);
+        }
+        return result;
+    }
+
+    // Items in progress at the given time
+    public List<T> at(long time) {
+        return query(time, time);
+    }
+
+    private long buildMaxEnds(int low, int high) {
+        if (low >= high) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (low + high) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnds(low, mid), buildMaxEnds(mid + 1, high)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(int low, int high, long from, long to, List<T> result) {
+        if (low >= high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        if (maxEnds[mid] < from) {
+            // Everything in this subtree ends before the window
+            return;
+        }
+        collect(low, mid, from, to, result);
+        if (starts[mid] > to) {
+            // This item and everything after it start after the window
+            return;
+        }
+        if (ends[mid] >= from) {
+            result.add((T) items[mid]);
+        }
+        collect(mid + 1, high, from, to, result);
+    }
+
+    // Reads the interval of an item; an end before the start is treated as the start
+    public interface Bounds<T> {
+        long start(T item);
+        long end(T item);
+    }
+}
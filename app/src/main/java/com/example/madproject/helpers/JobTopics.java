@@ -0,0 +1,55 @@
+package com.example.madproject.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * FCM topic names for new-job pushes. Contractors subscribe to the topics for their
+ * category and city, and a new job is published to the topics for its category and
+ * location, so both sides must build names the same way.
+ */
+public final class JobTopics {
+
+    private static final String CATEGORY_PREFIX = "jobs_category_";
+    private static final String CITY_PREFIX = "jobs_city_";
+
+    private JobTopics() {
+    }
+
+    // The topics for a contractor's category and city, skipping any that are blank
+    public static List<String> forContractor(String category, String city) {
+        List<String> topics = new ArrayList<>(2);
+        addIfPresent(topics, CATEGORY_PREFIX, category);
+        addIfPresent(topics, CITY_PREFIX, city);
+        return topics;
+    }
+
+    // The topics a job is published to. Its location is free text such as "DHA Phase 5,
+    // Lahore", whose last part is taken as the city.
+    public static List<String> forJob(String category, String location) {
+        String city = location;
+        if (location != null && location.contains(",")) {
+            city = location.substring(location.lastIndexOf(',') + 1);
+        }
+        return forContractor(category, city);
+    }
+
+    // Topic names allow only [a-zA-Z0-9-_.~%]; anything else becomes an underscore
+    static String slug(String value) {
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        StringBuilder slug = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '.';
+            slug.append(allowed ? c : '_');
+        }
+        return slug.toString();
+    }
+
+    private static void addIfPresent(List<String> topics, String prefix, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            topics.add(prefix + slug(value));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.madproject.helpers;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps the unit spellings found in supplier bills of quantities onto the units materials are
+ * stored in ("bags", "kg", "tons", "pieces", "cubic_meter"), with the factor that converts a
+ * quantity in the source unit to the stored unit.
+ */
+public final class MaterialUnits {
+
+    public static final String BAGS = "bags";
+    public static final String KG = "kg";
+    public static final String TONS = "tons";
+    public static final String PIECES = "pieces";
+    public static final String CUBIC_METER = "cubic_meter";
+
+    private static final double CUBIC_FEET_PER_CUBIC_METER = 35.3147;
+    private static final Map<String, Unit> ALIASES = new HashMap<>();
+
+    static {
+        alias(BAGS, 1.0, "bag", "bags", "bori", "sack", "sacks");
+        alias(KG, 1.0, "kg", "kgs", "kilo", "kilos", "kilogram", "kilograms");
+        alias(KG, 0.001, "g", "gm", "gms", "gram", "grams");
+        alias(KG, 100.0, "quintal", "quintals", "qtl");
+        alias(TONS, 1.0, "t", "ton", "tons", "tonne", "tonnes", "mt");
+        alias(PIECES, 1.0, "pc", "pcs", "piece", "pieces", "no", "nos", "number", "numbers",
+                "each", "ea", "unit", "units");
+        alias(CUBIC_METER, 1.0, "m3", "cum", "cu m", "cu.m", "cubic meter", "cubic meters",
+                "cubic metre", "cubic metres", "cubic_meter");
+        alias(CUBIC_METER, 1.0 / CUBIC_FEET_PER_CUBIC_METER, "cft", "ft3", "cu ft", "cu.ft",
+                "cubic foot", "cubic feet");
+    }
+
+    private MaterialUnits() {
+    }
+
+    /**
+     * @return the stored unit and conversion factor for a unit as written in a file, or null
+     *         if the unit is not recognised
+     */
+    public static Unit normalize(String unit) {
+        if (unit == null) {
+            return null;
+        }
+        String key = unit.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+        if (key.endsWith(".")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        return ALIASES.get(key);
+    }
+
+    private static void alias(String unit, double factor, String... spellings) {
+        Unit target = new Unit(unit, factor);
+        for (String spelling : spellings) {
+            ALIASES.put(spelling, target);
+        }
+    }
+
+    // A stored unit and the factor from the source unit to it
+    public static final class Unit {
+        public final String name;
+        public final double factor;
+
+        Unit(String name, double factor) {
+            this.name = name;
+            this.factor = factor;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.madproject.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes a plain text PDF (A4, Courier) one line at a time.
+ *
+ * Each page is written out as soon as it is full, so only the current page is held in
+ * memory; the only state that grows with the document is one byte offset per page for the
+ * cross-reference table. Android's PdfDocument keeps every page until writeTo(), which is
+ * why reports don't use it.
+ *
+ * Text is encoded as WinAnsi; characters outside Latin-1 are written as '?'.
+ */
+public class PdfTextWriter implements Closeable {
+
+    // Line width in characters at 9pt Courier across the printable width of A4
+    public static final int MAX_COLUMNS = 95;
+
+    private static final int PAGE_WIDTH = 595;
+    private static final int PAGE_HEIGHT = 842;
+    private static final int MARGIN = 40;
+    private static final int FONT_SIZE = 9;
+    private static final int LEADING = 12;
+    private static final int LINES_PER_PAGE = (PAGE_HEIGHT - 2 * MARGIN) / LEADING;
+
+    // Fixed objects; each page then takes a content stream object and a page object
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int FONT_REGULAR = 3;
+    private static final int FONT_BOLD = 4;
+    private static final int FIRST_PAGE_OBJECT = 5;
+
+    private final BufferedChannelWriter out;
+    private final StringBuilder page = new StringBuilder();
+    private long[] offsets = new long[64];
+    private int pageCount;
+    private int linesOnPage;
+    private boolean bold;
+
+    public PdfTextWriter(BufferedChannelWriter out) throws IOException {
+        this.out = out;
+        out.write("%PDF-1.4\n");
+        writeObject(FONT_REGULAR, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+        writeObject(FONT_BOLD, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier-Bold /Encoding /WinAnsiEncoding >>");
+    }
+
+    public void line(String text) throws IOException {
+        write(text, false);
+    }
+
+    public void heading(String text) throws IOException {
+        write(text, true);
+    }
+
+    public void blankLine() throws IOException {
+        write("", false);
+    }
+
+    // Long lines wrap onto following lines rather than running off the page
+    private void write(String text, boolean bold) throws IOException {
+        int start = 0;
+        do {
+            int end = Math.min(text.length(), start + MAX_COLUMNS);
+            if (linesOnPage == LINES_PER_PAGE) {
+                finishPage();
+            }
+            if (linesOnPage == 0) {
+                page.append("BT\n/F1 ").append(FONT_SIZE).append(" Tf\n")
+                        .append(LEADING).append(" TL\n")
+                        .append(MARGIN).append(' ').append(PAGE_HEIGHT - MARGIN - FONT_SIZE).append(" Td\n");
+                this.bold = false;
+            }
+            if (bold != this.bold) {
+                page.append(bold ? "/F2 " : "/F1 ").append(FONT_SIZE).append(" Tf\n");
+                this.bold = bold;
+            }
+            page.append('(');
+            escape(text, start, end);
+            page.append(") Tj T*\n");
+            linesOnPage++;
+            start = end;
+        } while (start < text.length());
+    }
+
+    private void escape(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                page.append('\\').append(c);
+            } else if (c == '\t') {
+                page.append(' ');
+            } else if (c < 32 || (c >= 127 && c < 160) || c > 255) {
+                page.append('?');
+            } else {
+                page.append(c);
+            }
+        }
+    }
+
+    private void finishPage() throws IOException {
+        page.append("ET\n");
+        byte[] content = page.toString().getBytes(StandardCharsets.ISO_8859_1);
+        page.setLength(0);
+        linesOnPage = 0;
+
+        int contentObject = FIRST_PAGE_OBJECT + 2 * pageCount;
+        markObject(contentObject);
+        out.write(contentObject + " 0 obj\n<< /Length " + content.length + " >>\nstream\n");
+        out.write(content);
+        out.write("\nendstream\nendobj\n");
+
+        writeObject(contentObject + 1, "<< /Type /Page /Parent " + PAGES + " 0 R"
+                + " /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "]"
+                + " /Resources << /Font << /F1 " + FONT_REGULAR + " 0 R /F2 " + FONT_BOLD + " 0 R >> >>"
+                + " /Contents " + contentObject + " 0 R >>");
+        pageCount++;
+    }
+
+    private void writeObject(int number, String body) throws IOException {
+        markObject(number);
+        out.write(number + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void markObject(int number) {
+        if (number >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[number] = out.position();
+    }
+
+    // Writes the page tree, catalog and cross-reference table, then closes the output
+    @Override
+    public void close() throws IOException {
+        try {
+            if (linesOnPage > 0 || pageCount == 0) {
+                if (linesOnPage == 0) {
+                    blankLine();
+                }
+                finishPage();
+            }
+
+            markObject(PAGES);
+            out.write(PAGES + " 0 obj\n<< /Type /Pages /Count " + pageCount + " /Kids [");
+            for (int i = 0; i < pageCount; i++) {
+                out.write((FIRST_PAGE_OBJECT + 2 * i + 1) + " 0 R ");
+            }
+            out.write("] >>\nendobj\n");
+            writeObject(CATALOG, "<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+
+            int size = FIRST_PAGE_OBJECT + 2 * pageCount;
+            long xref = out.position();
+            out.write("xref\n0 " + size + "\n0000000000 65535 f \n");
+            for (int i = 1; i < size; i++) {
+                out.write(String.format(Locale.US, "%010d 00000 n \n", offsets[i]));
+            }
+            out.write("trailer\n<< /Size " + size + " /Root " + CATALOG + " 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.madproject.helpers;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.service.notification.StatusBarNotification;
+
+import androidx.core.app.NotificationCompat;
+
+import com.example.madproject.ConversationsListActivity;
+import com.example.madproject.JobDetailActivity;
+import com.example.madproject.NotificationsActivity;
+import com.example.madproject.R;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows push notifications in the system shade, one per entity.
+ *
+ * A push is keyed by its type and relatedId. Every push for the same key updates that
+ * entity's notification in place, listing its latest lines in an InboxStyle, and the
+ * entities of one type are bundled under an InboxStyle group summary. The lines are kept
+ * in the posted notifications themselves, so a dismissed notification starts over and
+ * nothing is lost when the process is restarted.
+ */
+public class PushNotifier {
+
+    private static final String CHANNEL_ID = "madproject_notifications";
+    private static final String CHANNEL_NAME = "MadProject Notifications";
+    private static final String GROUP_PREFIX = "madproject_";
+    private static final String EXTRA_LINES = "madproject_lines";
+    // Notification IDs within a tag: each entity and each group summary has its own tag
+    private static final int ENTITY_ID = 1;
+    private static final int SUMMARY_ID = 0;
+    // Most lines kept on one entity's notification, and entities listed in a summary
+    private static final int MAX_LINES = 5;
+    // Recently shown pushes, to drop redeliveries and a payload's notification+data echo
+    private static final int SEEN_CAPACITY = 64;
+
+    private static PushNotifier instance;
+    private final Context context;
+    private final NotificationManager notificationManager;
+    private final Map<String, Boolean> seen = new LinkedHashMap<String, Boolean>(SEEN_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_CAPACITY;
+        }
+    };
+
+    // The channel is created once per process, when the notifier is first used
+    private PushNotifier(Context context) {
+        this.context = context.getApplicationContext();
+        notificationManager = (NotificationManager) this.context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                    CHANNEL_ID,
+                    CHANNEL_NAME,
+                    NotificationManager.IMPORTANCE_HIGH
+            );
+            channel.setDescription("Notifications for job updates, bids, and messages");
+            channel.enableVibration(true);
+            notificationManager.createNotificationChannel(channel);
+        }
+    }
+
+    public static synchronized PushNotifier getInstance(Context context) {
+        if (instance == null) {
+            instance = new PushNotifier(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Shows or updates the notification for a push.
+     *
+     * @param dedupeKey identifies the push (its notificationId, or the FCM message ID); a key
+     *                  already shown is ignored. May be null.
+     */
+    public synchronized void show(String dedupeKey, String type, String relatedId, String title, String message) {
+        if (dedupeKey != null && seen.put(dedupeKey, Boolean.TRUE) != null) {
+            return;
+        }
+        if (type == null || type.isEmpty()) {
+            type = "system";
+        }
+        String tag = type + ":" + (relatedId != null ? relatedId : "");
+        String group = GROUP_PREFIX + type;
+
+        ArrayList<String> lines = activeLines(tag);
+        lines.add(0, message);
+        while (lines.size() > MAX_LINES) {
+            lines.remove(lines.size() - 1);
+        }
+
+        NotificationCompat.Builder builder = baseBuilder(type, relatedId, tag)
+                .setContentTitle(title)
+                .setContentText(message)
+                .setGroup(group)
+                .addExtras(linesExtras(lines));
+        if (lines.size() == 1) {
+            builder.setStyle(new NotificationCompat.BigTextStyle().bigText(message));
+        } else {
+            NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle()
+                    .setBigContentTitle(title);
+            for (String line : lines) {
+                style.addLine(line);
+            }
+            builder.setStyle(style).setNumber(lines.size());
+        }
+        notificationManager.notify(tag, ENTITY_ID, builder.build());
+
+        showSummary(type, group, tag, message);
+    }
+
+    // Bundles a type's entities once there is more than one of them. The entity just posted
+    // may not be listed as active yet, so it is counted and listed first from its own values.
+    private void showSummary(String type, String group, String tag, String latest) {
+        List<StatusBarNotification> others = new ArrayList<>();
+        for (StatusBarNotification active : notificationManager.getActiveNotifications()) {
+            if (active.getId() == ENTITY_ID && !tag.equals(active.getTag())
+                    && group.equals(active.getNotification().getGroup())) {
+                others.add(active);
+            }
+        }
+        if (others.isEmpty()) {
+            return;
+        }
+
+        String title = (others.size() + 1) + " " + summaryNoun(type);
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle()
+                .setBigContentTitle(title)
+                .addLine(latest);
+        for (int i = 0; i < others.size() && i + 1 < MAX_LINES; i++) {
+            CharSequence text = others.get(i).getNotification().extras
+                    .getCharSequence(android.app.Notification.EXTRA_TEXT);
+            if (text != null) {
+                style.addLine(text);
+            }
+        }
+        NotificationCompat.Builder builder = baseBuilder(type, null, "summary:" + type)
+                .setContentTitle(title)
+                .setStyle(style)
+                .setGroup(group)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN);
+        notificationManager.notify("summary:" + type, SUMMARY_ID, builder.build());
+    }
+
+    private NotificationCompat.Builder baseBuilder(String type, String relatedId, String tag) {
+        Intent intent = intentFor(type, relatedId);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        // One PendingIntent per entity, updated in place with the notification
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+                context,
+                tag.hashCode(),
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notifications)
+                .setAutoCancel(true)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setContentIntent(pendingIntent);
+    }
+
+    private Intent intentFor(String type, String relatedId) {
+        Intent intent;
+        if (relatedId != null && ("bid".equals(type) || "job".equals(type))) {
+            intent = new Intent(context, JobDetailActivity.class);
+            intent.putExtra("jobId", relatedId);
+        } else if ("message".equals(type)) {
+            intent = new Intent(context, ConversationsListActivity.class);
+        } else {
+            intent = new Intent(context, NotificationsActivity.class);
+        }
+        return intent;
+    }
+
+    // The lines already on an entity's notification, newest first; empty if it isn't showing
+    private ArrayList<String> activeLines(String tag) {
+        for (StatusBarNotification active : notificationManager.getActiveNotifications()) {
+            if (active.getId() == ENTITY_ID && tag.equals(active.getTag())) {
+                ArrayList<String> lines = active.getNotification().extras.getStringArrayList(EXTRA_LINES);
+                if (lines != null) {
+                    return new ArrayList<>(lines);
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private static Bundle linesExtras(ArrayList<String> lines) {
+        Bundle extras = new Bundle();
+        extras.putStringArrayList(EXTRA_LINES, lines);
+        return extras;
+    }
+
+    private static String summaryNoun(String type) {
+        switch (type) {
+            case "bid":
+                return "jobs with new bids";
+            case "message":
+                return "conversations";
+            case "job":
+                return "job updates";
+            default:
+                return "notifications";
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.madproject.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits time into week buckets so schedules can be queried with array-contains.
+ *
+ * Firestore allows range filters on only one field, so "tasks between two dates" cannot be
+ * written as startDate >= a and endDate <= b. Instead each task stores the numbers of the
+ * weeks it spans, and a range query asks for any of the weeks the range spans. Two intervals
+ * that overlap always share a week, so the bucket match never misses a task; callers filter
+ * the exact overlap afterwards.
+ *
+ * A week number counts Monday-to-Sunday weeks in UTC since the epoch. Using UTC keeps the
+ * numbers the same on every device whatever its time zone.
+ */
+public final class ScheduleBuckets {
+
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    public static final long WEEK_MILLIS = 7 * DAY_MILLIS;
+    // Most array-contains-any values Firestore accepts in one query
+    public static final int MAX_QUERY_BUCKETS = 30;
+    // 1 Jan 1970 was a Thursday; shifting by three days makes weeks start on Monday
+    private static final long MONDAY_OFFSET_MILLIS = 3 * DAY_MILLIS;
+
+    private ScheduleBuckets() {
+    }
+
+    public static long weekOf(long timeMillis) {
+        return Math.floorDiv(timeMillis + MONDAY_OFFSET_MILLIS, WEEK_MILLIS);
+    }
+
+    // Start of the week (Monday 00:00 UTC) containing the given time
+    public static long weekStart(long timeMillis) {
+        return weekOf(timeMillis) * WEEK_MILLIS - MONDAY_OFFSET_MILLIS;
+    }
+
+    /**
+     * Weeks spanned by [start, end]. A missing or earlier end date counts as a one-day
+     * interval at start; a missing start date gives no buckets.
+     */
+    public static List<Long> weeksBetween(long start, long end) {
+        if (start <= 0) {
+            return Collections.emptyList();
+        }
+        long first = weekOf(start);
+        long last = weekOf(Math.max(start, end));
+        List<Long> weeks = new ArrayList<>((int) (last - first + 1));
+        for (long week = first; week <= last; week++) {
+            weeks.add(week);
+        }
+        return weeks;
+    }
+
+    // Whether [start1, end1] and [start2, end2] share at least one instant
+    public static boolean overlaps(long start1, long end1, long start2, long end2) {
+        return start1 <= end2 && start2 <= end1;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.madproject.helpers;
+
+import com.example.madproject.models.mappers.ModelMapper;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Converts Firestore query results into model lists off the main thread.
+ *
+ * Mapping, filtering and sorting run on {@link AppExecutors#background()} and the
+ * finished, unmodifiable list is handed to the listener on the main thread.
+ */
+public final class SnapshotMapper {
+
+    private SnapshotMapper() {
+    }
+
+    /**
+     * Maps a one-shot query. Either listener is called on the main thread.
+     *
+     * @param filter optional, may be null to keep every document
+     * @param order  optional, may be null to keep Firestore order
+     */
+    public static <T> void map(Task<QuerySnapshot> query, ModelMapper<T> mapper,
+                               Predicate<? super T> filter, Comparator<? super T> order,
+                               OnMappedListener<T> listener, OnErrorListener errorListener) {
+        AppExecutors executors = AppExecutors.getInstance();
+
+        query.addOnSuccessListener(executors.background(), snapshot -> {
+                    List<T> items = toList(snapshot, mapper, filter, order);
+                    executors.mainThread().execute(() -> listener.onMapped(items));
+                })
+                .addOnFailureListener(executors.mainThread(), errorListener::onError);
+    }
+
+    /**
+     * Maps, filters and sorts a snapshot on the calling thread.
+     * Call this from a background executor, never from the main thread.
+     */
+    public static <T> List<T> toList(QuerySnapshot snapshot, ModelMapper<T> mapper,
+                                     Predicate<? super T> filter, Comparator<? super T> order) {
+        List<T> items = new ArrayList<>(snapshot.size());
+        for (DocumentSnapshot doc : snapshot) {
+            T item = mapper.fromSnapshot(doc);
+            if (item != null && (filter == null || filter.test(item))) {
+                items.add(item);
+            }
+        }
+        if (order != null) {
+            Collections.sort(items, order);
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Filters an already mapped list on the calling thread.
+     */
+    public static <T> List<T> filter(List<T> source, Predicate<? super T> filter) {
+        List<T> items = new ArrayList<>();
+        for (T item : source) {
+            if (filter.test(item)) {
+                items.add(item);
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    // Callback interfaces
+    public interface OnMappedListener<T> {
+        void onMapped(List<T> items);
+    }
+
+    public interface OnErrorListener {
+        void onError(Exception e);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.madproject.models;
+
+/**
+ * One user's entry for a chat in their inbox index ({@code users/{userId}/chats/{chatId}).
+ * Each participant has their own entry, holding the other person's name and photo and their
+ * own unread count, so the inbox is a single query ordered by lastTimestamp.
+ */
+public class Conversation {
+    private String chatId;
+    private String userId; // owner of this index entry
+    private String otherUserId;
+    private String otherUserName;
+    private String otherUserPhotoUrl;
+    private String lastMessage;
+    private String lastMessageId;
+    private String lastSenderId;
+    private long lastTimestamp;
+    private int unreadCount; // messages to userId not yet read
+
+    // Required empty constructor for Firestore
+    public Conversation() {
+    }
+
+    // Getters and Setters
+    public String getChatId() {
+        return chatId;
+    }
+
+    public void setChatId(String chatId) {
+        this.chatId = chatId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getOtherUserId() {
+        return otherUserId;
+    }
+
+    public void setOtherUserId(String otherUserId) {
+        this.otherUserId = otherUserId;
+    }
+
+    public String getOtherUserName() {
+        return otherUserName;
+    }
+
+    public void setOtherUserName(String otherUserName) {
+        this.otherUserName = otherUserName;
+    }
+
+    public String getOtherUserPhotoUrl() {
+        return otherUserPhotoUrl;
+    }
+
+    public void setOtherUserPhotoUrl(String otherUserPhotoUrl) {
+        this.otherUserPhotoUrl = otherUserPhotoUrl;
+    }
+
+    public String getLastMessage() {
+        return lastMessage;
+    }
+
+    public void setLastMessage(String lastMessage) {
+        this.lastMessage = lastMessage;
+    }
+
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastSenderId() {
+        return lastSenderId;
+    }
+
+    public void setLastSenderId(String lastSenderId) {
+        this.lastSenderId = lastSenderId;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Material {
+    // Counter slot holding the stock a material was created (or migrated) with
+    public static final String BASE_QUANTITY_SLOT = "base";
+
     private String materialId;
     private String jobId;
     private String projectName;
@@ -22,6 +25,7 @@ public class Material {
     private long lastUpdated;
     private String addedBy;
     private List<String> photos;
+    private PNCounter quantityCounter; // Per-device stock changes; null on materials from before counters
 
     // Required empty constructor for Firestore
     public Material() {
@@ -195,6 +199,14 @@ public class Material {
         this.photos = photos;
     }
 
+    public PNCounter getQuantityCounter() {
+        return quantityCounter;
+    }
+
+    public void setQuantityCounter(PNCounter quantityCounter) {
+        this.quantityCounter = quantityCounter;
+    }
+
     // Helper methods
     private void calculateTotalCost() {
         this.totalCost = this.quantity * this.unitPrice;
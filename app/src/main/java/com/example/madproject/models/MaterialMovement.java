@@ -0,0 +1,109 @@
+package com.example.madproject.models;
+
+import com.google.firebase.Timestamp;
+
+/**
+ * One entry in a material's append-only stock ledger. Movements are never edited;
+ * corrections are recorded as new movements.
+ */
+public class MaterialMovement {
+    private String movementId;
+    private String materialId;
+    private String jobId;
+    private String type; // "initial", "restock", "usage", "stocktake"
+    private double quantity; // Always positive; the type decides whether it adds, removes or sets stock
+    private String userId;
+    private String note;
+    private long createdAt; // Device time, for display and burn-rate charts
+    private Timestamp recordedAt; // Server time the movement was stored; orders the ledger
+
+    // Required empty constructor for Firestore
+    public MaterialMovement() {
+    }
+
+    // Getters and Setters
+    public String getMovementId() {
+        return movementId;
+    }
+
+    public void setMovementId(String movementId) {
+        this.movementId = movementId;
+    }
+
+    public String getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(String materialId) {
+        this.materialId = materialId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(double quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Timestamp getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(Timestamp recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public boolean isUsage() {
+        return "usage".equals(type);
+    }
+
+    public boolean isRestock() {
+        return "restock".equals(type) || "initial".equals(type);
+    }
+
+    // Stocktakes record a counted quantity rather than a change
+    public boolean isStocktake() {
+        return "stocktake".equals(type);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.madproject.models;
+
+import com.google.firebase.Timestamp;
+
+/**
+ * A material's ledger folded up to a point in time. The current stock is the snapshot
+ * plus the movements recorded after {@code foldedThrough}.
+ */
+public class MaterialSnapshot {
+    private String materialId;
+    private String jobId;
+    private double quantity;
+    private double totalRestocked;
+    private double totalUsed;
+    private long movementCount;
+    private Timestamp foldedThrough; // recordedAt of the last movement folded in
+    private long updatedAt;
+
+    // Required empty constructor for Firestore
+    public MaterialSnapshot() {
+    }
+
+    // Getters and Setters
+    public String getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(String materialId) {
+        this.materialId = materialId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(double quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getTotalRestocked() {
+        return totalRestocked;
+    }
+
+    public void setTotalRestocked(double totalRestocked) {
+        this.totalRestocked = totalRestocked;
+    }
+
+    public double getTotalUsed() {
+        return totalUsed;
+    }
+
+    public void setTotalUsed(double totalUsed) {
+        this.totalUsed = totalUsed;
+    }
+
+    public long getMovementCount() {
+        return movementCount;
+    }
+
+    public void setMovementCount(long movementCount) {
+        this.movementCount = movementCount;
+    }
+
+    public Timestamp getFoldedThrough() {
+        return foldedThrough;
+    }
+
+    public void setFoldedThrough(Timestamp foldedThrough) {
+        this.foldedThrough = foldedThrough;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // Applies one movement on top of this snapshot
+    public void apply(MaterialMovement movement) {
+        if (movement.isStocktake()) {
+            quantity = movement.getQuantity();
+        } else if (movement.isUsage()) {
+            quantity -= movement.getQuantity();
+            totalUsed += movement.getQuantity();
+        } else if (movement.isRestock()) {
+            quantity += movement.getQuantity();
+            totalRestocked += movement.getQuantity();
+        }
+        movementCount++;
+        if (movement.getRecordedAt() != null) {
+            foldedThrough = movement.getRecordedAt();
+        }
+    }
+}
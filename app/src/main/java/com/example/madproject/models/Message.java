@@ -1,6 +1,12 @@
 package com.example.madproject.models;
 
+import com.google.firebase.Timestamp;
+
 public class Message {
+    // Local send states of a message this device is sending; not stored
+    public static final String SEND_PENDING = "pending";
+    public static final String SEND_FAILED = "failed";
+
     private String messageId;
     private String chatId; // Unique chat room ID (e.g., "clientId_contractorId")
     private String senderId;
@@ -8,6 +14,7 @@ public class Message {
     private String senderPhotoUrl;
     private String receiverId;
     private String receiverName;
+    private String receiverPhotoUrl;
     private String messageText;
     private String messageType; // "text", "image", "file"
     private String attachmentUrl;
@@ -15,6 +22,9 @@ public class Message {
     private long timestamp;
     private boolean isRead;
     private long readAt;
+    private long clientSequence; // Sender device's sequence number; breaks ties in the chat order
+    private Timestamp sentAt; // Server time the message was stored; orders the chat
+    private String sendState; // Local only: SEND_PENDING or SEND_FAILED while unconfirmed, else null
 
     // Required empty constructor for Firestore
     public Message() {
@@ -106,6 +116,14 @@ public class Message {
         this.receiverName = receiverName;
     }
 
+    public String getReceiverPhotoUrl() {
+        return receiverPhotoUrl;
+    }
+
+    public void setReceiverPhotoUrl(String receiverPhotoUrl) {
+        this.receiverPhotoUrl = receiverPhotoUrl;
+    }
+
     public String getMessageText() {
         return messageText;
     }
@@ -164,4 +182,36 @@ public class Message {
     public void setReadAt(long readAt) {
         this.readAt = readAt;
     }
+
+    public long getClientSequence() {
+        return clientSequence;
+    }
+
+    public void setClientSequence(long clientSequence) {
+        this.clientSequence = clientSequence;
+    }
+
+    public Timestamp getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Timestamp sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public String getSendState() {
+        return sendState;
+    }
+
+    public void setSendState(String sendState) {
+        this.sendState = sendState;
+    }
+
+    public boolean isPending() {
+        return SEND_PENDING.equals(sendState);
+    }
+
+    public boolean isFailed() {
+        return SEND_FAILED.equals(sendState);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.madproject.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Closed chat history packed into one document: up to a fixed number of messages from one
+ * chat, spanning a limited time window. Messages are kept in the order they were compacted;
+ * readers sort them for display.
+ */
+public class MessageBucket {
+    private String bucketId;
+    private String chatId;
+    private List<String> participantIds = new ArrayList<>(); // Both users, for security rules
+    private long firstTimestamp; // Earliest message time in the bucket
+    private long lastTimestamp; // Latest message time; orders buckets newest first
+    private int messageCount;
+    private List<Message> messages = new ArrayList<>();
+    private long updatedAt;
+
+    // Required empty constructor for Firestore
+    public MessageBucket() {
+    }
+
+    // Getters and Setters
+    public String getBucketId() {
+        return bucketId;
+    }
+
+    public void setBucketId(String bucketId) {
+        this.bucketId = bucketId;
+    }
+
+    public String getChatId() {
+        return chatId;
+    }
+
+    public void setChatId(String chatId) {
+        this.chatId = chatId;
+    }
+
+    public List<String> getParticipantIds() {
+        return participantIds;
+    }
+
+    public void setParticipantIds(List<String> participantIds) {
+        this.participantIds = participantIds;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(long firstTimestamp) {
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(int messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // Adds a message and widens the bucket's time range to include it
+    public void add(Message message) {
+        if (messages.isEmpty() || message.getTimestamp() < firstTimestamp) {
+            firstTimestamp = message.getTimestamp();
+        }
+        lastTimestamp = Math.max(lastTimestamp, message.getTimestamp());
+        messages.add(message);
+        messageCount = messages.size();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.madproject.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One notification sent to a whole audience, and the checkpoint of its delivery.
+ * The cursor is the last recipient ID delivered to; recipients are delivered in ID order,
+ * so an interrupted fan-out resumes after it.
+ */
+public class NotificationFanout {
+    public static final String AUDIENCE_BIDDERS = "bidders"; // audienceValue is a jobId
+    public static final String AUDIENCE_CATEGORY = "category"; // contractors in a category
+    public static final String AUDIENCE_CITY = "city"; // users in a city
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_DONE = "done";
+
+    private String fanoutId;
+    private String createdBy;
+    private String audience;
+    private String audienceValue;
+    private List<String> excludedIds = new ArrayList<>(); // Never notified, e.g. the sender
+    private String title;
+    private String message;
+    private String type;
+    private String relatedId;
+    private String cursor; // Last recipient delivered to, null before the first batch
+    private int sentCount;
+    private String status;
+    private long createdAt;
+    private long updatedAt;
+
+    // Required empty constructor for Firestore
+    public NotificationFanout() {
+    }
+
+    // Constructor
+    public NotificationFanout(String fanoutId, String createdBy, String audience, String audienceValue,
+                              String title, String message, String type, String relatedId) {
+        this.fanoutId = fanoutId;
+        this.createdBy = createdBy;
+        this.audience = audience;
+        this.audienceValue = audienceValue;
+        this.title = title;
+        this.message = message;
+        this.type = type;
+        this.relatedId = relatedId;
+        this.status = STATUS_RUNNING;
+        this.createdAt = System.currentTimeMillis();
+        this.updatedAt = createdAt;
+    }
+
+    public boolean isDone() {
+        return STATUS_DONE.equals(status);
+    }
+
+    // Getters and Setters
+    public String getFanoutId() {
+        return fanoutId;
+    }
+
+    public void setFanoutId(String fanoutId) {
+        this.fanoutId = fanoutId;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public String getAudience() {
+        return audience;
+    }
+
+    public void setAudience(String audience) {
+        this.audience = audience;
+    }
+
+    public String getAudienceValue() {
+        return audienceValue;
+    }
+
+    public void setAudienceValue(String audienceValue) {
+        this.audienceValue = audienceValue;
+    }
+
+    public List<String> getExcludedIds() {
+        return excludedIds;
+    }
+
+    public void setExcludedIds(List<String> excludedIds) {
+        this.excludedIds = excludedIds != null ? excludedIds : new ArrayList<>();
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getRelatedId() {
+        return relatedId;
+    }
+
+    public void setRelatedId(String relatedId) {
+        this.relatedId = relatedId;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(int sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
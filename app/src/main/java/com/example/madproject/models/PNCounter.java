@@ -0,0 +1,120 @@
+package com.example.madproject.models;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A PN-counter: a counter that many replicas can change independently and merge without
+ * coordination.
+ *
+ * Each replica (a device) owns one slot holding two running totals, P (everything it added)
+ * and N (everything it removed). A replica only ever raises its own totals, so merging two
+ * copies takes the larger value of each slot. Merging is commutative, associative and
+ * idempotent: copies that have seen the same changes end up equal whatever the order or
+ * number of merges. The value is the sum of all P minus the sum of all N.
+ */
+public class PNCounter {
+
+    // Sorted so the value is summed in the same order on every device
+    private final TreeMap<String, Double> increments = new TreeMap<>();
+    private final TreeMap<String, Double> decrements = new TreeMap<>();
+
+    public PNCounter() {
+    }
+
+    // A counter starting at the given value, held in one slot
+    public static PNCounter of(String replica, double value) {
+        PNCounter counter = new PNCounter();
+        counter.setSlot(replica, Math.max(0.0, value), Math.max(0.0, -value));
+        return counter;
+    }
+
+    public PNCounter copy() {
+        PNCounter copy = new PNCounter();
+        copy.increments.putAll(increments);
+        copy.decrements.putAll(decrements);
+        return copy;
+    }
+
+    // Changes the replica's slot by amount: positive amounts raise P, negative amounts raise N
+    public void add(String replica, double amount) {
+        increments.put(replica, getIncrement(replica) + Math.max(0.0, amount));
+        decrements.put(replica, getDecrement(replica) + Math.max(0.0, -amount));
+    }
+
+    public double value() {
+        double value = 0.0;
+        for (double p : increments.values()) {
+            value += p;
+        }
+        for (double n : decrements.values()) {
+            value -= n;
+        }
+        return value;
+    }
+
+    public double getIncrement(String replica) {
+        Double p = increments.get(replica);
+        return p != null ? p : 0.0;
+    }
+
+    public double getDecrement(String replica) {
+        Double n = decrements.get(replica);
+        return n != null ? n : 0.0;
+    }
+
+    // Sets a slot to stored totals; totals never go down, so a lower value is ignored
+    public void setSlot(String replica, double increment, double decrement) {
+        increments.merge(replica, increment, Math::max);
+        decrements.merge(replica, decrement, Math::max);
+    }
+
+    public boolean hasReplica(String replica) {
+        return increments.containsKey(replica) || decrements.containsKey(replica);
+    }
+
+    public Set<String> replicas() {
+        Set<String> replicas = new HashSet<>(increments.keySet());
+        replicas.addAll(decrements.keySet());
+        return Collections.unmodifiableSet(replicas);
+    }
+
+    // Folds another copy into this one, slot by slot
+    public void mergeFrom(PNCounter other) {
+        for (Map.Entry<String, Double> entry : other.increments.entrySet()) {
+            increments.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+        for (Map.Entry<String, Double> entry : other.decrements.entrySet()) {
+            decrements.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+    }
+
+    // The merge of two copies, leaving both unchanged
+    public static PNCounter merge(PNCounter a, PNCounter b) {
+        PNCounter merged = a.copy();
+        merged.mergeFrom(b);
+        return merged;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PNCounter)) return false;
+        PNCounter other = (PNCounter) o;
+        return increments.equals(other.increments) && decrements.equals(other.decrements);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(increments, decrements);
+    }
+
+    @Override
+    public String toString() {
+        return "PNCounter{P=" + increments + ", N=" + decrements + "}";
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.madproject.models;
+
+/**
+ * Running totals for one job, kept in step with its tasks and materials so a
+ * project overview needs a single document read.
+ */
+public class ProjectRollup {
+    private String jobId;
+    private int taskCount;
+    private int completedTaskCount;
+    private double totalLabourCost;
+    private double progressSum; // Sum of task progress percentages
+    private double weightedProgressSum; // Sum of task progress percentage * task labour cost
+    private int materialCount;
+    private double totalMaterialValue;
+    private int lowStockCount;
+    private int outOfStockCount;
+    private long updatedAt;
+    private long builtAt; // When the totals were last recounted from the documents; 0 if never
+
+    // Required empty constructor for Firestore
+    public ProjectRollup() {
+    }
+
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    public int getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    public void setCompletedTaskCount(int completedTaskCount) {
+        this.completedTaskCount = completedTaskCount;
+    }
+
+    public double getTotalLabourCost() {
+        return totalLabourCost;
+    }
+
+    public void setTotalLabourCost(double totalLabourCost) {
+        this.totalLabourCost = totalLabourCost;
+    }
+
+    public double getProgressSum() {
+        return progressSum;
+    }
+
+    public void setProgressSum(double progressSum) {
+        this.progressSum = progressSum;
+    }
+
+    public double getWeightedProgressSum() {
+        return weightedProgressSum;
+    }
+
+    public void setWeightedProgressSum(double weightedProgressSum) {
+        this.weightedProgressSum = weightedProgressSum;
+    }
+
+    public int getMaterialCount() {
+        return materialCount;
+    }
+
+    public void setMaterialCount(int materialCount) {
+        this.materialCount = materialCount;
+    }
+
+    public double getTotalMaterialValue() {
+        return totalMaterialValue;
+    }
+
+    public void setTotalMaterialValue(double totalMaterialValue) {
+        this.totalMaterialValue = totalMaterialValue;
+    }
+
+    public int getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public void setLowStockCount(int lowStockCount) {
+        this.lowStockCount = lowStockCount;
+    }
+
+    public int getOutOfStockCount() {
+        return outOfStockCount;
+    }
+
+    public void setOutOfStockCount(int outOfStockCount) {
+        this.outOfStockCount = outOfStockCount;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(long builtAt) {
+        this.builtAt = builtAt;
+    }
+
+    // Helper methods
+    // Progress weighted by labour cost; a plain average when no task has a cost yet
+    public double getWeightedProgress() {
+        if (totalLabourCost > 0) {
+            return Math.min(100.0, weightedProgressSum / totalLabourCost);
+        }
+        return taskCount > 0 ? Math.min(100.0, progressSum / taskCount) : 0.0;
+    }
+
+    public double getTotalCost() {
+        return totalLabourCost + totalMaterialValue;
+    }
+
+    public int getStockAlertCount() {
+        return lowStockCount + outOfStockCount;
+    }
+}
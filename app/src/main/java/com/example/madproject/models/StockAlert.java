@@ -0,0 +1,126 @@
+package com.example.madproject.models;
+
+/**
+ * A material under its low-stock threshold, indexed by the contractor working on its job.
+ * The document exists only while the material is low or out of stock, so one query on
+ * contractorId gives the reorder list across all of a contractor's sites.
+ */
+public class StockAlert {
+    private String materialId;
+    private String contractorId;
+    private String jobId;
+    private String projectName;
+    private String materialName;
+    private String unit;
+    private double quantity;
+    private double lowStockThreshold;
+    private String status; // "low_stock" or "out_of_stock"
+    private String notifiedStatus; // worst status already notified in this episode
+    private long since; // when the material fell under its threshold
+    private long updatedAt;
+
+    // Required empty constructor for Firestore
+    public StockAlert() {
+    }
+
+    public boolean isOutOfStock() {
+        return "out_of_stock".equals(status);
+    }
+
+    // Getters and Setters
+    public String getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(String materialId) {
+        this.materialId = materialId;
+    }
+
+    public String getContractorId() {
+        return contractorId;
+    }
+
+    public void setContractorId(String contractorId) {
+        this.contractorId = contractorId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public String getMaterialName() {
+        return materialName;
+    }
+
+    public void setMaterialName(String materialName) {
+        this.materialName = materialName;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(double quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(double lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getNotifiedStatus() {
+        return notifiedStatus;
+    }
+
+    public void setNotifiedStatus(String notifiedStatus) {
+        this.notifiedStatus = notifiedStatus;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.madproject.models;
 
+import com.example.madproject.helpers.ScheduleBuckets;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -209,14 +211,24 @@ public class Task {
         this.createdBy = createdBy;
     }
 
-    // Helper method to calculate progress
+    // Weeks the task spans, stored with it so schedule queries can use array-contains
+    public List<Long> getScheduleWeeks() {
+        return ScheduleBuckets.weeksBetween(startDate, endDate);
+    }
+
+    // Helper method to calculate progress; the status follows it both ways, so taking progress
+    // back below the estimate reopens a completed task
     public void calculateProgress() {
         if (estimatedQuantity > 0) {
-            this.progressPercentage = (completedQuantity / estimatedQuantity) * 100;
-            if (this.progressPercentage >= 100) {
-                this.progressPercentage = 100;
-                this.status = "completed";
-            }
+            this.progressPercentage = Math.max(0, Math.min(100, (completedQuantity / estimatedQuantity) * 100));
+            this.status = statusFor(progressPercentage);
+        }
+    }
+
+    public static String statusFor(double progressPercentage) {
+        if (progressPercentage >= 100) {
+            return "completed";
         }
+        return progressPercentage > 0 ? "ongoing" : "not_started";
     }
 }
\ No newline at end of file
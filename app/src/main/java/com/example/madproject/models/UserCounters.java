@@ -0,0 +1,58 @@
+package com.example.madproject.models;
+
+/**
+ * Unread totals for one user, kept exact by the message and notification write paths
+ * so every screen's badges come from a single document.
+ */
+public class UserCounters {
+    private String userId;
+    private int unreadMessages; // Sum of the unread counts in the user's chats index
+    private int unreadNotifications;
+    private long rebuiltAt; // When the totals were last recounted from the source collections
+    private long updatedAt;
+
+    // Required empty constructor for Firestore
+    public UserCounters() {
+    }
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public int getUnreadMessages() {
+        return unreadMessages;
+    }
+
+    public void setUnreadMessages(int unreadMessages) {
+        this.unreadMessages = unreadMessages;
+    }
+
+    public int getUnreadNotifications() {
+        return unreadNotifications;
+    }
+
+    public void setUnreadNotifications(int unreadNotifications) {
+        this.unreadNotifications = unreadNotifications;
+    }
+
+    public long getRebuiltAt() {
+        return rebuiltAt;
+    }
+
+    public void setRebuiltAt(long rebuiltAt) {
+        this.rebuiltAt = rebuiltAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
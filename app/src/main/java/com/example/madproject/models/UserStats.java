@@ -0,0 +1,131 @@
+package com.example.madproject.models;
+
+/**
+ * Headline numbers for one user, kept exact by the bid, job and review write paths
+ * so a dashboard needs a single document read.
+ */
+public class UserStats {
+    private String userId;
+    private int jobsPosted; // Client: jobs posted
+    private int activeJobs; // Client: posted jobs not yet completed; contractor: assigned jobs in progress
+    private int completedJobs;
+    private int bidsSubmitted;
+    private int bidsWon;
+    private double totalEarnings; // Contractor: sum of accepted bid amounts
+    private double totalSpent; // Client: sum of accepted bid amounts on their jobs
+    private double ratingSum;
+    private int reviewCount;
+    private long updatedAt;
+    private long builtAt; // When the stats were last recounted from the documents; 0 if never
+
+    // Required empty constructor for Firestore
+    public UserStats() {
+    }
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public int getJobsPosted() {
+        return jobsPosted;
+    }
+
+    public void setJobsPosted(int jobsPosted) {
+        this.jobsPosted = jobsPosted;
+    }
+
+    public int getActiveJobs() {
+        return activeJobs;
+    }
+
+    public void setActiveJobs(int activeJobs) {
+        this.activeJobs = activeJobs;
+    }
+
+    public int getCompletedJobs() {
+        return completedJobs;
+    }
+
+    public void setCompletedJobs(int completedJobs) {
+        this.completedJobs = completedJobs;
+    }
+
+    public int getBidsSubmitted() {
+        return bidsSubmitted;
+    }
+
+    public void setBidsSubmitted(int bidsSubmitted) {
+        this.bidsSubmitted = bidsSubmitted;
+    }
+
+    public int getBidsWon() {
+        return bidsWon;
+    }
+
+    public void setBidsWon(int bidsWon) {
+        this.bidsWon = bidsWon;
+    }
+
+    public double getTotalEarnings() {
+        return totalEarnings;
+    }
+
+    public void setTotalEarnings(double totalEarnings) {
+        this.totalEarnings = totalEarnings;
+    }
+
+    public double getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(double totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public double getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(double ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public int getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(int reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(long builtAt) {
+        this.builtAt = builtAt;
+    }
+
+    // Helper methods
+    // Percentage of submitted bids that were accepted
+    public double getWinRate() {
+        return bidsSubmitted > 0 ? (bidsWon * 100.0) / bidsSubmitted : 0.0;
+    }
+
+    public double getAverageRating() {
+        return reviewCount > 0 ? ratingSum / reviewCount : 0.0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Bid;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BidMapper implements ModelMapper<Bid> {
+
+    private static final int FIELD_COUNT = 15;
+
+    @Override
+    public Bid fromMap(Map<String, Object> data) {
+        Bid model = new Bid();
+        model.setBidId(Fields.getString(data, "bidId"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setJobTitle(Fields.getString(data, "jobTitle"));
+        model.setContractorId(Fields.getString(data, "contractorId"));
+        model.setContractorName(Fields.getString(data, "contractorName"));
+        model.setContractorPhotoUrl(Fields.getString(data, "contractorPhotoUrl"));
+        model.setContractorCategory(Fields.getString(data, "contractorCategory"));
+        model.setContractorRating(Fields.getDouble(data, "contractorRating"));
+        model.setContractorCompletedProjects(Fields.getInt(data, "contractorCompletedProjects"));
+        model.setBidAmount(Fields.getDouble(data, "bidAmount"));
+        model.setCompletionDays(Fields.getInt(data, "completionDays"));
+        model.setProposal(Fields.getString(data, "proposal"));
+        model.setSubmittedDate(Fields.getLong(data, "submittedDate"));
+        model.setStatus(Fields.getString(data, "status"));
+        List<String> portfolioImages = Fields.getStringList(data, "portfolioImages");
+        if (portfolioImages != null) {
+            model.setPortfolioImages(portfolioImages);
+        }
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Bid model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("bidId", model.getBidId());
+        data.put("jobId", model.getJobId());
+        data.put("jobTitle", model.getJobTitle());
+        data.put("contractorId", model.getContractorId());
+        data.put("contractorName", model.getContractorName());
+        data.put("contractorPhotoUrl", model.getContractorPhotoUrl());
+        data.put("contractorCategory", model.getContractorCategory());
+        data.put("contractorRating", model.getContractorRating());
+        data.put("contractorCompletedProjects", model.getContractorCompletedProjects());
+        data.put("bidAmount", model.getBidAmount());
+        data.put("completionDays", model.getCompletionDays());
+        data.put("proposal", model.getProposal());
+        data.put("submittedDate", model.getSubmittedDate());
+        data.put("status", model.getStatus());
+        data.put("portfolioImages", model.getPortfolioImages());
+        return data;
+    }
+}
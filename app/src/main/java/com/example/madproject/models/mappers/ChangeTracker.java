@@ -0,0 +1,52 @@
+package com.example.madproject.models.mappers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the field values a model had when it was loaded so that an update
+ * can send only the fields that changed since then.
+ *
+ * Writing just the changed fields with update() keeps payloads small and leaves
+ * fields edited concurrently on another device untouched.
+ */
+public class ChangeTracker<T> {
+
+    private final ModelMapper<T> mapper;
+    private final T model;
+    private Map<String, Object> baseline;
+
+    public ChangeTracker(ModelMapper<T> mapper, T model) {
+        this.mapper = mapper;
+        this.model = model;
+        this.baseline = mapper.toMap(model);
+    }
+
+    // The tracked model; edit it through its setters as usual
+    public T get() {
+        return model;
+    }
+
+    // Fields whose value differs from the baseline, keyed by Firestore field name
+    public Map<String, Object> getChanges() {
+        Map<String, Object> current = mapper.toMap(model);
+        Map<String, Object> changes = new HashMap<>();
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            if (!Objects.equals(entry.getValue(), baseline.get(entry.getKey()))) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return changes;
+    }
+
+    public boolean hasChanges() {
+        return !getChanges().isEmpty();
+    }
+
+    // Call after a successful write with the changes that were sent, so later edits
+    // are diffed against what is now stored
+    public void markSaved(Map<String, Object> savedChanges) {
+        baseline.putAll(savedChanges);
+    }
+}
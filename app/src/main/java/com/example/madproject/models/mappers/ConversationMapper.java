@@ -0,0 +1,43 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Conversation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConversationMapper implements ModelMapper<Conversation> {
+
+    private static final int FIELD_COUNT = 10;
+
+    @Override
+    public Conversation fromMap(Map<String, Object> data) {
+        Conversation model = new Conversation();
+        model.setChatId(Fields.getString(data, "chatId"));
+        model.setUserId(Fields.getString(data, "userId"));
+        model.setOtherUserId(Fields.getString(data, "otherUserId"));
+        model.setOtherUserName(Fields.getString(data, "otherUserName"));
+        model.setOtherUserPhotoUrl(Fields.getString(data, "otherUserPhotoUrl"));
+        model.setLastMessage(Fields.getString(data, "lastMessage"));
+        model.setLastMessageId(Fields.getString(data, "lastMessageId"));
+        model.setLastSenderId(Fields.getString(data, "lastSenderId"));
+        model.setLastTimestamp(Fields.getLong(data, "lastTimestamp"));
+        model.setUnreadCount(Fields.getInt(data, "unreadCount"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Conversation model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("chatId", model.getChatId());
+        data.put("userId", model.getUserId());
+        data.put("otherUserId", model.getOtherUserId());
+        data.put("otherUserName", model.getOtherUserName());
+        data.put("otherUserPhotoUrl", model.getOtherUserPhotoUrl());
+        data.put("lastMessage", model.getLastMessage());
+        data.put("lastMessageId", model.getLastMessageId());
+        data.put("lastSenderId", model.getLastSenderId());
+        data.put("lastTimestamp", model.getLastTimestamp());
+        data.put("unreadCount", model.getUnreadCount());
+        return data;
+    }
+}
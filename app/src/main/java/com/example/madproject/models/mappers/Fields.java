@@ -0,0 +1,70 @@
+package com.example.madproject.models.mappers;
+
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed accessors for Firestore field maps. Firestore returns whole numbers as
+ * Long and fractional numbers as Double, so numeric reads go through Number.
+ * Missing or mistyped values fall back to the Java default for the type.
+ */
+final class Fields {
+
+    private Fields() {
+    }
+
+    static String getString(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    static long getLong(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    static int getInt(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    static double getDouble(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    static float getFloat(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).floatValue() : 0f;
+    }
+
+    static boolean getBoolean(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    // Server-set times come back as Timestamp; null when absent or still pending
+    static Timestamp getTimestamp(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        return value instanceof Timestamp ? (Timestamp) value : null;
+    }
+
+    // Returns null when the field is absent so callers can keep the model's default list
+    static List<String> getStringList(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<?> raw = (List<?>) value;
+        List<String> result = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            if (item instanceof String) {
+                result.add((String) item);
+            }
+        }
+        return result;
+    }
+}
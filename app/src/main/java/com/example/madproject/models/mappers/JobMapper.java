@@ -0,0 +1,65 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Job;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JobMapper implements ModelMapper<Job> {
+
+    private static final int FIELD_COUNT = 19;
+
+    @Override
+    public Job fromMap(Map<String, Object> data) {
+        Job model = new Job();
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setClientId(Fields.getString(data, "clientId"));
+        model.setClientName(Fields.getString(data, "clientName"));
+        model.setClientPhotoUrl(Fields.getString(data, "clientPhotoUrl"));
+        model.setTitle(Fields.getString(data, "title"));
+        model.setDescription(Fields.getString(data, "description"));
+        model.setCategory(Fields.getString(data, "category"));
+        model.setBudget(Fields.getDouble(data, "budget"));
+        model.setTimeline(Fields.getString(data, "timeline"));
+        model.setLocation(Fields.getString(data, "location"));
+        model.setStatus(Fields.getString(data, "status"));
+        model.setPostedDate(Fields.getLong(data, "postedDate"));
+        model.setStartDate(Fields.getLong(data, "startDate"));
+        model.setCompletedDate(Fields.getLong(data, "completedDate"));
+        model.setTotalBids(Fields.getInt(data, "totalBids"));
+        model.setAcceptedBidId(Fields.getString(data, "acceptedBidId"));
+        model.setAssignedContractorId(Fields.getString(data, "assignedContractorId"));
+        model.setAssignedContractorName(Fields.getString(data, "assignedContractorName"));
+        List<String> attachments = Fields.getStringList(data, "attachments");
+        if (attachments != null) {
+            model.setAttachments(attachments);
+        }
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Job model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("jobId", model.getJobId());
+        data.put("clientId", model.getClientId());
+        data.put("clientName", model.getClientName());
+        data.put("clientPhotoUrl", model.getClientPhotoUrl());
+        data.put("title", model.getTitle());
+        data.put("description", model.getDescription());
+        data.put("category", model.getCategory());
+        data.put("budget", model.getBudget());
+        data.put("timeline", model.getTimeline());
+        data.put("location", model.getLocation());
+        data.put("status", model.getStatus());
+        data.put("postedDate", model.getPostedDate());
+        data.put("startDate", model.getStartDate());
+        data.put("completedDate", model.getCompletedDate());
+        data.put("totalBids", model.getTotalBids());
+        data.put("acceptedBidId", model.getAcceptedBidId());
+        data.put("assignedContractorId", model.getAssignedContractorId());
+        data.put("assignedContractorName", model.getAssignedContractorName());
+        data.put("attachments", model.getAttachments());
+        return data;
+    }
+}
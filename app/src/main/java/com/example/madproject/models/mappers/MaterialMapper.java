@@ -0,0 +1,108 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Material;
+import com.example.madproject.models.PNCounter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MaterialMapper implements ModelMapper<Material> {
+
+    private static final int FIELD_COUNT = 19;
+
+    @Override
+    public Material fromMap(Map<String, Object> data) {
+        Material model = new Material();
+        model.setMaterialId(Fields.getString(data, "materialId"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setProjectName(Fields.getString(data, "projectName"));
+        model.setMaterialName(Fields.getString(data, "materialName"));
+        model.setCategory(Fields.getString(data, "category"));
+        model.setUnit(Fields.getString(data, "unit"));
+        model.setSupplier(Fields.getString(data, "supplier"));
+        model.setSupplierContact(Fields.getString(data, "supplierContact"));
+        model.setDescription(Fields.getString(data, "description"));
+        model.setAddedDate(Fields.getLong(data, "addedDate"));
+        model.setLastUpdated(Fields.getLong(data, "lastUpdated"));
+        model.setAddedBy(Fields.getString(data, "addedBy"));
+        List<String> photos = Fields.getStringList(data, "photos");
+        if (photos != null) {
+            model.setPhotos(photos);
+        }
+        // setQuantity() recomputes totalCost and status from unitPrice and the threshold,
+        // so those are applied first and the stored values restored afterwards
+        model.setUnitPrice(Fields.getDouble(data, "unitPrice"));
+        model.setLowStockThreshold(Fields.getDouble(data, "lowStockThreshold"));
+        PNCounter counter = readCounter(data.get("quantityCounter"));
+        model.setQuantityCounter(counter);
+        if (counter != null) {
+            // The counter slots are the stock; the stored quantity, totalCost and status are only
+            // caches. Until the base slot is written the stored quantity is the base.
+            double base = counter.hasReplica(Material.BASE_QUANTITY_SLOT) ? 0.0 : Fields.getDouble(data, "quantity");
+            model.setQuantity(base + counter.value());
+            return model;
+        }
+        model.setQuantity(Fields.getDouble(data, "quantity"));
+        if (data.containsKey("totalCost")) {
+            model.setTotalCost(Fields.getDouble(data, "totalCost"));
+        }
+        if (data.containsKey("status")) {
+            model.setStatus(Fields.getString(data, "status"));
+        }
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Material model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("materialId", model.getMaterialId());
+        data.put("jobId", model.getJobId());
+        data.put("projectName", model.getProjectName());
+        data.put("materialName", model.getMaterialName());
+        data.put("category", model.getCategory());
+        data.put("unit", model.getUnit());
+        data.put("supplier", model.getSupplier());
+        data.put("supplierContact", model.getSupplierContact());
+        data.put("description", model.getDescription());
+        data.put("addedDate", model.getAddedDate());
+        data.put("lastUpdated", model.getLastUpdated());
+        data.put("addedBy", model.getAddedBy());
+        data.put("photos", model.getPhotos());
+        data.put("quantity", model.getQuantity());
+        data.put("unitPrice", model.getUnitPrice());
+        data.put("totalCost", model.getTotalCost());
+        data.put("status", model.getStatus());
+        data.put("lowStockThreshold", model.getLowStockThreshold());
+        data.put("quantityCounter", model.getQuantityCounter() != null
+                ? writeCounter(model.getQuantityCounter()) : null);
+        return data;
+    }
+
+    // Stored as {replica: {p: added, n: removed}}
+    static Map<String, Object> writeCounter(PNCounter counter) {
+        Map<String, Object> slots = new HashMap<>();
+        for (String replica : counter.replicas()) {
+            Map<String, Object> slot = new HashMap<>(4);
+            slot.put("p", counter.getIncrement(replica));
+            slot.put("n", counter.getDecrement(replica));
+            slots.put(replica, slot);
+        }
+        return slots;
+    }
+
+    @SuppressWarnings("unchecked")
+    static PNCounter readCounter(Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        PNCounter counter = new PNCounter();
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                Map<String, Object> slot = (Map<String, Object>) entry.getValue();
+                counter.setSlot(entry.getKey(), Fields.getDouble(slot, "p"), Fields.getDouble(slot, "n"));
+            }
+        }
+        return counter;
+    }
+}
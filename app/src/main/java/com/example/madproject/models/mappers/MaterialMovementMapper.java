@@ -0,0 +1,44 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.MaterialMovement;
+import com.google.firebase.firestore.FieldValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class MaterialMovementMapper implements ModelMapper<MaterialMovement> {
+
+    private static final int FIELD_COUNT = 9;
+
+    @Override
+    public MaterialMovement fromMap(Map<String, Object> data) {
+        MaterialMovement model = new MaterialMovement();
+        model.setMovementId(Fields.getString(data, "movementId"));
+        model.setMaterialId(Fields.getString(data, "materialId"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setType(Fields.getString(data, "type"));
+        model.setQuantity(Fields.getDouble(data, "quantity"));
+        model.setUserId(Fields.getString(data, "userId"));
+        model.setNote(Fields.getString(data, "note"));
+        model.setCreatedAt(Fields.getLong(data, "createdAt"));
+        model.setRecordedAt(Fields.getTimestamp(data, "recordedAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(MaterialMovement model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("movementId", model.getMovementId());
+        data.put("materialId", model.getMaterialId());
+        data.put("jobId", model.getJobId());
+        data.put("type", model.getType());
+        data.put("quantity", model.getQuantity());
+        data.put("userId", model.getUserId());
+        data.put("note", model.getNote());
+        data.put("createdAt", model.getCreatedAt());
+        // Movements are written once, so a new one takes the server's time
+        data.put("recordedAt", model.getRecordedAt() != null
+                ? model.getRecordedAt() : FieldValue.serverTimestamp());
+        return data;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.MaterialSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class MaterialSnapshotMapper implements ModelMapper<MaterialSnapshot> {
+
+    private static final int FIELD_COUNT = 8;
+
+    @Override
+    public MaterialSnapshot fromMap(Map<String, Object> data) {
+        MaterialSnapshot model = new MaterialSnapshot();
+        model.setMaterialId(Fields.getString(data, "materialId"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setQuantity(Fields.getDouble(data, "quantity"));
+        model.setTotalRestocked(Fields.getDouble(data, "totalRestocked"));
+        model.setTotalUsed(Fields.getDouble(data, "totalUsed"));
+        model.setMovementCount(Fields.getLong(data, "movementCount"));
+        model.setFoldedThrough(Fields.getTimestamp(data, "foldedThrough"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(MaterialSnapshot model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("materialId", model.getMaterialId());
+        data.put("jobId", model.getJobId());
+        data.put("quantity", model.getQuantity());
+        data.put("totalRestocked", model.getTotalRestocked());
+        data.put("totalUsed", model.getTotalUsed());
+        data.put("movementCount", model.getMovementCount());
+        data.put("foldedThrough", model.getFoldedThrough());
+        data.put("updatedAt", model.getUpdatedAt());
+        return data;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Message;
+import com.example.madproject.models.MessageBucket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MessageBucketMapper implements ModelMapper<MessageBucket> {
+
+    private static final int FIELD_COUNT = 9;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MessageBucket fromMap(Map<String, Object> data) {
+        MessageBucket model = new MessageBucket();
+        model.setBucketId(Fields.getString(data, "bucketId"));
+        model.setChatId(Fields.getString(data, "chatId"));
+        List<String> participantIds = Fields.getStringList(data, "participantIds");
+        if (participantIds != null) {
+            model.setParticipantIds(participantIds);
+        }
+        model.setFirstTimestamp(Fields.getLong(data, "firstTimestamp"));
+        model.setLastTimestamp(Fields.getLong(data, "lastTimestamp"));
+        model.setMessageCount(Fields.getInt(data, "messageCount"));
+        Object messages = data.get("messages");
+        if (messages instanceof List) {
+            List<Message> unpacked = new ArrayList<>(((List<?>) messages).size());
+            for (Object item : (List<?>) messages) {
+                if (item instanceof Map) {
+                    unpacked.add(ModelMappers.MESSAGE.fromMap((Map<String, Object>) item));
+                }
+            }
+            model.setMessages(unpacked);
+        }
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(MessageBucket model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("bucketId", model.getBucketId());
+        data.put("chatId", model.getChatId());
+        data.put("participantIds", model.getParticipantIds());
+        data.put("firstTimestamp", model.getFirstTimestamp());
+        data.put("lastTimestamp", model.getLastTimestamp());
+        data.put("messageCount", model.getMessageCount());
+        List<Map<String, Object>> messages = new ArrayList<>(model.getMessages().size());
+        // Lets a replayed message find the bucket it was packed into
+        List<String> messageIds = new ArrayList<>(model.getMessages().size());
+        for (Message message : model.getMessages()) {
+            messages.add(ModelMappers.MESSAGE.toMap(message));
+            messageIds.add(message.getMessageId());
+        }
+        data.put("messages", messages);
+        data.put("messageIds", messageIds);
+        data.put("updatedAt", model.getUpdatedAt());
+        return data;
+    }
+}
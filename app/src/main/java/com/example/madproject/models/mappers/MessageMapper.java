@@ -0,0 +1,62 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Message;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class MessageMapper implements ModelMapper<Message> {
+
+    private static final int FIELD_COUNT = 17;
+
+    @Override
+    public Message fromMap(Map<String, Object> data) {
+        Message model = new Message();
+        model.setMessageId(Fields.getString(data, "messageId"));
+        model.setChatId(Fields.getString(data, "chatId"));
+        model.setSenderId(Fields.getString(data, "senderId"));
+        model.setSenderName(Fields.getString(data, "senderName"));
+        model.setSenderPhotoUrl(Fields.getString(data, "senderPhotoUrl"));
+        model.setReceiverId(Fields.getString(data, "receiverId"));
+        model.setReceiverName(Fields.getString(data, "receiverName"));
+        model.setReceiverPhotoUrl(Fields.getString(data, "receiverPhotoUrl"));
+        model.setMessageText(Fields.getString(data, "messageText"));
+        model.setMessageType(Fields.getString(data, "messageType"));
+        model.setAttachmentUrl(Fields.getString(data, "attachmentUrl"));
+        model.setAttachmentName(Fields.getString(data, "attachmentName"));
+        model.setTimestamp(Fields.getLong(data, "timestamp"));
+        // Stored as "read", as bean mapping wrote it; older markAsRead() calls only set "isRead"
+        model.setRead(Fields.getBoolean(data, "read") || Fields.getBoolean(data, "isRead"));
+        model.setReadAt(Fields.getLong(data, "readAt"));
+        model.setClientSequence(Fields.getLong(data, "clientSequence"));
+        model.setSentAt(Fields.getTimestamp(data, "sentAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Message model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("messageId", model.getMessageId());
+        data.put("chatId", model.getChatId());
+        data.put("senderId", model.getSenderId());
+        data.put("senderName", model.getSenderName());
+        data.put("senderPhotoUrl", model.getSenderPhotoUrl());
+        data.put("receiverId", model.getReceiverId());
+        data.put("receiverName", model.getReceiverName());
+        data.put("receiverPhotoUrl", model.getReceiverPhotoUrl());
+        data.put("messageText", model.getMessageText());
+        data.put("messageType", model.getMessageType());
+        data.put("attachmentUrl", model.getAttachmentUrl());
+        data.put("attachmentName", model.getAttachmentName());
+        data.put("timestamp", model.getTimestamp());
+        data.put("read", model.isRead());
+        data.put("readAt", model.getReadAt());
+        data.put("clientSequence", model.getClientSequence());
+        // Left out until the server has stamped it; createMessage() adds the sentinel, so the
+        // map can still be held in the offline queue
+        if (model.getSentAt() != null) {
+            data.put("sentAt", model.getSentAt());
+        }
+        return data;
+    }
+}
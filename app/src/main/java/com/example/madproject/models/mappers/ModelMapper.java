@@ -0,0 +1,22 @@
+package com.example.madproject.models.mappers;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * Reads and writes a model as a plain Firestore field map, without the
+ * reflection-based bean mapping used by {@code toObject()} and {@code set(pojo)}.
+ */
+public interface ModelMapper<T> {
+
+    T fromMap(Map<String, Object> data);
+
+    Map<String, Object> toMap(T model);
+
+    // Returns null for a missing document, like DocumentSnapshot.toObject()
+    default T fromSnapshot(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        return data != null ? fromMap(data) : null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Bid;
+import com.example.madproject.models.Conversation;
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Material;
+import com.example.madproject.models.MaterialMovement;
+import com.example.madproject.models.MaterialSnapshot;
+import com.example.madproject.models.Message;
+import com.example.madproject.models.MessageBucket;
+import com.example.madproject.models.Notification;
+import com.example.madproject.models.NotificationFanout;
+import com.example.madproject.models.ProjectRollup;
+import com.example.madproject.models.Review;
+import com.example.madproject.models.StockAlert;
+import com.example.madproject.models.Task;
+import com.example.madproject.models.User;
+import com.example.madproject.models.UserCounters;
+import com.example.madproject.models.UserStats;
+
+/**
+ * Shared, stateless mapper instances for every Firestore model.
+ *
+ * The mappers are maintained by hand next to the models: when a field is added to a
+ * model it must also be added to its mapper, in both fromMap() and toMap().
+ */
+public final class ModelMappers {
+
+    public static final ModelMapper<Job> JOB = new JobMapper();
+    public static final ModelMapper<Bid> BID = new BidMapper();
+    public static final ModelMapper<Message> MESSAGE = new MessageMapper();
+    public static final ModelMapper<Notification> NOTIFICATION = new NotificationMapper();
+    public static final ModelMapper<User> USER = new UserMapper();
+    public static final ModelMapper<Task> TASK = new TaskMapper();
+    public static final ModelMapper<Material> MATERIAL = new MaterialMapper();
+    public static final ModelMapper<Review> REVIEW = new ReviewMapper();
+    public static final ModelMapper<ProjectRollup> PROJECT_ROLLUP = new ProjectRollupMapper();
+    public static final ModelMapper<UserStats> USER_STATS = new UserStatsMapper();
+    public static final ModelMapper<MaterialMovement> MATERIAL_MOVEMENT = new MaterialMovementMapper();
+    public static final ModelMapper<MaterialSnapshot> MATERIAL_SNAPSHOT = new MaterialSnapshotMapper();
+    public static final ModelMapper<StockAlert> STOCK_ALERT = new StockAlertMapper();
+    public static final ModelMapper<Conversation> CONVERSATION = new ConversationMapper();
+    public static final ModelMapper<MessageBucket> MESSAGE_BUCKET = new MessageBucketMapper();
+    public static final ModelMapper<UserCounters> USER_COUNTERS = new UserCountersMapper();
+    public static final ModelMapper<NotificationFanout> NOTIFICATION_FANOUT = new NotificationFanoutMapper();
+
+    private ModelMappers() {
+    }
+}
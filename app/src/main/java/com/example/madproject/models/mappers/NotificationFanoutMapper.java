@@ -0,0 +1,51 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.NotificationFanout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class NotificationFanoutMapper implements ModelMapper<NotificationFanout> {
+
+    private static final int FIELD_COUNT = 14;
+
+    @Override
+    public NotificationFanout fromMap(Map<String, Object> data) {
+        NotificationFanout model = new NotificationFanout();
+        model.setFanoutId(Fields.getString(data, "fanoutId"));
+        model.setCreatedBy(Fields.getString(data, "createdBy"));
+        model.setAudience(Fields.getString(data, "audience"));
+        model.setAudienceValue(Fields.getString(data, "audienceValue"));
+        model.setExcludedIds(Fields.getStringList(data, "excludedIds"));
+        model.setTitle(Fields.getString(data, "title"));
+        model.setMessage(Fields.getString(data, "message"));
+        model.setType(Fields.getString(data, "type"));
+        model.setRelatedId(Fields.getString(data, "relatedId"));
+        model.setCursor(Fields.getString(data, "cursor"));
+        model.setSentCount(Fields.getInt(data, "sentCount"));
+        model.setStatus(Fields.getString(data, "status"));
+        model.setCreatedAt(Fields.getLong(data, "createdAt"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(NotificationFanout model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("fanoutId", model.getFanoutId());
+        data.put("createdBy", model.getCreatedBy());
+        data.put("audience", model.getAudience());
+        data.put("audienceValue", model.getAudienceValue());
+        data.put("excludedIds", model.getExcludedIds());
+        data.put("title", model.getTitle());
+        data.put("message", model.getMessage());
+        data.put("type", model.getType());
+        data.put("relatedId", model.getRelatedId());
+        data.put("cursor", model.getCursor());
+        data.put("sentCount", model.getSentCount());
+        data.put("status", model.getStatus());
+        data.put("createdAt", model.getCreatedAt());
+        data.put("updatedAt", model.getUpdatedAt());
+        return data;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Notification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class NotificationMapper implements ModelMapper<Notification> {
+
+    private static final int FIELD_COUNT = 12;
+
+    @Override
+    public Notification fromMap(Map<String, Object> data) {
+        Notification model = new Notification();
+        model.setNotificationId(Fields.getString(data, "notificationId"));
+        model.setUserId(Fields.getString(data, "userId"));
+        model.setTitle(Fields.getString(data, "title"));
+        model.setMessage(Fields.getString(data, "message"));
+        model.setType(Fields.getString(data, "type"));
+        model.setRelatedId(Fields.getString(data, "relatedId"));
+        model.setRelatedData(Fields.getString(data, "relatedData"));
+        model.setTimestamp(Fields.getLong(data, "timestamp"));
+        model.setIconUrl(Fields.getString(data, "iconUrl"));
+        model.setActionUrl(Fields.getString(data, "actionUrl"));
+        // Stored as "read", as bean mapping wrote it; older markAsRead() calls only set "isRead"
+        model.setRead(Fields.getBoolean(data, "read") || Fields.getBoolean(data, "isRead"));
+        model.setReadAt(Fields.getLong(data, "readAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Notification model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("notificationId", model.getNotificationId());
+        data.put("userId", model.getUserId());
+        data.put("title", model.getTitle());
+        data.put("message", model.getMessage());
+        data.put("type", model.getType());
+        data.put("relatedId", model.getRelatedId());
+        data.put("relatedData", model.getRelatedData());
+        data.put("timestamp", model.getTimestamp());
+        data.put("iconUrl", model.getIconUrl());
+        data.put("actionUrl", model.getActionUrl());
+        data.put("read", model.isRead());
+        data.put("readAt", model.getReadAt());
+        return data;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.ProjectRollup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProjectRollupMapper implements ModelMapper<ProjectRollup> {
+
+    private static final int FIELD_COUNT = 12;
+
+    @Override
+    public ProjectRollup fromMap(Map<String, Object> data) {
+        ProjectRollup model = new ProjectRollup();
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setTaskCount(Fields.getInt(data, "taskCount"));
+        model.setCompletedTaskCount(Fields.getInt(data, "completedTaskCount"));
+        model.setTotalLabourCost(Fields.getDouble(data, "totalLabourCost"));
+        model.setProgressSum(Fields.getDouble(data, "progressSum"));
+        model.setWeightedProgressSum(Fields.getDouble(data, "weightedProgressSum"));
+        model.setMaterialCount(Fields.getInt(data, "materialCount"));
+        model.setTotalMaterialValue(Fields.getDouble(data, "totalMaterialValue"));
+        model.setLowStockCount(Fields.getInt(data, "lowStockCount"));
+        model.setOutOfStockCount(Fields.getInt(data, "outOfStockCount"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        model.setBuiltAt(Fields.getLong(data, "builtAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(ProjectRollup model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("jobId", model.getJobId());
+        data.put("taskCount", model.getTaskCount());
+        data.put("completedTaskCount", model.getCompletedTaskCount());
+        data.put("totalLabourCost", model.getTotalLabourCost());
+        data.put("progressSum", model.getProgressSum());
+        data.put("weightedProgressSum", model.getWeightedProgressSum());
+        data.put("materialCount", model.getMaterialCount());
+        data.put("totalMaterialValue", model.getTotalMaterialValue());
+        data.put("lowStockCount", model.getLowStockCount());
+        data.put("outOfStockCount", model.getOutOfStockCount());
+        data.put("updatedAt", model.getUpdatedAt());
+        data.put("builtAt", model.getBuiltAt());
+        return data;
+    }
+}
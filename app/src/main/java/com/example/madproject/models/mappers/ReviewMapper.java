@@ -0,0 +1,61 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Review;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReviewMapper implements ModelMapper<Review> {
+
+    private static final int FIELD_COUNT = 15;
+
+    @Override
+    public Review fromMap(Map<String, Object> data) {
+        Review model = new Review();
+        model.setReviewId(Fields.getString(data, "reviewId"));
+        model.setContractorId(Fields.getString(data, "contractorId"));
+        model.setContractorName(Fields.getString(data, "contractorName"));
+        model.setClientId(Fields.getString(data, "clientId"));
+        model.setClientName(Fields.getString(data, "clientName"));
+        model.setClientPhotoUrl(Fields.getString(data, "clientPhotoUrl"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setJobTitle(Fields.getString(data, "jobTitle"));
+        model.setRating(Fields.getFloat(data, "rating"));
+        model.setReviewText(Fields.getString(data, "reviewText"));
+        model.setReviewDate(Fields.getLong(data, "reviewDate"));
+        List<String> photos = Fields.getStringList(data, "photos");
+        if (photos != null) {
+            model.setPhotos(photos);
+        }
+        // Stored as "verified", as bean mapping wrote it
+        model.setVerified(data.containsKey("verified")
+                ? Fields.getBoolean(data, "verified")
+                : Fields.getBoolean(data, "isVerified"));
+        // setResponse() stamps responseDate, so restore the stored date afterwards
+        model.setResponse(Fields.getString(data, "response"));
+        model.setResponseDate(Fields.getLong(data, "responseDate"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Review model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("reviewId", model.getReviewId());
+        data.put("contractorId", model.getContractorId());
+        data.put("contractorName", model.getContractorName());
+        data.put("clientId", model.getClientId());
+        data.put("clientName", model.getClientName());
+        data.put("clientPhotoUrl", model.getClientPhotoUrl());
+        data.put("jobId", model.getJobId());
+        data.put("jobTitle", model.getJobTitle());
+        data.put("rating", model.getRating());
+        data.put("reviewText", model.getReviewText());
+        data.put("reviewDate", model.getReviewDate());
+        data.put("photos", model.getPhotos());
+        data.put("verified", model.isVerified());
+        data.put("response", model.getResponse());
+        data.put("responseDate", model.getResponseDate());
+        return data;
+    }
+}
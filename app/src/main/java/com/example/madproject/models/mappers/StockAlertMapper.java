@@ -0,0 +1,47 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.StockAlert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class StockAlertMapper implements ModelMapper<StockAlert> {
+
+    private static final int FIELD_COUNT = 12;
+
+    @Override
+    public StockAlert fromMap(Map<String, Object> data) {
+        StockAlert model = new StockAlert();
+        model.setMaterialId(Fields.getString(data, "materialId"));
+        model.setContractorId(Fields.getString(data, "contractorId"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setProjectName(Fields.getString(data, "projectName"));
+        model.setMaterialName(Fields.getString(data, "materialName"));
+        model.setUnit(Fields.getString(data, "unit"));
+        model.setQuantity(Fields.getDouble(data, "quantity"));
+        model.setLowStockThreshold(Fields.getDouble(data, "lowStockThreshold"));
+        model.setStatus(Fields.getString(data, "status"));
+        model.setNotifiedStatus(Fields.getString(data, "notifiedStatus"));
+        model.setSince(Fields.getLong(data, "since"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(StockAlert model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("materialId", model.getMaterialId());
+        data.put("contractorId", model.getContractorId());
+        data.put("jobId", model.getJobId());
+        data.put("projectName", model.getProjectName());
+        data.put("materialName", model.getMaterialName());
+        data.put("unit", model.getUnit());
+        data.put("quantity", model.getQuantity());
+        data.put("lowStockThreshold", model.getLowStockThreshold());
+        data.put("status", model.getStatus());
+        data.put("notifiedStatus", model.getNotifiedStatus());
+        data.put("since", model.getSince());
+        data.put("updatedAt", model.getUpdatedAt());
+        return data;
+    }
+}
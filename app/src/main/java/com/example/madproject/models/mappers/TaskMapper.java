@@ -0,0 +1,68 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Task;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TaskMapper implements ModelMapper<Task> {
+
+    private static final int FIELD_COUNT = 21;
+
+    @Override
+    public Task fromMap(Map<String, Object> data) {
+        Task model = new Task();
+        model.setTaskId(Fields.getString(data, "taskId"));
+        model.setJobId(Fields.getString(data, "jobId"));
+        model.setProjectName(Fields.getString(data, "projectName"));
+        model.setTaskTitle(Fields.getString(data, "taskTitle"));
+        model.setDescription(Fields.getString(data, "description"));
+        model.setAssignedTo(Fields.getString(data, "assignedTo"));
+        model.setNumberOfWorkers(Fields.getInt(data, "numberOfWorkers"));
+        model.setStartDate(Fields.getLong(data, "startDate"));
+        model.setEndDate(Fields.getLong(data, "endDate"));
+        model.setStatus(Fields.getString(data, "status"));
+        model.setProgressPercentage(Fields.getDouble(data, "progressPercentage"));
+        model.setProgressUnit(Fields.getString(data, "progressUnit"));
+        model.setEstimatedQuantity(Fields.getDouble(data, "estimatedQuantity"));
+        model.setCompletedQuantity(Fields.getDouble(data, "completedQuantity"));
+        model.setDailyWages(Fields.getDouble(data, "dailyWages"));
+        model.setTotalCost(Fields.getDouble(data, "totalCost"));
+        List<String> photos = Fields.getStringList(data, "photos");
+        if (photos != null) {
+            model.setPhotos(photos);
+        }
+        model.setCreatedAt(Fields.getLong(data, "createdAt"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        model.setCreatedBy(Fields.getString(data, "createdBy"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(Task model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("taskId", model.getTaskId());
+        data.put("jobId", model.getJobId());
+        data.put("projectName", model.getProjectName());
+        data.put("taskTitle", model.getTaskTitle());
+        data.put("description", model.getDescription());
+        data.put("assignedTo", model.getAssignedTo());
+        data.put("numberOfWorkers", model.getNumberOfWorkers());
+        data.put("startDate", model.getStartDate());
+        data.put("endDate", model.getEndDate());
+        data.put("scheduleWeeks", model.getScheduleWeeks());
+        data.put("status", model.getStatus());
+        data.put("progressPercentage", model.getProgressPercentage());
+        data.put("progressUnit", model.getProgressUnit());
+        data.put("estimatedQuantity", model.getEstimatedQuantity());
+        data.put("completedQuantity", model.getCompletedQuantity());
+        data.put("dailyWages", model.getDailyWages());
+        data.put("totalCost", model.getTotalCost());
+        data.put("photos", model.getPhotos());
+        data.put("createdAt", model.getCreatedAt());
+        data.put("updatedAt", model.getUpdatedAt());
+        data.put("createdBy", model.getCreatedBy());
+        return data;
+    }
+}
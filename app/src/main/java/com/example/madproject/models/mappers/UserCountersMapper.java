@@ -0,0 +1,33 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.UserCounters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class UserCountersMapper implements ModelMapper<UserCounters> {
+
+    private static final int FIELD_COUNT = 5;
+
+    @Override
+    public UserCounters fromMap(Map<String, Object> data) {
+        UserCounters model = new UserCounters();
+        model.setUserId(Fields.getString(data, "userId"));
+        model.setUnreadMessages(Fields.getInt(data, "unreadMessages"));
+        model.setUnreadNotifications(Fields.getInt(data, "unreadNotifications"));
+        model.setRebuiltAt(Fields.getLong(data, "rebuiltAt"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(UserCounters model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("userId", model.getUserId());
+        data.put("unreadMessages", model.getUnreadMessages());
+        data.put("unreadNotifications", model.getUnreadNotifications());
+        data.put("rebuiltAt", model.getRebuiltAt());
+        data.put("updatedAt", model.getUpdatedAt());
+        return data;
+    }
+}
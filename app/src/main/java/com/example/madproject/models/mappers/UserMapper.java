@@ -0,0 +1,71 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class UserMapper implements ModelMapper<User> {
+
+    private static final int FIELD_COUNT = 22;
+
+    @Override
+    public User fromMap(Map<String, Object> data) {
+        User model = new User();
+        model.setUserId(Fields.getString(data, "userId"));
+        model.setEmail(Fields.getString(data, "email"));
+        model.setFullName(Fields.getString(data, "fullName"));
+        model.setPhoneNumber(Fields.getString(data, "phoneNumber"));
+        model.setAddress(Fields.getString(data, "address"));
+        model.setCity(Fields.getString(data, "city"));
+        model.setUserType(Fields.getString(data, "userType"));
+        model.setProfilePictureUrl(Fields.getString(data, "profilePictureUrl"));
+        model.setFcmToken(Fields.getString(data, "fcmToken"));
+        model.setCreatedAt(Fields.getLong(data, "createdAt"));
+        model.setLastLogin(Fields.getLong(data, "lastLogin"));
+        model.setCategory(Fields.getString(data, "category"));
+        model.setBio(Fields.getString(data, "bio"));
+        model.setExperienceYears(Fields.getInt(data, "experienceYears"));
+        model.setHourlyRate(Fields.getDouble(data, "hourlyRate"));
+        model.setRating(Fields.getDouble(data, "rating"));
+        model.setTotalReviews(Fields.getInt(data, "totalReviews"));
+        model.setCompletedProjects(Fields.getInt(data, "completedProjects"));
+        List<String> portfolioImages = Fields.getStringList(data, "portfolioImages");
+        if (portfolioImages != null) {
+            model.setPortfolioImages(portfolioImages);
+        }
+        model.setActiveJobs(Fields.getInt(data, "activeJobs"));
+        model.setCompletedJobs(Fields.getInt(data, "completedJobs"));
+        model.setTotalSpent(Fields.getDouble(data, "totalSpent"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(User model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("userId", model.getUserId());
+        data.put("email", model.getEmail());
+        data.put("fullName", model.getFullName());
+        data.put("phoneNumber", model.getPhoneNumber());
+        data.put("address", model.getAddress());
+        data.put("city", model.getCity());
+        data.put("userType", model.getUserType());
+        data.put("profilePictureUrl", model.getProfilePictureUrl());
+        data.put("fcmToken", model.getFcmToken());
+        data.put("createdAt", model.getCreatedAt());
+        data.put("lastLogin", model.getLastLogin());
+        data.put("category", model.getCategory());
+        data.put("bio", model.getBio());
+        data.put("experienceYears", model.getExperienceYears());
+        data.put("hourlyRate", model.getHourlyRate());
+        data.put("rating", model.getRating());
+        data.put("totalReviews", model.getTotalReviews());
+        data.put("completedProjects", model.getCompletedProjects());
+        data.put("portfolioImages", model.getPortfolioImages());
+        data.put("activeJobs", model.getActiveJobs());
+        data.put("completedJobs", model.getCompletedJobs());
+        data.put("totalSpent", model.getTotalSpent());
+        return data;
+    }
+}
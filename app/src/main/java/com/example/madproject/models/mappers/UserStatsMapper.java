@@ -0,0 +1,47 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.UserStats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class UserStatsMapper implements ModelMapper<UserStats> {
+
+    private static final int FIELD_COUNT = 12;
+
+    @Override
+    public UserStats fromMap(Map<String, Object> data) {
+        UserStats model = new UserStats();
+        model.setUserId(Fields.getString(data, "userId"));
+        model.setJobsPosted(Fields.getInt(data, "jobsPosted"));
+        model.setActiveJobs(Fields.getInt(data, "activeJobs"));
+        model.setCompletedJobs(Fields.getInt(data, "completedJobs"));
+        model.setBidsSubmitted(Fields.getInt(data, "bidsSubmitted"));
+        model.setBidsWon(Fields.getInt(data, "bidsWon"));
+        model.setTotalEarnings(Fields.getDouble(data, "totalEarnings"));
+        model.setTotalSpent(Fields.getDouble(data, "totalSpent"));
+        model.setRatingSum(Fields.getDouble(data, "ratingSum"));
+        model.setReviewCount(Fields.getInt(data, "reviewCount"));
+        model.setUpdatedAt(Fields.getLong(data, "updatedAt"));
+        model.setBuiltAt(Fields.getLong(data, "builtAt"));
+        return model;
+    }
+
+    @Override
+    public Map<String, Object> toMap(UserStats model) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 2);
+        data.put("userId", model.getUserId());
+        data.put("jobsPosted", model.getJobsPosted());
+        data.put("activeJobs", model.getActiveJobs());
+        data.put("completedJobs", model.getCompletedJobs());
+        data.put("bidsSubmitted", model.getBidsSubmitted());
+        data.put("bidsWon", model.getBidsWon());
+        data.put("totalEarnings", model.getTotalEarnings());
+        data.put("totalSpent", model.getTotalSpent());
+        data.put("ratingSum", model.getRatingSum());
+        data.put("reviewCount", model.getReviewCount());
+        data.put("updatedAt", model.getUpdatedAt());
+        data.put("builtAt", model.getBuiltAt());
+        return data;
+    }
+}
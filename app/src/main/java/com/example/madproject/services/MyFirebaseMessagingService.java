@@ -1,62 +1,53 @@
 package com.example.madproject.services;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
-import android.content.Context;
-import android.content.Intent;
-import android.os.Build;
 import android.util.Log;
 
-import androidx.core.app.NotificationCompat;
-
-import com.example.madproject.JobDetailActivity;
-import com.example.madproject.NotificationsActivity;
-import com.example.madproject.R;
-import com.example.madproject.firebase.UserManager;
+import com.example.madproject.firebase.EntityCache;
+import com.example.madproject.firebase.PushPayload;
+import com.example.madproject.firebase.TokenRegistry;
+import com.example.madproject.helpers.PushNotifier;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
+import java.util.Map;
+
 public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
     private static final String TAG = "FCMService";
-    private static final String CHANNEL_ID = "madproject_notifications";
-    private static final String CHANNEL_NAME = "MadProject Notifications";
 
+    // Runs on the FCM worker thread; kept short so bursts of pushes don't back up
     @Override
     public void onMessageReceived(RemoteMessage remoteMessage) {
         super.onMessageReceived(remoteMessage);
 
-        Log.d(TAG, "From: " + remoteMessage.getFrom());
-
-        // Check if message contains a notification payload
-        if (remoteMessage.getNotification() != null) {
-            String title = remoteMessage.getNotification().getTitle();
-            String body = remoteMessage.getNotification().getBody();
-            Log.d(TAG, "Notification Title: " + title);
-            Log.d(TAG, "Notification Body: " + body);
-
-            showNotification(title, body, remoteMessage.getData());
+        // Entity changes update the local copies first, so the screen the push opens is current
+        PushPayload payload = PushPayload.decode(remoteMessage.getData());
+        if (payload != null) {
+            EntityCache.getInstance(this).apply(payload);
         }
 
-        // Check if message contains a data payload
-        if (remoteMessage.getData().size() > 0) {
-            Log.d(TAG, "Message data payload: " + remoteMessage.getData());
-
-            String title = remoteMessage.getData().get("title");
-            String message = remoteMessage.getData().get("message");
-
-            if (title != null && message != null) {
-                showNotification(title, message, remoteMessage.getData());
-            }
+        // A payload may carry the same text in its notification part and its data; the data
+        // wins and it is shown once
+        Map<String, String> data = remoteMessage.getData();
+        String title = data.get("title");
+        String message = data.get("message");
+        if ((title == null || message == null) && remoteMessage.getNotification() != null) {
+            title = remoteMessage.getNotification().getTitle();
+            message = remoteMessage.getNotification().getBody();
+        }
+        if (title == null || message == null) {
+            return;
         }
+
+        String dedupeKey = data.get("notificationId") != null ? data.get("notificationId") : remoteMessage.getMessageId();
+        PushNotifier.getInstance(this).show(dedupeKey, data.get("type"), data.get("relatedId"), title, message);
     }
 
     @Override
     public void onNewToken(String token) {
         super.onNewToken(token);
-        Log.d(TAG, "Refreshed token: " + token);
+        Log.d(TAG, "FCM token refreshed");
 
         // Save token to Firestore for current user
         sendRegistrationToServer(token);
@@ -67,8 +58,9 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         if (auth.getCurrentUser() != null) {
             String userId = auth.getCurrentUser().getUid();
 
-            UserManager.getInstance()
-                    .updateField(userId, "fcmToken", token)
+            // Always written; with nobody signed in, the next dashboard start registers it
+            TokenRegistry.getInstance(this)
+                    .register(userId, token, true)
                     .addOnSuccessListener(aVoid -> {
                         Log.d(TAG, "FCM token saved to Firestore");
                     })
@@ -77,57 +69,4 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
                     });
         }
     }
-
-    private void showNotification(String title, String message, java.util.Map<String, String> data) {
-        NotificationManager notificationManager =
-                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-
-        // Create notification channel for Android O and above
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                    CHANNEL_ID,
-                    CHANNEL_NAME,
-                    NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription("Notifications for job updates, bids, and messages");
-            channel.enableVibration(true);
-            notificationManager.createNotificationChannel(channel);
-        }
-
-        // Determine intent based on notification type
-        Intent intent;
-        String type = data.get("type");
-        String relatedId = data.get("relatedId");
-
-        if ("bid".equals(type) || "job".equals(type)) {
-            intent = new Intent(this, JobDetailActivity.class);
-            if (relatedId != null) {
-                intent.putExtra("jobId", relatedId);
-            }
-        } else {
-            intent = new Intent(this, NotificationsActivity.class);
-        }
-
-        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-                this,
-                0,
-                intent,
-                PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        // Build notification
-        NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setSmallIcon(R.drawable.ic_notifications)
-                .setContentTitle(title)
-                .setContentText(message)
-                .setAutoCancel(true)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setContentIntent(pendingIntent)
-                .setStyle(new NotificationCompat.BigTextStyle().bigText(message));
-
-        // Show notification
-        notificationManager.notify((int) System.currentTimeMillis(), notificationBuilder.build());
-    }
 }
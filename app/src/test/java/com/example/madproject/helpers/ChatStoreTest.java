@@ -0,0 +1,49 @@
+package com.example.madproject.helpers;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class ChatStoreTest {
+
+    @Test
+    public void toMatchQuery_quotesWordsAndPrefixesTheLast() {
+        assertEquals("\"cement\" \"pri*\"", ChatStore.toMatchQuery("Cement pri"));
+        assertEquals("\"rs\" \"1200*\"", ChatStore.toMatchQuery("  Rs. 1,200"));
+    }
+
+    @Test
+    public void toMatchQuery_dropsOperatorsAndQuotes() {
+        assertEquals("\"steel\" \"or\" \"bars*\"", ChatStore.toMatchQuery("\"steel\" OR -bars*"));
+        assertNull(ChatStore.toMatchQuery(" ,.-\" "));
+        assertNull(ChatStore.toMatchQuery(null));
+    }
+
+    @Test
+    public void score_favoursRareWords() {
+        // Two words: "cement" 1 of 10 hits in the chat, "price" 1 of 2
+        double common = ChatStore.score(matchinfo(2, 1, 1, 10, 10, 1, 2, 2));
+        double rare = ChatStore.score(matchinfo(2, 1, 1, 10, 10, 2, 2, 2));
+        assertEquals(0.6, common, 1e-9);
+        assertEquals(1.1, rare, 1e-9);
+        assertTrue(rare > common);
+    }
+
+    @Test
+    public void score_ignoresTruncatedBlob() {
+        assertEquals(0.0, ChatStore.score(null), 0.0);
+        assertEquals(0.0, ChatStore.score(new byte[4]), 0.0);
+        assertEquals(0.5, ChatStore.score(matchinfo(2, 1, 1, 2, 2)), 1e-9);
+    }
+
+    private static byte[] matchinfo(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
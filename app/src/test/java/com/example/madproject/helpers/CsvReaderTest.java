@@ -0,0 +1,45 @@
+package com.example.madproject.helpers;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CsvReaderTest {
+
+    @Test
+    public void readRecord_handlesQuotesLineBreaksAndCrlf() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "\uFEFFItem,Qty,Unit\r\n\"Cement, OPC\",\"1,200\",bags\r\n\r\n\"Steel \"\"12mm\"\"\nbars\",3,t\n"));
+
+        assertEquals(Arrays.asList("Item", "Qty", "Unit"), csv.readRecord());
+        assertEquals(Arrays.asList("Cement, OPC", "1,200", "bags"), csv.readRecord());
+        assertEquals(2, csv.getRecordLineNumber());
+        assertEquals(Arrays.asList("Steel \"12mm\"\nbars", "3", "t"), csv.readRecord());
+        assertEquals(4, csv.getRecordLineNumber());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void readRecord_keepsEmptyTrailingField() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("Sand,10,m3,"));
+        assertEquals(Arrays.asList("Sand", "10", "m3", ""), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test(expected = IOException.class)
+    public void readRecord_rejectsUnclosedQuote() throws IOException {
+        new CsvReader(new StringReader("\"Bricks,100,pcs\n")).readRecord();
+    }
+
+    @Test
+    public void normalize_convertsToStoredUnits() {
+        assertEquals(MaterialUnits.KG, MaterialUnits.normalize(" Kgs. ").name);
+        assertEquals(0.001, MaterialUnits.normalize("grams").factor, 0.0);
+        assertEquals(MaterialUnits.CUBIC_METER, MaterialUnits.normalize("CFT").name);
+        assertNull(MaterialUnits.normalize("furlongs"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.madproject.helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntervalTreeTest {
+
+    private static final IntervalTree.Bounds<long[]> BOUNDS = new IntervalTree.Bounds<long[]>() {
+        @Override
+        public long start(long[] item) {
+            return item[0];
+        }
+
+        @Override
+        public long end(long[] item) {
+            return item[1];
+        }
+    };
+
+    @Test
+    public void query_matchesLinearScan() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<long[]> intervals = new ArrayList<>();
+            int count = random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                long start = random.nextInt(1000);
+                intervals.add(new long[]{start, start + random.nextInt(200) - 20});
+            }
+            IntervalTree<long[]> tree = new IntervalTree<>(intervals, BOUNDS);
+            long from = random.nextInt(1200) - 100;
+            long to = from + random.nextInt(300);
+
+            List<long[]> expected = new ArrayList<>();
+            for (long[] interval : intervals) {
+                if (ScheduleBuckets.overlaps(interval[0], Math.max(interval[0], interval[1]), from, to)) {
+                    expected.add(interval);
+                }
+            }
+            List<long[]> actual = tree.query(from, to);
+            assertEquals(expected.size(), actual.size());
+            for (long[] interval : expected) {
+                assertTrue(actual.contains(interval));
+            }
+        }
+    }
+
+    @Test
+    public void query_returnsItemsInStartOrder() {
+        long[] late = {50, 60};
+        long[] early = {10, 100};
+        long[] outside = {200, 300};
+        IntervalTree<long[]> tree = new IntervalTree<>(Arrays.asList(late, outside, early), BOUNDS);
+
+        assertEquals(Arrays.asList(early, late), tree.query(55, 70));
+        assertEquals(Collections.singletonList(early), tree.at(20));
+        assertTrue(tree.query(101, 199).isEmpty());
+    }
+
+    @Test
+    public void weeksBetween_overlappingIntervalsShareAWeek() {
+        long monday = ScheduleBuckets.weekStart(1760918400000L);
+        assertEquals(monday, ScheduleBuckets.weekStart(monday + 6 * ScheduleBuckets.DAY_MILLIS));
+        assertEquals(2, ScheduleBuckets.weeksBetween(monday - 1, monday).size());
+        assertEquals(1, ScheduleBuckets.weeksBetween(monday, 0).size());
+        assertTrue(ScheduleBuckets.weeksBetween(0, monday).isEmpty());
+    }
+}
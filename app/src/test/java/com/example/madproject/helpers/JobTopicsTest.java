@@ -0,0 +1,37 @@
+package com.example.madproject.helpers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class JobTopicsTest {
+
+    @Test
+    public void forContractor_buildsCategoryAndCityTopics() {
+        assertEquals(Arrays.asList("jobs_category_interior_design", "jobs_city_lahore"),
+                JobTopics.forContractor("Interior Design", " Lahore "));
+    }
+
+    @Test
+    public void forContractor_skipsBlankValues() {
+        assertEquals(Collections.singletonList("jobs_city_karachi"), JobTopics.forContractor(null, "Karachi"));
+        assertTrue(JobTopics.forContractor(" ", null).isEmpty());
+    }
+
+    @Test
+    public void forJob_takesCityFromLastPartOfLocation() {
+        assertEquals(Arrays.asList("jobs_category_plumbing", "jobs_city_lahore"),
+                JobTopics.forJob("Plumbing", "DHA Phase 5, Lahore"));
+        assertEquals(Arrays.asList("jobs_category_plumbing", "jobs_city_islamabad"),
+                JobTopics.forJob("Plumbing", "Islamabad"));
+    }
+
+    @Test
+    public void slug_replacesCharactersTopicsDoNotAllow() {
+        assertEquals("hvac___repair", JobTopics.slug("HVAC / Repair"));
+        assertEquals("r.c.c-work", JobTopics.slug("R.C.C-Work"));
+    }
+}
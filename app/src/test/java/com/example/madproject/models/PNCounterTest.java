@@ -0,0 +1,198 @@
+package com.example.madproject.models;
+
+import com.example.madproject.models.mappers.ModelMappers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Property checks for the PN-counter merge: each property is checked against many randomly
+ * generated counters and histories. Amounts are multiples of 0.25 so sums are exact.
+ */
+public class PNCounterTest {
+
+    private static final int RUNS = 300;
+    private static final String[] REPLICAS = {"base", "phone-a", "phone-b", "phone-c", "tablet"};
+
+    @Test
+    public void merge_isCommutative() {
+        Random random = new Random(1);
+        for (int run = 0; run < RUNS; run++) {
+            PNCounter a = randomCounter(random);
+            PNCounter b = randomCounter(random);
+            assertEquals(PNCounter.merge(a, b), PNCounter.merge(b, a));
+        }
+    }
+
+    @Test
+    public void merge_isAssociative() {
+        Random random = new Random(2);
+        for (int run = 0; run < RUNS; run++) {
+            PNCounter a = randomCounter(random);
+            PNCounter b = randomCounter(random);
+            PNCounter c = randomCounter(random);
+            assertEquals(PNCounter.merge(PNCounter.merge(a, b), c), PNCounter.merge(a, PNCounter.merge(b, c)));
+        }
+    }
+
+    @Test
+    public void merge_isIdempotent() {
+        Random random = new Random(3);
+        for (int run = 0; run < RUNS; run++) {
+            PNCounter a = randomCounter(random);
+            PNCounter b = randomCounter(random);
+            assertEquals(a, PNCounter.merge(a, a));
+            PNCounter once = PNCounter.merge(a, b);
+            assertEquals(once, PNCounter.merge(once, b));
+        }
+    }
+
+    @Test
+    public void merge_neverLowersASlot() {
+        Random random = new Random(4);
+        for (int run = 0; run < RUNS; run++) {
+            PNCounter a = randomCounter(random);
+            PNCounter b = randomCounter(random);
+            PNCounter merged = PNCounter.merge(a, b);
+            for (String replica : REPLICAS) {
+                assertTrue(merged.getIncrement(replica) >= a.getIncrement(replica));
+                assertTrue(merged.getIncrement(replica) >= b.getIncrement(replica));
+                assertTrue(merged.getDecrement(replica) >= a.getDecrement(replica));
+                assertTrue(merged.getDecrement(replica) >= b.getDecrement(replica));
+            }
+        }
+    }
+
+    // Devices change their own slot offline and exchange copies in any order, any number of
+    // times. Once every copy has been delivered they all agree and no change is lost.
+    @Test
+    public void replicas_convergeWithoutLostUpdates() {
+        Random random = new Random(5);
+        for (int run = 0; run < RUNS; run++) {
+            int deviceCount = 2 + random.nextInt(4);
+            List<PNCounter> devices = new ArrayList<>();
+            for (int i = 0; i < deviceCount; i++) {
+                devices.add(new PNCounter());
+            }
+            List<PNCounter> inFlight = new ArrayList<>();
+            double expected = 0.0;
+
+            for (int step = 0; step < 60; step++) {
+                int device = random.nextInt(deviceCount);
+                if (random.nextBoolean()) {
+                    double amount = randomAmount(random);
+                    devices.get(device).add(REPLICAS[device], amount);
+                    expected += amount;
+                    inFlight.add(devices.get(device).copy());
+                } else if (!inFlight.isEmpty()) {
+                    // Deliver a copy to some device; the copy may be delivered again later
+                    PNCounter message = inFlight.get(random.nextInt(inFlight.size()));
+                    devices.get(device).mergeFrom(message);
+                }
+            }
+
+            // Reconnect: everything reaches everyone, in shuffled order
+            for (PNCounter device : devices) {
+                List<PNCounter> pending = new ArrayList<>(inFlight);
+                pending.addAll(devices);
+                while (!pending.isEmpty()) {
+                    device.mergeFrom(pending.remove(random.nextInt(pending.size())));
+                }
+            }
+
+            for (PNCounter device : devices) {
+                assertEquals(devices.get(0), device);
+                assertEquals(expected, device.value(), 0.0);
+            }
+        }
+    }
+
+    // The stored document takes one field write per slot. Each device writes only its own slot,
+    // in its own order, interleaved arbitrarily with the others: the stored counter ends up as
+    // the merge of every device's final state.
+    @Test
+    public void slotWrites_interleavedAcrossDevices_matchMerge() {
+        Random random = new Random(6);
+        for (int run = 0; run < RUNS; run++) {
+            int deviceCount = 2 + random.nextInt(4);
+            List<PNCounter> devices = new ArrayList<>();
+            List<List<double[]>> outboxes = new ArrayList<>();
+            for (int i = 0; i < deviceCount; i++) {
+                devices.add(new PNCounter());
+                outboxes.add(new ArrayList<>());
+            }
+            for (int step = 0; step < 40; step++) {
+                int device = random.nextInt(deviceCount);
+                devices.get(device).add(REPLICAS[device], randomAmount(random));
+                PNCounter state = devices.get(device);
+                outboxes.get(device).add(new double[]{state.getIncrement(REPLICAS[device]),
+                        state.getDecrement(REPLICAS[device])});
+            }
+
+            PNCounter stored = new PNCounter();
+            int[] sent = new int[deviceCount];
+            int remaining = 40;
+            while (remaining > 0) {
+                int device = random.nextInt(deviceCount);
+                if (sent[device] < outboxes.get(device).size()) {
+                    double[] slot = outboxes.get(device).get(sent[device]++);
+                    stored.setSlot(REPLICAS[device], slot[0], slot[1]);
+                    remaining--;
+                }
+            }
+
+            PNCounter expected = new PNCounter();
+            for (PNCounter device : devices) {
+                expected.mergeFrom(device);
+            }
+            assertEquals(expected, stored);
+        }
+    }
+
+    @Test
+    public void materialMapper_roundTripsTheCounter() {
+        Random random = new Random(7);
+        for (int run = 0; run < RUNS; run++) {
+            PNCounter counter = randomCounter(random);
+            counter.setSlot(Material.BASE_QUANTITY_SLOT, 10.0, 0.0);
+            Material material = new Material();
+            material.setMaterialId("m" + run);
+            material.setLowStockThreshold(5.0);
+            material.setQuantityCounter(counter);
+
+            Material read = ModelMappers.MATERIAL.fromMap(ModelMappers.MATERIAL.toMap(material));
+            assertEquals(counter, read.getQuantityCounter());
+            assertEquals(counter.value(), read.getQuantity(), 0.0);
+        }
+    }
+
+    @Test
+    public void materialMapper_usesStoredQuantityUntilBaseSlotIsWritten() {
+        PNCounter counter = new PNCounter();
+        counter.add("phone-a", -3.0);
+        Material material = new Material();
+        material.setQuantity(20.0);
+        material.setQuantityCounter(counter);
+
+        Material read = ModelMappers.MATERIAL.fromMap(ModelMappers.MATERIAL.toMap(material));
+        assertEquals(17.0, read.getQuantity(), 0.0);
+    }
+
+    private static PNCounter randomCounter(Random random) {
+        PNCounter counter = new PNCounter();
+        int changes = random.nextInt(8);
+        for (int i = 0; i < changes; i++) {
+            counter.add(REPLICAS[random.nextInt(REPLICAS.length)], randomAmount(random));
+        }
+        return counter;
+    }
+
+    private static double randomAmount(Random random) {
+        return (random.nextInt(81) - 40) / 4.0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.madproject.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TaskTest {
+
+    @Test
+    public void calculateProgress_completesAtEstimate() {
+        Task task = taskWithProgress(120, 100);
+        assertEquals(100.0, task.getProgressPercentage(), 0.0001);
+        assertEquals("completed", task.getStatus());
+    }
+
+    @Test
+    public void calculateProgress_reopensCompletedTaskBelowEstimate() {
+        Task task = taskWithProgress(100, 100);
+        task.setCompletedQuantity(60);
+        task.calculateProgress();
+        assertEquals(60.0, task.getProgressPercentage(), 0.0001);
+        assertEquals("ongoing", task.getStatus());
+    }
+
+    @Test
+    public void calculateProgress_clampsNegativeProgressToNotStarted() {
+        Task task = taskWithProgress(-5, 100);
+        assertEquals(0.0, task.getProgressPercentage(), 0.0001);
+        assertEquals("not_started", task.getStatus());
+    }
+
+    private static Task taskWithProgress(double completed, double estimated) {
+        Task task = new Task();
+        task.setEstimatedQuantity(estimated);
+        task.setCompletedQuantity(completed);
+        task.calculateProgress();
+        return task;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Material;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the hand-written mappers against Firestore's reflection-based CustomClassMapper, which
+ * is what DocumentSnapshot.toObject() and set(pojo) use internally.
+ *
+ * Timings depend on the host, so this is left out of the unit-test run; run it with
+ * ./gradlew testDebugUnitTest -Pbenchmarks --tests '*ModelMapperBenchmark'
+ */
+public class ModelMapperBenchmark {
+
+    private static final int DOCUMENTS = 500;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 30;
+
+    @Test
+    public void benchmark_readJobs() {
+        List<Map<String, Object>> documents = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documents.add(asFirestoreData(reflect(sampleJob(i))));
+        }
+
+        long reflectionNanos = time(() -> {
+            for (Map<String, Object> data : documents) {
+                CustomClassMapper.convertToCustomClass(data, Job.class, null);
+            }
+        });
+        long mapperNanos = time(() -> {
+            for (Map<String, Object> data : documents) {
+                ModelMappers.JOB.fromMap(data);
+            }
+        });
+
+        report("read " + DOCUMENTS + " jobs", reflectionNanos, mapperNanos);
+    }
+
+    @Test
+    public void benchmark_writeMaterials() {
+        List<Material> materials = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            materials.add(sampleMaterial(i));
+        }
+
+        long reflectionNanos = time(() -> {
+            for (Material material : materials) {
+                CustomClassMapper.convertToPlainJavaTypes(material);
+            }
+        });
+        long mapperNanos = time(() -> {
+            for (Material material : materials) {
+                ModelMappers.MATERIAL.toMap(material);
+            }
+        });
+
+        report("write " + DOCUMENTS + " materials", reflectionNanos, mapperNanos);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> reflect(Object model) {
+        return (Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(model);
+    }
+
+    // Firestore hands back every whole number as a Long
+    private static Map<String, Object> asFirestoreData(Map<String, Object> source) {
+        Map<String, Object> data = new HashMap<>(source);
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getValue() instanceof Integer) {
+                entry.setValue(((Integer) entry.getValue()).longValue());
+            }
+        }
+        return data;
+    }
+
+    private static long time(Runnable work) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            work.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            work.run();
+        }
+        return (System.nanoTime() - start) / MEASURED_ROUNDS;
+    }
+
+    private static void report(String label, long reflectionNanos, long mapperNanos) {
+        System.out.printf("%s: reflection %.2f ms, mapper %.2f ms (%.1f%% of reflection)%n",
+                label,
+                reflectionNanos / 1_000_000.0,
+                mapperNanos / 1_000_000.0,
+                100.0 * mapperNanos / Math.max(1L, reflectionNanos));
+    }
+
+    private static Job sampleJob(int i) {
+        Job job = new Job("job_" + i, "client_" + i, "Client " + i, "Boundary wall " + i,
+                "Build a 40ft boundary wall", "Masonry", 250000 + i, "2 weeks", "Lahore");
+        job.setTotalBids(i % 7);
+        job.setAttachments(Arrays.asList("https://example.com/a.jpg", "https://example.com/b.jpg"));
+        return job;
+    }
+
+    private static Material sampleMaterial(int i) {
+        Material material = new Material("mat_" + i, "job_" + i, "Project " + i, "Cement",
+                "Cement", 0, "bags", 1450, "Supplier " + i);
+        material.setLowStockThreshold(20);
+        material.setQuantity(100 + i);
+        return material;
+    }
+}
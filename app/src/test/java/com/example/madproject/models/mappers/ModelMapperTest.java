@@ -0,0 +1,144 @@
+package com.example.madproject.models.mappers;
+
+import com.example.madproject.models.Bid;
+import com.example.madproject.models.Job;
+import com.example.madproject.models.Material;
+import com.example.madproject.models.Message;
+import com.example.madproject.models.Notification;
+import com.example.madproject.models.Review;
+import com.example.madproject.models.Task;
+import com.example.madproject.models.User;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the hand-written mappers with Firestore's reflection-based CustomClassMapper,
+ * which is what DocumentSnapshot.toObject() and set(pojo) use internally.
+ */
+public class ModelMapperTest {
+
+    @Test
+    public void toMap_matchesReflectionSerialization() {
+        assertEquals(reflect(sampleJob(1)), ModelMappers.JOB.toMap(sampleJob(1)));
+        assertEquals(reflect(sampleBid(1)), ModelMappers.BID.toMap(sampleBid(1)));
+        assertEquals(reflect(sampleTask(1)), ModelMappers.TASK.toMap(sampleTask(1)));
+        assertEquals(reflect(sampleMaterial(1)), ModelMappers.MATERIAL.toMap(sampleMaterial(1)));
+        assertEquals(reflect(sampleUser(1)), ModelMappers.USER.toMap(sampleUser(1)));
+    }
+
+    @Test
+    public void fromMap_matchesReflectionDeserialization() {
+        assertReadsLikeReflection(ModelMappers.JOB, Job.class, sampleJob(2));
+        assertReadsLikeReflection(ModelMappers.BID, Bid.class, sampleBid(2));
+        assertReadsLikeReflection(ModelMappers.TASK, Task.class, sampleTask(2));
+        assertReadsLikeReflection(ModelMappers.MATERIAL, Material.class, sampleMaterial(2));
+        assertReadsLikeReflection(ModelMappers.USER, User.class, sampleUser(2));
+    }
+
+    @Test
+    public void toMap_writesReadAndVerifiedUnderTheirBeanNames() {
+        Message message = new Message("msg_1", "chat_1", "user_1", "User 1", "user_2", "Hello");
+        message.setRead(true);
+        Map<String, Object> messageData = ModelMappers.MESSAGE.toMap(message);
+        assertEquals(true, messageData.get("read"));
+        assertFalse(messageData.containsKey("isRead"));
+
+        Notification notification = new Notification("notif_1", "user_1", "New Bid Received",
+                "A bid arrived", "bid", "job_1");
+        Map<String, Object> notificationData = ModelMappers.NOTIFICATION.toMap(notification);
+        assertEquals(false, notificationData.get("read"));
+        assertFalse(notificationData.containsKey("isRead"));
+
+        Review review = new Review();
+        review.setVerified(true);
+        Map<String, Object> reviewData = ModelMappers.REVIEW.toMap(review);
+        assertEquals(true, reviewData.get("verified"));
+        assertFalse(reviewData.containsKey("isVerified"));
+    }
+
+    @Test
+    public void fromMap_acceptsLegacyReadAndVerifiedNames() {
+        Map<String, Object> markedRead = new HashMap<>();
+        markedRead.put("read", false);
+        markedRead.put("isRead", true);
+        assertTrue(ModelMappers.MESSAGE.fromMap(markedRead).isRead());
+        assertTrue(ModelMappers.NOTIFICATION.fromMap(markedRead).isRead());
+
+        Map<String, Object> verified = new HashMap<>();
+        verified.put("isVerified", true);
+        assertTrue(ModelMappers.REVIEW.fromMap(verified).isVerified());
+    }
+
+    private static <T> void assertReadsLikeReflection(ModelMapper<T> mapper, Class<T> type, T sample) {
+        Map<String, Object> data = asFirestoreData(reflect(sample));
+        T viaReflection = CustomClassMapper.convertToCustomClass(data, type, null);
+        T viaMapper = mapper.fromMap(data);
+        assertEquals(reflect(viaReflection), reflect(viaMapper));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> reflect(Object model) {
+        return (Map<String, Object>) CustomClassMapper.convertToPlainJavaTypes(model);
+    }
+
+    // Firestore hands back every whole number as a Long
+    private static Map<String, Object> asFirestoreData(Map<String, Object> source) {
+        Map<String, Object> data = new HashMap<>(source);
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getValue() instanceof Integer) {
+                entry.setValue(((Integer) entry.getValue()).longValue());
+            }
+        }
+        return data;
+    }
+
+    private static Job sampleJob(int i) {
+        Job job = new Job("job_" + i, "client_" + i, "Client " + i, "Boundary wall " + i,
+                "Build a 40ft boundary wall", "Masonry", 250000 + i, "2 weeks", "Lahore");
+        job.setTotalBids(i % 7);
+        job.setAttachments(Arrays.asList("https://example.com/a.jpg", "https://example.com/b.jpg"));
+        return job;
+    }
+
+    private static Bid sampleBid(int i) {
+        Bid bid = new Bid("bid_" + i, "job_" + i, "Boundary wall", "contractor_" + i,
+                "Contractor " + i, 240000 + i, 12, "Experienced team");
+        bid.setContractorRating(4.5);
+        bid.setContractorCompletedProjects(i);
+        return bid;
+    }
+
+    private static Task sampleTask(int i) {
+        Task task = new Task("task_" + i, "job_" + i, "Project " + i, "Plaster",
+                "Plaster the north wall", "Team A", 4);
+        task.setEstimatedQuantity(1200);
+        task.setCompletedQuantity(300 + i);
+        task.setProgressUnit("sqft");
+        task.calculateProgress();
+        return task;
+    }
+
+    private static Material sampleMaterial(int i) {
+        Material material = new Material("mat_" + i, "job_" + i, "Project " + i, "Cement",
+                "Cement", 0, "bags", 1450, "Supplier " + i);
+        material.setLowStockThreshold(20);
+        material.setQuantity(100 + i);
+        return material;
+    }
+
+    private static User sampleUser(int i) {
+        User user = new User("user_" + i, "user" + i + "@example.com", "User " + i,
+                "0300" + i, "contractor");
+        user.setCategory("Plumber");
+        user.setHourlyRate(1500);
+        user.setPortfolioImages(Arrays.asList("https://example.com/p.jpg"));
+        return user;
+    }
+}